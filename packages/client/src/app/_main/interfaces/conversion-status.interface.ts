@@ -0,0 +1,27 @@
+import { JSONParsable } from '@main/interfaces/json-parsable.interface';
+import { ApiFile } from './api-file.interface';
+
+/**
+ * State of image conversion done by the server in background
+ */
+export interface ConversionStatus extends JSONParsable {
+  /**
+   * Conversion ID
+   */
+  id: string;
+
+  /**
+   * Conversion state
+   */
+  state: 'PENDING' | 'DONE' | 'FAILED';
+
+  /**
+   * Converted image - present only if conversion succeeded
+   */
+  file: ApiFile | null;
+
+  /**
+   * Reason of failure - present only if conversion failed
+   */
+  error: string | null;
+}
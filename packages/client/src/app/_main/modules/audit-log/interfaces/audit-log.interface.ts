@@ -11,9 +11,9 @@ export interface AuditLog<T> {
   date: unixTimestamp;
 
   /**
-   * User who made the change
+   * User who made the change; null when the change was made by the system (e.g. GitHub synchronization)
    */
-  user: UserData;
+  user: UserData | null;
 
   /**
    * Project ID
@@ -71,7 +71,7 @@ export class AuditLogProjectEntriesPipe implements PipeTransform {
             oldDeadlineString,
           }) =>
             ({
-              userLabel: `${user.name} ${user.surname}`,
+              userLabel: user ? `${user.name} ${user.surname}` : $localize`System`,
               taskId: task.id,
               projectId: projectId,
               taskLabel: `#${task.id} ${task.name}`,
@@ -0,0 +1,26 @@
+/* tslint:disable:no-unused-variable */
+
+import { HttpClientModule } from '@angular/common/http';
+import { TestBed, inject } from '@angular/core/testing';
+import { ImageConversionService } from './image-conversion.service';
+import { ProtoService } from '@main/services/proto/proto.service';
+import { DumpProtoService } from '@main/services/proto/dump.proto.service';
+
+describe('Service: ImageConversion', () => {
+  beforeEach(() => {
+    TestBed.configureTestingModule({
+      imports: [HttpClientModule],
+      providers: [
+        ImageConversionService,
+        {
+          provide: ProtoService,
+          useClass: DumpProtoService,
+        },
+      ],
+    });
+  });
+
+  it('should ...', inject([ImageConversionService], (service: ImageConversionService) => {
+    expect(service).toBeTruthy();
+  }));
+});
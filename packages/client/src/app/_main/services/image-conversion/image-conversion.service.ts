@@ -0,0 +1,82 @@
+import { Injectable, Injector } from '@angular/core';
+import { ImageConversion } from '@proto/vernite';
+import { filter, first, merge, Observable, of, switchMap, throwError, timer } from 'rxjs';
+import { Service } from '@main/decorators/service/service.decorator';
+import { Errors } from '@main/interfaces/http-error.interface';
+import { ConversionStatus } from '@main/interfaces/conversion-status.interface';
+import { ApiService } from '@main/services/api/api.service';
+import { BaseService } from '@main/services/base/base.service';
+import { ProtoService } from '@main/services/proto/proto.service';
+
+/**
+ * Image conversion service - follows images converted by the server in background
+ */
+@Service()
+@Injectable({
+  providedIn: 'root',
+})
+export class ImageConversionService extends BaseService<
+  Errors<'IMAGE_CONVERSION_FAILED' | 'IMAGE_CONVERSION_NOT_FOUND'>
+> {
+  protected override errorCodes = {
+    IMAGE_CONVERSION_FAILED: {
+      message: $localize`Image could not be converted`,
+    },
+    IMAGE_CONVERSION_NOT_FOUND: {
+      message: $localize`Image conversion not found`,
+    },
+  };
+
+  /** Interval of checking conversion state when no websocket message arrives (in milliseconds) */
+  private static readonly POLL_INTERVAL = 2000;
+
+  constructor(
+    private injector: Injector,
+    private apiService: ApiService,
+    private protoService: ProtoService,
+  ) {
+    super(injector);
+  }
+
+  /**
+   * Gets state of image conversion
+   * @param id conversion ID
+   * @returns Request observable, which completes when request is finished
+   * @throws HTTPError with `404` status if the conversion does not exist
+   */
+  public get(id: string): Observable<ConversionStatus> {
+    return this.apiService.get(`/cdn/conversion/${id}`);
+  }
+
+  /**
+   * Waits until image conversion finishes. Server notifies about it over websocket; state is also
+   * checked periodically in case websocket is not connected or conversion finished before the
+   * upload response arrived.
+   * @param status pending conversion returned by upload
+   * @returns Observable emitting finished conversion and completing
+   * @throws HTTPError with `400` status if the image could not be converted
+   */
+  public finished(status: ConversionStatus): Observable<ConversionStatus> {
+    const message$ = this.protoService.get(ImageConversion).pipe(
+      filter((message) => message.id === status.id),
+      switchMap(() => this.get(status.id)),
+    );
+    const poll$ = timer(
+      ImageConversionService.POLL_INTERVAL,
+      ImageConversionService.POLL_INTERVAL,
+    ).pipe(switchMap(() => this.get(status.id)));
+
+    return merge(of(status), message$, poll$).pipe(
+      first((conversion) => conversion.state !== 'PENDING'),
+      switchMap((conversion) =>
+        conversion.state === 'DONE'
+          ? of(conversion)
+          : throwError(() => ({ status: 400, text: conversion.error || '' })),
+      ),
+      this.validate({
+        400: 'IMAGE_CONVERSION_FAILED',
+        404: 'IMAGE_CONVERSION_NOT_FOUND',
+      }),
+    );
+  }
+}
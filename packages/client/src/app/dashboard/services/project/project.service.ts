@@ -1,6 +1,6 @@
 import { Injectable, Injector } from '@angular/core';
 import { Workspace } from '@dashboard/interfaces/workspace.interface';
-import { map, Observable } from 'rxjs';
+import { map, Observable, switchMap } from 'rxjs';
 import { ApiService } from '@main/services/api/api.service';
 import { Project } from '../../interfaces/project.interface';
 import { Service } from '@main/decorators/service/service.decorator';
@@ -11,6 +11,8 @@ import { Cache } from '@main/decorators/cache/cache.decorator';
 import { unixTimestamp } from '@main/interfaces/date.interface';
 import { AuditLog } from '../../../_main/modules/audit-log/interfaces/audit-log.interface';
 import { Task } from '@tasks/interfaces/task.interface';
+import { ConversionStatus } from '@main/interfaces/conversion-status.interface';
+import { ImageConversionService } from '@main/services/image-conversion/image-conversion.service';
 
 @Service()
 @Injectable({
@@ -35,6 +37,7 @@ export class ProjectService extends BaseService<
     private injector: Injector,
     private apiService: ApiService,
     private workspaceService: WorkspaceService,
+    private imageConversionService: ImageConversionService,
   ) {
     super(injector);
   }
@@ -126,16 +129,26 @@ export class ProjectService extends BaseService<
   }
 
   /**
-   * Save logo for a project
+   * Save logo for a project. Logo is converted by the server in background and changed when
+   * conversion finishes.
    * @param projectId id of the project to save logo for
    * @param file file to save as logo
-   * @returns empty request observable
+   * @returns Observable, which completes when logo is converted and changed
+   * @throws HTTPError with `400` status if the image could not be converted
    */
   public saveLogo(projectId: number, file: File): Observable<void> {
     const formData = new FormData();
     formData.append('file', file);
 
-    return this.apiService.post(`/project/${projectId}/logo`, { body: formData });
+    return this.apiService
+      .post<ConversionStatus>(`/project/${projectId}/logo`, { body: formData })
+      .pipe(
+        this.validate({
+          404: 'PROJECT_NOT_FOUND',
+        }),
+        switchMap((status) => this.imageConversionService.finished(status)),
+        map(() => undefined),
+      );
   }
 
   /**
@@ -148,13 +161,14 @@ export class ProjectService extends BaseService<
   }
 
   /**
-   * Get audit log for a project (changes history)
+   * Get whole audit log for a project (changes history). Uses export endpoint, because
+   * paged endpoint returns only first page of entries.
    * @param projectId id of the project to get audit log for
    * @returns Observable with audit log
    */
   @Cache()
   public auditLog(projectId: number): Observable<AuditLog<Task>[]> {
-    return this.apiService.get<AuditLog<Task>[]>(`/project/${projectId}/auditlog`).pipe(
+    return this.apiService.get<AuditLog<Task>[]>(`/project/${projectId}/auditlog/export`).pipe(
       map((auditLogs) =>
         auditLogs.map((log) => ({
           ...log,
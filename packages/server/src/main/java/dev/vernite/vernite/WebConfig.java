@@ -47,6 +47,7 @@ import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
 
+import dev.vernite.vernite.project.ProjectController;
 import dev.vernite.vernite.user.UserResolver;
 import dev.vernite.vernite.ws.SocketHandler;
 import dev.vernite.vernite.ws.WebSocketInterceptor;
@@ -71,7 +72,8 @@ public class WebConfig implements WebMvcConfigurer, WebSocketConfigurer {
         registry.addMapping("/**")
                 .allowedOrigins("http://localhost:4200", "http://localhost:4201", "https://vernite.dev",
                         "https://insiders.vernite.dev", "tauri://localhost")
-                .allowedMethods("GET", "POST", "PUT", "DELETE");
+                .allowedMethods("GET", "POST", "PUT", "DELETE")
+                .exposedHeaders(ProjectController.NEXT_CURSOR_HEADER);
     }
 
     @Override
@@ -0,0 +1,186 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.auditlog;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary encoding of audit log values. Encoded entry starts with format byte
+ * followed by old, new and same values. Each value is stored as UTF-8 JSON
+ * prefixed with its length plus one as varint, where zero means
+ * {@literal null}. Entries longer than {@link #COMPRESSION_THRESHOLD} bytes are
+ * deflated when it makes them smaller.
+ */
+final class AuditLogCodec {
+
+    /**
+     * Minimal size of values for which compression is tried.
+     */
+    static final int COMPRESSION_THRESHOLD = 256;
+
+    private static final int PLAIN = 0;
+
+    private static final int DEFLATED = 1;
+
+    private AuditLogCodec() {
+    }
+
+    /**
+     * Encodes audit log values.
+     *
+     * @param oldValues  JSON with old values; may be {@literal null}
+     * @param newValues  JSON with new values; may be {@literal null}
+     * @param sameValues JSON with same values; may be {@literal null}
+     * @return encoded values
+     */
+    static byte[] encode(String oldValues, String newValues, String sameValues) {
+        var out = new ByteArrayOutputStream();
+        out.write(PLAIN);
+        writeValue(out, oldValues);
+        writeValue(out, newValues);
+        writeValue(out, sameValues);
+        byte[] plain = out.toByteArray();
+        if (plain.length - 1 < COMPRESSION_THRESHOLD) {
+            return plain;
+        }
+
+        var deflater = new Deflater();
+        var compressed = new ByteArrayOutputStream(plain.length);
+        compressed.write(DEFLATED);
+        try {
+            deflater.setInput(plain, 1, plain.length - 1);
+            deflater.finish();
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                compressed.write(buffer, 0, deflater.deflate(buffer));
+            }
+        } finally {
+            deflater.end();
+        }
+        return compressed.size() < plain.length ? compressed.toByteArray() : plain;
+    }
+
+    /**
+     * Decodes audit log values.
+     *
+     * @param data values encoded with {@link #encode(String, String, String)}
+     * @return array with old, new and same values
+     * @throws IllegalArgumentException when data is malformed
+     */
+    static String[] decode(byte[] data) {
+        byte[] payload = data;
+        int[] position = { 1 };
+        if (data[0] == DEFLATED) {
+            payload = inflate(data);
+            position[0] = 0;
+        } else if (data[0] != PLAIN) {
+            throw new IllegalArgumentException("unknown audit log format " + data[0]);
+        }
+        return new String[] { readValue(payload, position), readValue(payload, position),
+                readValue(payload, position) };
+    }
+
+    /**
+     * @param values JSON values; may contain {@literal null}
+     * @return number of bytes values take as UTF-8 text
+     */
+    static int textSize(String... values) {
+        int size = 0;
+        for (var value : values) {
+            if (value != null) {
+                size += value.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        return size;
+    }
+
+    private static void writeValue(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            out.write(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length + 1;
+        while ((length & ~0x7F) != 0) {
+            out.write((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        out.write(length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readValue(byte[] data, int[] position) {
+        int length = 0;
+        int shift = 0;
+        byte current;
+        do {
+            if (position[0] >= data.length || shift > 28) {
+                throw new IllegalArgumentException("malformed audit log entry");
+            }
+            current = data[position[0]++];
+            length |= (current & 0x7F) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+        if (length == 0) {
+            return null;
+        }
+        length--;
+        if (position[0] + length > data.length) {
+            throw new IllegalArgumentException("malformed audit log entry");
+        }
+        var value = new String(data, position[0], length, StandardCharsets.UTF_8);
+        position[0] += length;
+        return value;
+    }
+
+    private static byte[] inflate(byte[] data) {
+        var inflater = new Inflater();
+        var out = new ByteArrayOutputStream(data.length * 4);
+        try {
+            inflater.setInput(data, 1, data.length - 1);
+            byte[] buffer = new byte[1024];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("truncated audit log entry");
+                }
+                out.write(buffer, 0, count);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("malformed audit log entry", e);
+        } finally {
+            inflater.end();
+        }
+        return out.toByteArray();
+    }
+
+}
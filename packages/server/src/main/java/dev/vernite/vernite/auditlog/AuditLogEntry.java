@@ -0,0 +1,52 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.auditlog;
+
+import java.util.Date;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Single audited change waiting to be written. Entries are captured from
+ * Hibernate dirty state by {@link AuditLogListener} and turned into
+ * audit log rows by {@link AuditLogWriter} in the background.
+ *
+ * @param date       date of the change
+ * @param userId     ID of user who made the change; {@literal null} when made
+ *                   by the system
+ * @param projectId  ID of project the changed entity belongs to
+ * @param type       type of the changed entity
+ * @param oldValues  changed attributes before the change; {@literal null} when
+ *                   created
+ * @param newValues  changed attributes after the change; {@literal null} when
+ *                   deleted
+ * @param sameValues identifying attributes which did not change
+ */
+public record AuditLogEntry(Date date, Long userId, long projectId, String type, JsonNode oldValues,
+        JsonNode newValues, JsonNode sameValues) {
+}
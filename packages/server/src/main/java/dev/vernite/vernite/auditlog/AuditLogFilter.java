@@ -0,0 +1,78 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.auditlog;
+
+import org.springdoc.core.annotations.ParameterObject;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+
+/**
+ * Parameter object for filtering and paging audit log.
+ */
+@Data
+@ParameterObject
+public class AuditLogFilter {
+
+    /**
+     * Timestamp from which entries are included. When {@literal null}, no lower
+     * bound is applied.
+     */
+    private Long from;
+
+    /**
+     * Timestamp before which entries are included. When {@literal null}, no
+     * upper bound is applied.
+     */
+    private Long to;
+
+    /**
+     * Type of changed entity. When {@literal null}, all types are included.
+     */
+    private String type;
+
+    /**
+     * ID of user who made changes. When {@literal null}, all users are included.
+     */
+    private Long userId;
+
+    /**
+     * Cursor returned with previous page. When {@literal null}, first page is
+     * returned.
+     */
+    private String cursor;
+
+    /**
+     * Maximum number of entries in page.
+     */
+    @Min(value = 1, message = "limit must be at least 1")
+    @Max(value = 1000, message = "limit must be at most 1000")
+    private int limit = 100;
+
+}
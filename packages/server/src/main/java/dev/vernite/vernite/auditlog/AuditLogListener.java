@@ -0,0 +1,249 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.auditlog;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.EntityType;
+import org.hibernate.type.Type;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import dev.vernite.vernite.project.Project;
+import dev.vernite.vernite.user.UserResolver;
+import dev.vernite.vernite.utils.HibernateListeners;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Hibernate event listener creating audit log entries for changes of
+ * {@link AuditedEntity} entities. Entries contain only attributes reported
+ * dirty by Hibernate, so entities are never serialized as a whole. Attributes
+ * are named like in entity JSON; associations are stored as IDs under name
+ * with {@code Id} suffix and collections are skipped. Changes made outside of
+ * user request, like scheduled synchronizations, are recorded without user.
+ */
+@Component
+public class AuditLogListener
+        implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    /**
+     * Attributes kept in same values of updates, so entries can be labelled.
+     * Identifier is not Hibernate property, so it is added explicitly unless
+     * other attribute is written as {@code id}, like number of task.
+     */
+    static final Set<String> IDENTIFYING = Set.of("id", "name");
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final AuditLogWriter writer;
+
+    private final ObjectMapper mapper;
+
+    private final Map<String, String[]> attributeNames = new ConcurrentHashMap<>();
+
+    public AuditLogListener(EntityManagerFactory entityManagerFactory, AuditLogWriter writer, ObjectMapper mapper) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.writer = writer;
+        this.mapper = mapper;
+    }
+
+    @PostConstruct
+    private void register() {
+        HibernateListeners.register(entityManagerFactory, this, EventType.POST_INSERT, EventType.POST_UPDATE,
+                EventType.POST_DELETE);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (!(event.getEntity() instanceof AuditedEntity entity)) {
+            return;
+        }
+        var names = attributeNames(event.getPersister());
+        var newValues = mapper.createObjectNode();
+        for (int i = 0; i < names.length; i++) {
+            put(newValues, names[i], event.getPersister(), i, event.getState()[i], event.getSession());
+        }
+        record(entity, event.getPersister(), null, newValues, identifier(names, event.getId()));
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof AuditedEntity entity)) {
+            return;
+        }
+        var persister = event.getPersister();
+        var names = attributeNames(persister);
+        var types = persister.getPropertyTypes();
+        Object[] state = event.getState();
+        Object[] oldState = event.getOldState();
+        int[] dirty = event.getDirtyProperties();
+        var session = event.getSession();
+
+        var oldValues = oldState == null ? null : mapper.createObjectNode();
+        var newValues = mapper.createObjectNode();
+        var sameValues = identifier(names, event.getId());
+        boolean[] changed = new boolean[names.length];
+        if (dirty != null) {
+            for (int i : dirty) {
+                changed[i] = true;
+            }
+        } else {
+            for (int i = 0; i < names.length; i++) {
+                changed[i] = oldState == null || !types[i].isEqual(oldState[i], state[i]);
+            }
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] == null) {
+                continue;
+            }
+            if (changed[i]) {
+                put(newValues, names[i], persister, i, state[i], session);
+                if (oldValues != null) {
+                    put(oldValues, names[i], persister, i, oldState[i], session);
+                }
+            } else if (IDENTIFYING.contains(names[i])) {
+                put(sameValues, names[i], persister, i, state[i], session);
+            }
+        }
+        if (newValues.isEmpty()) {
+            return;
+        }
+        record(entity, persister, oldValues, newValues, sameValues);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (!(event.getEntity() instanceof AuditedEntity entity) || entity instanceof Project) {
+            return;
+        }
+        var names = attributeNames(event.getPersister());
+        var oldValues = mapper.createObjectNode();
+        for (int i = 0; i < names.length; i++) {
+            put(oldValues, names[i], event.getPersister(), i, event.getDeletedState()[i], event.getSession());
+        }
+        record(entity, event.getPersister(), oldValues, null, identifier(names, event.getId()));
+    }
+
+    private ObjectNode identifier(String[] names, Object id) {
+        var node = mapper.createObjectNode();
+        if (!Arrays.asList(names).contains("id")) {
+            node.set("id", mapper.valueToTree(id));
+        }
+        return node;
+    }
+
+    private void record(AuditedEntity entity, EntityPersister persister, JsonNode oldValues, JsonNode newValues,
+            ObjectNode sameValues) {
+        Long userId = currentUserId();
+        String type = persister.getMappedClass().getSimpleName().toLowerCase();
+        writer.record(new AuditLogEntry(new Date(), userId, entity.getProject().getId(), type, oldValues, newValues,
+                sameValues.isEmpty() ? null : sameValues));
+    }
+
+    private void put(ObjectNode node, String name, EntityPersister persister, int index, Object value,
+            SharedSessionContractImplementor session) {
+        if (name == null) {
+            return;
+        }
+        if (value != null && persister.getPropertyTypes()[index] instanceof EntityType entityType) {
+            value = session.getEntityPersister(entityType.getAssociatedEntityName(), value).getIdentifier(value,
+                    session);
+        }
+        node.set(name, mapper.valueToTree(value));
+    }
+
+    /**
+     * Returns names under which attributes of entity are written. Name is
+     * {@literal null} for attributes which are not audited.
+     *
+     * @param persister persister of audited entity
+     * @return names indexed like persister properties
+     */
+    private String[] attributeNames(EntityPersister persister) {
+        return attributeNames.computeIfAbsent(persister.getEntityName(), key -> {
+            Map<String, String> visible = new HashMap<>();
+            var description = mapper.getSerializationConfig().introspect(mapper.constructType(persister.getMappedClass()));
+            for (var property : description.findProperties()) {
+                visible.put(property.getInternalName(), property.getName());
+            }
+            String[] properties = persister.getPropertyNames();
+            Type[] types = persister.getPropertyTypes();
+            String[] names = new String[properties.length];
+            for (int i = 0; i < properties.length; i++) {
+                if (types[i] instanceof EntityType entityType) {
+                    if (!Project.class.getName().equals(entityType.getAssociatedEntityName())) {
+                        names[i] = properties[i] + "Id";
+                    }
+                } else if (!types[i].isCollectionType()) {
+                    names[i] = visible.get(properties[i]);
+                }
+            }
+            return names;
+        });
+    }
+
+    /**
+     * Returns ID of user making current request.
+     *
+     * @return ID of user; {@literal null} when there is no request or it is not
+     *         authenticated
+     */
+    private static Long currentUserId() {
+        var attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        return (Long) attributes.getAttribute(UserResolver.USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+
+}
@@ -0,0 +1,243 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.auditlog;
+
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Component maintaining audit log storage. Audit log table is partitioned by
+ * month, so entries older than retention are removed by dropping whole
+ * partitions. On startup entries from legacy text table are migrated to
+ * compact format.
+ */
+@Component
+public class AuditLogMaintenance {
+
+    private static final Logger L = Logger.getLogger("AuditLogMaintenance");
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private static final String SELECT_PARTITIONS = "SELECT PARTITION_NAME FROM information_schema.PARTITIONS "
+            + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'audit_log_entry' AND PARTITION_NAME IS NOT NULL";
+
+    private static final String LEGACY_EXISTS = "SELECT COUNT(*) FROM information_schema.TABLES "
+            + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'audit_log'";
+
+    private static final String SELECT_LEGACY = "SELECT id, date, user_id, project_id, type, old_values, new_values, "
+            + "same_values FROM audit_log ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String DELETE_LEGACY = "DELETE FROM audit_log WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper mapper;
+
+    private final int retentionMonths;
+
+    private final int monthsAhead;
+
+    private final int batchSize;
+
+    public AuditLogMaintenance(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            ObjectMapper mapper, @Value("${vernite.audit-log.retention-months:0}") int retentionMonths,
+            @Value("${vernite.audit-log.partitions-ahead:2}") int monthsAhead,
+            @Value("${vernite.audit-log.batch-size:100}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.mapper = mapper;
+        this.retentionMonths = retentionMonths;
+        this.monthsAhead = monthsAhead;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Creates partitions and migrates legacy entries. When legacy table exists,
+     * partitions are created from month of its oldest entry.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            boolean legacy = jdbcTemplate.queryForObject(LEGACY_EXISTS, Long.class) > 0;
+            YearMonth first = YearMonth.now();
+            if (legacy) {
+                Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(date) FROM audit_log", Timestamp.class);
+                if (oldest != null && YearMonth.from(oldest.toLocalDateTime()).isBefore(first)) {
+                    first = YearMonth.from(oldest.toLocalDateTime());
+                }
+            }
+            createPartitions(first);
+            if (legacy) {
+                migrateLegacy();
+            }
+        } catch (RuntimeException e) {
+            L.log(Level.SEVERE, "Could not initialize audit log storage", e);
+        }
+    }
+
+    /**
+     * Creates partitions for upcoming months and drops partitions older than
+     * retention. Entries of deleted projects are removed together with project
+     * by {@code remove_old_content} database event.
+     */
+    @Scheduled(cron = "${vernite.audit-log.maintenance-cron:0 0 3 * * *}")
+    public void maintain() {
+        try {
+            createPartitions(YearMonth.now());
+            dropExpiredPartitions();
+        } catch (RuntimeException e) {
+            L.log(Level.SEVERE, "Could not maintain audit log storage", e);
+        }
+    }
+
+    private List<YearMonth> partitions() {
+        List<YearMonth> result = new ArrayList<>();
+        for (var name : jdbcTemplate.queryForList(SELECT_PARTITIONS, String.class)) {
+            if (name.matches("p\\d{6}")) {
+                result.add(YearMonth.parse(name, PARTITION_NAME));
+            }
+        }
+        result.sort(null);
+        return result;
+    }
+
+    private void createPartitions(YearMonth from) {
+        List<YearMonth> existing = partitions();
+        YearMonth next = existing.isEmpty() ? from : existing.get(existing.size() - 1).plusMonths(1);
+        YearMonth until = YearMonth.now().plusMonths(monthsAhead);
+        if (next.isAfter(until)) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder("ALTER TABLE audit_log_entry REORGANIZE PARTITION p_future INTO (");
+        for (YearMonth month = next; !month.isAfter(until); month = month.plusMonths(1)) {
+            sql.append("PARTITION ").append(month.format(PARTITION_NAME)).append(" VALUES LESS THAN ('")
+                    .append(month.plusMonths(1).atDay(1)).append("'), ");
+        }
+        sql.append("PARTITION p_future VALUES LESS THAN (MAXVALUE))");
+        jdbcTemplate.execute(sql.toString());
+    }
+
+    private void dropExpiredPartitions() {
+        if (retentionMonths <= 0) {
+            return;
+        }
+        YearMonth oldestKept = YearMonth.now().minusMonths(retentionMonths);
+        List<String> expired = new ArrayList<>();
+        for (var month : partitions()) {
+            if (month.isBefore(oldestKept)) {
+                expired.add(month.format(PARTITION_NAME));
+            }
+        }
+        if (!expired.isEmpty()) {
+            jdbcTemplate.execute("ALTER TABLE audit_log_entry DROP PARTITION " + String.join(", ", expired));
+            L.info("Dropped audit log partitions " + expired);
+        }
+    }
+
+    private void migrateLegacy() {
+        long[] total = new long[3];
+        long[] batch;
+        do {
+            batch = transactionTemplate.execute(status -> migrateLegacyBatch());
+            for (int i = 0; i < total.length; i++) {
+                total[i] += batch[i];
+            }
+        } while (batch[0] == batchSize);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS audit_log");
+        L.info("Migrated " + total[0] + " audit log entries, " + total[1] + " bytes of text stored in " + total[2]
+                + " bytes");
+    }
+
+    /**
+     * @return number of migrated entries, their size as text and stored size
+     */
+    private long[] migrateLegacyBatch() {
+        long[] sizes = new long[3];
+        List<Object[]> rows = new ArrayList<>();
+        List<Object[]> ids = new ArrayList<>();
+        jdbcTemplate.query(SELECT_LEGACY, rs -> {
+            String oldValues = rs.getString("old_values");
+            String newValues = rs.getString("new_values");
+            String sameValues = rs.getString("same_values");
+            byte[] changes = AuditLogCodec.encode(oldValues, newValues, identifying(sameValues));
+            sizes[1] += AuditLogCodec.textSize(oldValues, newValues, sameValues);
+            sizes[2] += changes.length;
+            rows.add(new Object[] { rs.getTimestamp("date"), rs.getLong("user_id"), rs.getLong("project_id"),
+                    rs.getString("type"), changes });
+            ids.add(new Object[] { rs.getLong("id") });
+        }, batchSize);
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(AuditLogWriter.INSERT, rows);
+            jdbcTemplate.batchUpdate(DELETE_LEGACY, ids);
+        }
+        sizes[0] = rows.size();
+        return sizes;
+    }
+
+    /**
+     * Legacy entries copied every unchanged attribute to same values. Only
+     * identifying attributes are kept.
+     */
+    private String identifying(String sameValues) {
+        if (sameValues == null) {
+            return null;
+        }
+        try {
+            if (!(mapper.readTree(sameValues) instanceof ObjectNode node)) {
+                return null;
+            }
+            node.retain(AuditLogListener.IDENTIFYING);
+            return node.isEmpty() ? null : mapper.writeValueAsString(node);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
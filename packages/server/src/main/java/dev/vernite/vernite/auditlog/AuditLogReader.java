@@ -0,0 +1,262 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.auditlog;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import dev.vernite.vernite.user.User;
+import dev.vernite.vernite.user.UserRepository;
+import dev.vernite.vernite.utils.FieldErrorException;
+
+/**
+ * Service reading audit log with plain JDBC. Entries are ordered from newest by
+ * date and ID and paged with cursor. Stored values are decoded and passed to
+ * response without parsing.
+ */
+@Service
+public class AuditLogReader {
+
+    /**
+     * Page of audit log entries.
+     *
+     * @param entries    entries in page
+     * @param nextCursor cursor of next page; {@literal null} when there are no
+     *                   more entries
+     */
+    public record Page(List<AuditLogView> entries, String nextCursor) {
+    }
+
+    private record Row(long id, Timestamp date, Long userId, String type, String oldValues, String newValues,
+            String sameValues) {
+    }
+
+    private static final String SELECT = "SELECT id, date, user_id, type, changes FROM audit_log_entry "
+            + "WHERE project_id = ?";
+
+    private static final String ORDER = " ORDER BY date DESC, id DESC";
+
+    private static final int EXPORT_BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    private final UserRepository userRepository;
+
+    private final ObjectWriter writer;
+
+    @Autowired
+    public AuditLogReader(JdbcTemplate jdbcTemplate, DataSource dataSource, UserRepository userRepository,
+            ObjectMapper mapper) {
+        this(jdbcTemplate, streaming(dataSource), userRepository, mapper);
+    }
+
+    AuditLogReader(JdbcTemplate jdbcTemplate, JdbcTemplate streamingJdbcTemplate, UserRepository userRepository,
+            ObjectMapper mapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = streamingJdbcTemplate;
+        this.userRepository = userRepository;
+        this.writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    private static JdbcTemplate streaming(DataSource dataSource) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        // MySQL driver streams result set row by row only with this fetch size
+        jdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+        return jdbcTemplate;
+    }
+
+    /**
+     * Reads page of project audit log.
+     *
+     * @param projectId ID of project
+     * @param filter    must not be {@literal null}
+     * @return page with at most {@code filter.limit} entries
+     * @throws FieldErrorException when cursor is malformed
+     */
+    public Page read(long projectId, AuditLogFilter filter) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = where(projectId, filter, args);
+        if (filter.getCursor() != null) {
+            long[] cursor = parseCursor(filter.getCursor());
+            var date = new Timestamp(cursor[0]);
+            sql.append(" AND (date < ? OR (date = ? AND id < ?))");
+            args.add(date);
+            args.add(date);
+            args.add(cursor[1]);
+        }
+        sql.append(ORDER).append(" LIMIT ?");
+        args.add(filter.getLimit() + 1);
+
+        List<Row> rows = jdbcTemplate.query(sql.toString(), (rs, rowNum) -> toRow(rs), args.toArray());
+        String nextCursor = null;
+        if (rows.size() > filter.getLimit()) {
+            rows = rows.subList(0, filter.getLimit());
+            Row last = rows.get(rows.size() - 1);
+            nextCursor = last.date().getTime() + "_" + last.id();
+        }
+
+        Map<Long, User> users = new HashMap<>();
+        loadUsers(rows, users);
+
+        List<AuditLogView> entries = new ArrayList<>(rows.size());
+        rows.forEach(row -> entries.add(toView(row, users.get(row.userId()))));
+        return new Page(entries, nextCursor);
+    }
+
+    /**
+     * Writes whole project audit log matching filter as JSON array. Entries are
+     * streamed from database and written in batches, so memory usage does not
+     * depend on audit log size and users are loaded with one query per batch.
+     * Cursor and limit of filter are ignored.
+     *
+     * @param projectId ID of project
+     * @param filter    must not be {@literal null}
+     * @param out       stream to write to
+     * @throws IOException when writing to stream fails
+     */
+    public void export(long projectId, AuditLogFilter filter, OutputStream out) throws IOException {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = where(projectId, filter, args).append(ORDER);
+        Map<Long, User> users = new HashMap<>();
+        List<Row> batch = new ArrayList<>(EXPORT_BATCH_SIZE);
+        try (var generator = writer.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            streamingJdbcTemplate.query(sql.toString(), rs -> {
+                batch.add(toRow(rs));
+                if (batch.size() == EXPORT_BATCH_SIZE) {
+                    write(generator, batch, users);
+                }
+            }, args.toArray());
+            write(generator, batch, users);
+            generator.writeEndArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void write(JsonGenerator generator, List<Row> batch, Map<Long, User> users) {
+        loadUsers(batch, users);
+        try {
+            for (Row row : batch) {
+                writer.writeValue(generator, toView(row, users.get(row.userId())));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        batch.clear();
+    }
+
+    /**
+     * Loads users of rows which are not loaded yet with single query. Users
+     * which do not exist are remembered as {@literal null}. Rows of system
+     * changes have no user.
+     */
+    private void loadUsers(List<Row> rows, Map<Long, User> users) {
+        Set<Long> missing = new HashSet<>();
+        rows.forEach(row -> {
+            if (row.userId() != null && !users.containsKey(row.userId())) {
+                missing.add(row.userId());
+            }
+        });
+        if (missing.isEmpty()) {
+            return;
+        }
+        userRepository.findAllById(missing).forEach(user -> users.put(user.getId(), user));
+        missing.forEach(id -> users.putIfAbsent(id, null));
+    }
+
+    private static StringBuilder where(long projectId, AuditLogFilter filter, List<Object> args) {
+        StringBuilder sql = new StringBuilder(SELECT);
+        args.add(projectId);
+        if (filter.getFrom() != null) {
+            sql.append(" AND date >= ?");
+            args.add(new Timestamp(filter.getFrom()));
+        }
+        if (filter.getTo() != null) {
+            sql.append(" AND date < ?");
+            args.add(new Timestamp(filter.getTo()));
+        }
+        if (filter.getType() != null) {
+            sql.append(" AND type = ?");
+            args.add(filter.getType());
+        }
+        if (filter.getUserId() != null) {
+            sql.append(" AND user_id = ?");
+            args.add(filter.getUserId());
+        }
+        return sql;
+    }
+
+    private static long[] parseCursor(String cursor) {
+        int separator = cursor.indexOf('_');
+        try {
+            if (separator > 0) {
+                return new long[] { Long.parseLong(cursor.substring(0, separator)),
+                        Long.parseLong(cursor.substring(separator + 1)) };
+            }
+        } catch (NumberFormatException e) {
+            // handled below
+        }
+        throw new FieldErrorException("cursor", "malformed cursor");
+    }
+
+    private static Row toRow(ResultSet rs) throws SQLException {
+        String[] values = AuditLogCodec.decode(rs.getBytes("changes"));
+        return new Row(rs.getLong("id"), rs.getTimestamp("date"), rs.getObject("user_id", Long.class),
+                rs.getString("type"), values[0], values[1], values[2]);
+    }
+
+    private static AuditLogView toView(Row row, User user) {
+        return new AuditLogView(row.date(), user, row.type(), row.oldValues(), row.newValues(), row.sameValues());
+    }
+
+}
@@ -0,0 +1,282 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.auditlog;
+
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.vernite.vernite.utils.HibernateListeners;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Service writing audit log entries outside of the request path. Entries are
+ * accepted with {@link #record(AuditLogEntry)} and written in JDBC batches by a
+ * background writer.
+ */
+@Service
+public class AuditLogWriter {
+
+    /**
+     * Durability of accepted audit log entries.
+     */
+    public enum Durability {
+        /**
+         * Entries are kept in bounded memory queue. They are dropped when queue is
+         * full and lost when application stops unexpectedly.
+         */
+        BEST_EFFORT,
+        /**
+         * Entries are stored in outbox table before request finishes and written
+         * to audit log at least once.
+         */
+        OUTBOX
+    }
+
+    private static final Logger L = Logger.getLogger("AuditLogWriter");
+
+    static final String INSERT = "INSERT INTO audit_log_entry (date, user_id, project_id, type, changes) "
+            + "VALUES (?, ?, ?, ?, ?)";
+
+    private static final String INSERT_OUTBOX = "INSERT INTO audit_log_outbox (date, user_id, project_id, type, "
+            + "old_values, new_values, same_values) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_OUTBOX = "SELECT id, date, user_id, project_id, type, old_values, new_values, "
+            + "same_values FROM audit_log_outbox ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String DELETE_OUTBOX = "DELETE FROM audit_log_outbox WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper mapper;
+
+    private final DistributionSummary textBytes;
+
+    private final DistributionSummary storedBytes;
+
+    private final Durability durability;
+
+    private final int batchSize;
+
+    private final BlockingQueue<AuditLogEntry> queue;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private Thread worker;
+
+    private volatile boolean running;
+
+    public AuditLogWriter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            ObjectMapper mapper, MeterRegistry meterRegistry,
+            @Value("${vernite.audit-log.durability:best-effort}") String durability,
+            @Value("${vernite.audit-log.queue-capacity:10000}") int queueCapacity,
+            @Value("${vernite.audit-log.batch-size:100}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.mapper = mapper;
+        // bytes saved per change are difference between means of these summaries
+        this.textBytes = DistributionSummary.builder("vernite.audit.log.text").baseUnit("bytes")
+                .description("Size of audit log changes as JSON text").register(meterRegistry);
+        this.storedBytes = DistributionSummary.builder("vernite.audit.log.stored").baseUnit("bytes")
+                .description("Size of audit log changes as stored").register(meterRegistry);
+        this.durability = Durability.valueOf(durability.trim().toUpperCase().replace('-', '_'));
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * Accepts audit log entry. In outbox durability entry is stored in outbox
+     * table using current transaction. Otherwise it is put in memory queue once
+     * current transaction commits, so entries of rolled back changes are never
+     * written.
+     *
+     * @param entry must not be {@literal null}
+     */
+    public void record(AuditLogEntry entry) {
+        if (durability == Durability.OUTBOX) {
+            jdbcTemplate.update(INSERT_OUTBOX, new Timestamp(entry.date().getTime()), entry.userId(),
+                    entry.projectId(), entry.type(), serialize(entry.oldValues()), serialize(entry.newValues()),
+                    serialize(entry.sameValues()));
+        } else {
+            HibernateListeners.afterCommit(() -> enqueue(entry));
+        }
+    }
+
+    private void enqueue(AuditLogEntry entry) {
+        if (!queue.offer(entry)) {
+            L.warning("Audit log queue is full, dropped entries: " + dropped.incrementAndGet());
+        }
+    }
+
+    /**
+     * @return number of entries dropped because queue was full
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @PostConstruct
+    private void start() {
+        if (durability != Durability.BEST_EFFORT) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "audit-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    private void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    private void run() {
+        List<AuditLogEntry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                var first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                L.log(Level.SEVERE, "Could not write " + batch.size() + " audit log entries", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Moves entries from outbox table to audit log. Each batch is moved in single
+     * transaction, so entry is removed from outbox only after it was written.
+     */
+    @Scheduled(fixedDelayString = "${vernite.audit-log.outbox-poll-interval:1000}")
+    public void drainOutbox() {
+        if (durability != Durability.OUTBOX) {
+            return;
+        }
+        try {
+            Integer moved;
+            do {
+                moved = transactionTemplate.execute(status -> drainOutboxBatch());
+            } while (moved != null && moved == batchSize);
+        } catch (RuntimeException e) {
+            L.log(Level.SEVERE, "Could not drain audit log outbox", e);
+        }
+    }
+
+    private int drainOutboxBatch() {
+        List<Object[]> ids = new ArrayList<>();
+        List<AuditLogEntry> entries = jdbcTemplate.query(SELECT_OUTBOX, (rs, rowNum) -> {
+            ids.add(new Object[] { rs.getLong("id") });
+            return new AuditLogEntry(rs.getTimestamp("date"), rs.getObject("user_id", Long.class), rs.getLong("project_id"),
+                    rs.getString("type"), parse(rs.getString("old_values")), parse(rs.getString("new_values")),
+                    parse(rs.getString("same_values")));
+        }, batchSize);
+        write(entries);
+        jdbcTemplate.batchUpdate(DELETE_OUTBOX, ids);
+        return ids.size();
+    }
+
+    private void write(List<AuditLogEntry> entries) throws DataAccessException {
+        List<Object[]> rows = new ArrayList<>(entries.size());
+        for (var entry : entries) {
+            rows.add(toRow(entry));
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT, rows);
+        }
+    }
+
+    private Object[] toRow(AuditLogEntry entry) {
+        String oldValues = serialize(entry.oldValues());
+        String newValues = serialize(entry.newValues());
+        String sameValues = serialize(entry.sameValues());
+        byte[] changes = AuditLogCodec.encode(oldValues, newValues, sameValues);
+        textBytes.record(AuditLogCodec.textSize(oldValues, newValues, sameValues));
+        storedBytes.record(changes.length);
+        return new Object[] { new Timestamp(entry.date().getTime()), entry.userId(), entry.projectId(), entry.type(),
+                changes };
+    }
+
+    private String serialize(JsonNode node) {
+        if (node == null) {
+            return null;
+        }
+        try {
+            return mapper.writeValueAsString(node);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private JsonNode parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return mapper.readTree(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
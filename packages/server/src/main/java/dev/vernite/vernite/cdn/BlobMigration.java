@@ -0,0 +1,119 @@
+package dev.vernite.vernite.cdn;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Component moving file contents from database to {@link BlobStore}. Contents
+ * are moved one by one in background after startup, files are served from
+ * database until their content is moved.
+ */
+@Component
+public class BlobMigration {
+
+    private static final Logger L = Logger.getLogger("BlobMigration");
+
+    private static final String SELECT_COLUMN = "SELECT IS_NULLABLE, COLUMN_TYPE FROM information_schema.COLUMNS "
+            + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'file' AND COLUMN_NAME = 'file'";
+
+    private static final String SELECT_PENDING = "SELECT id, hash FROM file WHERE file IS NOT NULL AND id > ? "
+            + "ORDER BY id LIMIT 100";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final BlobStore blobStore;
+
+    /**
+     * @param fileRepository not used, makes sure file table exists before
+     *                       migration
+     */
+    public BlobMigration(JdbcTemplate jdbcTemplate, BlobStore blobStore, FileRepository fileRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blobStore = blobStore;
+    }
+
+    /**
+     * Allows files without content in database. Schema update does not relax
+     * existing column, so it is altered here before any file is uploaded.
+     */
+    @PostConstruct
+    private void allowEmptyContent() {
+        List<Map<String, Object>> column = jdbcTemplate.queryForList(SELECT_COLUMN);
+        if (!column.isEmpty() && "NO".equals(column.get(0).get("IS_NULLABLE"))) {
+            jdbcTemplate.execute("ALTER TABLE `file` MODIFY `file` " + column.get(0).get("COLUMN_TYPE") + " NULL");
+        }
+    }
+
+    /**
+     * Moves contents of all files from database to blob store. Content is
+     * removed from database only after it was stored and verified. Files which
+     * cannot be moved are logged and skipped, they are served from database
+     * and moved again on next startup.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        long lastId = 0;
+        int moved = 0;
+        int failed = 0;
+        try {
+            List<Map<String, Object>> pending;
+            do {
+                pending = jdbcTemplate.queryForList(SELECT_PENDING, lastId);
+                for (var file : pending) {
+                    lastId = ((Number) file.get("id")).longValue();
+                    if (move(lastId, (String) file.get("hash"))) {
+                        moved++;
+                    } else {
+                        failed++;
+                    }
+                }
+            } while (!pending.isEmpty());
+        } catch (DataAccessException e) {
+            L.log(Level.SEVERE, "Could not move files to blob store", e);
+        }
+        if (moved > 0) {
+            L.info("Moved " + moved + " files to blob store");
+        }
+        if (failed > 0) {
+            L.warning("Could not move " + failed + " files to blob store");
+        }
+    }
+
+    private boolean move(long id, String hash) {
+        try {
+            jdbcTemplate.query("SELECT file FROM file WHERE id = ?", rs -> {
+                try (InputStream data = rs.getBinaryStream("file")) {
+                    if (data != null) {
+                        blobStore.put(hash, data);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, id);
+            jdbcTemplate.update("UPDATE file SET file = NULL WHERE id = ?", id);
+            return true;
+        } catch (UncheckedIOException e) {
+            L.log(Level.WARNING, "Could not move file " + hash + " to blob store", e.getCause());
+        } catch (RuntimeException e) {
+            // e.g. invalid hash rejected by blob store or error of single row
+            L.log(Level.WARNING, "Could not move file " + hash + " to blob store", e);
+        }
+        return false;
+    }
+
+}
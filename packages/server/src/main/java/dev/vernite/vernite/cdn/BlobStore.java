@@ -0,0 +1,49 @@
+package dev.vernite.vernite.cdn;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * Storage of file contents addressed by their SHA-256 hash.
+ */
+public interface BlobStore {
+
+    /**
+     * Stores content unless content with the same hash is already stored.
+     * 
+     * @param hash hex encoded SHA-256 hash of content
+     * @param data content; it is read fully but not closed
+     * @throws IOException if content could not be stored or does not match hash
+     */
+    void put(String hash, InputStream data) throws IOException;
+
+    /**
+     * Stores content of local file unless content with the same hash is already
+     * stored. File may be moved into store, so caller must not use it afterwards.
+     * Hash is trusted and may not be verified, so it must be computed by caller
+     * from the content of file.
+     * 
+     * @param hash hex encoded SHA-256 hash of content
+     * @param file file with content
+     * @throws IOException if content could not be stored
+     */
+    default void put(String hash, Path file) throws IOException {
+        try (InputStream data = Files.newInputStream(file)) {
+            put(hash, data);
+        }
+    }
+
+    /**
+     * Returns stored content. Resources backed by local files are served by
+     * kernel without copying content through application.
+     * 
+     * @param hash hex encoded SHA-256 hash of content
+     * @return content or {@literal null} when it is not stored
+     */
+    Resource get(String hash);
+
+}
@@ -0,0 +1,19 @@
+package dev.vernite.vernite.cdn;
+
+/**
+ * State of image conversion returned to client.
+ * 
+ * @param id    ID of conversion
+ * @param state state of conversion
+ * @param file  converted image when conversion is done, otherwise
+ *              {@literal null}
+ * @param error reason of failure when conversion failed, otherwise
+ *              {@literal null}
+ */
+public record ConversionStatus(String id, State state, File file, String error) {
+
+    public enum State {
+        PENDING, DONE, FAILED
+    }
+
+}
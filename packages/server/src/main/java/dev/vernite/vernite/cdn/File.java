@@ -32,7 +32,10 @@ public class File {
     @Column(nullable = false)
     private String contentType;
 
-    @Column(nullable = false)
+    /**
+     * Content stored in database by older versions. It is moved to
+     * {@link BlobStore} on startup and is {@literal null} afterwards.
+     */
     @JsonIgnore
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
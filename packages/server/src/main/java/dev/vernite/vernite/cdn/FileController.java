@@ -1,21 +1,50 @@
 package dev.vernite.vernite.cdn;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.sql.Blob;
 import java.sql.SQLException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StreamUtils;
 
+import dev.vernite.vernite.utils.ImageConverter.Format;
 import dev.vernite.vernite.utils.ObjectNotFoundException;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.AllArgsConstructor;
 
 /**
@@ -26,24 +55,314 @@ import lombok.AllArgsConstructor;
 @RequestMapping("/cdn")
 public class FileController {
 
+    private static final Logger L = Logger.getLogger("FileController");
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private FileRepository fileRepository;
 
+    private FileManager fileManager;
+
+    private BlobStore blobStore;
+
+    private HotFileCache hotFileCache;
+
+    private RenditionService renditionService;
+
     /**
-     * Returns file stored on the server.
+     * Content of cached file.
+     */
+    private static class BufferResource extends AbstractResource {
+
+        private final ByteBuffer content;
+
+        BufferResource(ByteBuffer content) {
+            this.content = content;
+        }
+
+        @Override
+        public String getDescription() {
+            return "cached file";
+        }
+
+        @Override
+        public long contentLength() {
+            return content.remaining();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            byte[] bytes = new byte[content.remaining()];
+            content.duplicate().get(bytes);
+            return new ByteArrayInputStream(bytes);
+        }
+
+    }
+
+    /**
+     * Returns file stored on the server. Small files are kept in memory by
+     * {@link HotFileCache}. Other files in local blob store are sent with
+     * sendfile when server supports it, otherwise they are copied by file
+     * channel. Byte ranges requested with {@code Range} header are returned
+     * with status 206, multiple ranges as {@code multipart/byteranges}.
+     * Invalid {@code Range} header is ignored and whole file is returned;
+     * status 416 is returned only when no requested range is satisfiable.
      * 
-     * @param req  request
-     * @param hash hash of the file
-     * @return file
+     * @param req     request
+     * @param hash    hash of the file
+     * @param range   requested byte ranges
+     * @param ifRange entity tag or date of file version for which ranges are
+     *                requested
+     * @return file or its parts
      */
     @GetMapping("/{hash}")
-    public ResponseEntity<StreamingResponseBody> getFile(NativeWebRequest req, @PathVariable String hash) {
-        File f = fileRepository.findByHash(hash);
-        if (f == null) {
+    public ResponseEntity<StreamingResponseBody> getFile(NativeWebRequest req, @PathVariable String hash,
+            @RequestHeader(name = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(name = HttpHeaders.IF_RANGE, required = false) String ifRange) throws IOException {
+        var cached = hotFileCache.get(hash);
+        File f = cached == null ? fileManager.findFile(hash) : null;
+        if (cached == null && f == null) {
             throw new ObjectNotFoundException();
         }
-        if (req.checkNotModified(f.getHash(), f.getUploaded().getTime())) {
+        String contentType = cached != null ? cached.contentType() : f.getContentType();
+        long uploaded = cached != null ? cached.uploaded() : f.getUploaded().getTime();
+        if (req.checkNotModified(hash, uploaded)) {
             return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
         }
+        Resource blob;
+        if (cached != null) {
+            blob = new BufferResource(cached.content());
+        } else {
+            blob = blobStore.get(hash);
+            byte[] content = null;
+            if (blob == null) {
+                File legacy = fileRepository.findByHash(hash);
+                if (legacy == null || legacy.getFile() == null) {
+                    throw new ObjectNotFoundException();
+                }
+                content = getSmallLegacyFile(legacy);
+                if (content == null) {
+                    return getLegacyFile(legacy);
+                }
+            } else if (hotFileCache.accepts(blob.contentLength())) {
+                content = blob.getContentAsByteArray();
+            }
+            if (content != null) {
+                blob = new BufferResource(hotFileCache.put(hash, contentType, uploaded, content).content());
+            }
+        }
+        long len = blob.contentLength();
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        List<ResourceRegion> regions = List.of();
+        if (range != null && isCurrent(ifRange, hash, uploaded)) {
+            List<HttpRange> ranges = parseRanges(range);
+            if (!ranges.isEmpty()) {
+                ranges = ranges.stream().filter(r -> r.getRangeStart(len) < len).toList();
+                if (ranges.isEmpty()) {
+                    return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                            .header(HttpHeaders.CONTENT_RANGE, "bytes */" + len).build();
+                }
+                try {
+                    regions = HttpRange.toResourceRegions(ranges, blob);
+                } catch (IllegalArgumentException e) {
+                    // ranges covering whole file together are served as full content
+                    regions = List.of();
+                }
+            }
+        }
+        var response = ResponseEntity.status(regions.isEmpty() ? HttpStatus.OK : HttpStatus.PARTIAL_CONTENT)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CACHE_CONTROL, "public, max-age=604800, immutable");
+        if (regions.isEmpty()) {
+            return send(req, response.contentType(mediaType), blob, 0, len);
+        }
+        if (regions.size() == 1) {
+            var region = regions.get(0);
+            response.header(HttpHeaders.CONTENT_RANGE, contentRange(region, len)).contentType(mediaType);
+            return send(req, response, blob, region.getPosition(), region.getCount());
+        }
+        return sendMultipart(response, blob, regions, mediaType, len);
+    }
+
+    /**
+     * Returns image generated from file in given width. Format is taken from
+     * parameter or chosen from {@code Accept} header: WebP when client accepts
+     * it, otherwise PNG. Rendition is generated once and served like other files
+     * afterwards. Request is processed asynchronously, so no request thread
+     * waits while rendition is generated.
+     * 
+     * @param req     request
+     * @param hash    hash of the original file
+     * @param width   width of image; must be one of allowed widths
+     * @param type    format of image, {@code webp} or {@code png}
+     * @param accept  media types accepted by client
+     * @param range   requested byte ranges
+     * @param ifRange entity tag or date of file version for which ranges are
+     *                requested
+     * @return image or its parts
+     */
+    @GetMapping("/{hash}/rendition")
+    @ApiResponse(description = "Width or format is not allowed.", responseCode = "400")
+    @ApiResponse(description = "File is not an image.", responseCode = "422")
+    @ApiResponse(description = "Rendition could not be generated in time.", responseCode = "503")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> getRendition(NativeWebRequest req,
+            @PathVariable String hash, @RequestParam int width,
+            @RequestParam(name = "format", required = false) String type,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(name = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(name = HttpHeaders.IF_RANGE, required = false) String ifRange) {
+        boolean negotiated = type == null;
+        Format format;
+        if (!negotiated) {
+            try {
+                format = Format.valueOf(type.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format not supported");
+            }
+        } else {
+            // image/* or */* is sent also by clients which cannot display WebP
+            format = accept != null && accept.contains(Format.WEBP.getContentType()) ? Format.WEBP : Format.PNG;
+        }
+        return renditionService.getRendition(hash, width, format).thenApply(rendition -> {
+            ResponseEntity<StreamingResponseBody> response;
+            try {
+                response = getFile(req, rendition, range, ifRange);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (!negotiated) {
+                return response;
+            }
+            return ResponseEntity.status(response.getStatusCode()).headers(response.getHeaders())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT).body(response.getBody());
+        });
+    }
+
+    /**
+     * Checks {@code If-Range} precondition. Ranges are returned only when it is
+     * missing or matches current entity tag or modification date of file.
+     */
+    private static boolean isCurrent(String ifRange, String hash, long uploaded) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // weak entity tags never match
+            return ifRange.equals("\"" + hash + "\"");
+        }
+        try {
+            long date = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toEpochSecond();
+            return date == uploaded / 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Parses {@code Range} header. Header which is malformed, uses other unit
+     * than bytes or has too many ranges is ignored as allowed by RFC 7233.
+     *
+     * @return requested ranges or empty list when header is ignored
+     */
+    private static List<HttpRange> parseRanges(String range) {
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+
+    private static String contentRange(ResourceRegion region, long len) {
+        return "bytes " + region.getPosition() + "-" + (region.getPosition() + region.getCount() - 1) + "/" + len;
+    }
+
+    private ResponseEntity<StreamingResponseBody> send(NativeWebRequest req,
+            ResponseEntity.BodyBuilder response, Resource blob, long position, long count) throws IOException {
+        response.contentLength(count);
+        HttpServletRequest request = req.getNativeRequest(HttpServletRequest.class);
+        if (blob.isFile() && request != null && HttpMethod.GET.matches(request.getMethod())
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, blob.getFile().getAbsolutePath());
+            request.setAttribute(SENDFILE_START, position);
+            request.setAttribute(SENDFILE_END, position + count);
+            return response.build();
+        }
+        return response.body(out -> copy(blob, position, count, out));
+    }
+
+    private ResponseEntity<StreamingResponseBody> sendMultipart(ResponseEntity.BodyBuilder response,
+            Resource blob, List<ResourceRegion> regions, MediaType contentType, long len) {
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        List<byte[]> headers = new ArrayList<>(regions.size());
+        long length = 0;
+        for (var region : regions) {
+            byte[] header = ("\r\n--" + boundary + "\r\nContent-Type: " + contentType + "\r\nContent-Range: "
+                    + contentRange(region, len) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+            headers.add(header);
+            length += header.length + region.getCount();
+        }
+        byte[] end = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        length += end.length;
+        return response.contentType(MediaType.parseMediaType("multipart/byteranges; boundary=" + boundary))
+                .contentLength(length).body(out -> {
+                    for (int i = 0; i < regions.size(); i++) {
+                        out.write(headers.get(i));
+                        copy(blob, regions.get(i).getPosition(), regions.get(i).getCount(), out);
+                    }
+                    out.write(end);
+                });
+    }
+
+    /**
+     * Copies part of content. Cached files are copied from memory, local files
+     * are read from given position with file channel, other contents are skipped
+     * to it.
+     */
+    private void copy(Resource blob, long position, long count, OutputStream out) throws IOException {
+        if (blob instanceof BufferResource buffer) {
+            var content = buffer.content.duplicate().position((int) position).limit((int) (position + count));
+            Channels.newChannel(out).write(content);
+            hotFileCache.served(count);
+        } else if (blob.isFile()) {
+            try (FileChannel channel = FileChannel.open(blob.getFile().toPath())) {
+                var target = Channels.newChannel(out);
+                long end = position + count;
+                while (position < end) {
+                    position += channel.transferTo(position, end - position, target);
+                }
+            }
+        } else {
+            try (InputStream is = blob.getInputStream()) {
+                StreamUtils.copyRange(is, out, position, position + count - 1);
+            }
+        }
+    }
+
+    /**
+     * Reads file which was not yet moved from database to blob store when it is
+     * small enough to be cached.
+     * 
+     * @return content of file or {@literal null} when it is too large
+     */
+    private byte[] getSmallLegacyFile(File f) {
+        try {
+            Blob b = f.getFile();
+            return hotFileCache.accepts(b.length()) ? b.getBytes(1, (int) b.length()) : null;
+        } catch (SQLException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "sql error", e);
+        }
+    }
+
+    /**
+     * Returns file which was not yet moved from database to blob store.
+     */
+    private ResponseEntity<StreamingResponseBody> getLegacyFile(File f) {
         try {
             Blob b = f.getFile();
             long len = b.length();
@@ -56,7 +375,7 @@ public class FileController {
                         is.transferTo(out);
                     });
         } catch (SQLException e) {
-            e.printStackTrace();
+            L.log(Level.SEVERE, "Could not read file " + f.getHash() + " from database", e);
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "sql error");
         }
     }
@@ -1,16 +1,22 @@
 package dev.vernite.vernite.cdn;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.sql.SQLException;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.HexFormat;
 
-import javax.sql.rowset.serial.SerialBlob;
-
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 @Service
 @Component
@@ -18,9 +24,15 @@ public class FileManager {
 
     @Autowired
     private FileRepository fileRepository;
-    
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     /**
-     * Saves a file to the database or returns the existing one.
+     * Saves a file to the blob store or returns the existing one.
      * @param contentType
      * @param data
      * @return the file
@@ -31,17 +43,102 @@ public class FileManager {
         if (f != null) {
             return f;
         }
-        f = new File();
+        try {
+            blobStore.put(hash, new ByteArrayInputStream(data));
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "io error");
+        }
+        return saveFile(contentType, hash);
+    }
+
+    /**
+     * Saves a local file to the blob store or returns the existing one with the
+     * same hash. Local file is moved or deleted.
+     * @param contentType content type of the file
+     * @param hash hex encoded SHA-256 hash of the file
+     * @param data local file
+     * @return the file
+     * @throws IOException if the file could not be stored
+     */
+    public File uploadFile(String contentType, String hash, Path data) throws IOException {
+        File f = fileRepository.findByHash(hash);
+        if (f != null) {
+            Files.deleteIfExists(data);
+            return f;
+        }
+        blobStore.put(hash, data);
+        return saveFile(contentType, hash);
+    }
+
+    private File saveFile(String contentType, String hash) {
+        File f = new File();
         f.setContentType(contentType);
         f.setHash(hash);
         f.setUploaded(new Date());
+        return fileRepository.save(f);
+    }
+
+    /**
+     * Returns file without its content. File is read with plain JDBC, so no
+     * database connection stays bound to request while content is sent.
+     * @param hash hash of the file
+     * @return the file or null when it does not exist
+     */
+    public File findFile(String hash) {
+        var files = jdbcTemplate.query("SELECT id, uploaded, hash, content_type FROM file WHERE hash = ?",
+                (rs, rowNum) -> {
+                    File f = new File();
+                    f.setId(rs.getLong("id"));
+                    f.setUploaded(new Date(rs.getTimestamp("uploaded").getTime()));
+                    f.setHash(rs.getString("hash"));
+                    f.setContentType(rs.getString("content_type"));
+                    return f;
+                }, hash);
+        return files.isEmpty() ? null : files.get(0);
+    }
+
+    /**
+     * Reads content of a file into memory.
+     * @param hash hash of the file
+     * @return content or null when it is not stored
+     * @throws IOException if content could not be read
+     */
+    public byte[] readFile(String hash) throws IOException {
+        Resource resource = blobStore.get(hash);
+        if (resource != null) {
+            return resource.getContentAsByteArray();
+        }
+        File f = fileRepository.findByHash(hash);
+        if (f == null || f.getFile() == null) {
+            return null;
+        }
+        try {
+            return f.getFile().getBytes(1, (int) f.getFile().length());
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Returns size of content of a file without reading it.
+     * @param hash hash of the file
+     * @return size in bytes or -1 when content is not stored
+     * @throws IOException if size could not be read
+     */
+    public long getSize(String hash) throws IOException {
+        Resource resource = blobStore.get(hash);
+        if (resource != null) {
+            return resource.contentLength();
+        }
+        File f = fileRepository.findByHash(hash);
+        if (f == null || f.getFile() == null) {
+            return -1;
+        }
         try {
-            f.setFile(new SerialBlob(data));
+            return f.getFile().length();
         } catch (SQLException e) {
-            // never happens
+            throw new IOException(e);
         }
-        f = fileRepository.save(f);
-        return f;
     }
 
     private static String calculateHash(byte[] data) {
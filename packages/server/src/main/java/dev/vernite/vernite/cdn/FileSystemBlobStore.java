@@ -0,0 +1,106 @@
+package dev.vernite.vernite.cdn;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Blob store keeping contents in local directory. Contents are sharded into
+ * two levels of directories by first four characters of hash, so no directory
+ * grows too large.
+ */
+@Component
+public class FileSystemBlobStore implements BlobStore {
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+
+    public FileSystemBlobStore(@Value("${vernite.cdn.path:cdn}") Path root) {
+        this.root = root.toAbsolutePath();
+    }
+
+    /**
+     * @param hash hex encoded SHA-256 hash
+     * @return path of content with hash
+     * @throws IllegalArgumentException if hash is not valid SHA-256 hash
+     */
+    Path path(String hash) {
+        if (!HASH.matcher(hash).matches()) {
+            throw new IllegalArgumentException("invalid hash " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    @Override
+    public void put(String hash, InputStream data) throws IOException {
+        Path target = path(hash);
+        if (Files.exists(target)) {
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), hash, ".tmp");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+                data.transferTo(out);
+            }
+            if (!hash.equals(HexFormat.of().formatHex(digest.digest()))) {
+                throw new IOException("content does not match hash " + hash);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Moves file into store. Content is not hashed again: hash is trusted, as
+     * files are put only by {@link UploadManager} which hashes every received
+     * byte. File must be on the same file system as store to be moved
+     * atomically.
+     */
+    @Override
+    public void put(String hash, Path file) throws IOException {
+        Path target = path(hash);
+        if (Files.exists(target)) {
+            Files.deleteIfExists(file);
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(file, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            try (InputStream data = Files.newInputStream(file)) {
+                put(hash, data);
+            }
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Override
+    public Resource get(String hash) {
+        if (!HASH.matcher(hash).matches()) {
+            return null;
+        }
+        Path path = path(hash);
+        return Files.isRegularFile(path) ? new FileSystemResource(path) : null;
+    }
+
+}
@@ -0,0 +1,142 @@
+package dev.vernite.vernite.cdn;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Size bounded cache of small files keyed by hash. Content of file with given
+ * hash never changes, so entries are never invalidated, only least recently
+ * used entries are evicted when cache is full.
+ */
+@Component
+public class HotFileCache {
+
+    /**
+     * Cached file.
+     * 
+     * @param contentType content type of file
+     * @param uploaded    upload time in milliseconds
+     * @param content     read-only content
+     */
+    record Entry(String contentType, long uploaded, ByteBuffer content) {
+    }
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final long maxSize;
+
+    private final int maxObjectSize;
+
+    private final boolean direct;
+
+    private long size;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter served;
+
+    public HotFileCache(MeterRegistry meterRegistry,
+            @Value("${vernite.cdn.cache-size:67108864}") long maxSize,
+            @Value("${vernite.cdn.cache-max-object-size:262144}") int maxObjectSize,
+            @Value("${vernite.cdn.cache-direct:true}") boolean direct) {
+        this.maxSize = maxSize;
+        this.maxObjectSize = maxObjectSize;
+        this.direct = direct;
+        this.hits = Counter.builder("vernite.cdn.cache").tag("result", "hit")
+                .description("File requests served from memory").register(meterRegistry);
+        this.misses = Counter.builder("vernite.cdn.cache").tag("result", "miss")
+                .description("File requests which required reading file").register(meterRegistry);
+        this.served = Counter.builder("vernite.cdn.cache.served").baseUnit("bytes")
+                .description("Bytes of files served from memory").register(meterRegistry);
+        Gauge.builder("vernite.cdn.cache.size", this, HotFileCache::size).baseUnit("bytes")
+                .description("Bytes of cached files").register(meterRegistry);
+        Gauge.builder("vernite.cdn.cache.hit.ratio", this, HotFileCache::hitRatio)
+                .description("Ratio of file requests served from memory").register(meterRegistry);
+    }
+
+    /**
+     * Returns cached file and records cache hit or miss.
+     * 
+     * @param hash hash of file
+     * @return cached file or {@literal null} when file must be read
+     */
+    Entry get(String hash) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(hash);
+        }
+        if (entry == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    /**
+     * Records bytes sent from cached file.
+     * 
+     * @param bytes number of bytes
+     */
+    void served(long bytes) {
+        served.increment(bytes);
+    }
+
+    /**
+     * @param length size of file in bytes
+     * @return whether file of given size can be cached
+     */
+    boolean accepts(long length) {
+        return length <= maxObjectSize && length <= maxSize;
+    }
+
+    /**
+     * Caches file, evicting least recently used files when needed.
+     * 
+     * @param hash        hash of file
+     * @param contentType content type of file
+     * @param uploaded    upload time in milliseconds
+     * @param content     file content; must be accepted by
+     *                    {@link #accepts(long)}
+     * @return cached file
+     */
+    Entry put(String hash, String contentType, long uploaded, byte[] content) {
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(content.length) : ByteBuffer.allocate(content.length);
+        buffer.put(content).flip();
+        var entry = new Entry(contentType, uploaded, buffer.asReadOnlyBuffer());
+        synchronized (this) {
+            var old = entries.put(hash, entry);
+            if (old != null) {
+                size -= old.content().capacity();
+            }
+            size += content.length;
+            Iterator<Entry> it = entries.values().iterator();
+            while (size > maxSize && it.hasNext()) {
+                size -= it.next().content().capacity();
+                it.remove();
+            }
+        }
+        return entry;
+    }
+
+    synchronized long size() {
+        return size;
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+}
@@ -0,0 +1,36 @@
+package dev.vernite.vernite.cdn;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import dev.vernite.vernite.user.User;
+import io.swagger.v3.oas.annotations.Parameter;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+
+/**
+ * Controller for checking state of image conversions.
+ */
+@RestController
+@AllArgsConstructor
+@RequestMapping("/cdn/conversion")
+public class ImageConversionController {
+
+    private ImageConversionService imageConversionService;
+
+    /**
+     * Returns state of image conversion. Clients connected to web socket are also
+     * notified when conversion finishes.
+     * 
+     * @param user logged in user
+     * @param id   ID of conversion
+     * @return state of conversion
+     */
+    @GetMapping("/{id}")
+    public ConversionStatus getConversion(@NotNull @Parameter(hidden = true) User user, @PathVariable String id) {
+        return imageConversionService.status(user.getId(), id);
+    }
+
+}
@@ -0,0 +1,288 @@
+package dev.vernite.vernite.cdn;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import dev.vernite.protobuf.ImageConversion;
+import dev.vernite.vernite.cdn.ConversionStatus.State;
+import dev.vernite.vernite.utils.ImageConverter;
+import dev.vernite.vernite.utils.ImageConverter.Format;
+import dev.vernite.vernite.utils.ObjectNotFoundException;
+import dev.vernite.vernite.ws.SocketHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Service converting images outside of request threads.
+ * Conversions run on bounded pool of workers with bounded queue; when queue
+ * or native memory budget is full new conversions are rejected immediately.
+ * User who started conversion is notified through web socket when it
+ * finishes.
+ */
+@Service
+public class ImageConversionService {
+
+    private static final Logger L = Logger.getLogger("ImageConversionService");
+
+    /**
+     * Native memory used by conversion apart from copy of input, mostly decoded
+     * and scaled frames and codec contexts.
+     */
+    private static final long NATIVE_OVERHEAD = 16 * 1024 * 1024;
+
+    private static final long KEEP_FINISHED = TimeUnit.MINUTES.toNanos(10);
+
+    /**
+     * Conversion with time of its last state change from {@link System#nanoTime()}.
+     */
+    private record Job(long userId, long time, ConversionStatus status) {
+    }
+
+    private final FileManager fileManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ThreadPoolExecutor executor;
+
+    private final long timeout;
+
+    private final long nativeMemory;
+
+    private final AtomicLong reserved = new AtomicLong();
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private final Timer conversions;
+
+    private final Timer failures;
+
+    private final Timer queueWait;
+
+    private final Counter rejected;
+
+    public ImageConversionService(FileManager fileManager, TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${vernite.image.threads:0}") int threads,
+            @Value("${vernite.image.queue-size:32}") int queueSize,
+            @Value("${vernite.image.timeout:PT30S}") Duration timeout,
+            @Value("${vernite.image.native-memory:268435456}") long nativeMemory) {
+        this.fileManager = fileManager;
+        this.transactionTemplate = transactionTemplate;
+        this.timeout = timeout.toNanos();
+        this.nativeMemory = nativeMemory;
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), r -> {
+                    Thread t = new Thread(r, "image-conversion-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.conversions = Timer.builder("vernite.image.conversion").tag("result", "success")
+                .description("Image conversions").register(meterRegistry);
+        this.failures = Timer.builder("vernite.image.conversion").tag("result", "failure")
+                .description("Image conversions").register(meterRegistry);
+        this.queueWait = Timer.builder("vernite.image.queue.wait")
+                .description("Time image conversions waited for worker").register(meterRegistry);
+        this.rejected = Counter.builder("vernite.image.rejected")
+                .description("Image conversions rejected because service was busy").register(meterRegistry);
+        Gauge.builder("vernite.image.queue.size", executor, e -> e.getQueue().size())
+                .description("Image conversions waiting for worker").register(meterRegistry);
+        Gauge.builder("vernite.image.native.reserved", reserved, AtomicLong::get).baseUnit("bytes")
+                .description("Native memory reserved by image conversions").register(meterRegistry);
+    }
+
+    /**
+     * Starts conversion of image to 400x400 WebP.
+     * 
+     * @param userId   ID of user who is notified about result
+     * @param filename name of uploaded file, used to guess its format
+     * @param data     image to convert
+     * @param onDone   called with stored image in transaction after successful
+     *                 conversion
+     * @return pending conversion
+     * @throws ResponseStatusException with status 503 when service is busy
+     */
+    public ConversionStatus submit(long userId, String filename, byte[] data, Consumer<File> onDone) {
+        String id = UUID.randomUUID().toString();
+        var job = new Job(userId, System.nanoTime(), new ConversionStatus(id, State.PENDING, null, null));
+        jobs.put(id, job);
+        CompletableFuture<byte[]> result;
+        try {
+            result = convert(filename, data, Format.WEBP, 400, 400);
+        } catch (ResponseStatusException e) {
+            jobs.remove(id);
+            throw e;
+        }
+        result.whenComplete((converted, error) -> {
+            if (error != null) {
+                finish(job, null, error.getMessage());
+                return;
+            }
+            try {
+                File file = transactionTemplate.execute(status -> {
+                    File f = fileManager.uploadFile(Format.WEBP.getContentType(), converted);
+                    onDone.accept(f);
+                    return f;
+                });
+                finish(job, file, null);
+            } catch (RuntimeException e) {
+                L.log(Level.WARNING, "Could not store converted image", e);
+                finish(job, null, "Could not store image");
+            }
+        });
+        return job.status();
+    }
+
+    /**
+     * Converts image on worker pool.
+     * 
+     * @param filename name of file, used to guess its format
+     * @param data     image to convert
+     * @param format   format of converted image
+     * @param width    width of converted image
+     * @param height   height of converted image; when not positive it is
+     *                 computed from width keeping aspect ratio
+     * @return converted image; completed with {@link IOException} when image
+     *         could not be converted in time
+     * @throws ResponseStatusException with status 503 when service is busy
+     */
+    public CompletableFuture<byte[]> convert(String filename, byte[] data, Format format, int width, int height) {
+        return convert(filename, data.length, () -> data, format, width, height);
+    }
+
+    /**
+     * Converts image on worker pool. Image is read by worker, so it is not kept
+     * in memory while conversion waits for worker.
+     * 
+     * @param filename name of file, used to guess its format
+     * @param size     size of image in bytes, used to reserve native memory
+     * @param data     reads image to convert
+     * @param format   format of converted image
+     * @param width    width of converted image
+     * @param height   height of converted image; when not positive it is
+     *                 computed from width keeping aspect ratio
+     * @return converted image; completed with {@link IOException} when image
+     *         could not be read or converted in time
+     * @throws ResponseStatusException with status 503 when service is busy
+     */
+    public CompletableFuture<byte[]> convert(String filename, long size, Callable<byte[]> data, Format format,
+            int width, int height) {
+        long memory = size + NATIVE_OVERHEAD;
+        if (reserved.addAndGet(memory) > nativeMemory) {
+            reserved.addAndGet(-memory);
+            throw busy();
+        }
+        long submitted = System.nanoTime();
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    result.complete(run(submitted, filename, data.call(), format, width, height));
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    reserved.addAndGet(-memory);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            reserved.addAndGet(-memory);
+            throw busy();
+        }
+        return result;
+    }
+
+    /**
+     * Returns state of conversion. Finished conversions are kept for few
+     * minutes.
+     * 
+     * @param userId ID of user who started conversion
+     * @param id     ID of conversion
+     * @return state of conversion
+     */
+    public ConversionStatus status(long userId, String id) {
+        Job job = jobs.get(id);
+        if (job == null || job.userId() != userId) {
+            throw new ObjectNotFoundException();
+        }
+        return job.status();
+    }
+
+    private ResponseStatusException busy() {
+        rejected.increment();
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "image conversion service is busy");
+    }
+
+    private byte[] run(long submitted, String filename, byte[] data, Format format, int width, int height)
+            throws IOException {
+        long start = System.nanoTime();
+        long waited = start - submitted;
+        queueWait.record(waited, TimeUnit.NANOSECONDS);
+        if (waited >= timeout) {
+            failures.record(0, TimeUnit.NANOSECONDS);
+            throw new IOException("Conversion timed out");
+        }
+        try {
+            byte[] converted = ImageConverter.convertImage(filename, data, format, width, height, timeout - waited);
+            conversions.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return converted;
+        } catch (IOException e) {
+            failures.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private void finish(Job job, File file, String error) {
+        String id = job.status().id();
+        var status = new ConversionStatus(id, file != null ? State.DONE : State.FAILED, file, error);
+        jobs.put(id, new Job(job.userId(), System.nanoTime(), status));
+        var message = ImageConversion.newBuilder().setId(id).setSuccess(file != null);
+        if (file != null) {
+            message.setUrl(file.getURL());
+        } else {
+            message.setError(error);
+        }
+        SocketHandler.sendToUser(job.userId(), message);
+    }
+
+    /**
+     * Removes finished conversions which were kept long enough.
+     */
+    @Scheduled(cron = "0 * * * * *")
+    public void removeFinished() {
+        long limit = System.nanoTime() - KEEP_FINISHED;
+        jobs.values().removeIf(job -> job.status().state() != State.PENDING && job.time() - limit < 0);
+    }
+
+    @PreDestroy
+    private void stop() {
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,42 @@
+package dev.vernite.vernite.cdn;
+
+import dev.vernite.vernite.utils.ImageConverter.Format;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Image generated from file in other size or format. Rendition content is
+ * stored as separate file.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = { "originalHash", "width", "format" }))
+public class Rendition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Column(nullable = false)
+    private String originalHash;
+
+    private int width;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private Format format;
+
+    @Column(nullable = false)
+    private String hash;
+
+}
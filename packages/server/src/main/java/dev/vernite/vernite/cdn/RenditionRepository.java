@@ -0,0 +1,11 @@
+package dev.vernite.vernite.cdn;
+
+import java.util.Optional;
+
+import org.springframework.data.repository.CrudRepository;
+
+import dev.vernite.vernite.utils.ImageConverter.Format;
+
+public interface RenditionRepository extends CrudRepository<Rendition, Long> {
+    Optional<Rendition> findByOriginalHashAndWidthAndFormat(String originalHash, int width, Format format);
+}
@@ -0,0 +1,181 @@
+package dev.vernite.vernite.cdn;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import dev.vernite.vernite.utils.ImageConverter.Format;
+import dev.vernite.vernite.utils.ObjectNotFoundException;
+
+/**
+ * Service for images generated from stored files in other sizes and formats.
+ * Each rendition is generated once, stored as separate file and afterwards
+ * found by hash of original, width and format.
+ */
+@Service
+public class RenditionService {
+
+    private static final int MAX_CACHED = 10_000;
+
+    private final RenditionRepository renditionRepository;
+
+    private final FileManager fileManager;
+
+    private final ImageConversionService imageConversionService;
+
+    private final Set<Integer> widths;
+
+    private final long timeout;
+
+    /**
+     * Hashes of known renditions. Rendition of file never changes, so entries
+     * are never invalidated, only least recently used entries are evicted.
+     */
+    private final Map<String, String> hashes = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_CACHED;
+        }
+    });
+
+    private final Map<String, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+
+    public RenditionService(RenditionRepository renditionRepository, FileManager fileManager,
+            ImageConversionService imageConversionService,
+            @Value("${vernite.cdn.rendition-widths:24,32,48,64,96,128,256,400}") Set<Integer> widths,
+            @Value("${vernite.image.timeout:PT30S}") Duration timeout) {
+        this.renditionRepository = renditionRepository;
+        this.fileManager = fileManager;
+        this.imageConversionService = imageConversionService;
+        this.widths = widths;
+        this.timeout = timeout.toMillis();
+    }
+
+    /**
+     * Returns hash of rendition, generating it when needed. Rendition is
+     * generated in background; concurrent requests for the same rendition wait
+     * for single conversion.
+     * 
+     * @param hash   hash of original file
+     * @param width  width of rendition; must be one of allowed widths
+     * @param format format of rendition
+     * @return hash of file with rendition; completed with
+     *         {@link ResponseStatusException} when rendition could not be
+     *         generated in time
+     */
+    public CompletableFuture<String> getRendition(String hash, int width, Format format) {
+        if (!widths.contains(width)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "width not allowed");
+        }
+        String key = hash + "/" + width + "/" + format;
+        String result = hashes.get(key);
+        if (result != null) {
+            return CompletableFuture.completedFuture(result);
+        }
+        var rendition = renditionRepository.findByOriginalHashAndWidthAndFormat(hash, width, format);
+        if (rendition.isPresent()) {
+            return CompletableFuture.completedFuture(remember(key, rendition.get().getHash()));
+        }
+        CompletableFuture<String> future = new CompletableFuture<>();
+        var existing = pending.putIfAbsent(key, future);
+        if (existing == null) {
+            try {
+                generate(hash, width, format).whenComplete((value, error) -> {
+                    pending.remove(key);
+                    if (error != null) {
+                        future.completeExceptionally(error);
+                    } else {
+                        future.complete(remember(key, value));
+                    }
+                });
+            } catch (RuntimeException e) {
+                pending.remove(key);
+                future.completeExceptionally(e);
+            }
+            existing = future;
+        }
+        // copy, so timeout of one request does not fail others
+        return existing.copy().orTimeout(timeout, TimeUnit.MILLISECONDS).exceptionally(error -> {
+            throw failure(error);
+        });
+    }
+
+    private static ResponseStatusException failure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof ResponseStatusException status) {
+            return status;
+        }
+        if (cause instanceof TimeoutException) {
+            return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "rendition is not ready");
+        }
+        if (cause instanceof IOException) {
+            return new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "cannot convert image");
+        }
+        return new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "cannot generate rendition", cause);
+    }
+
+    /**
+     * Starts generating rendition. Original is read by conversion worker, not
+     * by thread of request.
+     */
+    private CompletableFuture<String> generate(String hash, int width, Format format) {
+        File original = fileManager.findFile(hash);
+        if (original == null) {
+            throw new ObjectNotFoundException();
+        }
+        if (!original.getContentType().startsWith("image/")) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "file is not an image");
+        }
+        long size;
+        try {
+            size = fileManager.getSize(hash);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (size < 0) {
+            throw new ObjectNotFoundException();
+        }
+        String filename = "image." + original.getContentType().substring("image/".length());
+        return imageConversionService.convert(filename, size, () -> {
+            byte[] data = fileManager.readFile(hash);
+            if (data == null) {
+                throw new ObjectNotFoundException();
+            }
+            return data;
+        }, format, width, 0).thenApply(converted -> {
+            File file = fileManager.uploadFile(format.getContentType(), converted);
+            Rendition rendition = new Rendition();
+            rendition.setOriginalHash(hash);
+            rendition.setWidth(width);
+            rendition.setFormat(format);
+            rendition.setHash(file.getHash());
+            try {
+                renditionRepository.save(rendition);
+            } catch (DataIntegrityViolationException e) {
+                // generated concurrently by other instance
+            }
+            return file.getHash();
+        });
+    }
+
+    private String remember(String key, String hash) {
+        hashes.put(key, hash);
+        return hash;
+    }
+
+}
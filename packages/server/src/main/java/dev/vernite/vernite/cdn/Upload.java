@@ -0,0 +1,38 @@
+package dev.vernite.vernite.cdn;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Upload which was started but not yet completed. Received content is spooled
+ * to file named after upload ID, so offset of upload is size of that file.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(indexes = @Index(columnList = "userId"))
+public class Upload {
+
+    @Id
+    private String id;
+
+    @Column(nullable = false)
+    private long userId;
+
+    @Column(nullable = false)
+    private String contentType;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(nullable = false)
+    private Date created;
+
+}
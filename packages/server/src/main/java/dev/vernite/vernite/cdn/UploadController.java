@@ -0,0 +1,91 @@
+package dev.vernite.vernite.cdn;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import dev.vernite.vernite.user.User;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+
+/**
+ * Controller for uploading files in chunks.
+ */
+@RestController
+@AllArgsConstructor
+@RequestMapping("/cdn/upload")
+public class UploadController {
+
+    private UploadManager uploadManager;
+
+    /**
+     * Starts upload of file. Content is sent in chunks to returned upload.
+     * 
+     * @param user        logged in user
+     * @param contentType content type of file
+     * @param size        size of file in bytes
+     * @return new upload
+     */
+    @PostMapping
+    @ApiResponse(description = "File is too large or upload quota is exceeded.", responseCode = "413")
+    @ApiResponse(description = "Content type is not allowed.", responseCode = "415")
+    public UploadStatus startUpload(@NotNull @Parameter(hidden = true) User user, @RequestParam String contentType,
+            @RequestParam long size) {
+        return uploadManager.start(user, contentType, size);
+    }
+
+    /**
+     * Returns upload state. Interrupted upload is resumed by sending chunk
+     * starting at returned offset.
+     * 
+     * @param user logged in user
+     * @param id   ID of upload
+     * @return upload state
+     */
+    @GetMapping("/{id}")
+    public UploadStatus getUpload(@NotNull @Parameter(hidden = true) User user, @PathVariable String id) {
+        return uploadManager.status(user, id);
+    }
+
+    /**
+     * Sends chunk of file as request body. When last chunk is received returned
+     * state contains uploaded file.
+     * 
+     * @param user   logged in user
+     * @param id     ID of upload
+     * @param offset offset of chunk in file
+     * @param req    request with chunk content
+     * @return upload state
+     */
+    @PutMapping("/{id}")
+    @ApiResponse(description = "Offset does not match received content or chunk is being sent.", responseCode = "409")
+    public UploadStatus uploadChunk(@NotNull @Parameter(hidden = true) User user, @PathVariable String id,
+            @RequestParam long offset, HttpServletRequest req) throws IOException {
+        try (InputStream data = req.getInputStream()) {
+            return uploadManager.append(user, id, offset, data);
+        }
+    }
+
+    /**
+     * Cancels upload.
+     * 
+     * @param user logged in user
+     * @param id   ID of upload
+     */
+    @DeleteMapping("/{id}")
+    public void cancelUpload(@NotNull @Parameter(hidden = true) User user, @PathVariable String id) {
+        uploadManager.cancel(user, id);
+    }
+
+}
@@ -0,0 +1,310 @@
+package dev.vernite.vernite.cdn;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import dev.vernite.vernite.user.User;
+import dev.vernite.vernite.utils.ObjectNotFoundException;
+
+/**
+ * Service for uploads sent in chunks. Chunks are appended to spool file and
+ * hashed as they arrive, so memory used by upload does not depend on its size.
+ * Interrupted upload is resumed by sending next chunk from its current offset.
+ */
+@Service
+public class UploadManager {
+
+    private static final Logger L = Logger.getLogger("UploadManager");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Content types which can be uploaded. Types which browser could run as
+     * script, like HTML or SVG, are not accepted.
+     */
+    private static final List<MediaType> ALLOWED_TYPES = List.of(MediaType.parseMediaType("image/png"),
+            MediaType.parseMediaType("image/jpeg"), MediaType.parseMediaType("image/gif"),
+            MediaType.parseMediaType("image/webp"), MediaType.parseMediaType("video/*"),
+            MediaType.parseMediaType("audio/*"), MediaType.APPLICATION_PDF, MediaType.TEXT_PLAIN,
+            MediaType.APPLICATION_OCTET_STREAM, MediaType.parseMediaType("application/zip"));
+
+    /**
+     * State of upload in progress. Digest is {@literal null} when it does not
+     * match spool file and must be computed again.
+     */
+    private static class Session {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private MessageDigest digest;
+
+    }
+
+    private final UploadRepository uploadRepository;
+
+    private final FileManager fileManager;
+
+    private final Path spool;
+
+    private final long maxSize;
+
+    private final long quota;
+
+    private final long timeToLive;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    public UploadManager(UploadRepository uploadRepository, FileManager fileManager,
+            @Value("${vernite.cdn.path:cdn}") Path root,
+            @Value("${vernite.cdn.upload-max-size:104857600}") long maxSize,
+            @Value("${vernite.cdn.upload-quota:524288000}") long quota,
+            @Value("${vernite.cdn.upload-ttl:P1D}") Duration timeToLive) throws IOException {
+        this.uploadRepository = uploadRepository;
+        this.fileManager = fileManager;
+        this.spool = Files.createDirectories(root.toAbsolutePath().resolve("uploads"));
+        this.maxSize = maxSize;
+        this.quota = quota;
+        this.timeToLive = timeToLive.toMillis();
+    }
+
+    /**
+     * Starts new upload. Declared sizes of all unfinished uploads of user must
+     * fit in upload quota.
+     * 
+     * @param user        user who uploads file
+     * @param contentType content type of file
+     * @param size        size of file in bytes
+     * @return state of new upload
+     */
+    public UploadStatus start(User user, String contentType, long size) {
+        MediaType type;
+        try {
+            type = MediaType.parseMediaType(contentType);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid content type");
+        }
+        if (ALLOWED_TYPES.stream().noneMatch(allowed -> allowed.includes(type))) {
+            throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "content type not allowed");
+        }
+        if (size <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid size");
+        }
+        if (size > maxSize) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "file too large");
+        }
+        if (uploadRepository.sumSizeByUserId(user.getId()) + size > quota) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "upload quota exceeded");
+        }
+        Upload upload = new Upload();
+        upload.setId(UUID.randomUUID().toString());
+        upload.setUserId(user.getId());
+        upload.setContentType(type.toString());
+        upload.setSize(size);
+        upload.setCreated(new Date());
+        try {
+            Files.createFile(spoolFile(upload));
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "io error");
+        }
+        uploadRepository.save(upload);
+        return new UploadStatus(upload.getId(), 0, size, null);
+    }
+
+    /**
+     * Returns state of upload, e.g. to find offset for resuming it.
+     * 
+     * @param user user who uploads file
+     * @param id   ID of upload
+     * @return state of upload
+     */
+    public UploadStatus status(User user, String id) {
+        Upload upload = find(user, id);
+        try {
+            return new UploadStatus(id, Files.size(spoolFile(upload)), upload.getSize(), null);
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "io error");
+        }
+    }
+
+    /**
+     * Appends chunk to upload. Bytes received before connection was interrupted
+     * are kept. Upload is completed when all declared bytes are received; then
+     * file is stored, or existing file with the same content is returned.
+     * 
+     * @param user   user who uploads file
+     * @param id     ID of upload
+     * @param offset offset of chunk; must be equal to current offset of upload
+     * @param data   chunk content
+     * @return state of upload
+     */
+    public UploadStatus append(User user, String id, long offset, InputStream data) {
+        Upload upload = find(user, id);
+        Session session = sessions.computeIfAbsent(id, key -> new Session());
+        if (!session.lock.tryLock()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "upload in progress");
+        }
+        try {
+            Path file = spoolFile(upload);
+            long received;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                received = channel.size();
+                if (offset != received) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, "expected offset " + received);
+                }
+                if (session.digest == null) {
+                    session.digest = digest(file);
+                }
+                received = transfer(data, channel, session, upload.getSize() - received);
+            }
+            if (received < upload.getSize()) {
+                return new UploadStatus(id, received, upload.getSize(), null);
+            }
+            // digest is reset by computing hash; it is computed again from spool file when storing fails
+            MessageDigest digest = session.digest;
+            session.digest = null;
+            String hash = HexFormat.of().formatHex(digest.digest());
+            File f = fileManager.uploadFile(upload.getContentType(), hash, file);
+            uploadRepository.delete(upload);
+            sessions.remove(id);
+            return new UploadStatus(id, received, upload.getSize(), f);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    /**
+     * Appends data to spool file and updates digest with written bytes.
+     * 
+     * @return offset after chunk
+     */
+    private static long transfer(InputStream data, FileChannel channel, Session session, long remaining)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        channel.position(channel.size());
+        while (true) {
+            int read;
+            try {
+                read = data.read(buffer.array());
+            } catch (IOException e) {
+                // client disconnected; bytes already written are kept for resume
+                return channel.position();
+            }
+            if (read < 0) {
+                return channel.position();
+            }
+            if (read > remaining) {
+                throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "chunk exceeds declared size");
+            }
+            buffer.position(0).limit(read);
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                session.digest = null;
+                throw e;
+            }
+            session.digest.update(buffer.array(), 0, read);
+            remaining -= read;
+        }
+    }
+
+    /**
+     * Cancels upload and removes received content.
+     * 
+     * @param user user who uploads file
+     * @param id   ID of upload
+     */
+    public void cancel(User user, String id) {
+        remove(find(user, id));
+    }
+
+    /**
+     * Removes uploads which were not completed in time.
+     */
+    @Scheduled(cron = "0 0 * * * *")
+    public void removeExpired() {
+        for (Upload upload : uploadRepository.findByCreatedBefore(new Date(System.currentTimeMillis() - timeToLive))) {
+            try {
+                remove(upload);
+            } catch (RuntimeException e) {
+                L.log(Level.WARNING, "Could not remove upload " + upload.getId(), e);
+            }
+        }
+    }
+
+    private void remove(Upload upload) {
+        Session session = sessions.computeIfAbsent(upload.getId(), key -> new Session());
+        if (!session.lock.tryLock()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "upload in progress");
+        }
+        try {
+            uploadRepository.delete(upload);
+            Files.deleteIfExists(spoolFile(upload));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            sessions.remove(upload.getId());
+            session.lock.unlock();
+        }
+    }
+
+    private Upload find(User user, String id) {
+        Upload upload = uploadRepository.findById(id).orElse(null);
+        if (upload == null || upload.getUserId() != user.getId()) {
+            throw new ObjectNotFoundException();
+        }
+        return upload;
+    }
+
+    private Path spoolFile(Upload upload) {
+        return spool.resolve(upload.getId());
+    }
+
+    /**
+     * Computes digest of already received content, e.g. after restart.
+     */
+    private static MessageDigest digest(Path file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (InputStream in = Files.newInputStream(file)) {
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            return digest;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,20 @@
+package dev.vernite.vernite.cdn;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+public interface UploadRepository extends CrudRepository<Upload, String> {
+
+    /**
+     * @param userId ID of user
+     * @return total declared size of uploads started by user
+     */
+    @Query("SELECT COALESCE(SUM(u.size), 0) FROM Upload u WHERE u.userId = ?1")
+    long sumSizeByUserId(long userId);
+
+    List<Upload> findByCreatedBefore(Date date);
+
+}
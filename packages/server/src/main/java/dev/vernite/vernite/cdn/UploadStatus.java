@@ -0,0 +1,13 @@
+package dev.vernite.vernite.cdn;
+
+/**
+ * State of upload returned to client.
+ * 
+ * @param id     ID of upload
+ * @param offset number of bytes received; next chunk must start there
+ * @param size   declared size of upload
+ * @param file   uploaded file when upload is completed, otherwise
+ *               {@literal null}
+ */
+public record UploadStatus(String id, long offset, long size, File file) {
+}
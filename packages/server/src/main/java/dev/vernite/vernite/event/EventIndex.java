@@ -0,0 +1,489 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.event;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import dev.vernite.vernite.meeting.Meeting;
+import dev.vernite.vernite.meeting.MeetingEventProvider;
+import dev.vernite.vernite.project.Project;
+import dev.vernite.vernite.project.ProjectOwnedEntity;
+import dev.vernite.vernite.projectworkspace.ProjectWorkspace;
+import dev.vernite.vernite.release.Release;
+import dev.vernite.vernite.release.ReleaseEventProvider;
+import dev.vernite.vernite.sprint.Sprint;
+import dev.vernite.vernite.sprint.SprintEventProvider;
+import dev.vernite.vernite.status.Status;
+import dev.vernite.vernite.task.Task;
+import dev.vernite.vernite.task.TaskDeadlineEventProvider;
+import dev.vernite.vernite.task.TaskEstimateEventProvider;
+import dev.vernite.vernite.utils.HibernateListeners;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Denormalized index of events. Every event is stored once for its project and
+ * once for every user who sees it, so events of user or project between dates
+ * are read with single range scan. Index is updated from Hibernate events in
+ * transaction of the change.
+ */
+@Component
+public class EventIndex implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+        PostCollectionRecreateEventListener, PostCollectionUpdateEventListener {
+
+    /**
+     * Owner of index row.
+     */
+    public enum Owner {
+        PROJECT, USER
+    }
+
+    /**
+     * Single index row. Event matches dates when its range overlaps them, and
+     * for sprints also when range starts or ends between them.
+     * 
+     * @param owner      owner of row
+     * @param ownerId    ID of project or user owning row
+     * @param event      indexed event
+     * @param rangeStart start of range matched against dates
+     * @param rangeEnd   end of range matched against dates
+     * @param isFinal    whether event belongs to task in final status
+     */
+    public record Row(Owner owner, long ownerId, Event event, Date rangeStart, Date rangeEnd, boolean isFinal) {
+    }
+
+    private static final String EVENT_COLUMNS = "type, project_id, related_id, name, description, start_date, "
+            + "end_date, location, range_start, range_end, final";
+
+    private static final String COLUMNS = "owner, owner_id, " + EVENT_COLUMNS;
+
+    private static final String INSERT = "INSERT INTO event_index (" + COLUMNS + ") VALUES (:owner, :ownerId, "
+            + ":type, :projectId, :relatedId, :name, :description, :startDate, :endDate, :location, :rangeStart, "
+            + ":rangeEnd, :final)";
+
+    private static final String DELETE = "DELETE FROM event_index WHERE project_id = :projectId "
+            + "AND related_id = :relatedId AND type IN (:types)";
+
+    private static final String SELECT_ROWS = "SELECT " + COLUMNS + " FROM event_index "
+            + "WHERE type IN (:types) AND related_id IN (:relatedIds)";
+
+    private static final String SELECT_MEMBERS = "SELECT DISTINCT workspace_user_id FROM project_workspace "
+            + "WHERE project_id = :projectId";
+
+    private static final String SELECT_PARTICIPANTS = "SELECT participants_id FROM meeting_participants "
+            + "WHERE meeting_id = :meetingId";
+
+    private static final String DELETE_PROJECT = "DELETE FROM event_index WHERE project_id = :projectId";
+
+    private static final String INSERT_MEMBER = "INSERT IGNORE INTO event_index (" + COLUMNS + ") SELECT :user, "
+            + ":userId, " + EVENT_COLUMNS + " FROM event_index WHERE owner = :project AND owner_id = :projectId "
+            + "AND type IN (:types)";
+
+    private static final String DELETE_MEMBER = "DELETE FROM event_index WHERE owner = :user AND owner_id = :userId "
+            + "AND project_id = :projectId AND type IN (:types)";
+
+    private static final String UPDATE_FINAL = "UPDATE event_index e JOIN task t ON t.number = e.related_id "
+            + "AND t.status_id = :statusId SET e.final = :final WHERE e.project_id = :projectId AND e.type IN (:types)";
+
+    private static final List<Integer> MEETING = List.of(Event.Type.MEETING.ordinal());
+
+    private static final List<Integer> SPRINT = List.of(Event.Type.SPRINT.ordinal());
+
+    private static final List<Integer> RELEASE = List.of(Event.Type.RELEASE.ordinal());
+
+    private static final List<Integer> TASK = List.of(Event.Type.TASK_ESTIMATE.ordinal(),
+            Event.Type.TASK_DEADLINE.ordinal());
+
+    private static final List<Integer> MEMBER = List.of(Event.Type.SPRINT.ordinal(), Event.Type.RELEASE.ordinal());
+
+    /**
+     * Properties of indexed entities which are stored in index or decide who
+     * sees their events. Changes of other properties do not change events.
+     */
+    public static final Set<String> RELEVANT = Set.of("name", "description", "location", "startDate", "endDate",
+            "finishDate", "deadline", "estimatedDate", "status", "assignee");
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private volatile boolean ready;
+
+    public EventIndex(EntityManagerFactory entityManagerFactory, NamedParameterJdbcTemplate jdbcTemplate) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    private void register() {
+        HibernateListeners.register(entityManagerFactory, this, EventType.POST_INSERT, EventType.POST_UPDATE,
+                EventType.POST_DELETE, EventType.POST_COLLECTION_RECREATE, EventType.POST_COLLECTION_UPDATE);
+    }
+
+    /**
+     * @return whether index is complete and can be queried
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    void setReady(boolean ready) {
+        this.ready = ready;
+    }
+
+    /**
+     * Returns events of user or project between dates.
+     * 
+     * @param owner   whether events of user or project are returned
+     * @param ownerId ID of user or project
+     * @param start   the start date; if null, all events before the end date will
+     *                be returned
+     * @param end     the end date; if null, all events after the start date will
+     *                be returned
+     * @param filter  the filter
+     * @return sorted list of events
+     */
+    public List<Event> find(Owner owner, long ownerId, Date start, Date end, EventFilter filter) {
+        var sql = new StringBuilder("SELECT type, project_id, related_id, name, description, start_date, end_date, "
+                + "location FROM event_index WHERE owner = :owner AND owner_id = :ownerId");
+        var params = new MapSqlParameterSource("owner", owner.ordinal()).addValue("ownerId", ownerId);
+        if (start != null) {
+            sql.append(" AND range_end >= :start");
+            params.addValue("start", new Timestamp(start.getTime()));
+        }
+        if (end != null) {
+            sql.append(" AND range_start <= :end");
+            params.addValue("end", new Timestamp(end.getTime()));
+        }
+        if (start != null && end != null) {
+            // sprints spanning whole range were never shown
+            sql.append(" AND (type <> :sprint OR range_start >= :start OR range_end <= :end)");
+            params.addValue("sprint", Event.Type.SPRINT.ordinal());
+        }
+        if (filter.isShowEnded()) {
+            sql.append(" AND final = FALSE");
+        }
+        if (!filter.getType().isEmpty()) {
+            sql.append(" AND type IN (:types)");
+            params.addValue("types", filter.getType());
+        }
+        List<Event> events = jdbcTemplate.query(sql.toString(), params, (rs, rowNum) -> event(rs));
+        events = new ArrayList<>(events);
+        events.sort(null);
+        return events;
+    }
+
+    /**
+     * Returns stored index rows of entities.
+     * 
+     * @param types      types of events of entities
+     * @param relatedIds IDs of entities as used in their events; must not be
+     *                   empty
+     * @return stored rows, also of entities of other projects with same IDs
+     */
+    List<Row> findRows(List<Integer> types, Collection<Long> relatedIds) {
+        var params = Map.of("types", types, "relatedIds", relatedIds);
+        return jdbcTemplate.query(SELECT_ROWS, params, (rs, rowNum) -> new Row(
+                Owner.values()[rs.getInt("owner")], rs.getLong("owner_id"), event(rs),
+                new Date(rs.getTimestamp("range_start").getTime()), new Date(rs.getTimestamp("range_end").getTime()),
+                rs.getBoolean("final")));
+    }
+
+    private static Event event(ResultSet rs) throws SQLException {
+        Timestamp start = rs.getTimestamp("start_date");
+        return new Event(rs.getLong("project_id"), Event.Type.values()[rs.getInt("type")], rs.getLong("related_id"),
+                rs.getString("name"), rs.getString("description"),
+                start == null ? null : new Date(start.getTime()), new Date(rs.getTimestamp("end_date").getTime()),
+                rs.getString("location"));
+    }
+
+    /**
+     * Computes index rows of entity from its current state.
+     * 
+     * @param entity meeting, sprint, release or task
+     * @return rows which should be stored for entity
+     */
+    List<Row> rows(Object entity) {
+        List<Row> rows = new ArrayList<>();
+        if (entity instanceof ProjectOwnedEntity owned && owned.getProject().getActive() != null) {
+            // events of deleted projects are not shown
+            return rows;
+        }
+        if (entity instanceof Meeting meeting) {
+            var event = MeetingEventProvider.convert(meeting);
+            // participants are read from database, collection may not be loaded during flush
+            addRows(rows, event, meeting.getStartDate(), meeting.getStartDate(), false, jdbcTemplate
+                    .queryForList(SELECT_PARTICIPANTS, Map.of("meetingId", meeting.getId()), Long.class));
+        } else if (entity instanceof Sprint sprint) {
+            var event = SprintEventProvider.convert(sprint);
+            addRows(rows, event, sprint.getStartDate(), sprint.getFinishDate(), false,
+                    members(event.getProjectId()));
+        } else if (entity instanceof Release release && release.getDeadline() != null) {
+            var event = ReleaseEventProvider.convert(release);
+            addRows(rows, event, release.getDeadline(), release.getDeadline(), false, members(event.getProjectId()));
+        } else if (entity instanceof Task task) {
+            List<Long> users = task.getAssignee() == null ? List.of() : List.of(task.getAssignee().getId());
+            boolean isFinal = task.getStatus().isFinal();
+            if (task.getEstimatedDate() != null) {
+                addRows(rows, TaskEstimateEventProvider.convert(task), task.getEstimatedDate(),
+                        task.getEstimatedDate(), isFinal, users);
+            }
+            if (task.getDeadline() != null) {
+                addRows(rows, TaskDeadlineEventProvider.convert(task), task.getDeadline(), task.getDeadline(),
+                        isFinal, users);
+            }
+        }
+        return rows;
+    }
+
+    private static void addRows(List<Row> rows, Event event, Date rangeStart, Date rangeEnd, boolean isFinal,
+            List<Long> users) {
+        rows.add(new Row(Owner.PROJECT, event.getProjectId(), event, rangeStart, rangeEnd, isFinal));
+        for (long userId : users) {
+            rows.add(new Row(Owner.USER, userId, event, rangeStart, rangeEnd, isFinal));
+        }
+    }
+
+    private List<Long> members(long projectId) {
+        return jdbcTemplate.queryForList(SELECT_MEMBERS, Map.of("projectId", projectId), Long.class);
+    }
+
+    /**
+     * Returns types of events of entity.
+     * 
+     * @param entity meeting, sprint, release or task
+     * @return ordinals of event types or {@literal null} when entity has no
+     *         events
+     */
+    static List<Integer> types(Object entity) {
+        if (entity instanceof Meeting) {
+            return MEETING;
+        } else if (entity instanceof Sprint) {
+            return SPRINT;
+        } else if (entity instanceof Release) {
+            return RELEASE;
+        } else if (entity instanceof Task) {
+            return TASK;
+        }
+        return null;
+    }
+
+    /**
+     * Returns types of events of entity which has event of given type.
+     * 
+     * @param type type of event
+     * @return ordinals of event types
+     */
+    static List<Integer> types(Event.Type type) {
+        return switch (type) {
+            case MEETING -> MEETING;
+            case SPRINT -> SPRINT;
+            case RELEASE -> RELEASE;
+            case TASK_ESTIMATE, TASK_DEADLINE -> TASK;
+        };
+    }
+
+    /**
+     * Returns ID of entity as used in its events.
+     * 
+     * @param entity meeting, sprint, release or task
+     * @return ID of entity
+     */
+    static long relatedId(Object entity) {
+        if (entity instanceof Meeting meeting) {
+            return meeting.getId();
+        } else if (entity instanceof Sprint sprint) {
+            return sprint.getId();
+        } else if (entity instanceof Release release) {
+            return release.getId();
+        }
+        return ((Task) entity).getNumber();
+    }
+
+    /**
+     * Replaces index rows of entity with rows computed from its current state.
+     * 
+     * @param entity meeting, sprint, release or task
+     */
+    void reindex(Object entity) {
+        var types = types(entity);
+        if (types == null) {
+            return;
+        }
+        long projectId = ((ProjectOwnedEntity) entity).getProject().getId();
+        remove(projectId, relatedId(entity), types);
+        var rows = rows(entity);
+        var params = new MapSqlParameterSource[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            params[i] = params(rows.get(i));
+        }
+        jdbcTemplate.batchUpdate(INSERT, params);
+    }
+
+    private void remove(long projectId, long relatedId, List<Integer> types) {
+        jdbcTemplate.update(DELETE, Map.of("projectId", projectId, "relatedId", relatedId, "types", types));
+    }
+
+    private static MapSqlParameterSource params(Row row) {
+        var event = row.event();
+        var params = new HashMap<String, Object>();
+        params.put("owner", row.owner().ordinal());
+        params.put("ownerId", row.ownerId());
+        params.put("type", event.getType().ordinal());
+        params.put("projectId", event.getProjectId());
+        params.put("relatedId", event.getRelatedId());
+        params.put("name", event.getName());
+        params.put("description", event.getDescription());
+        params.put("startDate", event.getStartDate() == null ? null : new Timestamp(event.getStartDate().getTime()));
+        params.put("endDate", new Timestamp(event.getEndDate().getTime()));
+        params.put("location", event.getLocation());
+        params.put("rangeStart", new Timestamp(row.rangeStart().getTime()));
+        params.put("rangeEnd", new Timestamp(row.rangeEnd().getTime()));
+        params.put("final", row.isFinal());
+        return new MapSqlParameterSource(params);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof ProjectWorkspace projectWorkspace) {
+            jdbcTemplate.update(INSERT_MEMBER, memberParams(projectWorkspace));
+        } else {
+            reindex(event.getEntity());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Status status) {
+            if (isDirty(event, "isFinal")) {
+                jdbcTemplate.update(UPDATE_FINAL, Map.of("statusId", status.getId(), "final", status.isFinal(),
+                        "projectId", status.getProject().getId(), "types", TASK));
+            }
+        } else if (event.getEntity() instanceof Project project) {
+            // restored project is indexed again by consistency check
+            if (isDirty(event, "active") && project.getActive() != null) {
+                jdbcTemplate.update(DELETE_PROJECT, Map.of("projectId", project.getId()));
+            }
+        } else if (types(event.getEntity()) != null && isRelevant(event)) {
+            reindex(event.getEntity());
+        }
+    }
+
+    private static boolean isDirty(PostUpdateEvent event, String property) {
+        var names = event.getPersister().getPropertyNames();
+        for (int index : Objects.requireNonNullElse(event.getDirtyProperties(), new int[0])) {
+            if (property.equals(names[index])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether update changed index rows of entity. Dirty properties are
+     * unknown when entity was updated without reading it first.
+     */
+    private static boolean isRelevant(PostUpdateEvent event) {
+        if (event.getDirtyProperties() == null) {
+            return true;
+        }
+        var names = event.getPersister().getPropertyNames();
+        for (int index : event.getDirtyProperties()) {
+            if (RELEVANT.contains(names[index])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        var entity = event.getEntity();
+        if (entity instanceof ProjectWorkspace projectWorkspace) {
+            jdbcTemplate.update(DELETE_MEMBER, memberParams(projectWorkspace));
+        } else if (types(entity) != null) {
+            long projectId = ((ProjectOwnedEntity) entity).getProject().getId();
+            remove(projectId, relatedId(entity), types(entity));
+        }
+    }
+
+    private Map<String, Object> memberParams(ProjectWorkspace projectWorkspace) {
+        return Map.of("userId", projectWorkspace.getId().getWorkspaceId().getUserId(), "projectId",
+                projectWorkspace.getId().getProjectId(), "project", Owner.PROJECT.ordinal(), "user",
+                Owner.USER.ordinal(), "types", MEMBER);
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        onCollectionChange(event);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        onCollectionChange(event);
+    }
+
+    private void onCollectionChange(AbstractCollectionEvent event) {
+        if (event.getAffectedOwnerOrNull() instanceof Meeting meeting) {
+            reindex(meeting);
+        }
+    }
+
+}
@@ -0,0 +1,259 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.event;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import dev.vernite.vernite.event.EventIndex.Row;
+import dev.vernite.vernite.meeting.MeetingRepository;
+import dev.vernite.vernite.project.ProjectOwnedEntity;
+import dev.vernite.vernite.release.ReleaseRepository;
+import dev.vernite.vernite.sprint.SprintRepository;
+import dev.vernite.vernite.task.Task;
+import dev.vernite.vernite.task.TaskRepository;
+
+/**
+ * Component rebuilding and checking {@link EventIndex}. Index is rebuilt on
+ * startup when it is empty or when application is started with
+ * {@code --rebuild-event-index}. Consistency check runs when application is
+ * started with {@code --check-event-index} and on configured schedule.
+ */
+@Component
+public class EventIndexMaintenance {
+
+    /**
+     * Result of consistency check.
+     * 
+     * @param entities   number of checked entities
+     * @param mismatched number of entities with missing or outdated rows
+     * @param orphaned   number of rows of entities which do not exist
+     */
+    public record Report(long entities, long mismatched, long orphaned) {
+    }
+
+    private static final Logger L = Logger.getLogger("EventIndexMaintenance");
+
+    private static final int BATCH_SIZE = 500;
+
+    private final EventIndex index;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationArguments arguments;
+
+    private final List<JpaSpecificationExecutor<? extends ProjectOwnedEntity>> repositories;
+
+    public EventIndexMaintenance(EventIndex index, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            ApplicationArguments arguments, MeetingRepository meetingRepository, SprintRepository sprintRepository,
+            ReleaseRepository releaseRepository, TaskRepository taskRepository) {
+        this.index = index;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.arguments = arguments;
+        this.repositories = List.of(meetingRepository, sprintRepository, releaseRepository, taskRepository);
+    }
+
+    /**
+     * Rebuilds index when needed and runs requested consistency check. Events
+     * are read from entities until index is ready.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            boolean empty = jdbcTemplate.queryForList("SELECT 1 FROM event_index LIMIT 1").isEmpty();
+            if (empty || arguments.containsOption("rebuild-event-index")) {
+                rebuild();
+            } else {
+                index.setReady(true);
+            }
+            if (arguments.containsOption("check-event-index")) {
+                check(true);
+            }
+        } catch (RuntimeException e) {
+            L.log(Level.SEVERE, "Could not initialize event index", e);
+        }
+    }
+
+    /**
+     * Checks index and repairs found inconsistencies.
+     */
+    @Scheduled(cron = "${vernite.events.index-check-cron:0 0 4 * * SUN}")
+    public void scheduledCheck() {
+        try {
+            check(true);
+        } catch (RuntimeException e) {
+            L.log(Level.SEVERE, "Could not check event index", e);
+        }
+    }
+
+    /**
+     * Removes all rows and indexes all entities again. Until rebuild finishes
+     * events are read from entities.
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        index.setReady(false);
+        jdbcTemplate.update("DELETE FROM event_index");
+        long count = forEachBatch(batch -> batch.forEach(index::reindex));
+        index.setReady(true);
+        L.info("Rebuilt event index of " + count + " entities in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Compares index with rows computed from entities.
+     * 
+     * @param repair whether inconsistent entities should be indexed again and
+     *               orphaned rows removed
+     * @return check result
+     */
+    public Report check(boolean repair) {
+        record Key(List<Integer> types, long projectId, long relatedId) {
+        }
+        // rows of entities created during check are not in snapshot, so they are never orphaned
+        Set<Key> orphaned = new HashSet<>();
+        jdbcTemplate.query("SELECT DISTINCT type, project_id, related_id FROM event_index", rs -> {
+            orphaned.add(new Key(EventIndex.types(Event.Type.values()[rs.getInt("type")]), rs.getLong("project_id"),
+                    rs.getLong("related_id")));
+        });
+        long[] mismatched = { 0 };
+        long entities = forEachBatch(batch -> {
+            var types = EventIndex.types(batch.get(0));
+            Map<Key, Set<Row>> stored = new HashMap<>();
+            var relatedIds = batch.stream().map(EventIndex::relatedId).toList();
+            for (Row row : index.findRows(types, relatedIds)) {
+                stored.computeIfAbsent(new Key(types, row.event().getProjectId(), row.event().getRelatedId()),
+                        key -> new HashSet<>()).add(row);
+            }
+            for (ProjectOwnedEntity entity : batch) {
+                var key = new Key(types, entity.getProject().getId(), EventIndex.relatedId(entity));
+                orphaned.remove(key);
+                Set<Row> expected = new HashSet<>();
+                for (Row row : index.rows(entity)) {
+                    expected.add(normalize(row));
+                }
+                if (!expected.equals(stored.getOrDefault(key, Set.of()))) {
+                    mismatched[0]++;
+                    L.warning("Event index of " + entity.getClass().getSimpleName() + " " + key.relatedId()
+                            + " in project " + key.projectId() + " is inconsistent");
+                    if (repair) {
+                        index.reindex(entity);
+                    }
+                }
+            }
+        });
+        if (repair && !orphaned.isEmpty()) {
+            List<Object[]> params = new ArrayList<>();
+            for (Key key : orphaned) {
+                for (int type : key.types()) {
+                    params.add(new Object[] { type, key.projectId(), key.relatedId() });
+                }
+            }
+            jdbcTemplate.batchUpdate("DELETE FROM event_index WHERE type = ? AND project_id = ? AND related_id = ?",
+                    params);
+        }
+        var report = new Report(entities, mismatched[0], orphaned.size());
+        L.info("Checked event index: " + report);
+        return report;
+    }
+
+    /**
+     * Entity dates may be timestamps, which are not equal to dates read from
+     * index.
+     */
+    private static Row normalize(Row row) {
+        var event = row.event();
+        var normalized = new Event(event.getProjectId(), event.getType(), event.getRelatedId(), event.getName(),
+                event.getDescription(), event.getStartDate() == null ? null : new Date(event.getStartDate().getTime()),
+                new Date(event.getEndDate().getTime()), event.getLocation());
+        return new Row(row.owner(), row.ownerId(), normalized, new Date(row.rangeStart().getTime()),
+                new Date(row.rangeEnd().getTime()), row.isFinal());
+    }
+
+    /**
+     * Calls action with batches of meetings, sprints, releases and tasks. Each
+     * batch is processed in own transaction and contains entities of one type.
+     * Batches are read by ID ranges, so entities removed meanwhile do not
+     * cause others to be skipped.
+     * 
+     * @return number of processed entities
+     */
+    private long forEachBatch(Consumer<List<ProjectOwnedEntity>> action) {
+        long count = 0;
+        for (var repository : repositories) {
+            long[] lastId = { -1 };
+            int size;
+            do {
+                Integer processed = transactionTemplate.execute(status -> {
+                    List<ProjectOwnedEntity> batch = new ArrayList<>(repository.findAll(
+                            (root, query, cb) -> cb.greaterThan(root.get("id"), lastId[0]),
+                            PageRequest.of(0, BATCH_SIZE, Sort.by("id"))).getContent());
+                    if (!batch.isEmpty()) {
+                        action.accept(batch);
+                        lastId[0] = id(batch.get(batch.size() - 1));
+                    }
+                    return batch.size();
+                });
+                size = processed == null ? 0 : processed;
+                count += size;
+            } while (size == BATCH_SIZE);
+        }
+        return count;
+    }
+
+    private static long id(ProjectOwnedEntity entity) {
+        if (entity instanceof Task task) {
+            return task.getId();
+        }
+        return EventIndex.relatedId(entity);
+    }
+
+}
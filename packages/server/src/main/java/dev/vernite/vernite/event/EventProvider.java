@@ -35,7 +35,9 @@ import dev.vernite.vernite.user.User;
 
 /**
  * Interface for providing events. All classes implementing this interface will
- * be automatically registered as event providers.
+ * be automatically registered as event providers. Providers are called
+ * concurrently from event service threads, and should return events in
+ * natural order when database can sort them cheaply.
  */
 public interface EventProvider {
 
@@ -27,11 +27,21 @@
 
 package dev.vernite.vernite.event;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
@@ -41,9 +51,12 @@ import org.springframework.stereotype.Service;
 
 import dev.vernite.vernite.project.Project;
 import dev.vernite.vernite.user.User;
+import jakarta.annotation.PreDestroy;
 
 /**
- * Service providing events.
+ * Service providing events. Events are read from {@link EventIndex} once it is
+ * ready. Until then providers are queried concurrently on bounded executor and
+ * their results are merged in natural order of events.
  */
 @Service
 public class EventService implements ApplicationContextAware {
@@ -59,6 +72,30 @@ public class EventService implements ApplicationContextAware {
 
     private Iterable<EventProvider> providers;
 
+    private final ExecutorService executor;
+
+    private final EventIndex index;
+
+    public EventService(EventIndex index, @Value("${vernite.events.threads:8}") int threads) {
+        this.index = index;
+        var counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            var thread = new Thread(runnable, "event-provider-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    EventService(EventIndex index, int threads, Iterable<EventProvider> providers) {
+        this(index, threads);
+        this.providers = providers;
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        executor.shutdown();
+    }
+
     @Override
     public void setApplicationContext(ApplicationContext context) throws BeansException {
         var scanner = new ClassPathScanningCandidateComponentProvider(false);
@@ -78,17 +115,13 @@ public class EventService implements ApplicationContextAware {
      * @param end    the end date; if null, all events after the start date will
      *               be returned
      * @param filter the filter
-     * @return an sorted set of events
+     * @return an sorted list of distinct events
      */
-    public Set<Event> getUserEvents(User user, Date start, Date end, EventFilter filter) {
-        var result = new TreeSet<Event>();
-        providers.forEach(provider -> {
-            if (filter.getType().isEmpty()
-                    || filter.getType().contains(Event.Type.valueOf(provider.getType()).ordinal())) {
-                result.addAll(provider.provideUserEvents(user, start, end, filter));
-            }
-        });
-        return result;
+    public List<Event> getUserEvents(User user, Date start, Date end, EventFilter filter) {
+        if (index.isReady()) {
+            return index.find(EventIndex.Owner.USER, user.getId(), start, end, filter);
+        }
+        return collect(filter, provider -> provider.provideUserEvents(user, start, end, filter));
     }
 
     /**
@@ -100,16 +133,80 @@ public class EventService implements ApplicationContextAware {
      * @param end     the end date; if null, all events after the start date will be
      *                returned
      * @param filter  the filter
-     * @return an sorted set of events
+     * @return an sorted list of distinct events
      */
-    public Set<Event> getProjectEvents(Project project, Date start, Date end, EventFilter filter) {
-        var result = new TreeSet<Event>();
+    public List<Event> getProjectEvents(Project project, Date start, Date end, EventFilter filter) {
+        if (index.isReady()) {
+            return index.find(EventIndex.Owner.PROJECT, project.getId(), start, end, filter);
+        }
+        return collect(filter, provider -> provider.provideProjectEvents(project, start, end, filter));
+    }
+
+    private List<Event> collect(EventFilter filter, Function<EventProvider, Collection<Event>> query) {
+        List<CompletableFuture<List<Event>>> futures = new ArrayList<>();
         providers.forEach(provider -> {
             if (filter.getType().isEmpty()
                     || filter.getType().contains(Event.Type.valueOf(provider.getType()).ordinal())) {
-                result.addAll(provider.provideProjectEvents(project, start, end, filter));
+                futures.add(CompletableFuture.supplyAsync(() -> sorted(query.apply(provider)), executor));
             }
         });
+        List<List<Event>> results = new ArrayList<>(futures.size());
+        try {
+            for (var future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(false));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return merge(results);
+    }
+
+    /**
+     * Providers return events ordered by database, which may differ from natural
+     * order for equal dates. Sorting already ordered list takes linear time.
+     */
+    private static List<Event> sorted(Collection<Event> events) {
+        var list = new ArrayList<>(events);
+        list.sort(null);
+        return list;
+    }
+
+    /**
+     * Merges sorted lists into one sorted list without duplicates.
+     *
+     * @param lists lists sorted in natural order
+     * @return merged list
+     */
+    static List<Event> merge(List<List<Event>> lists) {
+        record Head(Event event, Iterator<Event> rest) implements Comparable<Head> {
+            @Override
+            public int compareTo(Head other) {
+                return event.compareTo(other.event);
+            }
+        }
+        int size = 0;
+        var heads = new PriorityQueue<Head>(Math.max(1, lists.size()));
+        for (var list : lists) {
+            size += list.size();
+            var iterator = list.iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Head(iterator.next(), iterator));
+            }
+        }
+        List<Event> result = new ArrayList<>(size);
+        while (!heads.isEmpty()) {
+            var head = heads.poll();
+            if (result.isEmpty() || result.get(result.size() - 1).compareTo(head.event()) != 0) {
+                result.add(head.event());
+            }
+            if (head.rest().hasNext()) {
+                heads.add(new Head(head.rest().next(), head.rest()));
+            }
+        }
         return result;
     }
 
@@ -31,21 +31,24 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import dev.vernite.vernite.integration.calendar.CalendarSyncService;
+import dev.vernite.vernite.integration.git.github.GitHubWebhookInbox;
 import dev.vernite.vernite.integration.git.github.GitHubWebhookService;
 import dev.vernite.vernite.integration.git.github.data.GitHubWebhookData;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import io.swagger.v3.oas.annotations.Hidden;
-import reactor.core.publisher.Mono;
 
 /**
  * Controller for webhooks from integrated services.
@@ -54,15 +57,33 @@ import reactor.core.publisher.Mono;
 @RestController
 @RequestMapping("/webhook")
 public class WebhookController {
+    /**
+     * Header with token for fetching only changes made after returned feed.
+     */
+    public static final String SYNC_TOKEN_HEADER = "X-Sync-Token";
     private static final ObjectMapper MAPPER = new ObjectMapper()
             .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
     @Autowired
     private GitHubWebhookService gitHubService;
     @Autowired
+    private GitHubWebhookInbox gitHubWebhookInbox;
+    @Autowired
     private CalendarSyncService calendarSyncService;
 
+    /**
+     * Accepts GitHub webhook delivery. Delivery is stored and handled in
+     * background, so GitHub does not time out waiting for it.
+     * 
+     * @param token    signature of payload
+     * @param event    GitHub event name
+     * @param delivery GitHub delivery ID used to ignore redeliveries
+     * @param dataRaw  payload
+     * @return empty response with status 202
+     */
     @PostMapping("/github")
-    Mono<Void> github(@RequestHeader("X-Hub-Signature-256") String token, @RequestHeader("X-GitHub-Event") String event,
+    ResponseEntity<Void> github(@RequestHeader("X-Hub-Signature-256") String token,
+            @RequestHeader("X-GitHub-Event") String event,
+            @RequestHeader(value = "X-GitHub-Delivery", required = false) String delivery,
             @RequestBody String dataRaw) {
         if (!gitHubService.isAuthorized(token, dataRaw)) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
@@ -73,11 +94,22 @@ public class WebhookController {
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
         }
-        return gitHubService.handleWebhook(event, data);
+        gitHubWebhookInbox.accept(delivery, event, data, dataRaw);
+        return ResponseEntity.accepted().build();
     }
 
     @GetMapping(value = "/calendar", produces = "text/calendar")
-    byte[] calendar(String key) {
-        return calendarSyncService.handleCalendar(key);
+    ResponseEntity<byte[]> calendar(NativeWebRequest request, String key,
+            @RequestParam(required = false) String syncToken) {
+        if (syncToken != null) {
+            var changes = calendarSyncService.getChanges(key, syncToken);
+            return ResponseEntity.ok().header(SYNC_TOKEN_HEADER, calendarSyncService.getSyncToken(changes))
+                    .body(changes.body());
+        }
+        var feed = calendarSyncService.getFeed(key);
+        if (request.checkNotModified(feed.etag(), feed.lastModified())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        return ResponseEntity.ok().header(SYNC_TOKEN_HEADER, calendarSyncService.getSyncToken(feed)).body(feed.body());
     }
 }
@@ -0,0 +1,247 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.calendar;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import dev.vernite.vernite.event.Event;
+import dev.vernite.vernite.meeting.Meeting;
+import dev.vernite.vernite.release.Release;
+import dev.vernite.vernite.sprint.Sprint;
+import dev.vernite.vernite.task.Task;
+import dev.vernite.vernite.utils.HibernateListeners;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Log of changes of entities shown in calendar feeds, used to answer
+ * incremental feed requests. Changes are logged per project from Hibernate
+ * events in transaction of the change, so feeds of both projects and users
+ * are served from the same log.
+ */
+@Component
+public class CalendarChangeLog implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+        PostCollectionRecreateEventListener, PostCollectionUpdateEventListener {
+
+    /**
+     * Kind of entity which changed, with types of events it is shown as.
+     */
+    public enum Source {
+        MEETING(Event.Type.MEETING), SPRINT(Event.Type.SPRINT), RELEASE(Event.Type.RELEASE),
+        TASK(Event.Type.TASK_ESTIMATE, Event.Type.TASK_DEADLINE);
+
+        private final Set<Event.Type> types;
+
+        Source(Event.Type first, Event.Type... rest) {
+            this.types = EnumSet.of(first, rest);
+        }
+
+        public Set<Event.Type> getTypes() {
+            return types;
+        }
+
+        static Source of(Event.Type type) {
+            return switch (type) {
+                case MEETING -> MEETING;
+                case SPRINT -> SPRINT;
+                case RELEASE -> RELEASE;
+                case TASK_ESTIMATE, TASK_DEADLINE -> TASK;
+            };
+        }
+    }
+
+    /**
+     * Entity which changed.
+     * 
+     * @param projectId ID of project of entity
+     * @param source    kind of entity
+     * @param relatedId ID of entity as used in its events
+     */
+    public record Change(long projectId, Source source, long relatedId) {
+    }
+
+    private static final Logger L = Logger.getLogger("CalendarChangeLog");
+
+    private static final String INSERT = "INSERT INTO calendar_change (date, project_id, source, related_id) "
+            + "VALUES (:date, :projectId, :source, :relatedId)";
+
+    private static final String SELECT = "SELECT DISTINCT project_id, source, related_id FROM calendar_change "
+            + "WHERE project_id IN (:projectIds) AND date > :since";
+
+    private static final String DELETE = "DELETE FROM calendar_change WHERE date < :before";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final Duration retention;
+
+    public CalendarChangeLog(EntityManagerFactory entityManagerFactory, NamedParameterJdbcTemplate jdbcTemplate,
+            @Value("${vernite.calendar.sync-token-ttl:P30D}") Duration retention) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = jdbcTemplate;
+        this.retention = retention;
+    }
+
+    @PostConstruct
+    private void register() {
+        HibernateListeners.register(entityManagerFactory, this, EventType.POST_INSERT, EventType.POST_UPDATE,
+                EventType.POST_DELETE, EventType.POST_COLLECTION_RECREATE, EventType.POST_COLLECTION_UPDATE);
+    }
+
+    /**
+     * @return how long changes are kept; sync tokens older than that are expired
+     */
+    public Duration getRetention() {
+        return retention;
+    }
+
+    /**
+     * Returns entities of projects which changed after given time.
+     * 
+     * @param projectIds IDs of projects
+     * @param since      time in milliseconds
+     * @return distinct changed entities
+     */
+    public List<Change> since(Collection<Long> projectIds, long since) {
+        if (projectIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(SELECT, Map.of("projectIds", projectIds, "since", new Timestamp(since)),
+                (rs, rowNum) -> new Change(rs.getLong("project_id"), Source.valueOf(rs.getString("source")),
+                        rs.getLong("related_id")));
+    }
+
+    /**
+     * Removes changes older than retention.
+     */
+    @Scheduled(cron = "${vernite.calendar.change-log-cron:0 30 3 * * *}")
+    public void prune() {
+        try {
+            long before = System.currentTimeMillis() - retention.toMillis();
+            int removed = jdbcTemplate.update(DELETE, Map.of("before", new Timestamp(before)));
+            L.info("Removed " + removed + " calendar changes");
+        } catch (DataAccessException e) {
+            L.log(Level.SEVERE, "Could not remove old calendar changes", e);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        log(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getDirtyProperties() != null) {
+            var names = event.getPersister().getPropertyNames();
+            boolean relevant = false;
+            for (int index : event.getDirtyProperties()) {
+                relevant |= CalendarFeedCache.RELEVANT.contains(names[index]);
+            }
+            if (!relevant) {
+                return;
+            }
+        }
+        log(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        log(event.getEntity());
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        onCollectionChange(event);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        onCollectionChange(event);
+    }
+
+    /**
+     * Logs change of meeting participants, which decide whose feeds show it.
+     */
+    private void onCollectionChange(AbstractCollectionEvent event) {
+        if (event.getAffectedOwnerOrNull() instanceof Meeting meeting) {
+            log(meeting);
+        }
+    }
+
+    private void log(Object entity) {
+        Change change;
+        if (entity instanceof Meeting meeting) {
+            change = new Change(meeting.getProject().getId(), Source.MEETING, meeting.getId());
+        } else if (entity instanceof Sprint sprint) {
+            change = new Change(sprint.getProject().getId(), Source.SPRINT, sprint.getId());
+        } else if (entity instanceof Release release) {
+            change = new Change(release.getProject().getId(), Source.RELEASE, release.getId());
+        } else if (entity instanceof Task task) {
+            change = new Change(task.getProject().getId(), Source.TASK, task.getNumber());
+        } else {
+            return;
+        }
+        jdbcTemplate.update(INSERT, Map.of("date", new Timestamp(System.currentTimeMillis()), "projectId",
+                change.projectId(), "source", change.source().name(), "relatedId", change.relatedId()));
+    }
+
+}
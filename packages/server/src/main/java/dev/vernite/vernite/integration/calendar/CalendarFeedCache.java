@@ -0,0 +1,250 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.calendar;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import dev.vernite.vernite.event.EventIndex;
+import dev.vernite.vernite.meeting.Meeting;
+import dev.vernite.vernite.project.Project;
+import dev.vernite.vernite.project.ProjectOwnedEntity;
+import dev.vernite.vernite.projectworkspace.ProjectWorkspace;
+import dev.vernite.vernite.release.Release;
+import dev.vernite.vernite.sprint.Sprint;
+import dev.vernite.vernite.task.Task;
+import dev.vernite.vernite.user.User;
+import dev.vernite.vernite.utils.HibernateListeners;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Cache of rendered calendar feeds keyed by integration key. Feeds are
+ * invalidated from Hibernate events after transaction commits, when meeting,
+ * sprint, release or task in their scope changes, when user joins or leaves
+ * project and when integration or its user is changed or deleted, so cached
+ * feed is never served for key which would not be found. Entries also expire
+ * after configured time, because events move in and out of rendered time
+ * window. When cache is full, least recently used feed is evicted.
+ */
+@Component
+public class CalendarFeedCache implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+        PostCollectionRecreateEventListener, PostCollectionUpdateEventListener {
+
+    /**
+     * Attributes which are rendered in feeds or decide which events are included:
+     * attributes of events and soft deletion of their entities.
+     */
+    static final Set<String> RELEVANT = Stream.concat(EventIndex.RELEVANT.stream(), Stream.of("active"))
+            .collect(Collectors.toUnmodifiableSet());
+
+    /**
+     * Attributes of user which decide whether feeds of user are served.
+     */
+    static final Set<String> USER_RELEVANT = Set.of("deleted", "deletedPermanently");
+
+    private record Entry(CalendarFeed feed, long expires, long integrationId, long userId) {
+    }
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final Map<String, Entry> entries;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private final long timeToLive;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    public CalendarFeedCache(EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry,
+            @Value("${vernite.calendar.cache-ttl:PT1H}") Duration timeToLive,
+            @Value("${vernite.calendar.cache-size:10000}") int maxSize) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.timeToLive = timeToLive.toMillis();
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        });
+        this.hits = Counter.builder("vernite.calendar.feed.cache").tag("result", "hit")
+                .description("Calendar feed requests served from cache").register(meterRegistry);
+        this.misses = Counter.builder("vernite.calendar.feed.cache").tag("result", "miss")
+                .description("Calendar feed requests which required rendering").register(meterRegistry);
+        meterRegistry.gaugeMapSize("vernite.calendar.feed.cache.size", Tags.empty(), entries);
+    }
+
+    @PostConstruct
+    private void register() {
+        HibernateListeners.register(entityManagerFactory, this, EventType.POST_INSERT, EventType.POST_UPDATE,
+                EventType.POST_DELETE, EventType.POST_COLLECTION_RECREATE, EventType.POST_COLLECTION_UPDATE);
+    }
+
+    /**
+     * Returns cached feed and records cache hit or miss.
+     *
+     * @param key integration key
+     * @return cached feed or {@literal null} when feed must be rendered
+     */
+    public CalendarFeed get(String key) {
+        var entry = entries.get(key);
+        if (entry == null || entry.expires() < System.currentTimeMillis()) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.feed();
+    }
+
+    /**
+     * Returns current version of cache. It must be read before loading data for
+     * feed and passed to {@link #put(String, CalendarFeed, long)}.
+     *
+     * @return version changed on every invalidation
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Caches rendered feed unless any feed was invalidated since version was
+     * read, because then feed could have been rendered from stale data.
+     *
+     * @param integration integration of which feed was rendered
+     * @param feed        rendered feed
+     * @param version     version read before feed data was loaded
+     */
+    public void put(CalendarIntegration integration, CalendarFeed feed, long version) {
+        if (this.version.get() != version) {
+            return;
+        }
+        entries.put(integration.getKey(), new Entry(feed, feed.lastModified() + timeToLive, integration.getId(),
+                integration.getUser().getId()));
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        onChange(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        // every attribute of integration decides which feed is served for key
+        if (event.getDirtyProperties() != null && !(event.getEntity() instanceof CalendarIntegration)) {
+            var relevantNames = event.getEntity() instanceof User ? USER_RELEVANT : RELEVANT;
+            var names = event.getPersister().getPropertyNames();
+            boolean relevant = false;
+            for (int index : event.getDirtyProperties()) {
+                relevant |= relevantNames.contains(names[index]);
+            }
+            if (!relevant) {
+                return;
+            }
+        }
+        onChange(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        onChange(event.getEntity());
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        onCollectionChange(event);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        onCollectionChange(event);
+    }
+
+    private void onCollectionChange(AbstractCollectionEvent event) {
+        if (event.getAffectedOwnerOrNull() instanceof Meeting meeting) {
+            onChange(meeting);
+        }
+    }
+
+    private void onChange(Object entity) {
+        if (entity instanceof Meeting || entity instanceof Sprint || entity instanceof Release
+                || entity instanceof Task || entity instanceof Project) {
+            long projectId = ((ProjectOwnedEntity) entity).getProject().getId();
+            invalidate(entry -> entry.feed().projectIds().contains(projectId));
+        } else if (entity instanceof ProjectWorkspace projectWorkspace) {
+            long userId = projectWorkspace.getId().getWorkspaceId().getUserId();
+            invalidate(entry -> entry.feed().userId() == userId);
+        } else if (entity instanceof CalendarIntegration integration) {
+            long integrationId = integration.getId();
+            invalidate(entry -> entry.integrationId() == integrationId);
+        } else if (entity instanceof User user) {
+            long userId = user.getId();
+            invalidate(entry -> entry.userId() == userId);
+        }
+    }
+
+    private void invalidate(Predicate<Entry> predicate) {
+        HibernateListeners.afterCommit(() -> {
+            version.incrementAndGet();
+            entries.values().removeIf(predicate);
+        });
+    }
+
+}
@@ -29,80 +29,285 @@ package dev.vernite.vernite.integration.calendar;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.server.ResponseStatusException;
 
 import dev.vernite.vernite.event.Event;
 import dev.vernite.vernite.event.EventFilter;
 import dev.vernite.vernite.event.EventService;
+import dev.vernite.vernite.integration.calendar.CalendarChangeLog.Change;
+import dev.vernite.vernite.integration.calendar.CalendarChangeLog.Source;
+import dev.vernite.vernite.meeting.Meeting;
+import dev.vernite.vernite.meeting.MeetingEventProvider;
+import dev.vernite.vernite.meeting.MeetingRepository;
+import dev.vernite.vernite.projectworkspace.ProjectWorkspaceRepository;
+import dev.vernite.vernite.release.Release;
+import dev.vernite.vernite.release.ReleaseEventProvider;
+import dev.vernite.vernite.release.ReleaseRepository;
+import dev.vernite.vernite.sprint.Sprint;
+import dev.vernite.vernite.sprint.SprintEventProvider;
+import dev.vernite.vernite.sprint.SprintRepository;
+import dev.vernite.vernite.task.Task;
+import dev.vernite.vernite.task.TaskDeadlineEventProvider;
+import dev.vernite.vernite.task.TaskEstimateEventProvider;
+import dev.vernite.vernite.task.TaskRepository;
 import dev.vernite.vernite.utils.ObjectNotFoundException;
-import net.fortuna.ical4j.data.CalendarOutputter;
-import net.fortuna.ical4j.model.Calendar;
-import net.fortuna.ical4j.model.Date;
-import net.fortuna.ical4j.model.DateTime;
-import net.fortuna.ical4j.model.component.VEvent;
-import net.fortuna.ical4j.model.property.CalScale;
-import net.fortuna.ical4j.model.property.Description;
-import net.fortuna.ical4j.model.property.Location;
-import net.fortuna.ical4j.model.property.ProdId;
-import net.fortuna.ical4j.model.property.Uid;
-import net.fortuna.ical4j.model.property.Version;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 @Service
 @Component
 public class CalendarSyncService {
     private static final java.util.Date FROM = new java.util.Date(0);
 
+    /**
+     * Changes are logged before their transaction commits, so feed rendered
+     * before commit may miss change logged earlier than feed sync token. Changes
+     * are sent again if they were logged shortly before token was issued.
+     */
+    private static final long TOKEN_SKEW = TimeUnit.MINUTES.toMillis(1);
+
     @Autowired
     private EventService eventService;
     @Autowired
     private CalendarIntegrationRepository repository;
+    @Autowired
+    private ProjectWorkspaceRepository projectWorkspaceRepository;
+    @Autowired
+    private CalendarFeedCache cache;
+    @Autowired
+    private CalendarChangeLog changeLog;
+    @Autowired
+    private MeetingRepository meetingRepository;
+    @Autowired
+    private SprintRepository sprintRepository;
+    @Autowired
+    private ReleaseRepository releaseRepository;
+    @Autowired
+    private TaskRepository taskRepository;
+
+    private final Timer renderTimer;
+
+    public CalendarSyncService(MeterRegistry meterRegistry) {
+        this.renderTimer = Timer.builder("vernite.calendar.feed.render").description("Time of rendering calendar feed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns calendar feed for integration. Feed is served from cache when
+     * nothing in its scope changed since it was rendered.
+     * 
+     * @param key integration key
+     * @return calendar feed
+     * @throws ObjectNotFoundException when integration with key does not exist
+     *                                 or its user or project is deleted
+     */
+    public CalendarFeed getFeed(String key) {
+        var feed = cache.get(key);
+        if (feed != null) {
+            return feed;
+        }
+        long version = cache.version();
+        long start = System.nanoTime();
+        CalendarIntegration integration = findIntegration(key);
+        Set<Long> projectIds = getProjectIds(integration);
+        byte[] body = render(getName(integration), getEvents(integration), null);
+        feed = new CalendarFeed(body, DigestUtils.md5DigestAsHex(body), System.currentTimeMillis(),
+                integration.getProject() == null ? integration.getUser().getId() : 0, projectIds);
+        renderTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        cache.put(integration, feed, version);
+        return feed;
+    }
+
+    /**
+     * Returns calendar feed with events which changed since sync token was
+     * issued. Events which were removed are included as cancelled.
+     * 
+     * @param key       integration key
+     * @param syncToken sync token returned with previous feed
+     * @return calendar feed with changed events
+     * @throws ObjectNotFoundException when integration with key does not exist
+     *                                 or its user or project is deleted
+     * @throws ResponseStatusException with status gone when token expired or
+     *                                 projects in feed changed; full feed must
+     *                                 be fetched then
+     */
+    public CalendarFeed getChanges(String key, String syncToken) {
+        CalendarIntegration integration = findIntegration(key);
+        long now = System.currentTimeMillis();
+        Set<Long> projectIds = getProjectIds(integration);
+        int separator = syncToken.indexOf('_');
+        long since;
+        try {
+            since = Long.parseLong(syncToken.substring(0, Math.max(separator, 0)));
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid sync token");
+        }
+        if (since < now - changeLog.getRetention().toMillis()
+                || !syncToken.substring(separator + 1).equals(hash(projectIds))) {
+            throw new ResponseStatusException(HttpStatus.GONE, "sync token expired");
+        }
+        var changes = changeLog.since(projectIds, since - TOKEN_SKEW);
+        byte[] body = render(getName(integration), getEvents(integration, projectIds, changes), changes);
+        return new CalendarFeed(body, DigestUtils.md5DigestAsHex(body), now,
+                integration.getProject() == null ? integration.getUser().getId() : 0, projectIds);
+    }
+
+    /**
+     * Returns sync token for feed, which can be passed to
+     * {@link #getChanges(String, String)} to get changes made after feed.
+     * 
+     * @param feed calendar feed
+     * @return sync token
+     */
+    public String getSyncToken(CalendarFeed feed) {
+        return feed.lastModified() + "_" + hash(feed.projectIds());
+    }
 
-    public byte[] handleCalendar(String key) {
+    private static String hash(Set<Long> projectIds) {
+        var sorted = projectIds.stream().sorted().map(String::valueOf).toList();
+        return DigestUtils.md5DigestAsHex(String.join(",", sorted).getBytes(StandardCharsets.UTF_8)).substring(0, 8);
+    }
+
+    /**
+     * Finds integration by key. Integrations of deleted users and projects are
+     * not served, even though they are removed only later.
+     */
+    private CalendarIntegration findIntegration(String key) {
+        var integration = repository.findByKey(key).orElseThrow(ObjectNotFoundException::new);
+        if (integration.getUser().isDeleted()
+                || (integration.getProject() != null && integration.getProject().getActive() != null)) {
+            throw new ObjectNotFoundException();
+        }
+        return integration;
+    }
+
+    private Set<Long> getProjectIds(CalendarIntegration integration) {
+        if (integration.getProject() != null) {
+            return Set.of(integration.getProject().getId());
+        }
+        Set<Long> projectIds = new HashSet<>();
+        long userId = integration.getUser().getId();
+        for (var projectWorkspace : projectWorkspaceRepository.findByIdWorkspaceIdUserId(userId)) {
+            projectIds.add(projectWorkspace.getId().getProjectId());
+        }
+        return projectIds;
+    }
+
+    private static String getName(CalendarIntegration integration) {
+        if (integration.getProject() == null) {
+            return "Vernite - " + integration.getUser().getUsername() + " user calendar";
+        }
+        return "Vernite - " + integration.getProject().getName() + " project calendar";
+    }
+
+    private List<Event> getEvents(CalendarIntegration integration) {
         java.util.Date to = java.util.Date.from(Instant.now().plus(1000, ChronoUnit.DAYS));
-        CalendarIntegration integration = repository.findByKey(key).orElseThrow(ObjectNotFoundException::new);
-        Set<Event> events;
-        Calendar calendar = new Calendar();
         if (integration.getProject() == null) {
-            events = eventService.getUserEvents(integration.getUser(), FROM, to, new EventFilter());
-            calendar.getProperties()
-                    .add(new CalendarName("Vernite - " + integration.getUser().getUsername() + " user calendar"));
-        } else {
-            events = eventService.getProjectEvents(integration.getProject(), FROM, to, new EventFilter());
-            calendar.getProperties()
-                    .add(new CalendarName("Vernite - " + integration.getProject().getName() + " project calendar"));
+            return eventService.getUserEvents(integration.getUser(), FROM, to, new EventFilter());
         }
-        calendar.getProperties().add(new ProdId("-//Vernite//EN"));
-        calendar.getProperties().add(Version.VERSION_2_0);
-        calendar.getProperties().add(CalScale.GREGORIAN);
-        for (Event event : events) {
-            VEvent calEvent;
-            if (event.getStartDate() == null) {
-                calEvent = new VEvent(new Date(event.getEndDate()), event.getName());
+        return eventService.getProjectEvents(integration.getProject(), FROM, to, new EventFilter());
+    }
+
+    /**
+     * Returns current events of changed entities which are shown in feed.
+     * Only changed entities are loaded, by their IDs.
+     */
+    private List<Event> getEvents(CalendarIntegration integration, Set<Long> projectIds, List<Change> changes) {
+        Map<Source, Set<Long>> ids = new EnumMap<>(Source.class);
+        Map<Long, Set<Long>> taskNumbers = new HashMap<>();
+        for (Change change : changes) {
+            if (change.source() == Source.TASK) {
+                taskNumbers.computeIfAbsent(change.projectId(), k -> new HashSet<>()).add(change.relatedId());
             } else {
-                calEvent = new VEvent(new DateTime(event.getStartDate()), new DateTime(event.getEndDate()), event.getName());
+                ids.computeIfAbsent(change.source(), k -> new HashSet<>()).add(change.relatedId());
             }
-            calEvent.getProperties().add(new Uid(String.format("project_%d_event_%d_%d", event.getProjectId(),
-                    event.getType().ordinal(), event.getRelatedId())));
-            if (event.getDescription() != null) {
-                calEvent.getProperties().add(new Description(event.getDescription()));
+        }
+        // user feeds show only meetings and tasks of the user
+        Long userId = integration.getProject() == null ? integration.getUser().getId() : null;
+        List<Event> events = new ArrayList<>();
+        for (Meeting meeting : meetingRepository.findAllById(ids.getOrDefault(Source.MEETING, Set.of()))) {
+            if (projectIds.contains(meeting.getProject().getId()) && (userId == null
+                    || meeting.getParticipants().stream().anyMatch(user -> user.getId() == userId))) {
+                events.add(MeetingEventProvider.convert(meeting));
+            }
+        }
+        for (Sprint sprint : sprintRepository.findAllById(ids.getOrDefault(Source.SPRINT, Set.of()))) {
+            if (projectIds.contains(sprint.getProject().getId())) {
+                events.add(SprintEventProvider.convert(sprint));
             }
-            if (event.getLocation() != null) {
-                calEvent.getProperties().add(new Location(event.getLocation()));
+        }
+        for (Release release : releaseRepository.findAllById(ids.getOrDefault(Source.RELEASE, Set.of()))) {
+            if (projectIds.contains(release.getProject().getId()) && release.getDeadline() != null) {
+                events.add(ReleaseEventProvider.convert(release));
+            }
+        }
+        for (var entry : taskNumbers.entrySet()) {
+            for (Task task : taskRepository.findByStatusProjectIdAndNumberIn(entry.getKey(), entry.getValue())) {
+                if (userId != null && (task.getAssignee() == null || task.getAssignee().getId() != userId)) {
+                    continue;
+                }
+                if (task.getEstimatedDate() != null) {
+                    events.add(TaskEstimateEventProvider.convert(task));
+                }
+                if (task.getDeadline() != null) {
+                    events.add(TaskDeadlineEventProvider.convert(task));
+                }
             }
-            calendar.getComponents().add(calEvent);
         }
-        CalendarOutputter calendarOutputter = new CalendarOutputter();
-        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        events.sort(null);
+        return events;
+    }
+
+    /**
+     * Renders feed. When changes are given only events of changed entities are
+     * written and entities without events are written as cancelled.
+     */
+    private static byte[] render(String name, List<Event> events, List<Change> changes) {
+        record Key(long projectId, Event.Type type, long relatedId) {
+        }
+        Set<Change> changed = changes == null ? null : new HashSet<>(changes);
+        Set<Key> written = new HashSet<>();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(256 + events.size() * 160);
+        IcsWriter writer = new IcsWriter(stream, Instant.now(), ZoneId.systemDefault());
         try {
-            calendarOutputter.output(calendar, stream);
+            writer.begin(name);
+            for (Event event : events) {
+                if (changed == null) {
+                    writer.event(event);
+                } else if (changed.contains(new Change(event.getProjectId(), Source.of(event.getType()),
+                        event.getRelatedId()))) {
+                    writer.event(event);
+                    written.add(new Key(event.getProjectId(), event.getType(), event.getRelatedId()));
+                }
+            }
+            if (changed != null) {
+                for (Change change : changed) {
+                    for (Event.Type type : change.source().getTypes()) {
+                        if (!written.contains(new Key(change.projectId(), type, change.relatedId()))) {
+                            writer.tombstone(change.projectId(), type, change.relatedId());
+                        }
+                    }
+                }
+            }
+            writer.end();
         } catch (IOException e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "IO error");
         }
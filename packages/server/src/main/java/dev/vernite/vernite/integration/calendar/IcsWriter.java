@@ -0,0 +1,264 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.calendar;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+import dev.vernite.vernite.event.Event;
+
+/**
+ * Writer of iCalendar feeds. Events are written as content lines straight to
+ * output stream, folded and escaped on the fly, so memory used does not depend
+ * on size of feed. Output matches what ical4j {@code CalendarOutputter}
+ * produced for the same events.
+ */
+class IcsWriter {
+
+    /**
+     * Length of content line after which it is folded, same as ical4j reduced
+     * fold length.
+     */
+    private static final int FOLD_LENGTH = 73;
+
+    private final Writer out;
+
+    private final ZoneId zone;
+
+    private final boolean utc;
+
+    private final String stamp;
+
+    private int lineLength;
+
+    /**
+     * @param out  output stream; it is not closed by writer
+     * @param now  time written as stamp of every event
+     * @param zone time zone of event times; times in {@code Etc/UTC} and
+     *             {@code GMT} are written in UTC form, others as local time
+     */
+    IcsWriter(OutputStream out, Instant now, ZoneId zone) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.zone = zone;
+        this.utc = "Etc/UTC".equals(zone.getId()) || "GMT".equals(zone.getId());
+        this.stamp = dateTime(LocalDateTime.ofInstant(now, ZoneOffset.UTC), true);
+    }
+
+    /**
+     * Writes beginning of calendar with its properties.
+     * 
+     * @param name name of calendar
+     * @throws IOException if an I/O error occurs
+     */
+    void begin(String name) throws IOException {
+        line("BEGIN:VCALENDAR");
+        out.write("X-WR-CALNAME:");
+        lineLength = 13;
+        // written unescaped like before, only line breaks must not end content line
+        text(name.replace("\r\n", "\\n").replace("\n", "\\n"), false);
+        endLine();
+        line("PRODID:-//Vernite//EN");
+        line("VERSION:2.0");
+        line("CALSCALE:GREGORIAN");
+    }
+
+    /**
+     * Writes event. Events without start date are written as all-day events on
+     * day of their end date.
+     * 
+     * @param event event to write
+     * @throws IOException if an I/O error occurs
+     */
+    void event(Event event) throws IOException {
+        line("BEGIN:VEVENT");
+        line("DTSTAMP:" + stamp);
+        if (event.getStartDate() == null) {
+            line("DTSTART;VALUE=DATE:" + date(event.getEndDate()));
+        } else {
+            line("DTSTART:" + dateTime(event.getStartDate()));
+            if (event.getEndDate() != null) {
+                line("DTEND:" + dateTime(event.getEndDate()));
+            }
+        }
+        property("SUMMARY:", event.getName() == null ? "" : event.getName());
+        uid(event.getProjectId(), event.getType(), event.getRelatedId());
+        if (event.getDescription() != null) {
+            property("DESCRIPTION:", event.getDescription());
+        }
+        if (event.getLocation() != null) {
+            property("LOCATION:", event.getLocation());
+        }
+        line("END:VEVENT");
+    }
+
+    /**
+     * Writes cancelled event, which tells client that event was removed.
+     * 
+     * @param projectId ID of project of event
+     * @param type      type of event
+     * @param relatedId ID of entity of event
+     * @throws IOException if an I/O error occurs
+     */
+    void tombstone(long projectId, Event.Type type, long relatedId) throws IOException {
+        line("BEGIN:VEVENT");
+        line("DTSTAMP:" + stamp);
+        uid(projectId, type, relatedId);
+        line("STATUS:CANCELLED");
+        line("END:VEVENT");
+    }
+
+    /**
+     * Writes end of calendar and flushes output stream.
+     * 
+     * @throws IOException if an I/O error occurs
+     */
+    void end() throws IOException {
+        line("END:VCALENDAR");
+        out.flush();
+    }
+
+    private void uid(long projectId, Event.Type type, long relatedId) throws IOException {
+        out.write("UID:project_");
+        out.write(Long.toString(projectId));
+        out.write("_event_");
+        out.write(Integer.toString(type.ordinal()));
+        out.write('_');
+        out.write(Long.toString(relatedId));
+        out.write("\r\n");
+    }
+
+    private void line(String line) throws IOException {
+        out.write(line);
+        out.write("\r\n");
+    }
+
+    private void property(String name, String value) throws IOException {
+        out.write(name);
+        lineLength = name.length();
+        text(value, true);
+        endLine();
+    }
+
+    private void endLine() throws IOException {
+        if (lineLength >= FOLD_LENGTH) {
+            // full line is folded even when nothing follows, as ical4j did
+            out.write("\r\n ");
+        }
+        out.write("\r\n");
+        lineLength = 0;
+    }
+
+    private void text(String value, boolean escape) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (escape) {
+                switch (c) {
+                    case '\\', ',', ';', '"' -> {
+                        fold('\\');
+                        fold(c);
+                        continue;
+                    }
+                    case '\n' -> {
+                        fold('\\');
+                        fold('n');
+                        continue;
+                    }
+                    case '\r' -> {
+                        if (i + 1 < value.length() && value.charAt(i + 1) == '\n') {
+                            continue;
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+            fold(c);
+        }
+    }
+
+    private void fold(char c) throws IOException {
+        // surrogate pair is never split, so folded line may be one char shorter
+        if (lineLength >= FOLD_LENGTH || (lineLength == FOLD_LENGTH - 1 && Character.isHighSurrogate(c))) {
+            out.write("\r\n ");
+            lineLength = 1;
+        }
+        out.write(c);
+        lineLength = c == '\r' ? 0 : lineLength + 1;
+    }
+
+    private String dateTime(Date date) {
+        return dateTime(LocalDateTime.ofInstant(date.toInstant(), zone), utc);
+    }
+
+    private static String date(Date date) {
+        var time = LocalDateTime.ofInstant(date.toInstant(), ZoneOffset.UTC);
+        var builder = new StringBuilder(8);
+        appendDate(builder, time);
+        return builder.toString();
+    }
+
+    private static String dateTime(LocalDateTime time, boolean utc) {
+        var builder = new StringBuilder(16);
+        appendDate(builder, time);
+        builder.append('T');
+        pad(builder, time.getHour());
+        pad(builder, time.getMinute());
+        pad(builder, time.getSecond());
+        if (utc) {
+            builder.append('Z');
+        }
+        return builder.toString();
+    }
+
+    private static void appendDate(StringBuilder builder, LocalDateTime time) {
+        int year = time.getYear();
+        for (int divisor = 1000; divisor > year && divisor > 1; divisor /= 10) {
+            builder.append('0');
+        }
+        builder.append(year);
+        pad(builder, time.getMonthValue());
+        pad(builder, time.getDayOfMonth());
+    }
+
+    private static void pad(StringBuilder builder, int value) {
+        if (value < 10) {
+            builder.append('0');
+        }
+        builder.append(value);
+    }
+
+}
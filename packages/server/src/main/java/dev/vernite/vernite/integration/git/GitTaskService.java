@@ -29,7 +29,9 @@ package dev.vernite.vernite.integration.git;
 
 import java.util.List;
 
+import dev.vernite.vernite.integration.git.github.GitHubMirror;
 import dev.vernite.vernite.integration.git.github.GitHubService;
+import dev.vernite.vernite.integration.git.github.GitHubWriteQueue;
 import dev.vernite.vernite.project.Project;
 import dev.vernite.vernite.release.Release;
 import dev.vernite.vernite.task.Task;
@@ -49,6 +51,10 @@ import reactor.core.publisher.Mono;
 public class GitTaskService {
     @Autowired
     private GitHubService gitHubService;
+    @Autowired
+    private GitHubMirror gitHubMirror;
+    @Autowired
+    private GitHubWriteQueue gitHubWriteQueue;
 
     /**
      * Handle issue action for a given task.
@@ -90,14 +96,28 @@ public class GitTaskService {
         return Flux.concat(List.of(gitHubService.patchIssue(task), gitHubService.patchPullRequest(task)));
     }
 
+    /**
+     * Queues changes of task to be applied to issue in appropriate git service.
+     * Changes queued shortly one after another are applied once.
+     * 
+     * @param task must not be {@literal null}; must be entity from database.
+     */
+    public void queuePatchIssue(Task task) {
+        gitHubWriteQueue.patchTask(task);
+    }
+
     /**
      * Gets issues from git integrations for given project.
      * 
      * @param project must not be {@literal null}; must be entity from database.
+     * @param state   state of issues: open, closed or all; open when
+     *                {@literal null}.
+     * @param query   text contained in title or issue number; all when
+     *                {@literal null}.
      * @return Flux with issues.
      */
-    public Flux<Issue> getIssues(Project project) {
-        return Flux.concat(List.of(gitHubService.getIssues(project)));
+    public Flux<Issue> getIssues(Project project, String state, String query) {
+        return Flux.concat(List.of(gitHubMirror.getIssues(project, state, query)));
     }
 
     /**
@@ -143,10 +163,14 @@ public class GitTaskService {
      * Gets pull requests from git integrations for given project.
      * 
      * @param project must not be {@literal null}; must be entity from database.
+     * @param state   state of pull requests: open, closed or all; open when
+     *                {@literal null}.
+     * @param query   text contained in title or pull request number; all when
+     *                {@literal null}.
      * @return Flux with pull requests.
      */
-    public Flux<PullRequest> getPullRequests(Project project) {
-        return Flux.concat(List.of(gitHubService.getPullRequests(project)));
+    public Flux<PullRequest> getPullRequests(Project project, String state, String query) {
+        return Flux.concat(List.of(gitHubMirror.getPullRequests(project, state, query)));
     }
 
     /**
@@ -177,7 +201,7 @@ public class GitTaskService {
         return gitHubService.publishRelease(release, branch);
     }
 
-    public Flux<Branch> getBranches(Project project) {
-        return Flux.concat(List.of(gitHubService.getBranches(project)));
+    public Flux<Branch> getBranches(Project project, String query) {
+        return Flux.concat(List.of(gitHubMirror.getBranches(project, query)));
     }
 }
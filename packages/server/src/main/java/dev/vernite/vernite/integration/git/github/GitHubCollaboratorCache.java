@@ -0,0 +1,270 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.git.github;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import dev.vernite.vernite.integration.git.github.api.model.GitHubUser;
+import dev.vernite.vernite.integration.git.github.model.Authorization;
+import dev.vernite.vernite.integration.git.github.model.AuthorizationRepository;
+import dev.vernite.vernite.user.User;
+import dev.vernite.vernite.utils.HibernateListeners;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Cache translating Vernite assignees to GitHub logins. It keeps collaborators
+ * of each repository, as GitHub user ID to login, and GitHub user IDs of each
+ * Vernite user. Collaborators older than TTL are still used while they are
+ * refreshed in background; they are invalidated by member and installation
+ * webhooks. GitHub user IDs are invalidated from Hibernate events after
+ * transaction commits.
+ */
+@Component
+public class GitHubCollaboratorCache implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener {
+
+    private static final Logger L = Logger.getLogger("GitHubCollaboratorCache");
+
+    private static final class Entry {
+
+        private final Mono<Map<Long, String>> logins;
+
+        private final long loaded;
+
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Entry(Mono<Map<Long, String>> logins, long loaded) {
+            this.logins = logins;
+            this.loaded = loaded;
+        }
+
+    }
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final AuthorizationRepository authorizationRepository;
+
+    private final Map<String, Entry> repositories = new ConcurrentHashMap<>();
+
+    private final Map<Long, Set<Long>> users = new ConcurrentHashMap<>();
+
+    private final AtomicLong version = new AtomicLong();
+
+    private final long ttl;
+
+    private final int maxSize;
+
+    private final Clock clock;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    @Autowired
+    public GitHubCollaboratorCache(EntityManagerFactory entityManagerFactory,
+            AuthorizationRepository authorizationRepository, MeterRegistry meterRegistry,
+            @Value("${vernite.github.collaborator-ttl:PT10M}") Duration ttl,
+            @Value("${vernite.github.collaborator-size:10000}") int maxSize) {
+        this(entityManagerFactory, authorizationRepository, meterRegistry, ttl, maxSize, Clock.systemUTC());
+    }
+
+    GitHubCollaboratorCache(EntityManagerFactory entityManagerFactory,
+            AuthorizationRepository authorizationRepository, MeterRegistry meterRegistry, Duration ttl, int maxSize,
+            Clock clock) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.authorizationRepository = authorizationRepository;
+        this.ttl = ttl.toMillis();
+        this.maxSize = maxSize;
+        this.clock = clock;
+        this.hits = Counter.builder("vernite.github.collaborators").tag("result", "hit")
+                .description("GitHub assignee lookups served from cache").register(meterRegistry);
+        this.misses = Counter.builder("vernite.github.collaborators").tag("result", "miss")
+                .description("GitHub assignee lookups served from cache").register(meterRegistry);
+        meterRegistry.gaugeMapSize("vernite.github.collaborators.repositories", Tags.empty(), repositories);
+        meterRegistry.gaugeMapSize("vernite.github.collaborators.users", Tags.empty(), users);
+    }
+
+    @PostConstruct
+    private void register() {
+        HibernateListeners.register(entityManagerFactory, this, EventType.POST_INSERT, EventType.POST_UPDATE,
+                EventType.POST_DELETE);
+    }
+
+    /**
+     * Finds GitHub user IDs authorized by user.
+     * 
+     * @param user must not be {@literal null}
+     * @return GitHub user IDs
+     */
+    public Set<Long> getGitHubIds(User user) {
+        var ids = users.get(user.getId());
+        if (ids != null) {
+            hits.increment();
+            return ids;
+        }
+        misses.increment();
+        long current = version.get();
+        ids = authorizationRepository.findByUser(user).stream().map(Authorization::getId)
+                .collect(Collectors.toUnmodifiableSet());
+        if (version.get() == current) {
+            if (users.size() >= maxSize) {
+                users.clear();
+            }
+            users.put(user.getId(), ids);
+        }
+        return ids;
+    }
+
+    /**
+     * Finds collaborators of repository.
+     * 
+     * @param fullName full name of repository, in the format of "owner/name"
+     * @param loader   lists all collaborators of repository from GitHub
+     * @return GitHub user ID to login of collaborators
+     */
+    public Mono<Map<Long, String>> getCollaborators(String fullName, Supplier<Flux<GitHubUser>> loader) {
+        var key = fullName.toLowerCase(Locale.ROOT);
+        var entry = repositories.get(key);
+        if (entry == null) {
+            misses.increment();
+            var created = new Entry(load(loader).cache(), clock.millis());
+            if (repositories.size() >= maxSize) {
+                repositories.clear();
+            }
+            entry = repositories.putIfAbsent(key, created);
+            if (entry == null) {
+                return created.logins.doOnError(e -> repositories.remove(key, created));
+            }
+        }
+        hits.increment();
+        if (clock.millis() - entry.loaded >= ttl && entry.refreshing.compareAndSet(false, true)) {
+            refresh(key, entry, loader);
+        }
+        return entry.logins;
+    }
+
+    /**
+     * Drops collaborators of repository.
+     * 
+     * @param fullName full name of repository, in the format of "owner/name"
+     */
+    public void invalidate(String fullName) {
+        repositories.remove(fullName.toLowerCase(Locale.ROOT));
+    }
+
+    private Mono<Map<Long, String>> load(Supplier<Flux<GitHubUser>> loader) {
+        return Flux.defer(loader).collectMap(GitHubUser::getId, GitHubUser::getLogin)
+                .map(Map::copyOf);
+    }
+
+    private void refresh(String key, Entry stale, Supplier<Flux<GitHubUser>> loader) {
+        load(loader).subscribe(logins -> repositories.replace(key, stale, new Entry(Mono.just(logins),
+                clock.millis())), e -> {
+                    L.log(Level.WARNING, "Could not refresh collaborators of " + key, e);
+                    stale.refreshing.set(false);
+                });
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        onChange(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Authorization)) {
+            return;
+        }
+        if (event.getDirtyProperties() != null) {
+            var names = event.getPersister().getPropertyNames();
+            boolean changed = false;
+            for (int index : event.getDirtyProperties()) {
+                changed |= "user".equals(names[index]);
+            }
+            if (!changed) {
+                return;
+            }
+        }
+        // previous user is not known here, so all users are dropped
+        invalidateUsers(users::clear);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        onChange(event.getEntity());
+    }
+
+    private void onChange(Object entity) {
+        if (entity instanceof Authorization authorization && authorization.getUser() != null) {
+            long userId = authorization.getUser().getId();
+            invalidateUsers(() -> users.remove(userId));
+        }
+    }
+
+    private void invalidateUsers(Runnable invalidation) {
+        HibernateListeners.afterCommit(() -> {
+            version.incrementAndGet();
+            invalidation.run();
+        });
+    }
+
+}
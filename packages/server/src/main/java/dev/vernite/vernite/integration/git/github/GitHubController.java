@@ -75,6 +75,9 @@ public class GitHubController {
     @Autowired
     private GitHubService service;
 
+    @Autowired
+    private GitHubMirror mirror;
+
     @Autowired
     private AuthorizationRepository authorizationRepository;
 
@@ -193,6 +196,7 @@ public class GitHubController {
         }
         return service.createProjectIntegration(user, project, repository.getFullName())
                 .switchIfEmpty(Mono.error(new NotImplementedError()))
+                .doOnNext(mirror::backfill)
                 .thenReturn(projectRepository.findByIdAndMemberOrThrow(id, user));
     }
 
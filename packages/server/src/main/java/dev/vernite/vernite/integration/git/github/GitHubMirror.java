@@ -0,0 +1,454 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.git.github;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import dev.vernite.vernite.integration.git.Branch;
+import dev.vernite.vernite.integration.git.Issue;
+import dev.vernite.vernite.integration.git.PullRequest;
+import dev.vernite.vernite.integration.git.github.api.model.BranchName;
+import dev.vernite.vernite.integration.git.github.api.model.GitHubIssue;
+import dev.vernite.vernite.integration.git.github.api.model.GitHubPullRequest;
+import dev.vernite.vernite.integration.git.github.model.BranchMirror;
+import dev.vernite.vernite.integration.git.github.model.BranchMirrorRepository;
+import dev.vernite.vernite.integration.git.github.model.IssueMirror;
+import dev.vernite.vernite.integration.git.github.model.IssueMirrorRepository;
+import dev.vernite.vernite.integration.git.github.model.ProjectIntegration;
+import dev.vernite.vernite.integration.git.github.model.ProjectIntegrationRepository;
+import dev.vernite.vernite.project.Project;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Local mirror of issues, pull requests and branches of integrated GitHub
+ * repositories. Mirror of integration is filled when integration is created,
+ * kept up to date by webhooks and reconciled periodically with changes
+ * updated since last synchronization. Lists are served from mirror once first
+ * synchronization of integration finished, before that they are fetched from
+ * GitHub.
+ */
+@Service
+public class GitHubMirror {
+
+    private static final Logger L = Logger.getLogger("GitHubMirror");
+
+    private static final String OPEN = "open";
+
+    private static final String ALL = "all";
+
+    private static final String BRANCH_PREFIX = "refs/heads/";
+
+    /**
+     * Changes updated shortly before last synchronization are fetched again, so
+     * clock differences and changes made during synchronization are not missed.
+     */
+    private static final long OVERLAP = TimeUnit.MINUTES.toMillis(5);
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final int CONCURRENCY = 4;
+
+    private final GitHubService service;
+
+    private final ProjectIntegrationRepository integrationRepository;
+
+    private final IssueMirrorRepository issueRepository;
+
+    private final BranchMirrorRepository branchRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+
+    private final Counter hit;
+
+    private final Counter miss;
+
+    public GitHubMirror(GitHubService service, ProjectIntegrationRepository integrationRepository,
+            IssueMirrorRepository issueRepository, BranchMirrorRepository branchRepository,
+            TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+            @Value("${vernite.github.mirror.enabled:true}") boolean enabled) {
+        this.service = service;
+        this.integrationRepository = integrationRepository;
+        this.issueRepository = issueRepository;
+        this.branchRepository = branchRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.hit = Counter.builder("vernite.github.mirror").tag("result", "hit")
+                .description("GitHub lists served from local mirror").register(meterRegistry);
+        this.miss = Counter.builder("vernite.github.mirror").tag("result", "miss")
+                .description("GitHub lists served from local mirror").register(meterRegistry);
+    }
+
+    /**
+     * Get issues for the given project.
+     * 
+     * @param project the project
+     * @param state   state of issues: open, closed or all; open when
+     *                {@literal null}
+     * @param query   text contained in title or issue number; all when
+     *                {@literal null}
+     * @return the issues, newest first when served from mirror
+     */
+    public Flux<Issue> getIssues(Project project, String state, String query) {
+        var integration = getMirrored(project);
+        var text = normalizeQuery(query);
+        if (integration == null) {
+            return service.getIssues(project, state).filter(issue -> matches(issue, text));
+        }
+        return Flux.fromIterable(search(integration, false, state, text)).map(IssueMirror::toIssue);
+    }
+
+    /**
+     * Get pull requests for the given project.
+     * 
+     * @param project the project
+     * @param state   state of pull requests: open, closed or all; open when
+     *                {@literal null}
+     * @param query   text contained in title or pull request number; all when
+     *                {@literal null}
+     * @return the pull requests, newest first when served from mirror
+     */
+    public Flux<PullRequest> getPullRequests(Project project, String state, String query) {
+        var integration = getMirrored(project);
+        var text = normalizeQuery(query);
+        if (integration == null) {
+            return service.getPullRequests(project, state).filter(pull -> matches(pull, text));
+        }
+        return Flux.fromIterable(search(integration, true, state, text)).map(IssueMirror::toPullRequest);
+    }
+
+    /**
+     * Get branches for the given project.
+     * 
+     * @param project the project
+     * @param query   text contained in branch name; all when {@literal null}
+     * @return the branches
+     */
+    public Flux<Branch> getBranches(Project project, String query) {
+        var integration = getMirrored(project);
+        var text = normalizeQuery(query);
+        Flux<Branch> branches;
+        if (integration == null) {
+            branches = service.getBranches(project);
+        } else {
+            branches = Flux.fromIterable(branchRepository.findByIntegrationOrderByNameAsc(integration))
+                    .map(BranchMirror::toBranch);
+        }
+        return branches.filter(branch -> text == null || branch.getName().toLowerCase().contains(text));
+    }
+
+    /**
+     * Starts filling mirror of newly created integration in background.
+     * 
+     * @param integration the integration
+     */
+    public void backfill(ProjectIntegration integration) {
+        if (!enabled) {
+            return;
+        }
+        sync(integration).subscribe(null,
+                e -> L.log(Level.WARNING, "Could not fill mirror of " + integration.getRepositoryFullName(), e));
+    }
+
+    /**
+     * Reconciles mirrors of all integrations with changes made since their last
+     * synchronization, in case some webhooks were missed. Synchronization runs
+     * in background, so shared scheduling thread is not blocked; next run is
+     * skipped while previous one has not finished.
+     */
+    @Scheduled(initialDelayString = "${vernite.github.mirror.sync-interval:900000}",
+            fixedDelayString = "${vernite.github.mirror.sync-interval:900000}")
+    public void reconcile() {
+        if (!enabled || !reconciling.compareAndSet(false, true)) {
+            return;
+        }
+        Flux.defer(() -> Flux.fromIterable(integrationRepository.findAll()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(integration -> sync(integration).onErrorResume(e -> {
+                    L.log(Level.WARNING, "Could not synchronize mirror of " + integration.getRepositoryFullName(), e);
+                    return Mono.empty();
+                }), CONCURRENCY)
+                .doFinally(signal -> reconciling.set(false))
+                .subscribe(null, e -> L.log(Level.WARNING, "Could not reconcile mirrors", e));
+    }
+
+    /**
+     * Synchronizes mirror of integration with GitHub. Issues and pull requests
+     * updated since last synchronization are upserted and branches are replaced.
+     * 
+     * @param integration the integration
+     * @return mono which completes when synchronization finishes
+     */
+    public Mono<Void> sync(ProjectIntegration integration) {
+        if (integration.getInstallation().isSuspended()) {
+            return Mono.empty();
+        }
+        var start = new Date();
+        var since = integration.getMirrored() == null ? null
+                : new Date(integration.getMirrored().getTime() - OVERLAP);
+        var issues = service.fetchIssues(integration, ALL, since)
+                .filter(issue -> !issue.hasPullRequest())
+                .buffer(BATCH_SIZE)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(batch -> saveIssues(integration, batch, false));
+        var pulls = service.fetchPullRequests(integration, ALL, true)
+                .takeWhile(pull -> since == null || pull.getUpdatedAt() == null || !pull.getUpdatedAt().before(since))
+                .buffer(BATCH_SIZE)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(batch -> saveIssues(integration, batch, true));
+        var branches = service.fetchBranches(integration)
+                .map(BranchName::getName)
+                .collectList()
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(names -> saveBranches(integration, names));
+        return issues.then(pulls.then()).then(branches)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnSuccess(ignored -> markMirrored(integration, start))
+                .then();
+    }
+
+    /**
+     * Applies change of issue received with webhook.
+     * 
+     * @param integration the integration
+     * @param issue       issue from webhook
+     * @param action      webhook action
+     */
+    public void updateIssue(ProjectIntegration integration,
+            dev.vernite.vernite.integration.git.github.data.GitHubIssue issue, String action) {
+        if (!enabled) {
+            return;
+        }
+        var mirror = issueRepository.findByIntegrationAndNumber(integration, issue.getNumber());
+        if ("deleted".equals(action)) {
+            mirror.ifPresent(issueRepository::delete);
+            return;
+        }
+        var entity = mirror.orElseGet(() -> new IssueMirror(integration, issue.getNumber()));
+        if (apply(entity, issue.getUrl(), issue.getState(), issue.getTitle(), issue.getBody(),
+                issue.getUpdatedAt())) {
+            issueRepository.save(entity);
+        }
+    }
+
+    /**
+     * Applies change of pull request received with webhook.
+     * 
+     * @param integration the integration
+     * @param pullRequest pull request from webhook
+     */
+    public void updatePullRequest(ProjectIntegration integration,
+            dev.vernite.vernite.integration.git.github.data.GitHubPullRequest pullRequest) {
+        if (!enabled) {
+            return;
+        }
+        var entity = issueRepository.findByIntegrationAndNumber(integration, pullRequest.getNumber())
+                .orElseGet(() -> new IssueMirror(integration, pullRequest.getNumber()));
+        if (apply(entity, pullRequest.getUrl(), pullRequest.getState(), pullRequest.getTitle(),
+                pullRequest.getBody(), pullRequest.getUpdatedAt())) {
+            entity.setPullRequest(true);
+            entity.setBranch(pullRequest.getHead() == null ? null : pullRequest.getHead().getRef());
+            issueRepository.save(entity);
+        }
+    }
+
+    /**
+     * Applies branch creation or deletion received with push webhook.
+     * 
+     * @param integration the integration
+     * @param ref         full name of pushed reference
+     * @param created     whether reference was created
+     * @param deleted     whether reference was deleted
+     */
+    public void updateBranch(ProjectIntegration integration, String ref, boolean created, boolean deleted) {
+        if (!enabled || ref == null || !ref.startsWith(BRANCH_PREFIX)) {
+            return;
+        }
+        var name = ref.substring(BRANCH_PREFIX.length());
+        if (deleted) {
+            branchRepository.deleteByIntegrationAndName(integration, name);
+        } else if (created && !branchRepository.existsByIntegrationAndName(integration, name)) {
+            branchRepository.save(new BranchMirror(integration, name));
+        }
+    }
+
+    /**
+     * Normalizes state filter for mirror query.
+     * 
+     * @param state state of issues: open, closed or all; open when
+     *              {@literal null}
+     * @return state to match or {@literal null} for all
+     */
+    static String normalizeState(String state) {
+        if (state == null || state.isBlank()) {
+            return OPEN;
+        }
+        return ALL.equalsIgnoreCase(state) ? null : state.toLowerCase();
+    }
+
+    /**
+     * Normalizes text filter.
+     * 
+     * @param query text filter
+     * @return lowercase text or {@literal null} when blank
+     */
+    static String normalizeQuery(String query) {
+        return query == null || query.isBlank() ? null : query.trim().toLowerCase();
+    }
+
+    /**
+     * Parses issue number from text filter.
+     * 
+     * @param query normalized text filter
+     * @return issue number or -1 when text is not a number
+     */
+    static long parseNumber(String query) {
+        if (query == null) {
+            return -1;
+        }
+        var text = query.startsWith("#") ? query.substring(1) : query;
+        if (text.isEmpty() || text.length() > 18 || !text.chars().allMatch(Character::isDigit)) {
+            return -1;
+        }
+        return Long.parseLong(text);
+    }
+
+    /**
+     * Checks whether issue matches normalized text filter the same way as mirror
+     * query does.
+     * 
+     * @param issue issue
+     * @param query normalized text filter
+     * @return whether issue matches
+     */
+    static boolean matches(Issue issue, String query) {
+        return query == null || issue.getId() == parseNumber(query)
+                || (issue.getTitle() != null && issue.getTitle().toLowerCase().contains(query));
+    }
+
+    private ProjectIntegration getMirrored(Project project) {
+        if (!enabled) {
+            return null;
+        }
+        var integration = integrationRepository.findByProject(project)
+                .filter(i -> i.getMirrored() != null)
+                .orElse(null);
+        (integration == null ? miss : hit).increment();
+        return integration;
+    }
+
+    private List<IssueMirror> search(ProjectIntegration integration, boolean pullRequestOnly, String state,
+            String query) {
+        return issueRepository.search(integration, pullRequestOnly, normalizeState(state), query,
+                parseNumber(query));
+    }
+
+    private void saveIssues(ProjectIntegration integration, List<? extends GitHubIssue> batch, boolean pullRequests) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, IssueMirror> mirrors = new HashMap<>();
+            var numbers = batch.stream().map(GitHubIssue::getNumber).toList();
+            issueRepository.findByIntegrationAndNumberIn(integration, numbers)
+                    .forEach(mirror -> mirrors.put(mirror.getNumber(), mirror));
+            List<IssueMirror> changed = new ArrayList<>();
+            for (var issue : batch) {
+                var mirror = mirrors.computeIfAbsent(issue.getNumber(), n -> new IssueMirror(integration, n));
+                if (apply(mirror, issue.getUrl(), issue.getState(), issue.getTitle(), issue.getBody(),
+                        issue.getUpdatedAt())) {
+                    if (pullRequests && issue instanceof GitHubPullRequest pull) {
+                        mirror.setPullRequest(true);
+                        mirror.setBranch(pull.getHead() == null ? null : pull.getHead().getRef());
+                    }
+                    changed.add(mirror);
+                }
+            }
+            issueRepository.saveAll(changed);
+        });
+    }
+
+    private void saveBranches(ProjectIntegration integration, List<String> names) {
+        transactionTemplate.executeWithoutResult(status -> {
+            var remaining = new HashSet<>(names);
+            List<BranchMirror> removed = new ArrayList<>();
+            for (var branch : branchRepository.findByIntegrationOrderByNameAsc(integration)) {
+                if (!remaining.remove(branch.getName())) {
+                    removed.add(branch);
+                }
+            }
+            branchRepository.deleteAll(removed);
+            branchRepository.saveAll(remaining.stream().map(name -> new BranchMirror(integration, name)).toList());
+        });
+    }
+
+    private void markMirrored(ProjectIntegration integration, Date date) {
+        integration.setMirrored(date);
+        integrationRepository.findById(integration.getId()).ifPresent(entity -> {
+            entity.setMirrored(date);
+            integrationRepository.save(entity);
+        });
+    }
+
+    /**
+     * Copies issue fields to mirror unless mirror already has newer version.
+     * 
+     * @return whether mirror was changed
+     */
+    private static boolean apply(IssueMirror mirror, String url, String state, String title, String body,
+            Date updated) {
+        if (mirror.getUpdated() != null && updated != null && updated.before(mirror.getUpdated())) {
+            return false;
+        }
+        mirror.setUrl(url == null ? null : url.replace("api.", "").replace("/repos", ""));
+        mirror.setState(state == null ? OPEN : state);
+        mirror.setTitle(title == null ? "" : title);
+        mirror.setDescription(body);
+        mirror.setUpdated(updated);
+        return true;
+    }
+
+}
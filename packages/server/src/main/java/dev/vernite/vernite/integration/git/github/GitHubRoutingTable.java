@@ -0,0 +1,253 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.git.github;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import dev.vernite.vernite.integration.git.github.model.Installation;
+import dev.vernite.vernite.integration.git.github.model.ProjectIntegration;
+import dev.vernite.vernite.integration.git.github.model.ProjectIntegrationRepository;
+import dev.vernite.vernite.integration.git.github.model.TaskIntegration;
+import dev.vernite.vernite.integration.git.github.model.TaskIntegrationId;
+import dev.vernite.vernite.integration.git.github.model.TaskIntegrationRepository;
+import dev.vernite.vernite.utils.HibernateListeners;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Routing table resolving GitHub webhooks to their targets. It caches IDs of
+ * project integrations of each repository and IDs of task integrations of
+ * each issue, including empty results. Cached targets are returned as lazy
+ * references, so resolving webhook needs no query and entity is loaded only
+ * when handler uses its state. Entries are invalidated from Hibernate events
+ * after transaction commits. Integrations removed by database cascade raise no
+ * event, so whole table is dropped when installation is deleted and entries
+ * expire to pick up projects and tasks removed by database event.
+ */
+@Component
+public class GitHubRoutingTable implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener {
+
+    /**
+     * Attributes which decide where integration is routed.
+     */
+    private static final Set<String> ROUTING = Set.of("repositoryOwner", "repositoryName", "projectIntegration",
+            "issueId");
+
+    private record IssueKey(long integrationId, long issueId) {
+    }
+
+    /**
+     * IDs of targets with time of expiry from {@link System#nanoTime()}.
+     */
+    private record Entry<T>(List<T> ids, long expires) {
+    }
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final ProjectIntegrationRepository integrationRepository;
+
+    private final TaskIntegrationRepository taskIntegrationRepository;
+
+    private final Map<String, Entry<Long>> repositories = new ConcurrentHashMap<>();
+
+    private final Map<IssueKey, Entry<TaskIntegrationId>> issues = new ConcurrentHashMap<>();
+
+    private final AtomicLong version = new AtomicLong();
+
+    private final int maxSize;
+
+    private final long ttl;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    public GitHubRoutingTable(EntityManagerFactory entityManagerFactory,
+            ProjectIntegrationRepository integrationRepository, TaskIntegrationRepository taskIntegrationRepository,
+            MeterRegistry meterRegistry, @Value("${vernite.github.routing-size:100000}") int maxSize,
+            @Value("${vernite.github.routing-ttl:PT10M}") Duration ttl) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.integrationRepository = integrationRepository;
+        this.taskIntegrationRepository = taskIntegrationRepository;
+        this.maxSize = maxSize;
+        this.ttl = ttl.toNanos();
+        this.hits = Counter.builder("vernite.github.routing").tag("result", "hit")
+                .description("GitHub webhook targets resolved from routing table").register(meterRegistry);
+        this.misses = Counter.builder("vernite.github.routing").tag("result", "miss")
+                .description("GitHub webhook targets loaded from database").register(meterRegistry);
+        meterRegistry.gaugeMapSize("vernite.github.routing.repositories", Tags.empty(), repositories);
+        meterRegistry.gaugeMapSize("vernite.github.routing.issues", Tags.empty(), issues);
+    }
+
+    @PostConstruct
+    private void register() {
+        HibernateListeners.register(entityManagerFactory, this, EventType.POST_INSERT, EventType.POST_UPDATE,
+                EventType.POST_DELETE);
+    }
+
+    /**
+     * Finds project integrations of repository. Must be called in transaction,
+     * because cached integrations are lazy references.
+     * 
+     * @param fullName full name of repository, in the format of "owner/name"
+     * @return project integrations
+     */
+    public List<ProjectIntegration> getIntegrations(String fullName) {
+        var entry = repositories.get(fullName);
+        if (isValid(entry)) {
+            hits.increment();
+            return entry.ids().stream().map(integrationRepository::getReferenceById).toList();
+        }
+        misses.increment();
+        long current = version.get();
+        var name = fullName.split("/");
+        var result = name.length == 2 ? integrationRepository.findByRepositoryOwnerAndRepositoryName(name[0], name[1])
+                : List.<ProjectIntegration>of();
+        put(repositories, fullName, result.stream().map(ProjectIntegration::getId).toList(), current);
+        return result;
+    }
+
+    /**
+     * Finds task integrations of issue or pull request. Must be called in
+     * transaction, because cached task integrations are lazy references.
+     * 
+     * @param integration project integration
+     * @param issueId     number of issue or pull request
+     * @return task integrations
+     */
+    public List<TaskIntegration> getTaskIntegrations(ProjectIntegration integration, long issueId) {
+        var key = new IssueKey(integration.getId(), issueId);
+        var entry = issues.get(key);
+        if (isValid(entry)) {
+            hits.increment();
+            return entry.ids().stream().map(taskIntegrationRepository::getReferenceById).toList();
+        }
+        misses.increment();
+        long current = version.get();
+        var result = taskIntegrationRepository.findByProjectIntegrationAndIssueId(integration, issueId);
+        put(issues, key, result.stream().map(TaskIntegration::getId).toList(), current);
+        return result;
+    }
+
+    private boolean isValid(Entry<?> entry) {
+        return entry != null && entry.expires() - System.nanoTime() > 0;
+    }
+
+    private <K, T> void put(Map<K, Entry<T>> map, K key, List<T> ids, long version) {
+        if (this.version.get() != version) {
+            return;
+        }
+        if (map.size() >= maxSize) {
+            map.clear();
+        }
+        map.put(key, new Entry<>(ids, System.nanoTime() + ttl));
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        onChange(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof ProjectIntegration || event.getEntity() instanceof TaskIntegration)) {
+            return;
+        }
+        if (event.getDirtyProperties() != null) {
+            var names = event.getPersister().getPropertyNames();
+            boolean routing = false;
+            for (int index : event.getDirtyProperties()) {
+                routing |= ROUTING.contains(names[index]);
+            }
+            if (!routing) {
+                return;
+            }
+        }
+        // previous owner, name or issue number is not known here, so whole table is dropped
+        invalidate(() -> {
+            repositories.clear();
+            issues.clear();
+        });
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Installation) {
+            // integrations of installation are removed by database cascade
+            invalidate(() -> {
+                repositories.clear();
+                issues.clear();
+            });
+            return;
+        }
+        onChange(event.getEntity());
+    }
+
+    private void onChange(Object entity) {
+        if (entity instanceof ProjectIntegration integration) {
+            String fullName = integration.getRepositoryFullName();
+            invalidate(() -> repositories.remove(fullName));
+        } else if (entity instanceof TaskIntegration taskIntegration) {
+            var key = new IssueKey(taskIntegration.getId().getIntegrationId(), taskIntegration.getIssueId());
+            invalidate(() -> issues.remove(key));
+        }
+    }
+
+    private void invalidate(Runnable invalidation) {
+        HibernateListeners.afterCommit(() -> {
+            version.incrementAndGet();
+            invalidation.run();
+        });
+    }
+
+}
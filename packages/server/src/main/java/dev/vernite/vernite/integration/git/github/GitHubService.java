@@ -27,16 +27,20 @@
 
 package dev.vernite.vernite.integration.git.github;
 
+import static dev.vernite.vernite.integration.git.github.api.GitHubPager.PAGE_SIZE;
+
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.time.Instant;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashSet;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 
 import org.apache.hc.core5.net.URIBuilder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -48,8 +52,11 @@ import dev.vernite.vernite.integration.git.Branch;
 import dev.vernite.vernite.integration.git.Issue;
 import dev.vernite.vernite.integration.git.PullRequest;
 import dev.vernite.vernite.integration.git.Repository;
+import dev.vernite.vernite.integration.git.github.api.ConditionalRequestCache;
 import dev.vernite.vernite.integration.git.github.api.GitHubApiClient;
 import dev.vernite.vernite.integration.git.github.api.GitHubConfiguration;
+import dev.vernite.vernite.integration.git.github.api.GitHubPager;
+import dev.vernite.vernite.integration.git.github.api.RateLimitScheduler;
 import dev.vernite.vernite.integration.git.github.api.model.BranchName;
 import dev.vernite.vernite.integration.git.github.api.model.GitHubComment;
 import dev.vernite.vernite.integration.git.github.api.model.GitHubIssue;
@@ -58,7 +65,6 @@ import dev.vernite.vernite.integration.git.github.api.model.GitHubRelease;
 import dev.vernite.vernite.integration.git.github.api.model.GitHubRepository;
 import dev.vernite.vernite.integration.git.github.api.model.Installations;
 import dev.vernite.vernite.integration.git.github.api.model.Repositories;
-import dev.vernite.vernite.integration.git.github.api.model.request.OauthRefreshTokenRequest;
 import dev.vernite.vernite.integration.git.github.api.model.request.OauthTokenRequest;
 import dev.vernite.vernite.integration.git.github.model.Authorization;
 import dev.vernite.vernite.integration.git.github.model.AuthorizationRepository;
@@ -76,7 +82,7 @@ import dev.vernite.vernite.release.Release;
 import dev.vernite.vernite.task.Task;
 import dev.vernite.vernite.task.comment.Comment;
 import dev.vernite.vernite.user.User;
-import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.MeterRegistry;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -86,8 +92,17 @@ import reactor.core.publisher.Mono;
 @Service
 public class GitHubService {
 
+    /**
+     * Largest GitHub response in bytes which is cached.
+     */
+    private static final int MAX_CACHED_RESPONSE = 1024 * 1024;
+
     private final GitHubApiClient client;
 
+    private final GitHubTokenManager tokenManager;
+
+    private final GitHubCollaboratorCache collaboratorCache;
+
     private GitHubConfiguration config;
 
     private AuthorizationRepository authorizationRepository;
@@ -103,20 +118,28 @@ public class GitHubService {
     public GitHubService(GitHubConfiguration config, AuthorizationRepository authorizationRepository,
             InstallationRepository installationRepository, ProjectIntegrationRepository projectIntegrationRepository,
             TaskIntegrationRepository taskIntegrationRepository,
-            CommentIntegrationRepository commentIntegrationRepository) {
+            CommentIntegrationRepository commentIntegrationRepository, GitHubCollaboratorCache collaboratorCache,
+            MeterRegistry meterRegistry, @Value("${vernite.github.cache-size:16777216}") long cacheSize,
+            @Value("${vernite.github.write-reserve:0.2}") double writeReserve,
+            @Value("${vernite.github.read-wait:PT10S}") Duration readWait) {
         this.config = config;
         this.authorizationRepository = authorizationRepository;
         this.installationRepository = installationRepository;
         this.projectIntegrationRepository = projectIntegrationRepository;
         this.taskIntegrationRepository = taskIntegrationRepository;
         this.commentIntegrationRepository = commentIntegrationRepository;
+        this.collaboratorCache = collaboratorCache;
 
-        var webClient = WebClient.builder().baseUrl(config.getApiURL())
+        var cache = new ConditionalRequestCache(this::getTokenScope, cacheSize, MAX_CACHED_RESPONSE, meterRegistry);
+        var rateLimit = new RateLimitScheduler(this::getTokenScope, writeReserve, readWait, meterRegistry,
+                Clock.systemUTC());
+        var webClient = WebClient.builder().baseUrl(config.getApiURL()).filter(cache).filter(rateLimit)
                 .defaultStatusHandler(HttpStatusCode::isError,
                         resp -> Mono.error(new ExternalApiException("github", "github error" + resp.statusCode())))
                 .build();
         var adapter = WebClientAdapter.forClient(webClient);
         client = HttpServiceProxyFactory.builder(adapter).build().createClient(GitHubApiClient.class);
+        tokenManager = new GitHubTokenManager(client, config, authorizationRepository, installationRepository);
     }
 
     /**
@@ -163,8 +186,7 @@ public class GitHubService {
                 .flatMap(this::refreshToken)
                 .map(Installation::getToken)
                 .map(token -> "Bearer " + token)
-                .flatMap(client::getInstallationRepositories)
-                .flatMapIterable(Repositories::getRepositoryList)
+                .flatMap(this::getInstallationRepositories)
                 .map(repo -> new Repository(repo.getId(), repo.getName(), repo.getFullName(), repo.getHtmlUrl(),
                         repo.isPrivate(), "github"));
     }
@@ -195,26 +217,39 @@ public class GitHubService {
      * Get issues for the given project.
      * 
      * @param project the project
+     * @param state   state of issues: open, closed or all; open when
+     *                {@literal null}
      * @return the issues
      */
-    public Flux<Issue> getIssues(Project project) {
+    public Flux<Issue> getIssues(Project project, String state) {
         var integrationOptional = projectIntegrationRepository.findByProject(project);
 
         if (integrationOptional.isEmpty()) {
             return Flux.empty();
         }
 
-        var integration = integrationOptional.get();
+        return fetchIssues(integrationOptional.get(), state, null).map(GitHubIssue::toIssue);
+    }
+
+    /**
+     * Fetch all pages of issues of the integrated repository. Pull requests are
+     * returned as issues too.
+     * 
+     * @param integration the project integration
+     * @param state       state of issues: open, closed or all; open when
+     *                    {@literal null}
+     * @param since       only issues updated since this date; all when
+     *                    {@literal null}
+     * @return the issues
+     */
+    public Flux<GitHubIssue> fetchIssues(ProjectIntegration integration, String state, Date since) {
         var owner = integration.getRepositoryOwner();
         var repo = integration.getRepositoryName();
+        var sinceParam = since == null ? null : since.toInstant().toString();
 
-        return Mono.just(integration.getInstallation())
-                .filter(inst -> !inst.isSuspended())
-                .flatMap(this::refreshToken)
-                .map(Installation::getToken)
-                .map(token -> "Bearer " + token)
-                .flatMapMany(token -> client.getRepositoryIssues(token, owner, repo))
-                .map(GitHubIssue::toIssue);
+        return getToken(integration)
+                .flatMapMany(token -> GitHubPager.paginate(page -> client.getRepositoryIssues(token, owner, repo,
+                        state, sinceParam, PAGE_SIZE, page)));
     }
 
     /**
@@ -235,11 +270,6 @@ public class GitHubService {
         var owner = integration.getRepositoryOwner();
         var repo = integration.getRepositoryName();
 
-        Set<Long> assignees = new HashSet<>();
-        if (task.getAssignee() != null) {
-            authorizationRepository.findByUser(task.getAssignee()).forEach(auth -> assignees.add(auth.getId()));
-        }
-
         return Mono.just(integration.getInstallation())
                 .filter(inst -> !inst.isSuspended())
                 .flatMap(this::refreshToken)
@@ -270,10 +300,7 @@ public class GitHubService {
         var repo = integration.getRepositoryName();
 
         var issue = new GitHubIssue(0, null, null, task.getName(), task.getDescription(), new ArrayList<>());
-        Set<Long> assignees = new HashSet<>();
-        if (task.getAssignee() != null) {
-            authorizationRepository.findByUser(task.getAssignee()).forEach(auth -> assignees.add(auth.getId()));
-        }
+        var assignees = getAssigneeIds(task);
 
         return Mono.just(integration.getInstallation())
                 .filter(inst -> !inst.isSuspended())
@@ -314,10 +341,7 @@ public class GitHubService {
         var issue = new GitHubIssue(integration.getIssueId(), integration.link(),
                 task.getStatus().isFinal() ? "closed" : "open", task.getName(), task.getDescription(),
                 new ArrayList<>());
-        Set<Long> assignees = new HashSet<>();
-        if (task.getAssignee() != null) {
-            authorizationRepository.findByUser(task.getAssignee()).forEach(auth -> assignees.add(auth.getId()));
-        }
+        var assignees = getAssigneeIds(task);
 
         var owner = integrationProject.getRepositoryOwner();
         var repo = integrationProject.getRepositoryName();
@@ -355,26 +379,40 @@ public class GitHubService {
      * Get the GitHub pull requests for the given project.
      * 
      * @param project the project
+     * @param state   state of pull requests: open, closed or all; open when
+     *                {@literal null}
      * @return the pull requests
      */
-    public Flux<PullRequest> getPullRequests(Project project) {
+    public Flux<PullRequest> getPullRequests(Project project, String state) {
         var integrationOptional = projectIntegrationRepository.findByProject(project);
 
         if (integrationOptional.isEmpty()) {
             return Flux.empty();
         }
 
-        var integration = integrationOptional.get();
+        return fetchPullRequests(integrationOptional.get(), state, false).map(GitHubPullRequest::toPullRequest);
+    }
+
+    /**
+     * Fetch all pages of pull requests of the integrated repository.
+     * 
+     * @param integration   the project integration
+     * @param state         state of pull requests: open, closed or all; open
+     *                      when {@literal null}
+     * @param recentlyFirst whether recently updated pull requests are returned
+     *                      first, so stream can be cancelled at first old one
+     * @return the pull requests
+     */
+    public Flux<GitHubPullRequest> fetchPullRequests(ProjectIntegration integration, String state,
+            boolean recentlyFirst) {
         var owner = integration.getRepositoryOwner();
         var repo = integration.getRepositoryName();
+        var sort = recentlyFirst ? "updated" : null;
+        var direction = recentlyFirst ? "desc" : null;
 
-        return Mono.just(integration.getInstallation())
-                .filter(inst -> !inst.isSuspended())
-                .flatMap(this::refreshToken)
-                .map(Installation::getToken)
-                .map(token -> "Bearer " + token)
-                .flatMapMany(token -> client.getRepositoryPullRequests(token, owner, repo))
-                .map(GitHubPullRequest::toPullRequest);
+        return getToken(integration)
+                .flatMapMany(token -> GitHubPager.paginate(page -> client.getRepositoryPullRequests(token, owner,
+                        repo, state, sort, direction, PAGE_SIZE, page)));
     }
 
     /**
@@ -395,11 +433,6 @@ public class GitHubService {
         var owner = integration.getRepositoryOwner();
         var repo = integration.getRepositoryName();
 
-        Set<Long> assignees = new HashSet<>();
-        if (task.getAssignee() != null) {
-            authorizationRepository.findByUser(task.getAssignee()).forEach(auth -> assignees.add(auth.getId()));
-        }
-
         return Mono.just(integration.getInstallation())
                 .filter(inst -> !inst.isSuspended())
                 .flatMap(this::refreshToken)
@@ -442,10 +475,7 @@ public class GitHubService {
         var pullRequest = new GitHubPullRequest(integration.getIssueId(), null, null, task.getName(),
                 task.getDescription(), new ArrayList<>(), null, false);
 
-        Set<Long> assignees = new HashSet<>();
-        if (task.getAssignee() != null) {
-            authorizationRepository.findByUser(task.getAssignee()).forEach(auth -> assignees.add(auth.getId()));
-        }
+        var assignees = getAssigneeIds(task);
 
         var owner = integrationProject.getRepositoryOwner();
         var repo = integrationProject.getRepositoryName();
@@ -506,17 +536,22 @@ public class GitHubService {
             return Flux.empty();
         }
 
-        var integration = integrationOptional.get();
+        return fetchBranches(integrationOptional.get()).map(BranchName::toBranch);
+    }
+
+    /**
+     * Fetch all pages of branches of the integrated repository.
+     * 
+     * @param integration the project integration
+     * @return the branches
+     */
+    public Flux<BranchName> fetchBranches(ProjectIntegration integration) {
         var owner = integration.getRepositoryOwner();
         var repo = integration.getRepositoryName();
 
-        return Mono.just(integration.getInstallation())
-                .filter(inst -> !inst.isSuspended())
-                .flatMap(this::refreshToken)
-                .map(Installation::getToken)
-                .map(token -> "Bearer " + token)
-                .flatMapMany(token -> client.getRepositoryBranches(token, owner, repo))
-                .map(BranchName::toBranch);
+        return getToken(integration)
+                .flatMapMany(token -> GitHubPager
+                        .paginate(page -> client.getRepositoryBranches(token, owner, repo, PAGE_SIZE, page)));
     }
 
     /**
@@ -576,7 +611,7 @@ public class GitHubService {
         integrationOptional.ifPresent(integration -> comments.add(createCommentUtil(integrationProject, integration,
                 comment)));
 
-        return Flux.concat(comments).collectList().map(list -> list.get(0));
+        return Flux.concat(comments).reduce((first, next) -> first);
     }
 
     private Mono<GitHubComment> createCommentUtil(ProjectIntegration integrationProject,
@@ -636,25 +671,24 @@ public class GitHubService {
         commentIntegrationRepository.findByComment(comment).forEach(commentIntegrationRepository::delete);
     }
 
+    private String getTokenScope(String authorization) {
+        return tokenManager.getScope(authorization);
+    }
+
+    private Mono<String> getToken(ProjectIntegration integration) {
+        return Mono.just(integration.getInstallation())
+                .filter(inst -> !inst.isSuspended())
+                .flatMap(this::refreshToken)
+                .map(Installation::getToken)
+                .map(token -> "Bearer " + token);
+    }
+
     private Mono<Installation> refreshToken(Installation installation) {
-        return installation.shouldRefreshToken()
-                ? client.createInstallationAccessToken("Bearer " + createJWT(), installation.getId()).map(token -> {
-                    installation.refreshToken(token);
-                    return installationRepository.save(installation);
-                })
-                : Mono.just(installation);
+        return tokenManager.refresh(installation);
     }
 
     private Mono<Authorization> refreshToken(Authorization authorization) {
-        if (authorization.shouldRefreshToken()) {
-            var request = new OauthRefreshTokenRequest(authorization.getRefreshToken(), "refresh_token",
-                    config.getClientId(), config.getClientSecret());
-            return client.refreshOauthAccessToken(request).map(token -> {
-                authorization.refreshToken(token);
-                return authorizationRepository.save(authorization);
-            });
-        }
-        return Mono.just(authorization);
+        return tokenManager.refresh(authorization);
     }
 
     private Flux<Installation> getUserInstallations(Authorization authorization) {
@@ -669,29 +703,32 @@ public class GitHubService {
                 });
     }
 
+    private Flux<GitHubRepository> getInstallationRepositories(String token) {
+        return GitHubPager.paginate(page -> client.getInstallationRepositories(token, PAGE_SIZE, page),
+                Repositories::getRepositoryList);
+    }
+
     private Mono<Boolean> hasRepository(Installation installation, String repositoryFullName) {
-        return client.getInstallationRepositories("Bearer " + installation.getToken())
-                .map(Repositories::getRepositoryList)
-                .flatMapMany(Flux::fromIterable)
+        return getInstallationRepositories("Bearer " + installation.getToken())
                 .map(GitHubRepository::getFullName)
                 .any(repositoryFullName::equals);
     }
 
+    private Set<Long> getAssigneeIds(Task task) {
+        return task.getAssignee() == null ? Set.of() : collaboratorCache.getGitHubIds(task.getAssignee());
+    }
+
     private Mono<Installation> setCollaborators(Installation installation, String owner, String name,
             GitHubIssue issue, Set<Long> assignees) {
         if (assignees.isEmpty()) {
             return Mono.just(installation);
         }
-        return client.getRepositoryCollaborators("Bearer " + installation.getToken(), owner, name)
-                .filter(user -> assignees.contains(user.getId()))
-                .map(user -> issue.getAssignees().add(user.getLogin()))
-                .then(Mono.just(installation));
-    }
-
-    private String createJWT() {
-        var now = Instant.now();
-        return Jwts.builder().setIssuedAt(Date.from(now)).setIssuer(Long.toString(config.getAppId()))
-                .signWith(config.getJwtKey()).setExpiration(Date.from(now.plusSeconds(60))).compact();
+        var token = "Bearer " + installation.getToken();
+        return collaboratorCache.getCollaborators(owner + "/" + name, () -> GitHubPager
+                .paginate(page -> client.getRepositoryCollaborators(token, owner, name, PAGE_SIZE, page)))
+                .doOnNext(logins -> assignees.stream().map(logins::get).filter(Objects::nonNull)
+                        .forEach(issue.getAssignees()::add))
+                .thenReturn(installation);
     }
 
 }
@@ -0,0 +1,230 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.git.github;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import dev.vernite.vernite.integration.git.github.api.GitHubApiClient;
+import dev.vernite.vernite.integration.git.github.api.GitHubConfiguration;
+import dev.vernite.vernite.integration.git.github.api.model.request.OauthRefreshTokenRequest;
+import dev.vernite.vernite.integration.git.github.model.Authorization;
+import dev.vernite.vernite.integration.git.github.model.AuthorizationRepository;
+import dev.vernite.vernite.integration.git.github.model.Installation;
+import dev.vernite.vernite.integration.git.github.model.InstallationRepository;
+import io.jsonwebtoken.Jwts;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps GitHub installation and user tokens fresh. Tokens are refreshed before
+ * they expire and concurrent refreshes of the same token share single request
+ * to GitHub. Signed application JWT is reused until shortly before it expires.
+ */
+class GitHubTokenManager {
+
+    private static final Logger L = Logger.getLogger("GitHubTokenManager");
+
+    /**
+     * Tokens closer to expiry than this are refreshed in background.
+     */
+    static final Duration REFRESH_BEFORE = Duration.ofMinutes(5);
+
+    /**
+     * Tokens closer to expiry than this are not used until refreshed.
+     */
+    static final Duration MIN_VALIDITY = Duration.ofSeconds(30);
+
+    /**
+     * Lifetime of application JWT; GitHub accepts at most 10 minutes.
+     */
+    static final Duration JWT_LIFETIME = Duration.ofMinutes(9);
+
+    /**
+     * Back-dating of application JWT issue time to allow for clock drift.
+     */
+    static final Duration JWT_CLOCK_SKEW = Duration.ofSeconds(60);
+
+    private static final int MAX_SCOPES = 10_000;
+
+    private record Jwt(String token, Instant expires) {
+    }
+
+    private final GitHubApiClient client;
+
+    private final GitHubConfiguration config;
+
+    private final AuthorizationRepository authorizationRepository;
+
+    private final InstallationRepository installationRepository;
+
+    private final Map<Long, Installation> installations = new ConcurrentHashMap<>();
+
+    private final Map<Long, Authorization> authorizations = new ConcurrentHashMap<>();
+
+    private final Map<Long, Mono<Installation>> installationRefreshes = new ConcurrentHashMap<>();
+
+    private final Map<Long, Mono<Authorization>> authorizationRefreshes = new ConcurrentHashMap<>();
+
+    /**
+     * Scopes of known tokens by authorization header.
+     */
+    private final Map<String, String> scopes = new ConcurrentHashMap<>();
+
+    private volatile Jwt jwt;
+
+    GitHubTokenManager(GitHubApiClient client, GitHubConfiguration config,
+            AuthorizationRepository authorizationRepository, InstallationRepository installationRepository) {
+        this.client = client;
+        this.config = config;
+        this.authorizationRepository = authorizationRepository;
+        this.installationRepository = installationRepository;
+    }
+
+    /**
+     * Returns installation with token which can be used now.
+     * 
+     * @param installation installation; its token is updated when newer one is
+     *                     known
+     * @return installation with valid token
+     */
+    Mono<Installation> refresh(Installation installation) {
+        long id = installation.getId();
+        var latest = installations.get(id);
+        if (latest != null && latest.getExpires().after(installation.getExpires())) {
+            installation.setToken(latest.getToken());
+            installation.setExpires(latest.getExpires());
+        }
+        return refresh(installation, installation.getExpires(), installationRefreshes, id,
+                () -> client.createInstallationAccessToken("Bearer " + getJWT(), id).map(token -> {
+                    scopes.remove("Bearer " + installation.getToken());
+                    installation.refreshToken(token);
+                    var saved = installationRepository.save(installation);
+                    installations.put(id, saved);
+                    return saved;
+                })).doOnNext(value -> setScope(value.getToken(), "installation/" + id));
+    }
+
+    /**
+     * Returns authorization with token which can be used now.
+     * 
+     * @param authorization authorization; its tokens are updated when newer ones
+     *                      are known
+     * @return authorization with valid token
+     */
+    Mono<Authorization> refresh(Authorization authorization) {
+        long id = authorization.getId();
+        var latest = authorizations.get(id);
+        if (latest != null && latest.getExpires().after(authorization.getExpires())) {
+            // refresh token can be used only once, so stale one must not be sent
+            authorization.setAccessToken(latest.getAccessToken());
+            authorization.setExpires(latest.getExpires());
+            authorization.setRefreshToken(latest.getRefreshToken());
+            authorization.setRefreshTokenExpires(latest.getRefreshTokenExpires());
+            authorization.setTokenType(latest.getTokenType());
+            authorization.setScope(latest.getScope());
+        }
+        return refresh(authorization, authorization.getExpires(), authorizationRefreshes, id, () -> {
+            var request = new OauthRefreshTokenRequest(authorization.getRefreshToken(), "refresh_token",
+                    config.getClientId(), config.getClientSecret());
+            return client.refreshOauthAccessToken(request).map(token -> {
+                scopes.remove("Bearer " + authorization.getAccessToken());
+                authorization.refreshToken(token);
+                var saved = authorizationRepository.save(authorization);
+                authorizations.put(id, saved);
+                return saved;
+            });
+        }).doOnNext(value -> setScope(value.getAccessToken(), "user/" + id));
+    }
+
+    private static <T> Mono<T> refresh(T current, Date expires, Map<Long, Mono<T>> refreshes, long id,
+            Supplier<Mono<T>> request) {
+        var now = Instant.now();
+        if (now.isBefore(expires.toInstant().minus(REFRESH_BEFORE))) {
+            return Mono.just(current);
+        }
+        Mono<T> refresh = refreshes.computeIfAbsent(id,
+                key -> request.get().doFinally(signal -> refreshes.remove(key)).cache());
+        if (now.isBefore(expires.toInstant().minus(MIN_VALIDITY))) {
+            refresh.subscribe(value -> {
+            }, error -> L.log(Level.WARNING, "Could not refresh GitHub token " + id, error));
+            return Mono.just(current);
+        }
+        return refresh;
+    }
+
+    private void setScope(String token, String scope) {
+        if (scopes.size() >= MAX_SCOPES) {
+            scopes.clear();
+        }
+        scopes.put("Bearer " + token, scope);
+    }
+
+    /**
+     * Returns scope of token, which stays the same when token is refreshed.
+     * 
+     * @param authorization authorization header with token
+     * @return installation or user the token belongs to, or header itself for
+     *         unknown tokens
+     */
+    String getScope(String authorization) {
+        return scopes.getOrDefault(authorization, authorization);
+    }
+
+    /**
+     * Returns application JWT, signing new one only when cached one is close to
+     * expiry.
+     * 
+     * @return signed JWT
+     */
+    String getJWT() {
+        var now = Instant.now();
+        var current = jwt;
+        if (current != null && now.isBefore(current.expires().minus(MIN_VALIDITY))) {
+            return current.token();
+        }
+        synchronized (this) {
+            current = jwt;
+            if (current != null && now.isBefore(current.expires().minus(MIN_VALIDITY))) {
+                return current.token();
+            }
+            var expires = now.plus(JWT_LIFETIME);
+            var token = Jwts.builder().setIssuedAt(Date.from(now.minus(JWT_CLOCK_SKEW)))
+                    .setIssuer(Long.toString(config.getAppId())).signWith(config.getJwtKey())
+                    .setExpiration(Date.from(expires)).compact();
+            jwt = new Jwt(token, expires);
+            return token;
+        }
+    }
+
+}
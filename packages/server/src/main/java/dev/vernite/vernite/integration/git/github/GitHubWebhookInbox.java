@@ -0,0 +1,275 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.git.github;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.vernite.vernite.integration.git.github.data.GitHubWebhookData;
+import dev.vernite.vernite.integration.git.github.model.WebhookDelivery;
+import dev.vernite.vernite.integration.git.github.model.WebhookDelivery.State;
+import dev.vernite.vernite.integration.git.github.model.WebhookDeliveryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Mono;
+
+/**
+ * Inbox for GitHub webhook deliveries. Deliveries are stored before GitHub
+ * gets response and handled later by pool of workers. Deliveries of one
+ * repository are handled one by one in order they were accepted, different
+ * repositories are handled in parallel. Failed deliveries are retried with
+ * exponential backoff, blocking later deliveries of the same repository, and
+ * are marked as dead after too many attempts.
+ */
+@Service
+public class GitHubWebhookInbox {
+
+    private static final Logger L = Logger.getLogger("GitHubWebhookInbox");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final long FIRST_RETRY = TimeUnit.SECONDS.toMillis(10);
+
+    private static final long MAX_RETRY = TimeUnit.HOURS.toMillis(1);
+
+    private final WebhookDeliveryRepository deliveryRepository;
+
+    private final GitHubWebhookService webhookService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ExecutorService executor;
+
+    private final int maxAttempts;
+
+    private final Duration timeout;
+
+    private final Duration retention;
+
+    private final Set<String> active = ConcurrentHashMap.newKeySet();
+
+    private final Counter handled;
+
+    private final Counter retried;
+
+    private final Counter dead;
+
+    public GitHubWebhookInbox(WebhookDeliveryRepository deliveryRepository, GitHubWebhookService webhookService,
+            TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+            @Value("${vernite.github.webhook.threads:4}") int threads,
+            @Value("${vernite.github.webhook.max-attempts:8}") int maxAttempts,
+            @Value("${vernite.github.webhook.timeout:PT1M}") Duration timeout,
+            @Value("${vernite.github.webhook.retention:P7D}") Duration retention) {
+        this.deliveryRepository = deliveryRepository;
+        this.webhookService = webhookService;
+        this.transactionTemplate = transactionTemplate;
+        this.maxAttempts = maxAttempts;
+        this.timeout = timeout;
+        this.retention = retention;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = threads <= 0 ? null : Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "github-webhook-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.handled = Counter.builder("vernite.github.webhook").tag("result", "handled")
+                .description("GitHub webhook delivery attempts").register(meterRegistry);
+        this.retried = Counter.builder("vernite.github.webhook").tag("result", "retry")
+                .description("GitHub webhook delivery attempts").register(meterRegistry);
+        this.dead = Counter.builder("vernite.github.webhook").tag("result", "dead")
+                .description("GitHub webhook delivery attempts").register(meterRegistry);
+        Gauge.builder("vernite.github.webhook.active", active, Set::size)
+                .description("Repositories which webhook deliveries are being handled").register(meterRegistry);
+    }
+
+    /**
+     * Stores webhook delivery and schedules it for handling. Deliveries with ID
+     * which was already accepted are ignored.
+     * 
+     * @param deliveryId GitHub delivery ID; random ID is used when
+     *                   {@literal null}
+     * @param event      GitHub event name
+     * @param data       parsed payload
+     * @param payload    raw payload
+     * @return whether delivery was new
+     */
+    public boolean accept(String deliveryId, String event, GitHubWebhookData data, String payload) {
+        if (deliveryId == null || deliveryId.isBlank()) {
+            deliveryId = UUID.randomUUID().toString();
+        } else if (deliveryRepository.existsByDeliveryId(deliveryId)) {
+            return false;
+        }
+        try {
+            deliveryRepository.save(new WebhookDelivery(deliveryId, event, getRepository(data), payload));
+        } catch (DataIntegrityViolationException e) {
+            // the same delivery was accepted concurrently
+            return false;
+        }
+        dispatch();
+        return true;
+    }
+
+    /**
+     * Starts handling of repositories with pending deliveries which are not
+     * handled already.
+     */
+    @Scheduled(fixedDelayString = "${vernite.github.webhook.poll-interval:5000}")
+    public void dispatch() {
+        if (executor == null) {
+            return;
+        }
+        for (String repository : deliveryRepository.findPendingRepositories(new Date())) {
+            if (active.add(repository)) {
+                executor.execute(() -> {
+                    try {
+                        handleRepository(repository);
+                    } catch (RuntimeException e) {
+                        L.log(Level.SEVERE, "Could not handle webhook deliveries of " + repository, e);
+                    } finally {
+                        active.remove(repository);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Handles all pending deliveries which can be attempted now in calling
+     * thread. Used when there are no workers.
+     */
+    public void handlePending() {
+        for (String repository : deliveryRepository.findPendingRepositories(new Date())) {
+            if (active.add(repository)) {
+                try {
+                    handleRepository(repository);
+                } finally {
+                    active.remove(repository);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes handled deliveries older than retention. They are kept to ignore
+     * GitHub redeliveries.
+     */
+    @Scheduled(cron = "0 0 * * * *")
+    public void removeHandled() {
+        var before = new Date(System.currentTimeMillis() - retention.toMillis());
+        var deliveries = deliveryRepository.findTop1000ByStateAndReceivedBefore(State.DONE, before);
+        while (!deliveries.isEmpty()) {
+            deliveryRepository.deleteAll(deliveries);
+            deliveries = deliveryRepository.findTop1000ByStateAndReceivedBefore(State.DONE, before);
+        }
+    }
+
+    @PreDestroy
+    private void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void handleRepository(String repository) {
+        for (var delivery : deliveryRepository.findByRepositoryAndStateOrderByIdAsc(repository, State.PENDING)) {
+            if (delivery.getNextAttempt().after(new Date()) || !handle(delivery)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Handles single delivery and updates its state.
+     * 
+     * @return whether later deliveries of the same repository can be handled
+     */
+    private boolean handle(WebhookDelivery delivery) {
+        try {
+            var data = MAPPER.readValue(delivery.getPayload(), GitHubWebhookData.class);
+            Mono<Void> result = transactionTemplate.execute(status -> webhookService.handleWebhook(
+                    delivery.getEvent(), data));
+            if (result != null) {
+                result.block(timeout);
+            }
+            delivery.setState(State.DONE);
+            delivery.setError(null);
+            deliveryRepository.save(delivery);
+            handled.increment();
+            return true;
+        } catch (JsonProcessingException | RuntimeException e) {
+            delivery.setAttempts(delivery.getAttempts() + 1);
+            String error = e.toString();
+            delivery.setError(error.length() > 1000 ? error.substring(0, 1000) : error);
+            if (delivery.getAttempts() >= maxAttempts) {
+                L.log(Level.WARNING, "Giving up GitHub webhook delivery " + delivery.getDeliveryId(), e);
+                delivery.setState(State.DEAD);
+                deliveryRepository.save(delivery);
+                dead.increment();
+                return true;
+            }
+            long backoff = Math.min(FIRST_RETRY << Math.min(delivery.getAttempts() - 1, 20), MAX_RETRY);
+            delivery.setNextAttempt(new Date(System.currentTimeMillis() + backoff));
+            deliveryRepository.save(delivery);
+            retried.increment();
+            return false;
+        }
+    }
+
+    private static String getRepository(GitHubWebhookData data) {
+        if (data.getRepository() != null && data.getRepository().getFullName() != null) {
+            return data.getRepository().getFullName();
+        }
+        if (data.getInstallation() != null) {
+            return "installation/" + data.getInstallation().getId();
+        }
+        return "";
+    }
+
+}
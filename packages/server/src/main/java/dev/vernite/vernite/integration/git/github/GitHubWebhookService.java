@@ -30,7 +30,9 @@ package dev.vernite.vernite.integration.git.github;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -43,6 +45,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
 
 import dev.vernite.vernite.common.utils.counter.CounterSequenceRepository;
+import dev.vernite.vernite.integration.git.github.data.GitHubCommit;
 import dev.vernite.vernite.integration.git.github.data.GitHubInstallationApi;
 import dev.vernite.vernite.integration.git.github.data.GitHubRepository;
 import dev.vernite.vernite.integration.git.github.data.GitHubWebhookData;
@@ -56,6 +59,7 @@ import dev.vernite.vernite.integration.git.github.model.ProjectIntegrationReposi
 import dev.vernite.vernite.integration.git.github.model.TaskIntegrationRepository;
 import dev.vernite.vernite.integration.git.github.model.TaskIntegration;
 import dev.vernite.vernite.integration.git.github.model.TaskIntegrationId;
+import dev.vernite.vernite.project.Project;
 import dev.vernite.vernite.status.Status;
 import dev.vernite.vernite.task.Task;
 import dev.vernite.vernite.task.TaskRepository;
@@ -63,7 +67,6 @@ import dev.vernite.vernite.task.comment.Comment;
 import dev.vernite.vernite.task.comment.CommentRepository;
 import dev.vernite.vernite.user.User;
 import dev.vernite.vernite.user.UserRepository;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Service
@@ -82,7 +85,13 @@ public class GitHubWebhookService {
     @Autowired
     private TaskIntegrationRepository issueRepository;
     @Autowired
-    private GitHubService service;
+    private GitHubRoutingTable routingTable;
+    @Autowired
+    private GitHubMirror mirror;
+    @Autowired
+    private GitHubWriteQueue writeQueue;
+    @Autowired
+    private GitHubCollaboratorCache collaboratorCache;
     @Autowired
     private CounterSequenceRepository counterSequenceRepository;
     @Autowired
@@ -130,6 +139,9 @@ public class GitHubWebhookService {
             case "issue_comment":
                 handleIssueComment(data);
                 break;
+            case "member":
+                collaboratorCache.invalidate(data.getRepository().getFullName());
+                break;
             default:
                 break;
         }
@@ -139,13 +151,12 @@ public class GitHubWebhookService {
     private void handleIssueComment(GitHubWebhookData data) {
         switch (data.getAction()) {
             case "created":
-                var name = data.getRepository().getFullName().split("/");
                 if (commentIntegrationRepository.findById(data.getComment().getId()).isPresent()) {
                     return;
                 }
-                integrationRepository.findByRepositoryOwnerAndRepositoryName(name[0], name[1])
+                routingTable.getIntegrations(data.getRepository().getFullName())
                         .forEach(projectIntegration -> {
-                            var issues = issueRepository.findByProjectIntegrationAndIssueId(projectIntegration,
+                            var issues = routingTable.getTaskIntegrations(projectIntegration,
                                     data.getIssue().getNumber());
                             issues.forEach(issue -> {
                                 var task = issue.getTask();
@@ -204,35 +215,44 @@ public class GitHubWebhookService {
         }
     }
 
+    /**
+     * Applies open and close references from all commits of push. Referenced
+     * tasks are loaded with one query per project and each task is changed and
+     * queued for patch once, with state from its last reference.
+     */
     private Mono<Void> handlePush(GitHubWebhookData data) {
-        var repository = data.getRepository();
-        List<Task> tasks = new ArrayList<>();
-        var name = repository.getFullName().split("/");
-        for (var integration : integrationRepository.findByRepositoryOwnerAndRepositoryName(name[0], name[1])) {
-            for (var commit : data.getCommits()) {
-                Matcher matcher = PATTERN.matcher(commit.getMessage());
-                if (matcher.find()) {
-                    boolean isOpen = "reopen".equals(matcher.group(1));
-                    long taskId = Long.parseLong(matcher.group(2));
-                    taskRepository.findByStatusProjectAndNumber(integration.getProject(), taskId)
-                            .ifPresent(task -> {
-                                task.changeStatus(isOpen);
-                                tasks.add(taskRepository.save(task));
-                            });
-
-                }
+        Map<Long, Boolean> references = new LinkedHashMap<>();
+        for (var commit : data.getCommits() == null ? List.<GitHubCommit>of() : data.getCommits()) {
+            Matcher matcher = PATTERN.matcher(commit.getMessage());
+            while (matcher.find()) {
+                references.put(Long.parseLong(matcher.group(2)), "reopen".equals(matcher.group(1)));
             }
         }
-        return Flux.fromIterable(tasks).flatMap(service::patchIssue).then();
+        var integrations = routingTable.getIntegrations(data.getRepository().getFullName());
+        integrations.forEach(integration -> mirror.updateBranch(integration, data.getRef(), data.isCreated(),
+                data.isDeleted()));
+        if (references.isEmpty()) {
+            return Mono.empty();
+        }
+        Map<Long, Project> projects = new LinkedHashMap<>();
+        for (var integration : integrations) {
+            projects.putIfAbsent(integration.getProject().getId(), integration.getProject());
+        }
+        for (var project : projects.values()) {
+            var found = taskRepository.findByStatusProjectAndNumberIn(project, references.keySet());
+            found.forEach(task -> task.changeStatus(references.get(task.getNumber())));
+            taskRepository.saveAll(found).forEach(writeQueue::patchTask);
+        }
+        return Mono.empty();
     }
 
     private void handleIssue(GitHubWebhookData data) {
         var repository = data.getRepository();
         var issue = data.getIssue();
-        var name = repository.getFullName().split("/");
-        for (var integration : integrationRepository.findByRepositoryOwnerAndRepositoryName(name[0], name[1])) {
+        for (var integration : routingTable.getIntegrations(repository.getFullName())) {
+            mirror.updateIssue(integration, issue, data.getAction());
             if (data.getAction().equals("opened")
-                    && issueRepository.findByProjectIntegrationAndIssueId(integration, issue.getNumber()).isEmpty()) {
+                    && routingTable.getTaskIntegrations(integration, issue.getNumber()).isEmpty()) {
                 long id = counterSequenceRepository
                         .getIncrementCounter(integration.getProject().getTaskCounter().getId());
                 Status status = integration.getProject().getStatuses().get(0);
@@ -242,7 +262,7 @@ public class GitHubWebhookService {
                 issueRepository
                         .save(new TaskIntegration(task, integration, issue.getNumber(), TaskIntegration.Type.ISSUE));
             } else {
-                for (var gitTask : issueRepository.findByProjectIntegrationAndIssueId(integration, issue.getNumber())) {
+                for (var gitTask : routingTable.getTaskIntegrations(integration, issue.getNumber())) {
                     Task task = gitTask.getTask();
                     switch (data.getAction()) {
                         case EDITED:
@@ -285,13 +305,16 @@ public class GitHubWebhookService {
     }
 
     private void handleInstallationRepositories(GitHubWebhookData data) {
+        if (data.getRepositoriesAdded() != null) {
+            data.getRepositoriesAdded().forEach(repository -> collaboratorCache.invalidate(repository.getFullName()));
+        }
         if (data.getRepositoriesRemoved() == null) {
             return;
         }
         List<ProjectIntegration> integrations = new ArrayList<>();
         for (GitHubRepository repository : data.getRepositoriesRemoved()) {
-            var name = repository.getFullName().split("/");
-            integrations.addAll(integrationRepository.findByRepositoryOwnerAndRepositoryName(name[0], name[1]));
+            collaboratorCache.invalidate(repository.getFullName());
+            integrations.addAll(routingTable.getIntegrations(repository.getFullName()));
         }
         integrationRepository.deleteAll(integrations);
     }
@@ -299,9 +322,9 @@ public class GitHubWebhookService {
     private void handlePullRequest(GitHubWebhookData data) {
         var pullRequest = data.getPullRequest();
         GitHubRepository repository = data.getRepository();
-        var name = repository.getFullName().split("/");
-        for (var integration : integrationRepository.findByRepositoryOwnerAndRepositoryName(name[0], name[1])) {
-            for (var gitTask : issueRepository.findByProjectIntegrationAndIssueId(integration,
+        for (var integration : routingTable.getIntegrations(repository.getFullName())) {
+            mirror.updatePullRequest(integration, pullRequest);
+            for (var gitTask : routingTable.getTaskIntegrations(integration,
                     pullRequest.getNumber())) {
                 Task task = gitTask.getTask();
                 switch (data.getAction()) {
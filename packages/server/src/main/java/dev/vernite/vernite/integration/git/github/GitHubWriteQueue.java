@@ -0,0 +1,257 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.git.github;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import dev.vernite.vernite.integration.git.github.model.CommentIntegrationRepository;
+import dev.vernite.vernite.integration.git.github.model.PendingWrite;
+import dev.vernite.vernite.integration.git.github.model.PendingWrite.Type;
+import dev.vernite.vernite.integration.git.github.model.PendingWriteRepository;
+import dev.vernite.vernite.integration.git.github.model.ProjectIntegrationRepository;
+import dev.vernite.vernite.project.Project;
+import dev.vernite.vernite.task.Task;
+import dev.vernite.vernite.task.TaskRepository;
+import dev.vernite.vernite.task.comment.Comment;
+import dev.vernite.vernite.task.comment.CommentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Queue of writes to GitHub made on behalf of users. Writes are stored in
+ * database in transaction of the change and sent later by background worker,
+ * so requests do not wait for GitHub. Writes of the same task or comment
+ * queued within debounce window are merged and only the latest state is sent.
+ * Failed writes are retried with exponential backoff; writes merged into
+ * failed write wait for its retry.
+ */
+@Service
+public class GitHubWriteQueue {
+
+    private static final Logger L = Logger.getLogger("GitHubWriteQueue");
+
+    private static final String UPSERT = "INSERT INTO github_pending_write (type, target_id, revision, attempts, "
+            + "due, deadline) VALUES (?, ?, 0, 0, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE revision = revision + 1, "
+            + "due = GREATEST(due, LEAST(VALUES(due), deadline))";
+
+    private static final String DELETE = "DELETE FROM github_pending_write WHERE id = ? AND revision = ?";
+
+    private static final String RETRY = "UPDATE github_pending_write SET attempts = ?, due = ?, error = ? "
+            + "WHERE id = ? AND revision = ?";
+
+    private static final long FIRST_RETRY = TimeUnit.SECONDS.toMillis(10);
+
+    private static final long MAX_RETRY = TimeUnit.HOURS.toMillis(1);
+
+    private static final int CONCURRENCY = 4;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final PendingWriteRepository writeRepository;
+
+    private final ProjectIntegrationRepository integrationRepository;
+
+    private final TaskRepository taskRepository;
+
+    private final CommentRepository commentRepository;
+
+    private final CommentIntegrationRepository commentIntegrationRepository;
+
+    private final GitHubService service;
+
+    private final boolean enabled;
+
+    private final Duration debounce;
+
+    private final Duration maxDelay;
+
+    private final int maxAttempts;
+
+    private final Duration timeout;
+
+    private final AtomicBoolean sending = new AtomicBoolean();
+
+    private final Counter merged;
+
+    private final Counter sent;
+
+    private final Counter retried;
+
+    private final Counter dropped;
+
+    public GitHubWriteQueue(JdbcTemplate jdbcTemplate, PendingWriteRepository writeRepository,
+            ProjectIntegrationRepository integrationRepository, TaskRepository taskRepository,
+            CommentRepository commentRepository, CommentIntegrationRepository commentIntegrationRepository,
+            GitHubService service, MeterRegistry meterRegistry,
+            @Value("${vernite.github.write.enabled:true}") boolean enabled,
+            @Value("${vernite.github.write.debounce:PT2S}") Duration debounce,
+            @Value("${vernite.github.write.max-delay:PT30S}") Duration maxDelay,
+            @Value("${vernite.github.write.max-attempts:8}") int maxAttempts,
+            @Value("${vernite.github.write.timeout:PT1M}") Duration timeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeRepository = writeRepository;
+        this.integrationRepository = integrationRepository;
+        this.taskRepository = taskRepository;
+        this.commentRepository = commentRepository;
+        this.commentIntegrationRepository = commentIntegrationRepository;
+        this.service = service;
+        this.enabled = enabled;
+        this.debounce = debounce;
+        this.maxDelay = maxDelay;
+        this.maxAttempts = maxAttempts;
+        this.timeout = timeout;
+        this.merged = Counter.builder("vernite.github.write").tag("result", "merged")
+                .description("GitHub writes queued on behalf of users").register(meterRegistry);
+        this.sent = Counter.builder("vernite.github.write").tag("result", "sent")
+                .description("GitHub writes queued on behalf of users").register(meterRegistry);
+        this.retried = Counter.builder("vernite.github.write").tag("result", "retry")
+                .description("GitHub writes queued on behalf of users").register(meterRegistry);
+        this.dropped = Counter.builder("vernite.github.write").tag("result", "dropped")
+                .description("GitHub writes queued on behalf of users").register(meterRegistry);
+    }
+
+    /**
+     * Queues writing state of task to its GitHub issue and pull request.
+     * 
+     * @param task must not be {@literal null}; must be entity from database
+     */
+    public void patchTask(Task task) {
+        enqueue(Type.TASK, task.getId(), task.getStatus().getProject());
+    }
+
+    /**
+     * Queues creating or updating GitHub comment of comment. Comment is created
+     * if it was not created yet, otherwise it is updated.
+     * 
+     * @param comment must not be {@literal null}; must be entity from database
+     */
+    public void saveComment(Comment comment) {
+        enqueue(Type.COMMENT, comment.getId(), comment.getTask().getStatus().getProject());
+    }
+
+    private void enqueue(Type type, long targetId, Project project) {
+        if (integrationRepository.findByProject(project).isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int rows = jdbcTemplate.update(UPSERT, type.name(), targetId, new Timestamp(now + debounce.toMillis()),
+                new Timestamp(now + maxDelay.toMillis()));
+        // MySQL reports 2 affected rows when existing row was updated
+        if (rows > 1) {
+            merged.increment();
+        }
+    }
+
+    /**
+     * Sends writes which are due. Writes are sent in background, so shared
+     * scheduling thread is not blocked; next poll is skipped while previous
+     * writes are still being sent.
+     */
+    @Scheduled(fixedDelayString = "${vernite.github.write.poll-interval:1000}")
+    public void sendDue() {
+        if (!enabled || !sending.compareAndSet(false, true)) {
+            return;
+        }
+        sendWrites().doFinally(signal -> sending.set(false))
+                .subscribe(null, e -> L.log(Level.SEVERE, "Could not send GitHub writes", e));
+    }
+
+    /**
+     * Sends writes which are due.
+     * 
+     * @return mono which completes when writes are sent or scheduled for retry
+     */
+    Mono<Void> sendWrites() {
+        return Flux.defer(() -> Flux.fromIterable(
+                writeRepository.findTop100ByDueLessThanEqualOrderByDueAsc(new Date())))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(this::send, CONCURRENCY)
+                .then();
+    }
+
+    private Mono<Void> send(PendingWrite write) {
+        return Mono.defer(() -> write(write))
+                .timeout(timeout)
+                // result is saved with JDBC, which must not run on HTTP client threads
+                .publishOn(Schedulers.boundedElastic())
+                .then(Mono.fromRunnable(() -> {
+                    jdbcTemplate.update(DELETE, write.getId(), write.getRevision());
+                    sent.increment();
+                }))
+                .onErrorResume(e -> {
+                    retry(write, e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<Void> write(PendingWrite write) {
+        if (write.getType() == Type.TASK) {
+            return taskRepository.findById(write.getTargetId())
+                    .map(task -> Flux.concat(service.patchIssue(task), service.patchPullRequest(task)).then())
+                    .orElseGet(Mono::empty);
+        }
+        return commentRepository.findById(write.getTargetId())
+                .map(comment -> commentIntegrationRepository.findByComment(comment).isEmpty()
+                        ? service.createComment(comment).then()
+                        : service.patchComment(comment).then())
+                .orElseGet(Mono::empty);
+    }
+
+    private void retry(PendingWrite write, Throwable error) {
+        int attempts = write.getAttempts() + 1;
+        if (attempts >= maxAttempts) {
+            L.log(Level.SEVERE, "Dropped GitHub write of " + write.getType() + " " + write.getTargetId(), error);
+            jdbcTemplate.update(DELETE, write.getId(), write.getRevision());
+            dropped.increment();
+            return;
+        }
+        L.log(Level.WARNING, "Could not send GitHub write of " + write.getType() + " " + write.getTargetId(), error);
+        long delay = Math.min(MAX_RETRY, FIRST_RETRY << Math.min(attempts - 1, 20));
+        var message = String.valueOf(error.getMessage());
+        jdbcTemplate.update(RETRY, attempts, new Timestamp(System.currentTimeMillis() + delay),
+                message.length() > 1000 ? message.substring(0, 1000) : message, write.getId(), write.getRevision());
+        retried.increment();
+    }
+
+}
@@ -0,0 +1,195 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.git.github.api;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.UnaryOperator;
+
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Exchange filter caching GitHub GET responses which have entity tag or
+ * modification date. Cached responses are revalidated with conditional
+ * request; GitHub does not count {@code 304} responses against rate limit,
+ * and cached body is returned instead. Responses are cached per token scope
+ * and URL, least recently used are evicted when cache is full.
+ */
+public class ConditionalRequestCache implements ExchangeFilterFunction {
+
+    private record Entry(HttpHeaders headers, byte[] body) {
+    }
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final UnaryOperator<String> scopes;
+
+    private final long maxSize;
+
+    private final int maxEntrySize;
+
+    private long size;
+
+    private final Counter misses;
+
+    private final Counter notModified;
+
+    private final Counter modified;
+
+    /**
+     * @param scopes        maps authorization header to stable scope of token,
+     *                      e.g. installation, so cache survives token refresh
+     * @param maxSize       maximum size of cached bodies in bytes
+     * @param maxEntrySize  maximum size of single cached body in bytes
+     * @param meterRegistry registry for cache metrics
+     */
+    public ConditionalRequestCache(UnaryOperator<String> scopes, long maxSize, int maxEntrySize,
+            MeterRegistry meterRegistry) {
+        this.scopes = scopes;
+        this.maxSize = maxSize;
+        this.maxEntrySize = maxEntrySize;
+        this.misses = Counter.builder("vernite.github.cache").tag("result", "miss")
+                .description("GitHub requests without cached response").register(meterRegistry);
+        this.notModified = Counter.builder("vernite.github.cache").tag("result", "not-modified")
+                .description("GitHub requests answered from cache after 304").register(meterRegistry);
+        this.modified = Counter.builder("vernite.github.cache").tag("result", "modified")
+                .description("GitHub requests with cached response which changed").register(meterRegistry);
+        Gauge.builder("vernite.github.cache.size", this, ConditionalRequestCache::size).baseUnit("bytes")
+                .description("Bytes of cached GitHub responses").register(meterRegistry);
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (request.method() != HttpMethod.GET) {
+            return next.exchange(request);
+        }
+        String authorization = request.headers().getFirst(HttpHeaders.AUTHORIZATION);
+        String key = (authorization == null ? "" : scopes.apply(authorization)) + " " + request.url();
+        Entry cached = get(key);
+        if (cached == null) {
+            misses.increment();
+            return next.exchange(request).map(response -> store(key, response));
+        }
+        var conditional = ClientRequest.from(request).headers(headers -> {
+            if (cached.headers().getETag() != null) {
+                headers.setIfNoneMatch(cached.headers().getETag());
+            }
+            if (cached.headers().getLastModified() >= 0) {
+                headers.setIfModifiedSince(cached.headers().getLastModified());
+            }
+        }).build();
+        return next.exchange(conditional).flatMap(response -> {
+            if (response.statusCode().value() != HttpStatus.NOT_MODIFIED.value()) {
+                modified.increment();
+                return Mono.just(store(key, response));
+            }
+            notModified.increment();
+            return response.releaseBody().then(Mono.fromSupplier(() -> ClientResponse.create(HttpStatus.OK)
+                    .headers(headers -> headers.addAll(cached.headers()))
+                    .body(Flux.defer(() -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(cached.body()))))
+                    .build()));
+        });
+    }
+
+    /**
+     * Copies body of successful response while it is read and caches it when
+     * it is complete.
+     */
+    private ClientResponse store(String key, ClientResponse response) {
+        var headers = response.headers().asHttpHeaders();
+        if (response.statusCode().value() != HttpStatus.OK.value()
+                || (headers.getETag() == null && headers.getLastModified() < 0)) {
+            remove(key);
+            return response;
+        }
+        var copy = new HttpHeaders();
+        copy.addAll(headers);
+        return response.mutate().body(body -> {
+            var out = new ByteArrayOutputStream();
+            var tooLarge = new AtomicBoolean();
+            return body.doOnNext(buffer -> {
+                if (tooLarge.get() || out.size() + buffer.readableByteCount() > maxEntrySize) {
+                    tooLarge.set(true);
+                    return;
+                }
+                byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.toByteBuffer(ByteBuffer.wrap(bytes));
+                out.write(bytes, 0, bytes.length);
+            }).doOnComplete(() -> {
+                if (tooLarge.get()) {
+                    remove(key);
+                } else {
+                    put(key, new Entry(copy, out.toByteArray()));
+                }
+            });
+        }).build();
+    }
+
+    private synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    private synchronized void put(String key, Entry entry) {
+        var old = entries.put(key, entry);
+        size += entry.body().length - (old != null ? old.body().length : 0);
+        Iterator<Entry> it = entries.values().iterator();
+        while (size > maxSize && it.hasNext()) {
+            size -= it.next().body().length;
+            it.remove();
+        }
+    }
+
+    private synchronized void remove(String key) {
+        var old = entries.remove(key);
+        if (old != null) {
+            size -= old.body().length;
+        }
+    }
+
+    synchronized long size() {
+        return size;
+    }
+
+}
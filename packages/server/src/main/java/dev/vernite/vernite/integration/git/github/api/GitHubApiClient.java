@@ -27,9 +27,13 @@
 
 package dev.vernite.vernite.integration.git.github.api;
 
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.service.annotation.GetExchange;
 import org.springframework.web.service.annotation.HttpExchange;
 import org.springframework.web.service.annotation.PatchExchange;
@@ -105,25 +109,37 @@ public interface GitHubApiClient {
     Mono<AppToken> createInstallationAccessToken(@RequestHeader("Authorization") String jwt, @PathVariable long id);
 
     /**
-     * Get the installation repositories.
+     * Get page of the installation repositories.
      * 
-     * @param token installation access token
-     * @return the installations repositories
+     * @param token   installation access token
+     * @param perPage number of repositories on page
+     * @param page    number of page, starting from 1
+     * @return page of the installations repositories
      */
     @GetExchange("/installation/repositories")
-    Mono<Repositories> getInstallationRepositories(@RequestHeader("Authorization") String token);
+    Mono<ResponseEntity<Repositories>> getInstallationRepositories(@RequestHeader("Authorization") String token,
+            @RequestParam("per_page") int perPage, @RequestParam int page);
 
     /**
-     * Get the repository issues.
+     * Get page of the repository issues. Pull requests are returned as issues
+     * too.
      * 
-     * @param token installation access token
-     * @param owner owner of repository
-     * @param name  name of repository
-     * @return the repository issues
+     * @param token   installation access token
+     * @param owner   owner of repository
+     * @param name    name of repository
+     * @param state   state of issues: open, closed or all; open when
+     *                {@literal null}
+     * @param since   only issues updated at or after this ISO 8601 time; all
+     *                when {@literal null}
+     * @param perPage number of issues on page
+     * @param page    number of page, starting from 1
+     * @return page of the repository issues
      */
     @GetExchange("/repos/{owner}/{name}/issues")
-    Flux<GitHubIssue> getRepositoryIssues(@RequestHeader("Authorization") String token, @PathVariable String owner,
-            @PathVariable String name);
+    Mono<ResponseEntity<List<GitHubIssue>>> getRepositoryIssues(@RequestHeader("Authorization") String token,
+            @PathVariable String owner, @PathVariable String name, @RequestParam(required = false) String state,
+            @RequestParam(required = false) String since, @RequestParam("per_page") int perPage,
+            @RequestParam int page);
 
     /**
      * Get the repository issue.
@@ -152,16 +168,27 @@ public interface GitHubApiClient {
             @PathVariable String name, @RequestBody GitHubIssue body);
 
     /**
-     * Get the repository pull requests.
+     * Get page of the repository pull requests.
      * 
-     * @param token installation access token
-     * @param owner owner of repository
-     * @param name  name of repository
-     * @return the repository pull requests
+     * @param token     installation access token
+     * @param owner     owner of repository
+     * @param name      name of repository
+     * @param state     state of pull requests: open, closed or all; open when
+     *                  {@literal null}
+     * @param sort      sort order: created or updated; created when
+     *                  {@literal null}
+     * @param direction sort direction: asc or desc; desc for created and asc
+     *                  for updated when {@literal null}
+     * @param perPage   number of pull requests on page
+     * @param page      number of page, starting from 1
+     * @return page of the repository pull requests
      */
     @GetExchange("/repos/{owner}/{name}/pulls")
-    Flux<GitHubPullRequest> getRepositoryPullRequests(@RequestHeader("Authorization") String token,
-            @PathVariable String owner, @PathVariable String name);
+    Mono<ResponseEntity<List<GitHubPullRequest>>> getRepositoryPullRequests(
+            @RequestHeader("Authorization") String token, @PathVariable String owner, @PathVariable String name,
+            @RequestParam(required = false) String state, @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction, @RequestParam("per_page") int perPage,
+            @RequestParam int page);
 
     /**
      * Get the repository pull request.
@@ -177,16 +204,19 @@ public interface GitHubApiClient {
             @PathVariable String owner, @PathVariable String name, @PathVariable long pullRequestNumber);
 
     /**
-     * Get the repository collaborators.
+     * Get page of the repository collaborators.
      * 
-     * @param token installation access token
-     * @param owner owner of repository
-     * @param name  name of repository
-     * @return the repository collaborators
+     * @param token   installation access token
+     * @param owner   owner of repository
+     * @param name    name of repository
+     * @param perPage number of collaborators on page
+     * @param page    number of page, starting from 1
+     * @return page of the repository collaborators
      */
     @GetExchange("/repos/{owner}/{name}/collaborators")
-    Flux<GitHubUser> getRepositoryCollaborators(@RequestHeader("Authorization") String token,
-            @PathVariable String owner, @PathVariable String name);
+    Mono<ResponseEntity<List<GitHubUser>>> getRepositoryCollaborators(@RequestHeader("Authorization") String token,
+            @PathVariable String owner, @PathVariable String name, @RequestParam("per_page") int perPage,
+            @RequestParam int page);
 
     /**
      * Patch a repository issue.
@@ -231,16 +261,19 @@ public interface GitHubApiClient {
             @PathVariable String name, @PathVariable long id);
 
     /**
-     * Get the repository branches.
+     * Get page of the repository branches.
      * 
-     * @param token installation access token
-     * @param owner owner of repository
-     * @param name  name of repository
-     * @return the repository branches
+     * @param token   installation access token
+     * @param owner   owner of repository
+     * @param name    name of repository
+     * @param perPage number of branches on page
+     * @param page    number of page, starting from 1
+     * @return page of the repository branches
      */
     @GetExchange("/repos/{owner}/{name}/branches")
-    Flux<BranchName> getRepositoryBranches(@RequestHeader("Authorization") String token, @PathVariable String owner,
-            @PathVariable String name);
+    Mono<ResponseEntity<List<BranchName>>> getRepositoryBranches(@RequestHeader("Authorization") String token,
+            @PathVariable String owner, @PathVariable String name, @RequestParam("per_page") int perPage,
+            @RequestParam int page);
 
     /**
      * Create a repository release.
@@ -0,0 +1,129 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.git.github.api;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.regex.Pattern;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Streams all pages of GitHub list endpoints. Pages are discovered from
+ * {@code Link} response header. When the last page is known remaining pages
+ * are fetched with bounded concurrency, otherwise {@code next} links are
+ * followed one by one. Pages are requested only when previous items were
+ * consumed, so cancelling the returned flux stops remaining page fetches.
+ */
+public final class GitHubPager {
+
+    /**
+     * Largest page size allowed by GitHub.
+     */
+    public static final int PAGE_SIZE = 100;
+
+    /**
+     * Maximal number of pages fetched at the same time.
+     */
+    static final int CONCURRENCY = 4;
+
+    private static final Pattern LINK = Pattern.compile("<([^>]*)>\\s*;\\s*rel=\"([^\"]*)\"");
+
+    private GitHubPager() {
+    }
+
+    /**
+     * Streams items of all pages.
+     * 
+     * @param <T>   type of items
+     * @param fetch function fetching page with given number, starting from 1
+     * @return items of all pages in order
+     */
+    public static <T> Flux<T> paginate(IntFunction<Mono<ResponseEntity<List<T>>>> fetch) {
+        return paginate(fetch, Function.identity());
+    }
+
+    /**
+     * Streams items of all pages for endpoints wrapping items in an object.
+     * 
+     * @param <P>   type of page body
+     * @param <T>   type of items
+     * @param fetch function fetching page with given number, starting from 1
+     * @param items function extracting items from page body
+     * @return items of all pages in order
+     */
+    public static <P, T> Flux<T> paginate(IntFunction<Mono<ResponseEntity<P>>> fetch,
+            Function<P, List<T>> items) {
+        Function<ResponseEntity<P>, List<T>> body = page -> page.getBody() == null ? List.of()
+                : items.apply(page.getBody());
+        return fetch.apply(1).flatMapMany(first -> {
+            int last = getPage(first.getHeaders(), "last");
+            if (last > 1) {
+                return Flux.fromIterable(body.apply(first)).concatWith(Flux.range(2, last - 1)
+                        .flatMapSequential(page -> fetch.apply(page).flatMapIterable(body), CONCURRENCY));
+            }
+            return Mono.just(first).expand(page -> {
+                int next = getPage(page.getHeaders(), "next");
+                return next > 1 && !body.apply(page).isEmpty() ? fetch.apply(next) : Mono.empty();
+            }).flatMapIterable(body, 1);
+        });
+    }
+
+    /**
+     * Finds page number of link with given relation.
+     * 
+     * @param headers response headers
+     * @param rel     link relation
+     * @return page number or 0 when there is no such link
+     */
+    static int getPage(HttpHeaders headers, String rel) {
+        for (String value : headers.getOrEmpty(HttpHeaders.LINK)) {
+            var matcher = LINK.matcher(value);
+            while (matcher.find()) {
+                if (!rel.equals(matcher.group(2))) {
+                    continue;
+                }
+                var page = UriComponentsBuilder.fromUriString(matcher.group(1)).build().getQueryParams()
+                        .getFirst("page");
+                try {
+                    return page == null ? 0 : Integer.parseInt(page);
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+}
@@ -0,0 +1,279 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.git.github.api;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Exchange filter scheduling GitHub requests within rate limit of each token
+ * scope, e.g. installation. Remaining budget is tracked from
+ * {@code X-RateLimit-*} response headers. Reads are sent until budget is
+ * exhausted, while writes leave part of budget for reads and are sent one at a
+ * time per scope. Requests which would exceed the limit are delayed until
+ * budget resets, and requests rejected by primary or secondary rate limit are
+ * retried after time given by GitHub. Reads are not delayed longer than given
+ * time, as someone is waiting for them.
+ */
+public class RateLimitScheduler implements ExchangeFilterFunction {
+
+    /**
+     * Time to wait after secondary rate limit without {@code Retry-After}.
+     */
+    static final long SECONDARY_LIMIT_WAIT = TimeUnit.MINUTES.toMillis(1);
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final int MAX_SCOPES = 10000;
+
+    /**
+     * Rate limit state of single token scope.
+     */
+    static class Budget {
+
+        private final double writeReserve;
+
+        private long limit = -1;
+
+        private long remaining = -1;
+
+        private long reset;
+
+        private long blockedUntil;
+
+        private final AtomicReference<Mono<Void>> writes = new AtomicReference<>(Mono.empty());
+
+        Budget(double writeReserve) {
+            this.writeReserve = writeReserve;
+        }
+
+        /**
+         * Takes one request from budget if it can be sent now.
+         * 
+         * @param write whether request is write
+         * @param now   current time in milliseconds
+         * @return {@code 0} when request can be sent, otherwise milliseconds to
+         *         wait before trying again
+         */
+        synchronized long acquire(boolean write, long now) {
+            if (blockedUntil > now) {
+                return blockedUntil - now;
+            }
+            if (remaining < 0 || reset <= now) {
+                remaining = -1;
+                return 0;
+            }
+            long reserved = write ? (long) Math.ceil(limit * writeReserve) : 0;
+            if (remaining <= reserved) {
+                return reset - now;
+            }
+            remaining--;
+            return 0;
+        }
+
+        /**
+         * Updates budget from response headers.
+         * 
+         * @param status  response status
+         * @param headers response headers
+         * @param now     current time in milliseconds
+         * @return {@code 0} when response was not rejected by rate limit,
+         *         otherwise milliseconds to wait before retrying
+         */
+        synchronized long update(int status, HttpHeaders headers, long now) {
+            long responseRemaining = getLong(headers, "X-RateLimit-Remaining");
+            long responseReset = getLong(headers, "X-RateLimit-Reset");
+            if (responseRemaining >= 0 && responseReset > 0) {
+                long responseResetMillis = TimeUnit.SECONDS.toMillis(responseReset);
+                limit = Math.max(getLong(headers, "X-RateLimit-Limit"), responseRemaining);
+                // responses of requests sent together may come in any order
+                remaining = remaining < 0 || responseResetMillis > reset ? responseRemaining
+                        : Math.min(remaining, responseRemaining);
+                reset = responseResetMillis;
+            }
+            if (status != HttpStatus.FORBIDDEN.value() && status != HttpStatus.TOO_MANY_REQUESTS.value()) {
+                return 0;
+            }
+            long retryAfter = getLong(headers, HttpHeaders.RETRY_AFTER);
+            if (retryAfter >= 0) {
+                blockedUntil = now + TimeUnit.SECONDS.toMillis(retryAfter);
+            } else if (responseRemaining == 0) {
+                blockedUntil = reset;
+            } else if (status == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                blockedUntil = now + SECONDARY_LIMIT_WAIT;
+            } else {
+                return 0;
+            }
+            return Math.max(blockedUntil - now, 1);
+        }
+
+        synchronized double getRemainingRatio() {
+            return remaining < 0 || limit <= 0 ? 1 : (double) remaining / limit;
+        }
+
+        private static long getLong(HttpHeaders headers, String name) {
+            try {
+                String value = headers.getFirst(name);
+                return value == null ? -1 : Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+    }
+
+    private final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+
+    private final UnaryOperator<String> scopes;
+
+    private final double writeReserve;
+
+    private final long maxReadWait;
+
+    private final Clock clock;
+
+    private final Counter reads;
+
+    private final Counter writes;
+
+    private final Counter limited;
+
+    private final Timer readDelay;
+
+    private final Timer writeDelay;
+
+    /**
+     * @param scopes        maps authorization header to stable scope of token,
+     *                      e.g. installation, so budget survives token refresh
+     * @param writeReserve  part of budget which can be used only by reads
+     * @param maxReadWait   longest time read waits for budget; after it read is
+     *                      sent anyway
+     * @param meterRegistry registry for rate limit metrics
+     * @param clock         clock used to compare with rate limit reset times
+     */
+    public RateLimitScheduler(UnaryOperator<String> scopes, double writeReserve, Duration maxReadWait,
+            MeterRegistry meterRegistry, Clock clock) {
+        this.scopes = scopes;
+        this.writeReserve = writeReserve;
+        this.maxReadWait = maxReadWait.toMillis();
+        this.clock = clock;
+        this.reads = Counter.builder("vernite.github.requests").tag("type", "read")
+                .description("GitHub requests counted against rate limit").register(meterRegistry);
+        this.writes = Counter.builder("vernite.github.requests").tag("type", "write")
+                .description("GitHub requests counted against rate limit").register(meterRegistry);
+        this.limited = Counter.builder("vernite.github.rate.limit.exceeded")
+                .description("GitHub responses rejected by rate limit").register(meterRegistry);
+        this.readDelay = Timer.builder("vernite.github.rate.limit.delay").tag("type", "read")
+                .description("Time GitHub requests waited for rate limit budget").register(meterRegistry);
+        this.writeDelay = Timer.builder("vernite.github.rate.limit.delay").tag("type", "write")
+                .description("Time GitHub requests waited for rate limit budget").register(meterRegistry);
+        Gauge.builder("vernite.github.rate.limit.remaining", this, RateLimitScheduler::getLowestRemainingRatio)
+                .description("Lowest remaining part of GitHub rate limit among tokens").register(meterRegistry);
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        String authorization = request.headers().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorization == null) {
+            return next.exchange(request);
+        }
+        boolean write = request.method() != HttpMethod.GET && request.method() != HttpMethod.HEAD;
+        var budget = getBudget(scopes.apply(authorization));
+        if (!write) {
+            return send(request, next, budget, false, clock.millis(), 1);
+        }
+        return Mono.defer(() -> {
+            // writes of one scope are sent one by one, as GitHub recommends
+            Sinks.Empty<Void> done = Sinks.empty();
+            var previous = budget.writes.getAndSet(done.asMono());
+            return previous.then(Mono.defer(() -> send(request, next, budget, true, clock.millis(), 1)))
+                    .doFinally(signal -> done.tryEmitEmpty());
+        });
+    }
+
+    /**
+     * @return lowest part of rate limit remaining among known scopes
+     */
+    public double getLowestRemainingRatio() {
+        return budgets.values().stream().mapToDouble(Budget::getRemainingRatio).min().orElse(1);
+    }
+
+    private Budget getBudget(String scope) {
+        if (budgets.size() >= MAX_SCOPES && !budgets.containsKey(scope)) {
+            budgets.clear();
+        }
+        return budgets.computeIfAbsent(scope, key -> new Budget(writeReserve));
+    }
+
+    private Mono<ClientResponse> send(ClientRequest request, ExchangeFunction next, Budget budget, boolean write,
+            long start, int attempt) {
+        return Mono.defer(() -> {
+            long now = clock.millis();
+            long wait = budget.acquire(write, now);
+            if (wait > 0 && (write || now - start + wait <= maxReadWait)) {
+                return Mono.delay(Duration.ofMillis(wait)).then(send(request, next, budget, write, start, attempt));
+            }
+            (write ? writeDelay : readDelay).record(now - start, TimeUnit.MILLISECONDS);
+            (write ? writes : reads).increment();
+            return next.exchange(request).flatMap(response -> {
+                long received = clock.millis();
+                long retry = budget.update(response.statusCode().value(), response.headers().asHttpHeaders(),
+                        received);
+                if (retry == 0) {
+                    return Mono.just(response);
+                }
+                limited.increment();
+                if (attempt >= MAX_ATTEMPTS || (!write && received - start + retry > maxReadWait)) {
+                    return Mono.just(response);
+                }
+                return response.releaseBody().then(send(request, next, budget, write, start, attempt + 1));
+            });
+        });
+    }
+
+}
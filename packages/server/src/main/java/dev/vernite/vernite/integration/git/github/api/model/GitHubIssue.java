@@ -27,13 +27,14 @@
 
 package dev.vernite.vernite.integration.git.github.api.model;
 
+import java.util.Date;
 import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonProperty.Access;
+import com.fasterxml.jackson.databind.JsonNode;
 
 import dev.vernite.vernite.integration.git.Issue;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -42,7 +43,6 @@ import lombok.NoArgsConstructor;
  */
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class GitHubIssue {
 
     private long number;
@@ -58,6 +58,38 @@ public class GitHubIssue {
     @JsonProperty(access = Access.READ_ONLY)
     private List<String> assignees;
 
+    @JsonProperty(value = "updated_at", access = Access.WRITE_ONLY)
+    private Date updatedAt;
+
+    @JsonProperty(value = "pull_request", access = Access.WRITE_ONLY)
+    private JsonNode pullRequest;
+
+    /**
+     * Constructor for GitHubIssue.
+     * 
+     * @param number    number of the issue
+     * @param url       API URL of the issue
+     * @param state     state of the issue
+     * @param title     title of the issue
+     * @param body      body of the issue
+     * @param assignees list of assignees
+     */
+    public GitHubIssue(long number, String url, String state, String title, String body, List<String> assignees) {
+        this.number = number;
+        this.url = url;
+        this.state = state;
+        this.title = title;
+        this.body = body;
+        this.assignees = assignees;
+    }
+
+    /**
+     * @return whether this issue is a pull request
+     */
+    public boolean hasPullRequest() {
+        return pullRequest != null && !pullRequest.isNull();
+    }
+
     /**
      * Converts this object to a general Issue object.
      * 
@@ -27,6 +27,7 @@
 
 package dev.vernite.vernite.integration.git.github.data;
 
+import java.util.Date;
 import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -42,6 +43,8 @@ public class GitHubIssue {
     private String state;
     private String title;
     private String body;
+    @JsonProperty(value = "updated_at", access = JsonProperty.Access.WRITE_ONLY)
+    private Date updatedAt;
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private List<String> assignees = List.of();
 
@@ -107,6 +110,14 @@ public class GitHubIssue {
         this.body = body;
     }
 
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Date updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
     public List<String> getAssignees() {
         return assignees;
     }
@@ -46,6 +46,9 @@ public class GitHubWebhookData {
 
     private GitHubInstallationApi installation;
 
+    @JsonProperty("repositories_added")
+    private List<GitHubRepository> repositoriesAdded;
+
     @JsonProperty("repositories_removed")
     private List<GitHubRepository> repositoriesRemoved;
 
@@ -55,6 +58,12 @@ public class GitHubWebhookData {
 
     private String after;
 
+    private String ref;
+
+    private boolean created;
+
+    private boolean deleted;
+
     @JsonProperty("pull_request")
     private GitHubPullRequest pullRequest;
 
@@ -0,0 +1,77 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.git.github.model;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface BranchMirrorRepository extends CrudRepository<BranchMirror, Long> {
+
+    /**
+     * Finds mirrored branches of integration in name order.
+     * 
+     * @param integration integration
+     * @return branches
+     */
+    List<BranchMirror> findByIntegrationOrderByNameAsc(ProjectIntegration integration);
+
+    /**
+     * Checks if branch is mirrored.
+     * 
+     * @param integration integration
+     * @param name        name of branch
+     * @return whether branch is mirrored
+     */
+    boolean existsByIntegrationAndName(ProjectIntegration integration, String name);
+
+    /**
+     * Deletes mirrored branch.
+     * 
+     * @param integration integration
+     * @param name        name of branch
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM github_branch_mirror b WHERE b.integration = ?1 AND b.name = ?2")
+    void deleteByIntegrationAndName(ProjectIntegration integration, String name);
+
+    /**
+     * Deletes all mirrored branches of integration.
+     * 
+     * @param integration integration
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM github_branch_mirror b WHERE b.integration = ?1")
+    void deleteByIntegration(ProjectIntegration integration);
+
+}
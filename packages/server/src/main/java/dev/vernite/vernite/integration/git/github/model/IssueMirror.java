@@ -0,0 +1,126 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.git.github.model;
+
+import java.util.Date;
+
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import dev.vernite.vernite.integration.git.Issue;
+import dev.vernite.vernite.integration.git.PullRequest;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Entity for local copy of GitHub issue or pull request of integrated
+ * repository. Kept up to date by webhooks and periodic synchronization.
+ */
+@Data
+@NoArgsConstructor
+@Entity(name = "github_issue_mirror")
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = { "integration_id", "number" }), indexes = {
+        @Index(columnList = "integration_id, pullRequest, state, number") })
+public class IssueMirror {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(optional = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private ProjectIntegration integration;
+
+    private long number;
+
+    private boolean pullRequest;
+
+    @Column(nullable = false, length = 16)
+    private String state;
+
+    @Column(nullable = false, length = 1024)
+    private String title;
+
+    @ToString.Exclude
+    @Column(columnDefinition = "MEDIUMTEXT")
+    private String description;
+
+    @Column(length = 1024)
+    private String url;
+
+    private String branch;
+
+    private Date updated;
+
+    /**
+     * Creates new mirror of issue or pull request.
+     * 
+     * @param integration integration the issue belongs to
+     * @param number      number of the issue
+     */
+    public IssueMirror(ProjectIntegration integration, long number) {
+        this.integration = integration;
+        this.number = number;
+    }
+
+    /**
+     * Converts this mirror to a general Issue object.
+     * 
+     * @return Issue object
+     */
+    public Issue toIssue() {
+        var issue = new Issue(number, url, title, description, "github");
+        issue.setState(state);
+        return issue;
+    }
+
+    /**
+     * Converts this mirror to a general PullRequest object.
+     * 
+     * @return PullRequest object
+     */
+    public PullRequest toPullRequest() {
+        var pull = new PullRequest(number, url, title, description, "github", branch);
+        pull.setState(state);
+        return pull;
+    }
+
+}
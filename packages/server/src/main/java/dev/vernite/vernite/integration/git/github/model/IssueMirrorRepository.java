@@ -0,0 +1,76 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.git.github.model;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+public interface IssueMirrorRepository extends CrudRepository<IssueMirror, Long> {
+
+    /**
+     * Finds mirrored issue or pull request by its number.
+     * 
+     * @param integration integration
+     * @param number      number of issue
+     * @return optional with mirrored issue
+     */
+    Optional<IssueMirror> findByIntegrationAndNumber(ProjectIntegration integration, long number);
+
+    /**
+     * Finds mirrored issues and pull requests with given numbers.
+     * 
+     * @param integration integration
+     * @param numbers     numbers of issues
+     * @return mirrored issues
+     */
+    List<IssueMirror> findByIntegrationAndNumberIn(ProjectIntegration integration, Collection<Long> numbers);
+
+    /**
+     * Searches mirrored issues and pull requests, newest first.
+     * 
+     * @param integration     integration
+     * @param pullRequestOnly whether only pull requests are returned
+     * @param state           state of issues or {@literal null} for all
+     * @param query           lowercase text contained in title or
+     *                        {@literal null} for all
+     * @param number          number matched when query is a number, otherwise
+     *                        -1
+     * @return matching issues
+     */
+    @Query("SELECT i FROM github_issue_mirror i WHERE i.integration = ?1 AND (?2 = false OR i.pullRequest = true) "
+            + "AND (?3 IS NULL OR i.state = ?3) "
+            + "AND (?4 IS NULL OR LOWER(i.title) LIKE CONCAT('%', ?4, '%') OR i.number = ?5) "
+            + "ORDER BY i.number DESC")
+    List<IssueMirror> search(ProjectIntegration integration, boolean pullRequestOnly, String state, String query,
+            long number);
+
+}
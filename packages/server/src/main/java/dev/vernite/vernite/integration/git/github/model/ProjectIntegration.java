@@ -27,6 +27,8 @@
 
 package dev.vernite.vernite.integration.git.github.model;
 
+import java.util.Date;
+
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
@@ -86,6 +88,13 @@ public class ProjectIntegration {
     @OnDelete(action = OnDeleteAction.CASCADE)
     private Installation installation;
 
+    /**
+     * Date of last synchronization of local mirror of issues, pull requests and
+     * branches; {@literal null} until first synchronization finishes.
+     */
+    @JsonIgnore
+    private Date mirrored;
+
     /**
      * Creates a new project integration from a repository full name.
      * 
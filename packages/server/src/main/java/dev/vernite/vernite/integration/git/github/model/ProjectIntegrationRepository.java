@@ -73,4 +73,13 @@ public interface ProjectIntegrationRepository extends CrudRepository<ProjectInte
      */
     List<ProjectIntegration> findByRepositoryOwnerAndRepositoryName(String owner, String name);
 
+    /**
+     * Returns reference to integration without querying database. State of
+     * integration is loaded on first access, so it must happen in transaction.
+     * 
+     * @param id integration id
+     * @return reference to integration
+     */
+    ProjectIntegration getReferenceById(Long id);
+
 }
@@ -45,4 +45,14 @@ public interface TaskIntegrationRepository extends CrudRepository<TaskIntegratio
      */
     List<TaskIntegration> findByProjectIntegrationAndIssueId(ProjectIntegration projectIntegration, long issueId);
 
+    /**
+     * Returns reference to task integration without querying database. State of
+     * task integration is loaded on first access, so it must happen in
+     * transaction.
+     * 
+     * @param id task integration id
+     * @return reference to task integration
+     */
+    TaskIntegration getReferenceById(TaskIntegrationId id);
+
 }
@@ -0,0 +1,123 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.git.github.model;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Entity for GitHub webhook delivery accepted but not yet handled. Deliveries
+ * of the same repository are handled in order of their IDs.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(indexes = { @Index(columnList = "repository, state"), @Index(columnList = "state, nextAttempt") })
+public class WebhookDelivery {
+
+    /**
+     * State of webhook delivery.
+     */
+    public enum State {
+        /**
+         * Delivery waits for its first or next attempt.
+         */
+        PENDING,
+        /**
+         * Delivery was handled successfully.
+         */
+        DONE,
+        /**
+         * Delivery failed too many times and will not be retried.
+         */
+        DEAD
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String deliveryId;
+
+    @Column(nullable = false, length = 64)
+    private String event;
+
+    @Column(nullable = false)
+    private String repository;
+
+    @ToString.Exclude
+    @Column(nullable = false, columnDefinition = "MEDIUMTEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private State state = State.PENDING;
+
+    private int attempts;
+
+    @Column(nullable = false)
+    private Date received;
+
+    @Column(nullable = false)
+    private Date nextAttempt;
+
+    @Column(length = 1000)
+    private String error;
+
+    /**
+     * Creates new pending delivery.
+     * 
+     * @param deliveryId GitHub delivery ID
+     * @param event      GitHub event name
+     * @param repository key deliveries are ordered by, usually repository full
+     *                   name
+     * @param payload    raw payload
+     */
+    public WebhookDelivery(String deliveryId, String event, String repository, String payload) {
+        this.deliveryId = deliveryId;
+        this.event = event;
+        this.repository = repository;
+        this.payload = payload;
+        this.received = new Date();
+        this.nextAttempt = this.received;
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.git.github.model;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import dev.vernite.vernite.integration.git.github.model.WebhookDelivery.State;
+
+/**
+ * CRUD repository for webhook delivery entity.
+ */
+public interface WebhookDeliveryRepository extends CrudRepository<WebhookDelivery, Long> {
+
+    /**
+     * Checks if delivery was already accepted.
+     * 
+     * @param deliveryId GitHub delivery ID
+     * @return whether delivery exists
+     */
+    boolean existsByDeliveryId(String deliveryId);
+
+    /**
+     * Finds repositories with pending deliveries which can be attempted.
+     * 
+     * @param now current date
+     * @return repositories with pending deliveries
+     */
+    @Query("SELECT DISTINCT d.repository FROM WebhookDelivery d WHERE d.state = "
+            + "dev.vernite.vernite.integration.git.github.model.WebhookDelivery.State.PENDING "
+            + "AND d.nextAttempt <= ?1")
+    List<String> findPendingRepositories(Date now);
+
+    /**
+     * Finds deliveries of repository in order they were accepted.
+     * 
+     * @param repository repository
+     * @param state      state of deliveries
+     * @return deliveries in order
+     */
+    List<WebhookDelivery> findByRepositoryAndStateOrderByIdAsc(String repository, State state);
+
+    /**
+     * Finds deliveries which were accepted before given date.
+     * 
+     * @param state state of deliveries
+     * @param date  date
+     * @return at most 1000 deliveries
+     */
+    List<WebhookDelivery> findTop1000ByStateAndReceivedBefore(State state, Date date);
+
+}
@@ -51,6 +51,7 @@ import lombok.ToString;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
+import dev.vernite.vernite.auditlog.AuditedEntity;
 import dev.vernite.vernite.project.Project;
 import dev.vernite.vernite.user.User;
 import dev.vernite.vernite.utils.FieldErrorException;
@@ -61,7 +62,7 @@ import dev.vernite.vernite.utils.FieldErrorException;
 @Data
 @Entity
 @NoArgsConstructor
-public class Meeting {
+public class Meeting implements AuditedEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -46,7 +46,13 @@ import lombok.AllArgsConstructor;
 @AllArgsConstructor
 public class MeetingEventProvider implements EventProvider {
 
-    private static Event convert(Meeting meeting) {
+    /**
+     * Converts meeting to event as shown in calendars.
+     * 
+     * @param meeting the meeting
+     * @return event of meeting
+     */
+    public static Event convert(Meeting meeting) {
         return new Event(meeting.getProject().getId(), Event.Type.MEETING, meeting.getId(), meeting.getName(),
                 meeting.getDescription(), meeting.getStartDate(), meeting.getEndDate(), meeting.getLocation());
     }
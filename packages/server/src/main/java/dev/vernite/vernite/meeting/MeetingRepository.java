@@ -30,6 +30,7 @@ package dev.vernite.vernite.meeting;
 import java.util.Date;
 import java.util.List;
 
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.repository.CrudRepository;
 
@@ -42,6 +43,11 @@ import dev.vernite.vernite.user.User;
  */
 public interface MeetingRepository extends CrudRepository<Meeting, Long>, JpaSpecificationExecutor<Meeting> {
 
+    /**
+     * Order of meetings matching natural order of their events.
+     */
+    Sort EVENT_ORDER = Sort.by("startDate", "endDate", "name", "id");
+
     /**
      * Finds a meeting by its ID and project.
      * 
@@ -71,7 +77,7 @@ public interface MeetingRepository extends CrudRepository<Meeting, Long>, JpaSpe
         return findAll((root, query, cb) -> {
             return cb.and(cb.equal(root.get("project"), project),
                     cb.between(root.get("startDate"), startDate, endDate));
-        });
+        }, EVENT_ORDER);
     }
 
     /**
@@ -86,7 +92,7 @@ public interface MeetingRepository extends CrudRepository<Meeting, Long>, JpaSpe
         return findAll((root, query, cb) -> {
             return cb.and(cb.equal(root.join("participants"), user),
                     cb.between(root.get("startDate"), startDate, endDate));
-        });
+        }, EVENT_ORDER);
     }
 
 }
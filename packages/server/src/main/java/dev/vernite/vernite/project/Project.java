@@ -56,6 +56,7 @@ import org.hibernate.annotations.OnDeleteAction;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import dev.vernite.vernite.auditlog.AuditedEntity;
 import dev.vernite.vernite.cdn.File;
 import dev.vernite.vernite.common.utils.counter.CounterSequence;
 import dev.vernite.vernite.integration.git.github.model.ProjectIntegration;
@@ -78,7 +79,7 @@ import lombok.ToString;
 @Entity
 @NoArgsConstructor
 @EqualsAndHashCode(callSuper = true)
-public class Project extends SoftDeleteEntity implements Comparable<Project> {
+public class Project extends SoftDeleteEntity implements Comparable<Project>, AuditedEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -265,6 +266,17 @@ public class Project extends SoftDeleteEntity implements Comparable<Project> {
         this.description = description.trim();
     }
 
+    /**
+     * Project is audited in its own audit log.
+     *
+     * @return this project
+     */
+    @JsonIgnore
+    @Override
+    public Project getProject() {
+        return this;
+    }
+
     @Override
     @Deprecated
     public int compareTo(Project other) {
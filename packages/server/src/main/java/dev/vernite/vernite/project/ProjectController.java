@@ -32,10 +32,10 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
@@ -48,11 +48,13 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import dev.vernite.vernite.auditlog.AuditLog;
-import dev.vernite.vernite.auditlog.AuditLogRepository;
-import dev.vernite.vernite.cdn.File;
-import dev.vernite.vernite.cdn.FileManager;
+import dev.vernite.vernite.auditlog.AuditLogFilter;
+import dev.vernite.vernite.auditlog.AuditLogReader;
+import dev.vernite.vernite.auditlog.AuditLogView;
+import dev.vernite.vernite.cdn.ConversionStatus;
+import dev.vernite.vernite.cdn.ImageConversionService;
 import dev.vernite.vernite.event.Event;
 import dev.vernite.vernite.event.EventFilter;
 import dev.vernite.vernite.event.EventService;
@@ -70,7 +72,6 @@ import dev.vernite.vernite.task.time.TimeTrackRepository;
 import dev.vernite.vernite.user.User;
 import dev.vernite.vernite.user.UserRepository;
 import dev.vernite.vernite.utils.ErrorType;
-import dev.vernite.vernite.utils.ImageConverter;
 import dev.vernite.vernite.utils.ObjectNotFoundException;
 import dev.vernite.vernite.utils.SecureStringUtils;
 import dev.vernite.vernite.workspace.Workspace;
@@ -93,6 +94,11 @@ import reactor.core.publisher.Flux;
 @RequestMapping("/project")
 public class ProjectController {
 
+    /**
+     * Name of header with cursor of next audit log page.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private ProjectRepository projectRepository;
 
     private WorkspaceRepository workspaceRepository;
@@ -105,11 +111,11 @@ public class ProjectController {
 
     private EventService eventService;
 
-    private FileManager fileManager;
+    private ImageConversionService imageConversionService;
 
     private CalendarIntegrationRepository calendarRepository;
 
-    private AuditLogRepository auditLogRepository;
+    private AuditLogReader auditLogReader;
 
     private GitTaskService service;
 
@@ -318,28 +324,34 @@ public class ProjectController {
      * Retrieve git issues for project. Retrieve all issues from integrated git
      * providers.
      * 
-     * @param user logged in user
-     * @param id   ID of project
+     * @param user  logged in user
+     * @param id    ID of project
+     * @param state state of issues: open, closed or all; open by default
+     * @param q     text contained in title or number of issue
      * @return list with issues
      */
     @GetMapping("/{id}/integration/git/issue")
-    public Flux<Issue> getIssues(@NotNull @Parameter(hidden = true) User user, @PathVariable long id) {
+    public Flux<Issue> getIssues(@NotNull @Parameter(hidden = true) User user, @PathVariable long id,
+            @RequestParam(required = false) String state, @RequestParam(required = false) String q) {
         Project project = projectRepository.findByIdAndMemberOrThrow(id, user);
-        return service.getIssues(project);
+        return service.getIssues(project, state, q);
     }
 
     /**
      * Retrieve git pull requests for project. Retrieve all pull requests from
      * integrated git providers.
      * 
-     * @param user logged in user
-     * @param id   ID of project
+     * @param user  logged in user
+     * @param id    ID of project
+     * @param state state of pull requests: open, closed or all; open by default
+     * @param q     text contained in title or number of pull request
      * @return list with pull requests
      */
     @GetMapping("/{id}/integration/git/pull")
-    public Flux<PullRequest> getPullRequests(@NotNull @Parameter(hidden = true) User user, @PathVariable long id) {
+    public Flux<PullRequest> getPullRequests(@NotNull @Parameter(hidden = true) User user, @PathVariable long id,
+            @RequestParam(required = false) String state, @RequestParam(required = false) String q) {
         Project project = projectRepository.findByIdAndMemberOrThrow(id, user);
-        return service.getPullRequests(project);
+        return service.getPullRequests(project, state, q);
     }
 
     /**
@@ -348,12 +360,14 @@ public class ProjectController {
      * 
      * @param user logged in user
      * @param id   ID of project
+     * @param q    text contained in name of branch
      * @return list with branches
      */
     @GetMapping("/{id}/integration/git/branch")
-    public Flux<Branch> getBranches(@NotNull @Parameter(hidden = true) User user, @PathVariable long id) {
+    public Flux<Branch> getBranches(@NotNull @Parameter(hidden = true) User user, @PathVariable long id,
+            @RequestParam(required = false) String q) {
         Project project = projectRepository.findByIdAndMemberOrThrow(id, user);
-        return service.getBranches(project);
+        return service.getBranches(project, q);
     }
 
     /**
@@ -367,7 +381,7 @@ public class ProjectController {
      * @return list with events after 'from' and before 'to' filtered by 'filter'
      */
     @GetMapping("/{id}/events")
-    public Set<Event> getEvents(@NotNull @Parameter(hidden = true) User user, @PathVariable long id, long from,
+    public List<Event> getEvents(@NotNull @Parameter(hidden = true) User user, @PathVariable long id, long from,
             long to, @ModelAttribute EventFilter filter) {
         Project project = projectRepository.findByIdAndMemberOrThrow(id, user);
         return eventService.getProjectEvents(project, new Date(from), new Date(to), filter);
@@ -375,29 +389,35 @@ public class ProjectController {
 
     /**
      * Update project logo. Given file will be converted to image/webp format with
-     * resolution 400x400. Alpha channel is supported.
+     * resolution 400x400 in background. Alpha channel is supported. Logo is
+     * changed when conversion finishes; user is notified through web socket and
+     * state of conversion can be checked with returned ID.
      * 
      * @param user logged in user
      * @param id   ID of project
      * @param file new logo image
-     * @return new logo file information
+     * @return pending logo conversion
      */
     @PostMapping(path = "/{id}/logo", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    @ApiResponse(description = "Project logo changed.", responseCode = "200")
-    @ApiResponse(description = "Cannot convert image.", responseCode = "400", content = @Content(schema = @Schema(implementation = ErrorType.class)))
-    public File uploadLogo(@NotNull @Parameter(hidden = true) User user, @PathVariable long id,
-            @RequestParam("file") MultipartFile file) {
+    @ApiResponse(description = "Logo conversion started.", responseCode = "202")
+    @ApiResponse(description = "Cannot read image.", responseCode = "400", content = @Content(schema = @Schema(implementation = ErrorType.class)))
+    @ApiResponse(description = "Too many images are being converted.", responseCode = "503", content = @Content(schema = @Schema(implementation = ErrorType.class)))
+    public ResponseEntity<ConversionStatus> uploadLogo(@NotNull @Parameter(hidden = true) User user,
+            @PathVariable long id, @RequestParam("file") MultipartFile file) {
         Project project = projectRepository.findByIdAndMemberOrThrow(id, user);
-        byte[] converted;
+        byte[] data;
         try {
-            converted = ImageConverter.convertImage(file.getOriginalFilename(), file.getBytes());
+            data = file.getBytes();
         } catch (IOException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         }
-        File f = fileManager.uploadFile("image/webp", converted);
-        project.setLogo(f);
-        project = projectRepository.save(project);
-        return f;
+        long projectId = project.getId();
+        var status = imageConversionService.submit(user.getId(), file.getOriginalFilename(), data,
+                logo -> projectRepository.findById(projectId).ifPresent(p -> {
+                    p.setLogo(logo);
+                    projectRepository.save(p);
+                }));
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(status);
     }
 
     /**
@@ -437,10 +457,44 @@ public class ProjectController {
         return "https://vernite.dev/api/webhook/calendar?key=" + key;
     }
 
+    /**
+     * Retrieve page of project audit log. Entries are ordered from newest. When
+     * there are more entries, cursor of next page is returned in
+     * {@value #NEXT_CURSOR_HEADER} header.
+     * 
+     * @param user   logged in user
+     * @param id     ID of project
+     * @param filter filter and page of entries
+     * @return page of audit log entries
+     */
     @GetMapping("/{id}/auditlog")
-    public List<AuditLog> getAuditLog(@NotNull @Parameter(hidden = true) User user, @PathVariable long id) {
+    public ResponseEntity<List<AuditLogView>> getAuditLog(@NotNull @Parameter(hidden = true) User user,
+            @PathVariable long id, @ModelAttribute @Valid AuditLogFilter filter) {
+        Project project = projectRepository.findByIdAndMemberOrThrow(id, user);
+        var page = auditLogReader.read(project.getId(), filter);
+        var response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.entries());
+    }
+
+    /**
+     * Export whole project audit log matching filter. Entries are streamed from
+     * newest without paging.
+     * 
+     * @param user   logged in user
+     * @param id     ID of project
+     * @param filter filter of entries; cursor and limit are ignored
+     * @return JSON array with audit log entries
+     */
+    @GetMapping("/{id}/auditlog/export")
+    public ResponseEntity<StreamingResponseBody> exportAuditLog(@NotNull @Parameter(hidden = true) User user,
+            @PathVariable long id, @ModelAttribute AuditLogFilter filter) {
         Project project = projectRepository.findByIdAndMemberOrThrow(id, user);
-        return auditLogRepository.findByProject(project);
+        long projectId = project.getId();
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .body(out -> auditLogReader.export(projectId, filter, out));
     }
 
 }
\ No newline at end of file
@@ -1,7 +1,7 @@
 /*
  * BSD 2-Clause License
  * 
- * Copyright (c) 2022, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
  * 
  * Redistribution and use in source and binary forms, with or without
  * modification, are permitted provided that the following conditions are met:
@@ -25,16 +25,17 @@
  * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
-package dev.vernite.vernite.auditlog;
+package dev.vernite.vernite.project;
 
-import java.util.List;
-
-import org.springframework.data.repository.CrudRepository;
-
-import dev.vernite.vernite.project.Project;
+/**
+ * Interface for entities which belong to project, used by components which
+ * group entity changes by project.
+ */
+public interface ProjectOwnedEntity {
 
-public interface AuditLogRepository extends CrudRepository<AuditLog, Long> {
+    /**
+     * @return project to which this entity belongs
+     */
+    Project getProject();
 
-    List<AuditLog> findByProject(Project project);
-    
 }
@@ -44,4 +44,12 @@ public interface ProjectWorkspaceRepository extends CrudRepository<ProjectWorksp
     List<ProjectWorkspace> findByProjectOrderByWorkspaceUserUsernameAscWorkspaceUserIdAsc(Project project);
 
     List<ProjectWorkspace> findByWorkspaceUserInAndProject(Iterable<User> user, Project project);
+
+    /**
+     * Finds project workspaces of user without joining workspace table.
+     * 
+     * @param userId ID of user
+     * @return project workspaces of all user projects
+     */
+    List<ProjectWorkspace> findByIdWorkspaceIdUserId(long userId);
 }
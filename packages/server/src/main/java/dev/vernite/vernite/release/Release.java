@@ -52,6 +52,7 @@ import org.hibernate.annotations.OnDeleteAction;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import dev.vernite.vernite.auditlog.AuditedEntity;
 import dev.vernite.vernite.project.Project;
 import dev.vernite.vernite.task.Task;
 
@@ -61,7 +62,7 @@ import dev.vernite.vernite.task.Task;
 @Data
 @NoArgsConstructor
 @Entity(name = "releases")
-public class Release {
+public class Release implements AuditedEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -46,7 +46,13 @@ import lombok.AllArgsConstructor;
 @AllArgsConstructor
 public class ReleaseEventProvider implements EventProvider {
 
-    private static Event convert(Release release) {
+    /**
+     * Converts release to event as shown in calendars.
+     * 
+     * @param release the release
+     * @return event of release
+     */
+    public static Event convert(Release release) {
         return new Event(release.getProject().getId(), Event.Type.RELEASE, release.getId(), release.getName(),
                 release.getDescription(), null, release.getDeadline(), null);
     }
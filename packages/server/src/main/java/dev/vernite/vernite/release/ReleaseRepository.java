@@ -30,6 +30,7 @@ package dev.vernite.vernite.release;
 import java.util.Date;
 import java.util.List;
 
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.repository.CrudRepository;
 
@@ -42,6 +43,11 @@ import dev.vernite.vernite.user.User;
  */
 public interface ReleaseRepository extends CrudRepository<Release, Long>, JpaSpecificationExecutor<Release> {
 
+    /**
+     * Order of releases matching natural order of their events.
+     */
+    Sort EVENT_ORDER = Sort.by("deadline", "name", "id");
+
     /**
      * Find release by ID and project.
      * 
@@ -70,7 +76,8 @@ public interface ReleaseRepository extends CrudRepository<Release, Long>, JpaSpe
     default List<Release> findAllFromUserAndDate(User user, Date startDate, Date endDate) {
         return findAll((root, query, cb) -> cb.and(
                 cb.between(root.get("deadline"), startDate, endDate),
-                cb.equal(root.join("project").join("projectWorkspaces").join("workspace").join("user"), user)));
+                cb.equal(root.join("project").join("projectWorkspaces").join("workspace").join("user"), user)),
+                EVENT_ORDER);
     }
 
     /**
@@ -85,7 +92,7 @@ public interface ReleaseRepository extends CrudRepository<Release, Long>, JpaSpe
         return findAll((root, query, cb) -> {
             return cb.and(cb.equal(root.get("project"), project),
                     cb.between(root.get("deadline"), startDate, endDate));
-        });
+        }, EVENT_ORDER);
     }
 
 }
@@ -49,6 +49,7 @@ import jakarta.validation.constraints.PositiveOrZero;
 import jakarta.validation.constraints.Size;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import dev.vernite.vernite.auditlog.AuditedEntity;
 import dev.vernite.vernite.project.Project;
 import dev.vernite.vernite.task.Task;
 import dev.vernite.vernite.utils.FieldErrorException;
@@ -66,7 +67,7 @@ import org.hibernate.annotations.OnDeleteAction;
 @Data
 @Entity
 @NoArgsConstructor
-public class Sprint {
+public class Sprint implements AuditedEntity {
 
     public enum Status {
         CREATED, ACTIVE, CLOSED
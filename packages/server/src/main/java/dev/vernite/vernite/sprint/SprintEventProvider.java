@@ -46,7 +46,13 @@ import lombok.AllArgsConstructor;
 @AllArgsConstructor
 public class SprintEventProvider implements EventProvider {
 
-    private static Event convert(Sprint sprint) {
+    /**
+     * Converts sprint to event as shown in calendars.
+     * 
+     * @param sprint the sprint
+     * @return event of sprint
+     */
+    public static Event convert(Sprint sprint) {
         return new Event(sprint.getProject().getId(), Event.Type.SPRINT, sprint.getId(), sprint.getName(),
                 sprint.getDescription(), sprint.getStartDate(), sprint.getFinishDate(), null);
     }
@@ -30,6 +30,7 @@ package dev.vernite.vernite.sprint;
 import java.util.Date;
 import java.util.List;
 
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.repository.CrudRepository;
 
@@ -42,6 +43,11 @@ import dev.vernite.vernite.user.User;
  */
 public interface SprintRepository extends CrudRepository<Sprint, Long>, JpaSpecificationExecutor<Sprint> {
 
+    /**
+     * Order of sprints matching natural order of their events.
+     */
+    Sort EVENT_ORDER = Sort.by("startDate", "finishDate", "name", "id");
+
     /**
      * Finds sprint by ID and project.
      * 
@@ -72,7 +78,8 @@ public interface SprintRepository extends CrudRepository<Sprint, Long>, JpaSpeci
                 cb.or(
                         cb.between(root.get("startDate"), startDate, endDate),
                         cb.between(root.get("finishDate"), startDate, endDate)),
-                cb.equal(root.join("project").join("projectWorkspaces").join("workspace").join("user"), user)));
+                cb.equal(root.join("project").join("projectWorkspaces").join("workspace").join("user"), user)),
+                EVENT_ORDER);
     }
 
     /**
@@ -88,7 +95,7 @@ public interface SprintRepository extends CrudRepository<Sprint, Long>, JpaSpeci
                 cb.or(
                         cb.between(root.get("startDate"), startDate, endDate),
                         cb.between(root.get("finishDate"), startDate, endDate)),
-                cb.equal(root.get("project"), project)));
+                cb.equal(root.get("project"), project)), EVENT_ORDER);
     }
 
     List<Sprint> findAllByProjectAndStatus(Project project, int status);
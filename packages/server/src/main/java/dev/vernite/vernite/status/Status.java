@@ -44,6 +44,7 @@ import jakarta.validation.constraints.Size;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import dev.vernite.vernite.auditlog.AuditedEntity;
 import dev.vernite.vernite.common.exception.ConflictStateException;
 import dev.vernite.vernite.project.Project;
 import dev.vernite.vernite.task.Task;
@@ -61,7 +62,7 @@ import org.hibernate.annotations.OnDeleteAction;
 @Data
 @Entity
 @NoArgsConstructor
-public class Status {
+public class Status implements AuditedEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
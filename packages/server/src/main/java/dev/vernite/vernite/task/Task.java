@@ -61,9 +61,11 @@ import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonProperty.Access;
 
+import dev.vernite.vernite.auditlog.AuditedEntity;
 import dev.vernite.vernite.integration.git.Issue;
 import dev.vernite.vernite.integration.git.PullRequest;
 import dev.vernite.vernite.integration.git.github.model.TaskIntegration;
+import dev.vernite.vernite.project.Project;
 import dev.vernite.vernite.release.Release;
 import dev.vernite.vernite.sprint.Sprint;
 import dev.vernite.vernite.status.Status;
@@ -80,7 +82,7 @@ import lombok.ToString;
 @NoArgsConstructor
 @JsonInclude(Include.NON_NULL)
 @EntityListeners(TaskListener.class)
-public class Task {
+public class Task implements AuditedEntity {
 
     public enum Type {
         TASK, USER_STORY, ISSUE, EPIC, SUBTASK;
@@ -406,4 +408,10 @@ public class Task {
     public long getProjectId() {
         return this.getStatus().getProject().getId();
     }
+
+    @JsonIgnore
+    @Override
+    public Project getProject() {
+        return this.getStatus().getProject();
+    }
 }
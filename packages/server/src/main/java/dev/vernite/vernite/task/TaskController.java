@@ -28,12 +28,10 @@
 package dev.vernite.vernite.task;
 
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.http.HttpStatus;
-import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
@@ -45,12 +43,6 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-
-import dev.vernite.vernite.auditlog.AuditLog;
-import dev.vernite.vernite.auditlog.AuditLogRepository;
-import dev.vernite.vernite.auditlog.JsonDiff;
 import dev.vernite.vernite.common.utils.counter.CounterSequenceRepository;
 import dev.vernite.vernite.integration.git.GitTaskService;
 import dev.vernite.vernite.project.Project;
@@ -79,14 +71,10 @@ public class TaskController {
 
     private static final String PARENT_FIELD = "parentTaskId";
 
-    private MappingJackson2HttpMessageConverter converter;
-
     private TaskRepository taskRepository;
 
     private StatusRepository statusRepository;
 
-    private AuditLogRepository auditLogRepository;
-
     private ProjectRepository projectRepository;
 
     private UserRepository userRepository;
@@ -233,22 +221,7 @@ public class TaskController {
         if (create.getPull() != null) {
             results.add(service.handlePullAction(create.getPull(), task).then());
         }
-        return Flux.concat(results).then(Mono.fromRunnable(() -> {
-            JsonNode newValue = converter.getObjectMapper().valueToTree(savedTask);
-            AuditLog log = new AuditLog();
-            log.setDate(new Date());
-            log.setUser(user);
-            log.setProject(project);
-            log.setType("task");
-            log.setOldValues(null);
-            try {
-                log.setNewValues(converter.getObjectMapper().writeValueAsString(newValue));
-            } catch (JsonProcessingException e) {
-                throw new RuntimeException(e);
-            }
-            log.setSameValues(null);
-            auditLogRepository.save(log);
-        })).then(Mono.just(savedTask));
+        return Flux.concat(results).then(Mono.just(savedTask));
     }
 
     /**
@@ -265,8 +238,6 @@ public class TaskController {
             @PathVariable long id, @RequestBody @Valid UpdateTask update) {
         var project = projectRepository.findByIdAndMemberOrThrow(projectId, user);
         var task = taskRepository.findByProjectAndNumberOrThrow(project, id);
-        JsonNode oldValue = converter.getObjectMapper().valueToTree(task);
-
         task.update(update);
 
         if (update.isSprintIdSet()) {
@@ -302,25 +273,8 @@ public class TaskController {
         if (update.getPull() != null) {
             results.add(service.handlePullAction(update.getPull(), task).then());
         }
-        return Flux.concat(results).then(service.patchIssue(task).then()).then(Mono.fromRunnable(() -> {
-            JsonNode newValue = converter.getObjectMapper().valueToTree(savedTask);
-            JsonNode[] out = new JsonNode[3];
-            JsonDiff.diff(oldValue, newValue, out);
-            if (out[0] == null && out[1] == null) {
-                return;
-            }
-            AuditLog log = new AuditLog();
-            log.setDate(new Date());
-            log.setUser(user);
-            log.setProject(project);
-            log.setType("task");
-            try {
-                log.apply(converter.getObjectMapper(), out);
-            } catch (JsonProcessingException e) {
-                throw new RuntimeException(e);
-            }
-            auditLogRepository.save(log);
-        })).thenReturn(savedTask);
+        service.queuePatchIssue(savedTask);
+        return Flux.concat(results).then().thenReturn(savedTask);
     }
 
     /**
@@ -329,25 +283,12 @@ public class TaskController {
      * @param user      logged in user
      * @param projectId ID of project
      * @param id        ID of task
-     * @throws JsonProcessingException thrown when JSON serialization fails
      */
     @DeleteMapping("/{id}")
     public void delete(@NotNull @Parameter(hidden = true) User user, @PathVariable long projectId,
-            @PathVariable long id) throws JsonProcessingException {
+            @PathVariable long id) {
         var project = projectRepository.findByIdAndMemberOrThrow(projectId, user);
         Task task = taskRepository.findByProjectAndNumberOrThrow(project, id);
-
-        JsonNode oldValue = converter.getObjectMapper().valueToTree(task);
-        AuditLog log = new AuditLog();
-        log.setDate(new Date());
-        log.setUser(user);
-        log.setProject(project);
-        log.setType("task");
-        log.setOldValues(converter.getObjectMapper().writeValueAsString(oldValue));
-        log.setNewValues(null);
-        log.setSameValues(null);
-        auditLogRepository.save(log);
-
         taskRepository.delete(task);
     }
 
@@ -46,7 +46,13 @@ import lombok.AllArgsConstructor;
 @AllArgsConstructor
 public class TaskDeadlineEventProvider implements EventProvider {
 
-    private static Event convert(Task task) {
+    /**
+     * Converts task to event of its deadline.
+     * 
+     * @param task the task
+     * @return event of task deadline
+     */
+    public static Event convert(Task task) {
         return new Event(task.getStatus().getProject().getId(), Event.Type.TASK_DEADLINE, task.getNumber(),
                 task.getName(), task.getDescription(), null, task.getDeadline(), null);
     }
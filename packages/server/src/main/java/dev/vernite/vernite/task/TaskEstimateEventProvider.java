@@ -46,7 +46,13 @@ import lombok.AllArgsConstructor;
 @AllArgsConstructor
 public class TaskEstimateEventProvider implements EventProvider {
 
-    private static Event convert(Task task) {
+    /**
+     * Converts task to event of its estimated date.
+     * 
+     * @param task the task
+     * @return event of task estimated date
+     */
+    public static Event convert(Task task) {
         return new Event(task.getStatus().getProject().getId(), Event.Type.TASK_ESTIMATE, task.getNumber(),
                 task.getName(), task.getDescription(), null, task.getEstimatedDate(), null);
     }
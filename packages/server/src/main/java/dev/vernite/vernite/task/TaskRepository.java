@@ -28,6 +28,7 @@
 package dev.vernite.vernite.task;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -51,6 +52,16 @@ import dev.vernite.vernite.utils.ObjectNotFoundException;
  */
 public interface TaskRepository extends CrudRepository<Task, Long>, JpaSpecificationExecutor<Task> {
 
+    /**
+     * Order of tasks matching natural order of their deadline events.
+     */
+    Sort DEADLINE_ORDER = Sort.by("deadline", "name", "number");
+
+    /**
+     * Order of tasks matching natural order of their estimate events.
+     */
+    Sort ESTIMATE_ORDER = Sort.by("estimatedDate", "name", "number");
+
     /**
      * Finds a task by its number and project.
      * 
@@ -60,6 +71,24 @@ public interface TaskRepository extends CrudRepository<Task, Long>, JpaSpecifica
      */
     Optional<Task> findByStatusProjectAndNumber(Project project, long number);
 
+    /**
+     * Finds tasks by their numbers and project.
+     * 
+     * @param project the project.
+     * @param numbers the numbers of the tasks.
+     * @return list of found tasks.
+     */
+    List<Task> findByStatusProjectAndNumberIn(Project project, Collection<Long> numbers);
+
+    /**
+     * Finds tasks by their numbers and ID of project.
+     * 
+     * @param projectId the ID of the project.
+     * @param numbers   the numbers of the tasks.
+     * @return list of found tasks.
+     */
+    List<Task> findByStatusProjectIdAndNumberIn(long projectId, Collection<Long> numbers);
+
     /**
      * Finds a task by its number and project or throws error when not found.
      * 
@@ -103,7 +132,7 @@ public interface TaskRepository extends CrudRepository<Task, Long>, JpaSpecifica
                     cb.isNotNull(root.get("deadline")),
                     cb.between(root.get("deadline"), startDate, endDate)));
             return cb.and(predicates.toArray(new Predicate[0]));
-        });
+        }, DEADLINE_ORDER);
     }
 
     /**
@@ -126,7 +155,7 @@ public interface TaskRepository extends CrudRepository<Task, Long>, JpaSpecifica
                     cb.isNotNull(root.get("deadline")),
                     cb.between(root.get("deadline"), startDate, endDate)));
             return cb.and(predicates.toArray(new Predicate[0]));
-        });
+        }, DEADLINE_ORDER);
     }
 
     /**
@@ -150,7 +179,7 @@ public interface TaskRepository extends CrudRepository<Task, Long>, JpaSpecifica
                             cb.isNotNull(root.get("estimatedDate")),
                             cb.between(root.get("estimatedDate"), startDate, endDate)));
             return cb.and(predicates.toArray(new Predicate[0]));
-        });
+        }, ESTIMATE_ORDER);
     }
 
     /**
@@ -174,7 +203,7 @@ public interface TaskRepository extends CrudRepository<Task, Long>, JpaSpecifica
                             cb.isNotNull(root.get("estimatedDate")),
                             cb.between(root.get("estimatedDate"), startDate, endDate)));
             return cb.and(predicates.toArray(new Predicate[0]));
-        });
+        }, ESTIMATE_ORDER);
     }
 
     List<Task> findByAssigneeAndStatusIsFinalFalse(User loggedUser);
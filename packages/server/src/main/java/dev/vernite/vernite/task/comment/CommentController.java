@@ -39,6 +39,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import dev.vernite.vernite.integration.git.github.GitHubService;
+import dev.vernite.vernite.integration.git.github.GitHubWriteQueue;
 import dev.vernite.vernite.project.ProjectRepository;
 import dev.vernite.vernite.task.TaskRepository;
 import dev.vernite.vernite.user.User;
@@ -64,6 +65,8 @@ public class CommentController {
 
     private GitHubService gitHubService;
 
+    private GitHubWriteQueue gitHubWriteQueue;
+
     /**
      * Creates a new comment for a task.
      * 
@@ -80,7 +83,8 @@ public class CommentController {
         var task = taskRepository.findByProjectAndNumberOrThrow(project, taskId);
         var comment = new Comment(task, user, create);
         comment = commentRepository.save(comment);
-        return gitHubService.createComment(comment).thenReturn(comment);
+        gitHubWriteQueue.saveComment(comment);
+        return Mono.just(comment);
     }
 
     /**
@@ -135,7 +139,8 @@ public class CommentController {
         var comment = commentRepository.findByIdAndTaskOrThrow(id, task);
         comment.update(update);
         comment = commentRepository.save(comment);
-        return gitHubService.patchComment(comment).thenReturn(comment);
+        gitHubWriteQueue.saveComment(comment);
+        return Mono.just(comment);
     }
 
     /**
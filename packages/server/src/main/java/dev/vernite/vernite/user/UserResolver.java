@@ -49,6 +49,11 @@ import jakarta.validation.constraints.NotNull;
 @Component
 public class UserResolver implements HandlerMethodArgumentResolver {
 
+    /**
+     * Name of request attribute with ID of resolved user.
+     */
+    public static final String USER_ATTRIBUTE = "resolvedUserID";
+
     @Autowired
     private UserSessionRepository userSessionRepository;
 
@@ -85,6 +90,7 @@ public class UserResolver implements HandlerMethodArgumentResolver {
                         throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "user deleted");
                     }
                     req.setAttribute("userID", us.getId());
+                    req.setAttribute(USER_ATTRIBUTE, us.getUser().getId());
                     return us.getUser();
                 }
             }
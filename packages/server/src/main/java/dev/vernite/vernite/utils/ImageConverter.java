@@ -20,6 +20,30 @@ import org.bytedeco.javacpp.Pointer;
 
 public class ImageConverter {
 
+    /**
+     * Format of converted image.
+     */
+    public enum Format {
+        WEBP("libwebp", avutil.AV_PIX_FMT_YUVA420P, "image/webp"),
+        PNG("png", avutil.AV_PIX_FMT_RGBA, "image/png");
+
+        private final String encoder;
+
+        private final int pixelFormat;
+
+        private final String contentType;
+
+        Format(String encoder, int pixelFormat, String contentType) {
+            this.encoder = encoder;
+            this.pixelFormat = pixelFormat;
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+    }
+
     /**
      * converts any video/image/picture to webp. Default settings: 75% quality,
      * lossy, YUVA420P
@@ -28,6 +52,37 @@ public class ImageConverter {
      * @return byte array
      */
     public static byte[] convertImage(String filename, byte[] b) throws IOException {
+        return convertImage(filename, b, Long.MAX_VALUE);
+    }
+
+    /**
+     * converts any video/image/picture to webp and gives up when conversion takes
+     * longer than timeout. Timeout is checked between packets and conversion
+     * stages, single decode or encode call is not interrupted.
+     * 
+     * @param b
+     * @param timeout timeout in nanoseconds
+     * @return byte array
+     */
+    public static byte[] convertImage(String filename, byte[] b, long timeout) throws IOException {
+        return convertImage(filename, b, Format.WEBP, 400, 400, timeout);
+    }
+
+    /**
+     * converts any video/image/picture to given format and size and gives up
+     * when conversion takes longer than timeout.
+     * 
+     * @param b
+     * @param format  format of converted image
+     * @param width   width of converted image
+     * @param height  height of converted image; when not positive it is
+     *                computed from width keeping aspect ratio
+     * @param timeout timeout in nanoseconds
+     * @return byte array
+     */
+    public static byte[] convertImage(String filename, byte[] b, Format format, int width, int height,
+            long timeout) throws IOException {
+        long start = System.nanoTime();
         Pointer mem = null;
         AVIOContext pb = null;
         AVFormatContext ifCtx = null;
@@ -91,6 +146,7 @@ public class ImageConverter {
             pkt = avcodec.av_packet_alloc();
             boolean gotFrame = false;
             while (!gotFrame) {
+                checkTimeout(start, timeout);
                 int ret2 = avformat.av_read_frame(ifCtx, pkt);
                 if (ret2 < 0) {
                     break;
@@ -118,9 +174,13 @@ public class ImageConverter {
             if (!gotFrame) {
                 throw new IOException("Could not read frame");
             }
-            dst.width(400);
-            dst.height(400);
-            dst.format(avutil.AV_PIX_FMT_YUVA420P);
+            if (height <= 0) {
+                height = (int) Math.max(1, Math.round((double) width * src.height() / src.width()));
+            }
+            dst.width(width);
+            dst.height(height);
+            dst.format(format.pixelFormat);
+            checkTimeout(start, timeout);
             swsCtx = swscale.sws_getContext(
                     src.width(), src.height(), src.format(),
                     dst.width(), dst.height(), dst.format(),
@@ -131,7 +191,8 @@ public class ImageConverter {
             if (swscale.sws_scale_frame(swsCtx, dst, src) < 0) {
                 throw new IOException("Error while converting");
             }
-            AVCodec encoder = avcodec.avcodec_find_encoder_by_name("libwebp");
+            checkTimeout(start, timeout);
+            AVCodec encoder = avcodec.avcodec_find_encoder_by_name(format.encoder);
             if (encoder == null) {
                 throw new IOException("Could not find encoder");
             }
@@ -209,6 +270,12 @@ public class ImageConverter {
         }
     }
 
+    private static void checkTimeout(long start, long timeout) throws IOException {
+        if (System.nanoTime() - start > timeout) {
+            throw new IOException("Conversion timed out");
+        }
+    }
+
     private static final class ReadPointer extends AVIOContext.Read_packet_Pointer_BytePointer_int {
         public static final ReadPointer INSTANCE = new ReadPointer();
 
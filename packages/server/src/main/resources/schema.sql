@@ -15,6 +15,7 @@ BEGIN
     DELETE FROM `password_recovery` WHERE `active` IS NOT NULL AND `active` < NOW();
     DELETE FROM `git_hub_integration` WHERE `active` IS NOT NULL AND `active` < NOW();
     DELETE FROM `git_hub_task` WHERE `active` IS NOT NULL AND `active` < NOW();
+    DELETE `e` FROM `audit_log_entry` `e` JOIN `project` `p` ON `e`.`project_id` = `p`.`id` WHERE `p`.`active` IS NOT NULL AND `p`.`active` < NOW();
     DELETE FROM `project` WHERE `active` IS NOT NULL AND `active` < NOW();
     DELETE FROM `status` WHERE `active` IS NOT NULL AND `active` < NOW();
     DELETE FROM `status` WHERE `active` IS NOT NULL AND `active` < NOW();
@@ -23,3 +24,55 @@ BEGIN
     -- userów trzeba inaczej
     DELETE FROM `workspace` WHERE `active` IS NOT NULL AND `active` < NOW();
 END ^;
+
+CREATE TABLE IF NOT EXISTS `audit_log_entry` (
+    `id` bigint NOT NULL AUTO_INCREMENT,
+    `date` datetime(6) NOT NULL,
+    `user_id` bigint NULL,
+    `project_id` bigint NOT NULL,
+    `type` varchar(255) NOT NULL,
+    `changes` mediumblob NOT NULL,
+    PRIMARY KEY (`id`, `date`),
+    KEY `idx_audit_log_entry_project_date` (`project_id`, `date`, `id`)
+) PARTITION BY RANGE COLUMNS(`date`) (PARTITION `p_future` VALUES LESS THAN (MAXVALUE)) ^;
+
+CREATE TABLE IF NOT EXISTS `audit_log_outbox` (
+    `id` bigint NOT NULL AUTO_INCREMENT,
+    `date` datetime(6) NOT NULL,
+    `user_id` bigint NULL,
+    `project_id` bigint NOT NULL,
+    `type` varchar(255) NOT NULL,
+    `old_values` mediumtext,
+    `new_values` mediumtext,
+    `same_values` mediumtext,
+    PRIMARY KEY (`id`)
+) ^;
+
+CREATE TABLE IF NOT EXISTS `calendar_change` (
+    `id` bigint NOT NULL AUTO_INCREMENT,
+    `date` datetime(3) NOT NULL,
+    `project_id` bigint NOT NULL,
+    `source` varchar(16) NOT NULL,
+    `related_id` bigint NOT NULL,
+    PRIMARY KEY (`id`),
+    KEY `idx_calendar_change_project_date` (`project_id`, `date`)
+) ^;
+
+CREATE TABLE IF NOT EXISTS `event_index` (
+    `owner` tinyint NOT NULL,
+    `owner_id` bigint NOT NULL,
+    `type` tinyint NOT NULL,
+    `project_id` bigint NOT NULL,
+    `related_id` bigint NOT NULL,
+    `name` varchar(255) NOT NULL,
+    `description` text,
+    `start_date` datetime(6),
+    `end_date` datetime(6) NOT NULL,
+    `location` varchar(1000),
+    `range_start` datetime(6) NOT NULL,
+    `range_end` datetime(6) NOT NULL,
+    `final` boolean NOT NULL,
+    PRIMARY KEY (`owner`, `owner_id`, `type`, `project_id`, `related_id`),
+    KEY `idx_event_index_range` (`owner`, `owner_id`, `range_end`),
+    KEY `idx_event_index_entity` (`related_id`, `type`)
+) ^;
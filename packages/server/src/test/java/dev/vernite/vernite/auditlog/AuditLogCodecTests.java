@@ -0,0 +1,72 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.auditlog;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class AuditLogCodecTests {
+
+    @Test
+    void encodeDecodeSmallTest() {
+        String[] values = { "{\"name\":\"old\"}", "{\"name\":\"new\"}", "{\"id\":1}" };
+        byte[] encoded = AuditLogCodec.encode(values[0], values[1], values[2]);
+
+        assertEquals(0, encoded[0]);
+        assertArrayEquals(values, AuditLogCodec.decode(encoded));
+    }
+
+    @Test
+    void encodeDecodeNullTest() {
+        assertArrayEquals(new String[] { null, "{}", null },
+                AuditLogCodec.decode(AuditLogCodec.encode(null, "{}", null)));
+        assertArrayEquals(new String[3], AuditLogCodec.decode(AuditLogCodec.encode(null, null, null)));
+    }
+
+    @Test
+    void encodeDecodeLargeTest() {
+        String description = "{\"description\":\"" + "Lorem ipsum dolor sit amet ąę ".repeat(100) + "\"}";
+        byte[] encoded = AuditLogCodec.encode(description, description, null);
+
+        assertEquals(1, encoded[0]);
+        assertTrue(encoded.length < AuditLogCodec.textSize(description, description));
+        assertArrayEquals(new String[] { description, description, null }, AuditLogCodec.decode(encoded));
+    }
+
+    @Test
+    void decodeMalformedTest() {
+        assertThrows(IllegalArgumentException.class, () -> AuditLogCodec.decode(new byte[] { 0, 10, 1 }));
+        assertThrows(IllegalArgumentException.class, () -> AuditLogCodec.decode(new byte[] { 1, 2, 3 }));
+        assertThrows(IllegalArgumentException.class, () -> AuditLogCodec.decode(new byte[] { 7 }));
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package dev.vernite.vernite.auditlog;
+
+import java.sql.Timestamp;
+import java.util.Date;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import dev.vernite.vernite.project.Project;
+import dev.vernite.vernite.project.ProjectRepository;
+import dev.vernite.vernite.projectworkspace.ProjectWorkspace;
+import dev.vernite.vernite.projectworkspace.ProjectWorkspaceRepository;
+import dev.vernite.vernite.user.User;
+import dev.vernite.vernite.user.UserRepository;
+import dev.vernite.vernite.user.UserSession;
+import dev.vernite.vernite.user.UserSessionRepository;
+import dev.vernite.vernite.user.auth.AuthController;
+import dev.vernite.vernite.workspace.Workspace;
+import dev.vernite.vernite.workspace.WorkspaceRepository;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(Lifecycle.PER_CLASS)
+@TestPropertySource({ "classpath:application.properties", "classpath:application-test.properties" })
+class AuditLogControllerTests {
+    @Autowired
+    private WebTestClient client;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserSessionRepository userSessionRepository;
+    @Autowired
+    private WorkspaceRepository workspaceRepository;
+    @Autowired
+    private ProjectRepository projectRepository;
+    @Autowired
+    private ProjectWorkspaceRepository projectWorkspaceRepository;
+
+    private User user;
+    private UserSession session;
+    private Project project;
+
+    @BeforeAll
+    void init() {
+        user = userRepository.findByUsername("Username");
+        if (user == null) {
+            user = userRepository.save(new User("Name", "Surname", "Username", "Email@test.pl", "1"));
+        }
+        session = new UserSession();
+        session.setIp("127.0.0.1");
+        session.setSession("session_token_audit_log_tests");
+        session.setLastUsed(new Date());
+        session.setRemembered(true);
+        session.setUserAgent("userAgent");
+        session.setUser(user);
+        try {
+            session = userSessionRepository.save(session);
+        } catch (DataIntegrityViolationException e) {
+            session = userSessionRepository.findBySession("session_token_audit_log_tests").orElseThrow();
+        }
+        project = projectRepository.save(new Project("Audit Log Tests", ""));
+        Workspace workspace = workspaceRepository.save(new Workspace(1, "Audit Log Tests", user));
+        projectWorkspaceRepository.save(new ProjectWorkspace(project, workspace, 1L));
+
+        insert(1000, user.getId(), "{\"name\":\"user\"}");
+        // changes made outside of request, e.g. by GitHub webhook, have no user
+        insert(2000, null, "{\"name\":\"system\"}");
+    }
+
+    private void insert(long date, Long userId, String newValues) {
+        jdbcTemplate.update(AuditLogWriter.INSERT, new Timestamp(date), userId, project.getId(), "task",
+                AuditLogCodec.encode("{\"name\":\"old\"}", newValues, "{\"id\":1}"));
+    }
+
+    @Test
+    void getAuditLogSystemChange() {
+        client.get().uri("/project/{id}/auditlog", project.getId())
+                .cookie(AuthController.COOKIE_NAME, session.getSession()).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].user").isEmpty()
+                .jsonPath("$[0].newValues.name").isEqualTo("system")
+                .jsonPath("$[1].user.username").isEqualTo(user.getUsername())
+                .jsonPath("$[1].newValues.name").isEqualTo("user");
+    }
+
+    @Test
+    void exportAuditLogSystemChange() {
+        client.get().uri("/project/{id}/auditlog/export", project.getId())
+                .cookie(AuthController.COOKIE_NAME, session.getSession()).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].user").isEmpty()
+                .jsonPath("$[1].user.username").isEqualTo(user.getUsername());
+    }
+}
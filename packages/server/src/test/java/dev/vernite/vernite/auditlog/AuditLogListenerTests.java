@@ -0,0 +1,238 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package dev.vernite.vernite.auditlog;
+
+import static dev.vernite.vernite.utils.Fakes.fake;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.Type;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.vernite.vernite.meeting.Meeting;
+import dev.vernite.vernite.project.Project;
+import dev.vernite.vernite.status.Status;
+import dev.vernite.vernite.task.Task;
+import dev.vernite.vernite.user.User;
+import dev.vernite.vernite.user.UserResolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AuditLogListenerTests {
+
+    private static final String[] MEETING_PROPERTIES = { "name", "description", "location", "participants" };
+
+    private static final String[] TASK_PROPERTIES = { "number", "name", "description" };
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final List<AuditLogEntry> entries = new ArrayList<>();
+
+    private Project project;
+
+    private Meeting meeting;
+
+    private Task task;
+
+    private AuditLogListener listener;
+
+    private static EntityPersister persister(Class<?> mappedClass, String[] properties) {
+        Type[] types = new Type[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            boolean collection = properties[i].equals("participants");
+            types[i] = fake(Type.class, Map.of(
+                    "isCollectionType", args -> collection,
+                    "isEqual", args -> Objects.equals(args[0], args[1])));
+        }
+        return fake(EntityPersister.class, Map.of(
+                "getPropertyNames", args -> properties,
+                "getPropertyTypes", args -> types,
+                "getMappedClass", args -> mappedClass,
+                "getEntityName", args -> mappedClass.getName()));
+    }
+
+    private static void login(Long userId) {
+        RequestContextHolder.setRequestAttributes(fake(RequestAttributes.class, Map.of(
+                "getAttribute", args -> UserResolver.USER_ATTRIBUTE.equals(args[0]) ? userId : null)));
+    }
+
+    @BeforeEach
+    void init() {
+        entries.clear();
+        project = new Project("project", "description");
+        project.setId(3);
+        meeting = new Meeting(project, "meeting", "description", new Date(1000), new Date(2000));
+        meeting.setId(10);
+        var user = new User("Name", "Surname", "Username", "Email@test.pl", "1");
+        task = new Task(1, "task", "description", new Status("open", 0, 0, false, true, project), user, 0, "low");
+        task.setNumber(5);
+        var writer = new AuditLogWriter(null, null, mapper, new SimpleMeterRegistry(), "best-effort", 10, 10) {
+            @Override
+            public void record(AuditLogEntry entry) {
+                entries.add(entry);
+            }
+        };
+        listener = new AuditLogListener(null, writer, mapper);
+        login(7L);
+    }
+
+    @AfterEach
+    void clean() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void insertTest() {
+        Object[] state = { "meeting", "description", "room", null };
+        listener.onPostInsert(new PostInsertEvent(meeting, 10L, state, persister(Meeting.class, MEETING_PROPERTIES),
+                null));
+
+        assertEquals(1, entries.size());
+        var entry = entries.get(0);
+        assertEquals(7L, entry.userId());
+        assertEquals(3, entry.projectId());
+        assertEquals("meeting", entry.type());
+        assertNull(entry.oldValues());
+        assertEquals("{\"name\":\"meeting\",\"description\":\"description\",\"location\":\"room\"}",
+                entry.newValues().toString());
+        assertEquals("{\"id\":10}", entry.sameValues().toString());
+    }
+
+    @Test
+    void updateTest() {
+        Object[] state = { "meeting", "new", "room", null };
+        Object[] oldState = { "meeting", "old", "room", null };
+        listener.onPostUpdate(new PostUpdateEvent(meeting, 10L, state, oldState, new int[] { 1 },
+                persister(Meeting.class, MEETING_PROPERTIES), null));
+
+        assertEquals(1, entries.size());
+        var entry = entries.get(0);
+        assertEquals("{\"description\":\"old\"}", entry.oldValues().toString());
+        assertEquals("{\"description\":\"new\"}", entry.newValues().toString());
+        assertEquals("{\"id\":10,\"name\":\"meeting\"}", entry.sameValues().toString());
+    }
+
+    @Test
+    void updateWithoutDirtyTest() {
+        Object[] state = { "meeting", "new", "room", null };
+        Object[] oldState = { "renamed", "new", "room", null };
+        listener.onPostUpdate(new PostUpdateEvent(meeting, 10L, state, oldState, null,
+                persister(Meeting.class, MEETING_PROPERTIES), null));
+
+        assertEquals(1, entries.size());
+        assertEquals("{\"name\":\"renamed\"}", entries.get(0).oldValues().toString());
+        assertEquals("{\"id\":10}", entries.get(0).sameValues().toString());
+    }
+
+    @Test
+    void updateNothingChangedTest() {
+        Object[] state = { "meeting", "description", "room", null };
+        listener.onPostUpdate(new PostUpdateEvent(meeting, 10L, state, state, new int[0],
+                persister(Meeting.class, MEETING_PROPERTIES), null));
+        listener.onPostUpdate(new PostUpdateEvent(meeting, 10L, state, state, new int[] { 3 },
+                persister(Meeting.class, MEETING_PROPERTIES), null));
+
+        assertTrue(entries.isEmpty());
+    }
+
+    @Test
+    void updateTaskTest() {
+        Object[] state = { 5L, "task", "new" };
+        Object[] oldState = { 5L, "task", "old" };
+        listener.onPostUpdate(new PostUpdateEvent(task, 100L, state, oldState, new int[] { 2 },
+                persister(Task.class, TASK_PROPERTIES), null));
+
+        assertEquals(1, entries.size());
+        // task is identified by number, not database ID
+        assertEquals("{\"id\":5,\"name\":\"task\"}", entries.get(0).sameValues().toString());
+    }
+
+    @Test
+    void deleteTest() {
+        Object[] state = { 5L, "task", "description" };
+        listener.onPostDelete(new PostDeleteEvent(task, 100L, state, persister(Task.class, TASK_PROPERTIES), null));
+
+        assertEquals(1, entries.size());
+        var entry = entries.get(0);
+        assertEquals("{\"id\":5,\"name\":\"task\",\"description\":\"description\"}", entry.oldValues().toString());
+        assertNull(entry.newValues());
+        assertNull(entry.sameValues());
+    }
+
+    @Test
+    void deleteProjectTest() {
+        listener.onPostDelete(new PostDeleteEvent(project, 3L, new Object[0], persister(Project.class,
+                new String[0]), null));
+
+        assertTrue(entries.isEmpty());
+    }
+
+    @Test
+    void systemChangeTest() {
+        RequestContextHolder.resetRequestAttributes();
+        Object[] state = { "meeting", "new", "room", null };
+        Object[] oldState = { "meeting", "old", "room", null };
+        listener.onPostUpdate(new PostUpdateEvent(meeting, 10L, state, oldState, new int[] { 1 },
+                persister(Meeting.class, MEETING_PROPERTIES), null));
+
+        login(null);
+        listener.onPostUpdate(new PostUpdateEvent(meeting, 10L, state, oldState, new int[] { 1 },
+                persister(Meeting.class, MEETING_PROPERTIES), null));
+
+        assertEquals(2, entries.size());
+        assertNull(entries.get(0).userId());
+        assertNull(entries.get(1).userId());
+    }
+
+    @Test
+    void notAuditedTest() {
+        var user = new User("Name", "Surname", "Username", "Email@test.pl", "1");
+        listener.onPostInsert(new PostInsertEvent(user, 1L, new Object[0], persister(User.class, new String[0]),
+                null));
+
+        assertTrue(entries.isEmpty());
+    }
+
+}
@@ -0,0 +1,242 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package dev.vernite.vernite.auditlog;
+
+import static dev.vernite.vernite.utils.Fakes.fake;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.vernite.vernite.user.User;
+import dev.vernite.vernite.user.UserRepository;
+import dev.vernite.vernite.utils.FieldErrorException;
+
+class AuditLogReaderTests {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final List<Object[]> rows = new ArrayList<>();
+
+    private final List<User> users = new ArrayList<>();
+
+    private final List<Object> lookups = new ArrayList<>();
+
+    private String sql;
+
+    private Object[] args;
+
+    private int index;
+
+    private AuditLogReader reader;
+
+    @BeforeEach
+    void init() {
+        rows.clear();
+        users.clear();
+        lookups.clear();
+        sql = null;
+        args = null;
+
+        ResultSet resultSet = fake(ResultSet.class, Map.of(
+                "getLong", args -> rows.get(index)[0],
+                "getObject", args -> rows.get(index)[2],
+                "getTimestamp", args -> rows.get(index)[1],
+                "getString", args -> rows.get(index)[3],
+                "getBytes", args -> rows.get(index)[4]));
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate() {
+            @Override
+            public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+                AuditLogReaderTests.this.sql = sql;
+                AuditLogReaderTests.this.args = args;
+                int limit = (int) args[args.length - 1];
+                List<T> result = new ArrayList<>();
+                try {
+                    for (index = 0; index < Math.min(limit, rows.size()); index++) {
+                        result.add(rowMapper.mapRow(resultSet, index));
+                    }
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+                return result;
+            }
+        };
+        JdbcTemplate streamingJdbcTemplate = new JdbcTemplate() {
+            @Override
+            public void query(String sql, RowCallbackHandler rch, Object... args) {
+                AuditLogReaderTests.this.sql = sql;
+                AuditLogReaderTests.this.args = args;
+                try {
+                    for (index = 0; index < rows.size(); index++) {
+                        rch.processRow(resultSet);
+                    }
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        UserRepository userRepository = fake(UserRepository.class, Map.of("findAllById", args -> {
+            lookups.add(args[0]);
+            List<User> found = new ArrayList<>();
+            for (Object id : (Iterable<?>) args[0]) {
+                users.stream().filter(user -> user.getId() == (long) id).forEach(found::add);
+            }
+            return found;
+        }));
+
+        reader = new AuditLogReader(jdbcTemplate, streamingJdbcTemplate, userRepository, mapper);
+    }
+
+    private void addRow(long id, long date, Long userId) {
+        rows.add(new Object[] { id, new Timestamp(date), userId, "Task",
+                AuditLogCodec.encode("{\"name\":\"old\"}", "{\"name\":\"new\"}", "{\"id\":" + id + "}") });
+    }
+
+    private User addUser(long id) {
+        User user = new User("Name", "Surname", "Username" + id, "Email" + id + "@test.pl", "1");
+        user.setId(id);
+        users.add(user);
+        return user;
+    }
+
+    @Test
+    void readFiltersTest() {
+        AuditLogFilter filter = new AuditLogFilter();
+        filter.setFrom(1000L);
+        filter.setTo(2000L);
+        filter.setType("Task");
+        filter.setUserId(3L);
+        filter.setLimit(10);
+
+        assertEquals(0, reader.read(7, filter).entries().size());
+        assertEquals("SELECT id, date, user_id, type, changes FROM audit_log_entry WHERE project_id = ?"
+                + " AND date >= ? AND date < ? AND type = ? AND user_id = ? ORDER BY date DESC, id DESC LIMIT ?", sql);
+        assertEquals(List.of(7L, new Timestamp(1000), new Timestamp(2000), "Task", 3L, 11), List.of(args));
+        assertEquals(List.of(), lookups);
+    }
+
+    @Test
+    void readCursorTest() {
+        User user = addUser(1);
+        addRow(3, 3000, 1L);
+        addRow(2, 2000, 1L);
+        addRow(1, 2000, 2L);
+        AuditLogFilter filter = new AuditLogFilter();
+        filter.setLimit(2);
+
+        AuditLogReader.Page page = reader.read(7, filter);
+
+        assertEquals(2, page.entries().size());
+        assertEquals("2000_2", page.nextCursor());
+        assertEquals(user, page.entries().get(0).user());
+        assertEquals("{\"id\":3}", page.entries().get(0).sameValues());
+        assertEquals(List.of(7L, 3), List.of(args));
+        assertEquals(1, lookups.size());
+
+        filter.setCursor(page.nextCursor());
+        rows.subList(0, 2).clear();
+        page = reader.read(7, filter);
+
+        assertEquals(1, page.entries().size());
+        assertNull(page.nextCursor());
+        // user was deleted
+        assertNull(page.entries().get(0).user());
+        assertEquals("SELECT id, date, user_id, type, changes FROM audit_log_entry WHERE project_id = ?"
+                + " AND (date < ? OR (date = ? AND id < ?)) ORDER BY date DESC, id DESC LIMIT ?", sql);
+        assertEquals(List.of(7L, new Timestamp(2000), new Timestamp(2000), 2L, 3), List.of(args));
+    }
+
+    @Test
+    void readMalformedCursorTest() {
+        AuditLogFilter filter = new AuditLogFilter();
+        for (String cursor : List.of("", "1", "_1", "a_1", "1_b")) {
+            filter.setCursor(cursor);
+            assertThrows(FieldErrorException.class, () -> reader.read(7, filter));
+        }
+    }
+
+    @Test
+    void exportTest() throws IOException {
+        addUser(1);
+        addUser(2);
+        for (long id = 1200; id > 0; id--) {
+            addRow(id, id * 1000, id % 4 == 0 ? null : id % 4);
+        }
+        AuditLogFilter filter = new AuditLogFilter();
+        filter.setType("Task");
+        filter.setCursor("malformed");
+        filter.setLimit(1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        reader.export(7, filter, out);
+
+        JsonNode entries = mapper.readTree(out.toByteArray());
+        assertEquals(1200, entries.size());
+        assertTrue(entries.get(0).get("user").isNull());
+        assertTrue(entries.get(1).get("user").isNull());
+        assertEquals("Username2", entries.get(2).get("user").get("username").asText());
+        assertEquals("{\"id\":1200}", entries.get(0).get("sameValues").toString());
+        assertEquals("SELECT id, date, user_id, type, changes FROM audit_log_entry WHERE project_id = ?"
+                + " AND type = ? ORDER BY date DESC, id DESC", sql);
+        assertEquals(List.of(7L, "Task"), List.of(args));
+        // all users are looked up in first batch, so later batches do not query
+        assertEquals(List.of(Set.of(1L, 2L, 3L)), lookups);
+    }
+
+    @Test
+    void exportEmptyTest() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        reader.export(7, new AuditLogFilter(), out);
+
+        assertEquals("[]", out.toString());
+        assertEquals(List.of(), lookups);
+    }
+
+}
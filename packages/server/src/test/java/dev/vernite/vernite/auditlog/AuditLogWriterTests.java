@@ -0,0 +1,297 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package dev.vernite.vernite.auditlog;
+
+import static dev.vernite.vernite.utils.Fakes.fake;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AuditLogWriterTests {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final List<List<Object[]>> inserted = new ArrayList<>();
+
+    private final List<Object[]> outbox = new ArrayList<>();
+
+    private final List<Map<String, Object>> outboxRows = new ArrayList<>();
+
+    private final List<Object> deleted = new ArrayList<>();
+
+    private int rollbacks;
+
+    private boolean failInsert;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void init() {
+        inserted.clear();
+        outbox.clear();
+        outboxRows.clear();
+        deleted.clear();
+        rollbacks = 0;
+        failInsert = false;
+        jdbcTemplate = new JdbcTemplate() {
+            @Override
+            public int update(String sql, Object... args) {
+                outbox.add(args);
+                return 1;
+            }
+
+            @Override
+            public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+                int limit = (int) args[0];
+                List<T> result = new ArrayList<>();
+                try {
+                    for (int i = 0; i < Math.min(limit, outboxRows.size()); i++) {
+                        var row = outboxRows.get(i);
+                        ResultSet rs = fake(ResultSet.class, Map.of(
+                                "getLong", a -> row.get(a[0]),
+                                "getObject", a -> row.get(a[0]),
+                                "getTimestamp", a -> row.get(a[0]),
+                                "getString", a -> row.get(a[0])));
+                        result.add(rowMapper.mapRow(rs, i));
+                    }
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+                return result;
+            }
+
+            @Override
+            public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+                if (sql.equals(AuditLogWriter.INSERT)) {
+                    if (failInsert) {
+                        throw new DataAccessResourceFailureException("database is down");
+                    }
+                    inserted.add(new ArrayList<>(batchArgs));
+                } else {
+                    batchArgs.forEach(args -> deleted.add(args[0]));
+                    // moved rows are no longer selected
+                    outboxRows.subList(0, batchArgs.size()).clear();
+                }
+                return new int[batchArgs.size()];
+            }
+        };
+        transactionTemplate = new TransactionTemplate(fake(PlatformTransactionManager.class, Map.of(
+                "getTransaction", args -> new SimpleTransactionStatus(),
+                "commit", args -> null,
+                "rollback", args -> {
+                    rollbacks++;
+                    return null;
+                })));
+    }
+
+    @AfterEach
+    void clean() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private AuditLogWriter writer(String durability, int queueCapacity, int batchSize) {
+        return new AuditLogWriter(jdbcTemplate, transactionTemplate, mapper, new SimpleMeterRegistry(), durability,
+                queueCapacity, batchSize);
+    }
+
+    /**
+     * Starts writer the way the container does; closing returned context stops it.
+     */
+    private AnnotationConfigApplicationContext start(AuditLogWriter writer) {
+        var context = new AnnotationConfigApplicationContext();
+        context.registerBean(AuditLogWriter.class, () -> writer);
+        context.refresh();
+        return context;
+    }
+
+    private AuditLogEntry entry(long userId) {
+        return new AuditLogEntry(new Date(1000), userId, 3, "task", null, mapper.createObjectNode().put("name", "new"),
+                mapper.createObjectNode().put("id", 1));
+    }
+
+    @Test
+    void writeBatchesTest() {
+        var writer = writer("best-effort", 10, 3);
+        for (long i = 1; i <= 7; i++) {
+            writer.record(entry(i));
+        }
+
+        start(writer).close();
+
+        assertEquals(List.of(3, 3, 1), inserted.stream().map(List::size).toList());
+        Object[] row = inserted.get(0).get(0);
+        assertEquals(new Timestamp(1000), row[0]);
+        assertEquals(1L, row[1]);
+        assertEquals(3L, row[2]);
+        assertEquals("task", row[3]);
+        assertArrayEquals(AuditLogCodec.encode(null, "{\"name\":\"new\"}", "{\"id\":1}"), (byte[]) row[4]);
+        assertEquals(7L, inserted.get(2).get(0)[1]);
+    }
+
+    @Test
+    void flushOnStopTest() {
+        var writer = writer("best-effort", 10, 100);
+        try (var context = start(writer)) {
+            writer.record(entry(1));
+            writer.record(entry(2));
+        }
+
+        assertEquals(2, inserted.stream().mapToInt(List::size).sum());
+    }
+
+    @Test
+    void queueFullTest() {
+        var writer = writer("best-effort", 2, 10);
+        writer.record(entry(1));
+        writer.record(entry(2));
+        writer.record(entry(3));
+
+        assertEquals(1, writer.getDroppedCount());
+
+        start(writer).close();
+        assertEquals(2, inserted.stream().mapToInt(List::size).sum());
+    }
+
+    @Test
+    void afterCommitTest() {
+        var writer = writer("best-effort", 10, 10);
+        TransactionSynchronizationManager.initSynchronization();
+        writer.record(entry(1));
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        start(writer).close();
+        assertEquals(1, inserted.size());
+    }
+
+    @Test
+    void rollbackTest() {
+        var writer = writer("best-effort", 10, 10);
+        TransactionSynchronizationManager.initSynchronization();
+        writer.record(entry(1));
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        start(writer).close();
+        assertTrue(inserted.isEmpty());
+    }
+
+    @Test
+    void outboxRecordTest() {
+        var writer = writer("outbox", 10, 10);
+        TransactionSynchronizationManager.initSynchronization();
+
+        writer.record(entry(1));
+
+        // stored in transaction of change, without waiting for commit
+        assertEquals(1, outbox.size());
+        assertArrayEquals(new Object[] { new Timestamp(1000), 1L, 3L, "task", null, "{\"name\":\"new\"}",
+                "{\"id\":1}" }, outbox.get(0));
+        assertTrue(inserted.isEmpty());
+    }
+
+    private void addOutboxRow(long id, Long userId) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("date", new Timestamp(1000));
+        row.put("user_id", userId);
+        row.put("project_id", 3L);
+        row.put("type", "task");
+        row.put("new_values", "{\"name\":\"new\"}");
+        outboxRows.add(row);
+    }
+
+    @Test
+    void drainOutboxTest() {
+        var writer = writer("outbox", 10, 2);
+        addOutboxRow(1, 7L);
+        addOutboxRow(2, null);
+        addOutboxRow(3, 7L);
+
+        writer.drainOutbox();
+
+        assertEquals(List.of(2, 1), inserted.stream().map(List::size).toList());
+        assertEquals(List.of(1L, 2L, 3L), deleted);
+        assertEquals(7L, inserted.get(0).get(0)[1]);
+        assertNull(inserted.get(0).get(1)[1]);
+        assertArrayEquals(AuditLogCodec.encode(null, "{\"name\":\"new\"}", null), (byte[]) inserted.get(0).get(0)[4]);
+        assertEquals(0, rollbacks);
+    }
+
+    @Test
+    void drainOutboxFailureTest() {
+        var writer = writer("outbox", 10, 2);
+        addOutboxRow(1, 7L);
+        failInsert = true;
+
+        writer.drainOutbox();
+
+        // batch is rolled back and stays in outbox for next drain
+        assertEquals(1, rollbacks);
+        assertTrue(deleted.isEmpty());
+        assertEquals(1, outboxRows.size());
+
+        failInsert = false;
+        writer.drainOutbox();
+        assertEquals(List.of(1L), deleted);
+    }
+
+}
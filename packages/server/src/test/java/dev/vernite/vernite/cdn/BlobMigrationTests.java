@@ -0,0 +1,135 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package dev.vernite.vernite.cdn;
+
+import static dev.vernite.vernite.utils.Fakes.fake;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+class BlobMigrationTests {
+
+    private final Map<Long, String> hashes = new TreeMap<>();
+
+    private final Map<Long, byte[]> contents = new TreeMap<>();
+
+    private final List<Object> cleared = new ArrayList<>();
+
+    @TempDir
+    Path root;
+
+    private FileSystemBlobStore store;
+
+    private BlobMigration migration;
+
+    private static String hash(byte[] data) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+
+    @BeforeEach
+    void init() {
+        hashes.clear();
+        contents.clear();
+        cleared.clear();
+        store = new FileSystemBlobStore(root);
+        var jdbcTemplate = new JdbcTemplate() {
+            @Override
+            public List<Map<String, Object>> queryForList(String sql, Object... args) {
+                List<Map<String, Object>> pending = new ArrayList<>();
+                hashes.forEach((id, hash) -> {
+                    if (id > (long) args[0]) {
+                        pending.add(Map.of("id", id, "hash", hash));
+                    }
+                });
+                return pending;
+            }
+
+            @Override
+            public void query(String sql, RowCallbackHandler rch, Object... args) {
+                byte[] content = contents.get((long) args[0]);
+                ResultSet rs = fake(ResultSet.class,
+                        Map.of("getBinaryStream", methodArgs -> new ByteArrayInputStream(content)));
+                try {
+                    rch.processRow(rs);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            @Override
+            public int update(String sql, Object... args) {
+                cleared.add(args[0]);
+                return 1;
+            }
+        };
+        migration = new BlobMigration(jdbcTemplate, store, null);
+    }
+
+    private String add(long id, String hash, String content) {
+        hashes.put(id, hash);
+        contents.put(id, content.getBytes(StandardCharsets.UTF_8));
+        return hash;
+    }
+
+    @Test
+    void migrateTest() throws Exception {
+        String first = add(1, hash("first".getBytes(StandardCharsets.UTF_8)), "first");
+        add(2, "invalid", "second");
+        add(3, hash("third".getBytes(StandardCharsets.UTF_8)), "corrupted");
+        String fourth = add(4, hash("fourth".getBytes(StandardCharsets.UTF_8)), "fourth");
+
+        migration.migrate();
+
+        // files which could not be moved keep content in database
+        assertEquals(List.of(1L, 4L), cleared);
+        assertTrue(store.get(first).exists());
+        assertTrue(store.get(fourth).exists());
+        assertNull(store.get(hashes.get(3L)));
+    }
+
+}
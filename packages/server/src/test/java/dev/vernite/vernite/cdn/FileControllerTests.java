@@ -0,0 +1,194 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package dev.vernite.vernite.cdn;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import dev.vernite.vernite.utils.ImageConverter.Format;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(Lifecycle.PER_CLASS)
+@TestPropertySource({ "classpath:application.properties", "classpath:application-test.properties" })
+class FileControllerTests {
+    private static final String CONTENT = "0123456789abcdefghij";
+
+    @Autowired
+    private WebTestClient client;
+    @Autowired
+    private FileManager fileManager;
+    @Autowired
+    private RenditionRepository renditionRepository;
+
+    private File file;
+
+    @BeforeAll
+    void init() {
+        file = fileManager.uploadFile("text/plain", CONTENT.getBytes(StandardCharsets.UTF_8));
+        rendition(Format.WEBP, "webp rendition");
+        rendition(Format.PNG, "png rendition");
+    }
+
+    private void rendition(Format format, String content) {
+        if (renditionRepository.findByOriginalHashAndWidthAndFormat(file.getHash(), 64, format).isPresent()) {
+            return;
+        }
+        Rendition rendition = new Rendition();
+        rendition.setOriginalHash(file.getHash());
+        rendition.setWidth(64);
+        rendition.setFormat(format);
+        rendition.setHash(fileManager.uploadFile(format.getContentType(),
+                content.getBytes(StandardCharsets.UTF_8)).getHash());
+        renditionRepository.save(rendition);
+    }
+
+    private WebTestClient.ResponseSpec get(String range) {
+        return client.get().uri("/cdn/{hash}", file.getHash()).header(HttpHeaders.RANGE, range).exchange();
+    }
+
+    @Test
+    void getFileSingleRange() {
+        get("bytes=2-5").expectStatus().isEqualTo(206)
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes 2-5/20")
+                .expectHeader().contentLength(4)
+                .expectBody(String.class).isEqualTo("2345");
+
+        get("bytes=-3").expectStatus().isEqualTo(206)
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes 17-19/20")
+                .expectBody(String.class).isEqualTo("hij");
+
+        get("bytes=15-100").expectStatus().isEqualTo(206)
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes 15-19/20")
+                .expectBody(String.class).isEqualTo("fghij");
+    }
+
+    @Test
+    void getFileMultipleRanges() {
+        String body = get("bytes=0-1,10-12").expectStatus().isEqualTo(206)
+                .expectHeader().value(HttpHeaders.CONTENT_TYPE, type -> assertTrue(
+                        type.startsWith("multipart/byteranges; boundary=")))
+                .expectBody(String.class).returnResult().getResponseBody();
+        assertNotNull(body);
+        assertTrue(body.contains("Content-Range: bytes 0-1/20\r\n\r\n01\r\n"));
+        assertTrue(body.contains("Content-Range: bytes 10-12/20\r\n\r\nabc\r\n"));
+
+        // unsatisfiable ranges are skipped when some other range can be served
+        get("bytes=0-1,50-60").expectStatus().isEqualTo(206)
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes 0-1/20")
+                .expectBody(String.class).isEqualTo("01");
+    }
+
+    @Test
+    void getFileOverlappingRanges() {
+        get("bytes=0-15,5-19").expectStatus().isOk()
+                .expectHeader().doesNotExist(HttpHeaders.CONTENT_RANGE)
+                .expectBody(String.class).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void getFileIfRange() {
+        client.get().uri("/cdn/{hash}", file.getHash()).header(HttpHeaders.RANGE, "bytes=2-5")
+                .header(HttpHeaders.IF_RANGE, "\"" + file.getHash() + "\"").exchange()
+                .expectStatus().isEqualTo(206).expectBody(String.class).isEqualTo("2345");
+
+        client.get().uri("/cdn/{hash}", file.getHash()).header(HttpHeaders.RANGE, "bytes=2-5")
+                .header(HttpHeaders.IF_RANGE, "\"other\"").exchange()
+                .expectStatus().isOk().expectBody(String.class).isEqualTo(CONTENT);
+
+        client.get().uri("/cdn/{hash}", file.getHash()).header(HttpHeaders.RANGE, "bytes=2-5")
+                .header(HttpHeaders.IF_RANGE, "Thu, 01 Jan 1970 00:00:00 GMT").exchange()
+                .expectStatus().isOk().expectBody(String.class).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void getFileMalformedRange() {
+        get("bytes=5-2").expectStatus().isOk().expectBody(String.class).isEqualTo(CONTENT);
+        get("bytes=abc").expectStatus().isOk().expectBody(String.class).isEqualTo(CONTENT);
+        get("items=0-1").expectStatus().isOk().expectBody(String.class).isEqualTo(CONTENT);
+        get("bytes=" + "0-0,".repeat(100) + "0-0").expectStatus().isOk()
+                .expectBody(String.class).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void getFileUnsatisfiableRange() {
+        get("bytes=20-").expectStatus().isEqualTo(416)
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes */20");
+        get("bytes=30-40,50-60").expectStatus().isEqualTo(416)
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes */20");
+        get("bytes=-0").expectStatus().isEqualTo(416);
+    }
+
+    @Test
+    void getRenditionNegotiated() {
+        client.get().uri("/cdn/{hash}/rendition?width=64", file.getHash())
+                .header(HttpHeaders.ACCEPT, "image/avif,image/webp,*/*").exchange().expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .expectHeader().contentType("image/webp")
+                .expectBody(String.class).isEqualTo("webp rendition");
+
+        client.get().uri("/cdn/{hash}/rendition?width=64", file.getHash())
+                .header(HttpHeaders.ACCEPT, "image/*").exchange().expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .expectHeader().contentType("image/png")
+                .expectBody(String.class).isEqualTo("png rendition");
+    }
+
+    @Test
+    void getRenditionFormat() {
+        client.get().uri("/cdn/{hash}/rendition?width=64&format=png", file.getHash())
+                .header(HttpHeaders.ACCEPT, "image/webp").exchange().expectStatus().isOk()
+                .expectHeader().doesNotExist(HttpHeaders.VARY)
+                .expectBody(String.class).isEqualTo("png rendition");
+
+        client.get().uri("/cdn/{hash}/rendition?width=64&format=gif", file.getHash()).exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getRenditionWidthNotAllowed() {
+        client.get().uri("/cdn/{hash}/rendition?width=65", file.getHash()).exchange().expectStatus().isBadRequest();
+        client.get().uri("/cdn/{hash}/rendition?width=100000", file.getHash()).exchange()
+                .expectStatus().isBadRequest();
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.cdn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ReadOnlyBufferException;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class HotFileCacheTests {
+
+    @Test
+    void evictionTest() {
+        HotFileCache cache = new HotFileCache(new SimpleMeterRegistry(), 10, 4, true);
+        cache.put("a", "text/plain", 1, new byte[4]);
+        cache.put("b", "text/plain", 1, new byte[4]);
+        assertNotNull(cache.get("a"));
+        cache.put("c", "text/plain", 1, new byte[4]);
+
+        assertEquals(8, cache.size());
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    void acceptsTest() {
+        HotFileCache cache = new HotFileCache(new SimpleMeterRegistry(), 10, 4, false);
+
+        assertTrue(cache.accepts(4));
+        assertFalse(cache.accepts(5));
+    }
+
+    @Test
+    void contentTest() {
+        HotFileCache cache = new HotFileCache(new SimpleMeterRegistry(), 10, 4, true);
+        var entry = cache.put("a", "image/png", 123, new byte[] { 1, 2, 3 });
+
+        assertEquals("image/png", entry.contentType());
+        assertEquals(123, entry.uploaded());
+        assertEquals(3, entry.content().remaining());
+        assertEquals(2, entry.content().get(1));
+        assertThrows(ReadOnlyBufferException.class, () -> entry.content().put(0, (byte) 0));
+    }
+
+    @Test
+    void metricsTest() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        HotFileCache cache = new HotFileCache(registry, 10, 4, true);
+        cache.put("a", "text/plain", 1, new byte[4]);
+        cache.get("a");
+        cache.get("b");
+        cache.served(4);
+
+        assertEquals(0.5, registry.get("vernite.cdn.cache.hit.ratio").gauge().value());
+        assertEquals(4, registry.get("vernite.cdn.cache.served").counter().count());
+        assertEquals(4, registry.get("vernite.cdn.cache.size").gauge().value());
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package dev.vernite.vernite.cdn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import dev.vernite.vernite.utils.ImageConverter.Format;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ImageConversionServiceTests {
+
+    private static final long MB = 1024 * 1024;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void init() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void clean() {
+        release.countDown();
+    }
+
+    private ImageConversionService service(int queueSize, Duration timeout, long nativeMemory) {
+        return new ImageConversionService(null, null, meterRegistry, 1, queueSize, timeout, nativeMemory);
+    }
+
+    /**
+     * Starts conversion which reads image only after test releases it. Image is
+     * not valid, so conversion fails without calling converter.
+     */
+    private CompletableFuture<byte[]> blocked(ImageConversionService service, long size) {
+        return service.convert("image.png", size, () -> {
+            release.await();
+            throw new IOException("invalid image");
+        }, Format.WEBP, 100, 0);
+    }
+
+    private double rejected() {
+        return meterRegistry.get("vernite.image.rejected").counter().count();
+    }
+
+    private double reserved() {
+        return meterRegistry.get("vernite.image.native.reserved").gauge().value();
+    }
+
+    private void awaitReleased() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (reserved() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, reserved());
+    }
+
+    @Test
+    void queueFullTest() throws InterruptedException {
+        var service = service(1, Duration.ofSeconds(30), 1024 * MB);
+        var running = blocked(service, 1);
+        var queued = blocked(service, 1);
+
+        var e = assertThrows(ResponseStatusException.class, () -> blocked(service, 1));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+        assertEquals(1, rejected());
+
+        release.countDown();
+        var error = assertThrows(ExecutionException.class, () -> running.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, error.getCause());
+        assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        awaitReleased();
+
+        // rejected conversion does not keep reserved memory or queue slot
+        assertThrows(ExecutionException.class, () -> blocked(service, 1).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void nativeMemoryTest() throws InterruptedException {
+        // each conversion reserves its size and 16 MB of overhead
+        var service = service(10, Duration.ofSeconds(30), 40 * MB);
+        var first = blocked(service, MB);
+        var second = blocked(service, MB);
+
+        var e = assertThrows(ResponseStatusException.class, () -> blocked(service, MB));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+        assertEquals(1, rejected());
+        assertEquals(34 * MB, reserved());
+        assertThrows(ResponseStatusException.class, () -> blocked(service, 100 * MB));
+
+        release.countDown();
+        assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        awaitReleased();
+        assertThrows(ExecutionException.class, () -> blocked(service, MB).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void timeoutTest() throws InterruptedException {
+        var service = service(10, Duration.ofMillis(50), 1024 * MB);
+        var running = blocked(service, 1);
+        var waiting = service.convert("image.png", 1, () -> new byte[1], Format.WEBP, 100, 0);
+
+        Thread.sleep(100);
+        release.countDown();
+        assertThrows(ExecutionException.class, () -> running.get(5, TimeUnit.SECONDS));
+
+        // conversion waited for worker longer than timeout, so it is not started
+        var error = assertThrows(ExecutionException.class, () -> waiting.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, error.getCause());
+        assertEquals("Conversion timed out", error.getCause().getMessage());
+        assertEquals(1, meterRegistry.get("vernite.image.conversion").tag("result", "failure").timer().count());
+        awaitReleased();
+    }
+
+}
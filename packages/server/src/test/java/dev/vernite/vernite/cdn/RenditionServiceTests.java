@@ -0,0 +1,182 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package dev.vernite.vernite.cdn;
+
+import static dev.vernite.vernite.utils.Fakes.fake;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import dev.vernite.vernite.utils.ImageConverter.Format;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RenditionServiceTests {
+
+    private static final String HASH = "a".repeat(64);
+
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    private final AtomicInteger conversions = new AtomicInteger();
+
+    private final AtomicInteger reads = new AtomicInteger();
+
+    private Optional<Rendition> stored;
+
+    private CompletableFuture<byte[]> converted;
+
+    private Callable<byte[]> reader;
+
+    private RenditionService service;
+
+    @BeforeEach
+    void init() {
+        lookups.set(0);
+        conversions.set(0);
+        reads.set(0);
+        stored = Optional.empty();
+        converted = new CompletableFuture<>();
+        reader = null;
+        var renditionRepository = fake(RenditionRepository.class, Map.of(
+                "findByOriginalHashAndWidthAndFormat", args -> {
+                    lookups.incrementAndGet();
+                    return stored;
+                },
+                "save", args -> args[0]));
+        var fileManager = new FileManager() {
+            @Override
+            public File findFile(String hash) {
+                File f = new File();
+                f.setHash(hash);
+                f.setContentType("image/png");
+                f.setUploaded(new Date());
+                return f;
+            }
+
+            @Override
+            public long getSize(String hash) {
+                return 4;
+            }
+
+            @Override
+            public byte[] readFile(String hash) {
+                reads.incrementAndGet();
+                return new byte[4];
+            }
+
+            @Override
+            public File uploadFile(String contentType, byte[] data) {
+                File f = new File();
+                f.setHash("b".repeat(64));
+                f.setContentType(contentType);
+                return f;
+            }
+        };
+        var conversionService = new ImageConversionService(fileManager, null, new SimpleMeterRegistry(), 1, 1,
+                Duration.ofSeconds(30), 1 << 20) {
+            @Override
+            public CompletableFuture<byte[]> convert(String filename, long size, Callable<byte[]> data,
+                    Format format, int width, int height) {
+                conversions.incrementAndGet();
+                reader = data;
+                return converted;
+            }
+        };
+        service = new RenditionService(renditionRepository, fileManager, conversionService, Set.of(64, 128),
+                Duration.ofMillis(200));
+    }
+
+    @Test
+    void getRenditionWidthNotAllowed() {
+        var e = assertThrows(ResponseStatusException.class, () -> service.getRendition(HASH, 65, Format.WEBP));
+
+        assertEquals(400, e.getStatusCode().value());
+        assertEquals(0, lookups.get());
+    }
+
+    @Test
+    void getRenditionStored() {
+        Rendition rendition = new Rendition();
+        rendition.setHash("c".repeat(64));
+        stored = Optional.of(rendition);
+
+        assertEquals("c".repeat(64), service.getRendition(HASH, 64, Format.WEBP).join());
+        assertEquals("c".repeat(64), service.getRendition(HASH, 64, Format.WEBP).join());
+
+        assertEquals(1, lookups.get());
+        assertEquals(0, conversions.get());
+    }
+
+    @Test
+    void getRenditionGenerated() throws Exception {
+        var first = service.getRendition(HASH, 128, Format.PNG);
+        var second = service.getRendition(HASH, 128, Format.PNG);
+
+        assertFalse(first.isDone());
+        assertEquals(1, conversions.get());
+        // original is read by conversion worker, not by request
+        assertEquals(0, reads.get());
+        reader.call();
+        assertEquals(1, reads.get());
+
+        converted.complete(new byte[] { 1 });
+
+        assertEquals("b".repeat(64), first.join());
+        assertSame(second.join(), first.join());
+        assertEquals("b".repeat(64), service.getRendition(HASH, 128, Format.PNG).join());
+        assertEquals(1, conversions.get());
+    }
+
+    @Test
+    void getRenditionTimeout() {
+        var e = assertThrows(CompletionException.class, () -> service.getRendition(HASH, 64, Format.PNG).join());
+
+        assertTrue(e.getCause() instanceof ResponseStatusException status && status.getStatusCode().value() == 503);
+
+        converted.complete(new byte[] { 1 });
+
+        assertEquals("b".repeat(64), service.getRendition(HASH, 64, Format.PNG).join());
+    }
+
+}
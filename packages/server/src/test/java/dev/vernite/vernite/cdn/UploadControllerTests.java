@@ -0,0 +1,201 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.cdn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import dev.vernite.vernite.user.User;
+import dev.vernite.vernite.user.UserRepository;
+import dev.vernite.vernite.user.UserSession;
+import dev.vernite.vernite.user.UserSessionRepository;
+import dev.vernite.vernite.user.auth.AuthController;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(Lifecycle.PER_CLASS)
+@TestPropertySource({ "classpath:application.properties", "classpath:application-test.properties" })
+class UploadControllerTests {
+    @Autowired
+    private WebTestClient client;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserSessionRepository userSessionRepository;
+    @Autowired
+    private UploadRepository uploadRepository;
+
+    private User user;
+    private UserSession session;
+
+    @BeforeAll
+    void init() {
+        this.user = userRepository.findByUsername("Username");
+        if (this.user == null) {
+            this.user = userRepository.save(new User("Name", "Surname", "Username", "Email@test.pl", "1"));
+        }
+        session = new UserSession();
+        session.setIp("127.0.0.1");
+        session.setSession("session_token_upload_tests");
+        session.setLastUsed(new Date());
+        session.setRemembered(true);
+        session.setUserAgent("userAgent");
+        session.setUser(user);
+        try {
+            session = userSessionRepository.save(session);
+        } catch (DataIntegrityViolationException e) {
+            session = userSessionRepository.findBySession("session_token_upload_tests").orElseThrow();
+        }
+    }
+
+    @BeforeEach
+    void clean() {
+        uploadRepository.deleteAll();
+    }
+
+    private UploadStatus start(long size) {
+        return client.post().uri("/cdn/upload?contentType=text/plain&size={size}", size)
+                .cookie(AuthController.COOKIE_NAME, session.getSession()).exchange().expectStatus().isOk()
+                .expectBody(UploadStatus.class).returnResult().getResponseBody();
+    }
+
+    private WebTestClient.ResponseSpec chunk(String id, long offset, String content) {
+        return client.put().uri("/cdn/upload/{id}?offset={offset}", id, offset)
+                .cookie(AuthController.COOKIE_NAME, session.getSession())
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .bodyValue(content.getBytes(StandardCharsets.UTF_8)).exchange();
+    }
+
+    private static String hash(String content) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void uploadSuccess() throws NoSuchAlgorithmException {
+        String content = "upload tests " + System.nanoTime();
+        UploadStatus upload = start(content.length());
+        assertNotNull(upload);
+        assertEquals(0, upload.offset());
+
+        UploadStatus status = chunk(upload.id(), 0, content.substring(0, 5)).expectStatus().isOk()
+                .expectBody(UploadStatus.class).returnResult().getResponseBody();
+        assertNotNull(status);
+        assertEquals(5, status.offset());
+        assertNull(status.file());
+
+        status = client.get().uri("/cdn/upload/{id}", upload.id())
+                .cookie(AuthController.COOKIE_NAME, session.getSession()).exchange().expectStatus().isOk()
+                .expectBody(UploadStatus.class).returnResult().getResponseBody();
+        assertNotNull(status);
+        assertEquals(5, status.offset());
+
+        status = chunk(upload.id(), 5, content.substring(5)).expectStatus().isOk().expectBody(UploadStatus.class)
+                .returnResult().getResponseBody();
+        assertNotNull(status);
+        assertNotNull(status.file());
+        assertEquals(hash(content), status.file().getHash());
+        assertEquals(0, uploadRepository.count());
+
+        client.get().uri("/cdn/{hash}", status.file().getHash()).exchange().expectStatus().isOk()
+                .expectBody(String.class).isEqualTo(content);
+    }
+
+    @Test
+    void uploadDeduplicated() {
+        String content = "deduplicated " + System.nanoTime();
+        UploadStatus first = start(content.length());
+        UploadStatus second = start(content.length());
+        File f1 = chunk(first.id(), 0, content).expectStatus().isOk().expectBody(UploadStatus.class).returnResult()
+                .getResponseBody().file();
+        File f2 = chunk(second.id(), 0, content).expectStatus().isOk().expectBody(UploadStatus.class).returnResult()
+                .getResponseBody().file();
+
+        assertEquals(f1.getHash(), f2.getHash());
+        assertEquals(f1.getUploaded(), f2.getUploaded());
+    }
+
+    @Test
+    void uploadConflict() {
+        UploadStatus upload = start(10);
+        chunk(upload.id(), 0, "abc").expectStatus().isOk();
+
+        chunk(upload.id(), 0, "abc").expectStatus().isEqualTo(409);
+        chunk(upload.id(), 5, "abc").expectStatus().isEqualTo(409);
+    }
+
+    @Test
+    void uploadTooLarge() {
+        UploadStatus upload = start(3);
+
+        chunk(upload.id(), 0, "abcd").expectStatus().isEqualTo(413);
+        client.post().uri("/cdn/upload?contentType=text/plain&size={size}", Long.MAX_VALUE)
+                .cookie(AuthController.COOKIE_NAME, session.getSession()).exchange().expectStatus().isEqualTo(413);
+    }
+
+    @Test
+    void uploadUnsupportedType() {
+        client.post().uri("/cdn/upload?contentType=text/html&size=10")
+                .cookie(AuthController.COOKIE_NAME, session.getSession()).exchange().expectStatus().isEqualTo(415);
+    }
+
+    @Test
+    void uploadUnauthorized() {
+        client.post().uri("/cdn/upload?contentType=text/plain&size=10").exchange().expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void cancelSuccess() {
+        UploadStatus upload = start(10);
+        client.delete().uri("/cdn/upload/{id}", upload.id()).cookie(AuthController.COOKIE_NAME, session.getSession())
+                .exchange().expectStatus().isOk();
+
+        chunk(upload.id(), 0, "abc").expectStatus().isNotFound();
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package dev.vernite.vernite.cdn;
+
+import static dev.vernite.vernite.utils.Fakes.fake;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.vernite.vernite.user.User;
+
+class UploadManagerTests {
+
+    private final Map<String, Upload> uploads = new HashMap<>();
+
+    private final User user = new User("Name", "Surname", "Username", "Email@test.pl", "1");
+
+    private int failures;
+
+    private String stored;
+
+    private UploadManager manager;
+
+    @TempDir
+    private Path root;
+
+    @BeforeEach
+    void init() throws IOException {
+        uploads.clear();
+        failures = 0;
+        stored = null;
+        UploadRepository repository = fake(UploadRepository.class, Map.of(
+                "sumSizeByUserId", args -> uploads.values().stream().mapToLong(Upload::getSize).sum(),
+                "save", args -> {
+                    uploads.put(((Upload) args[0]).getId(), (Upload) args[0]);
+                    return args[0];
+                },
+                "findById", args -> Optional.ofNullable(uploads.get(args[0])),
+                "delete", args -> uploads.remove(((Upload) args[0]).getId())));
+        FileManager fileManager = new FileManager() {
+            @Override
+            public File uploadFile(String contentType, String hash, Path data) throws IOException {
+                if (failures > 0) {
+                    failures--;
+                    throw new IOException("store unavailable");
+                }
+                stored = hash;
+                Files.delete(data);
+                File f = new File();
+                f.setHash(hash);
+                f.setContentType(contentType);
+                return f;
+            }
+        };
+        manager = new UploadManager(repository, fileManager, root, 1000, 10000, Duration.ofDays(1));
+    }
+
+    private UploadStatus append(String id, long offset, String content) {
+        return manager.append(user, id, offset, new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String hash(String content) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void appendSuccess() throws NoSuchAlgorithmException {
+        UploadStatus upload = manager.start(user, "text/plain", 11);
+
+        assertNull(append(upload.id(), 0, "hello ").file());
+        UploadStatus status = append(upload.id(), 6, "world");
+
+        assertNotNull(status.file());
+        assertEquals(hash("hello world"), status.file().getHash());
+        assertFalse(uploads.containsKey(upload.id()));
+    }
+
+    @Test
+    void appendRetryAfterFailedStore() throws NoSuchAlgorithmException {
+        UploadStatus upload = manager.start(user, "text/plain", 11);
+        append(upload.id(), 0, "hello ");
+        failures = 1;
+
+        assertThrows(UncheckedIOException.class, () -> append(upload.id(), 6, "world"));
+        assertNull(stored);
+        assertEquals(11, manager.status(user, upload.id()).offset());
+
+        UploadStatus status = append(upload.id(), 11, "");
+
+        assertNotNull(status.file());
+        assertEquals(hash("hello world"), stored);
+        assertFalse(uploads.containsKey(upload.id()));
+    }
+
+}
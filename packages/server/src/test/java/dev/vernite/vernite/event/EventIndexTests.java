@@ -0,0 +1,156 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package dev.vernite.vernite.event;
+
+import static dev.vernite.vernite.utils.Fakes.persister;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import dev.vernite.vernite.project.Project;
+import dev.vernite.vernite.status.Status;
+import dev.vernite.vernite.task.Task;
+import dev.vernite.vernite.user.User;
+
+class EventIndexTests {
+
+    private static final String[] TASK_PROPERTIES = { "name", "description", "deadline", "priority", "storyPoints" };
+
+    private static final String[] PROJECT_PROPERTIES = { "name", "description", "active" };
+
+    private final List<String> updates = new ArrayList<>();
+
+    private final List<SqlParameterSource> inserted = new ArrayList<>();
+
+    private Project project;
+
+    private Task task;
+
+    private EventIndex index;
+
+    @BeforeEach
+    void init() {
+        updates.clear();
+        inserted.clear();
+        project = new Project("project", "description");
+        project.setId(3);
+        var user = new User("Name", "Surname", "Username", "Email@test.pl", "1");
+        user.setId(7);
+        task = new Task(1, "task", "description", new Status("open", 0, 0, false, true, project), user, 0, "low");
+        task.setNumber(5);
+        task.setDeadline(new Date(1000));
+        task.setAssignee(user);
+        var jdbcTemplate = new NamedParameterJdbcTemplate(new org.springframework.jdbc.core.JdbcTemplate()) {
+            @Override
+            public int update(String sql, Map<String, ?> params) {
+                updates.add(sql);
+                return 1;
+            }
+
+            @Override
+            public int[] batchUpdate(String sql, SqlParameterSource[] params) {
+                inserted.addAll(List.of(params));
+                return new int[params.length];
+            }
+        };
+        index = new EventIndex(null, jdbcTemplate);
+    }
+
+    private void update(Object entity, String[] properties, int... dirty) {
+        index.onPostUpdate(new PostUpdateEvent(entity, 1L, null, null, dirty, persister(properties), null));
+    }
+
+    @Test
+    void rowsOfTask() {
+        var rows = index.rows(task);
+
+        assertEquals(2, rows.size());
+        assertEquals(EventIndex.Owner.PROJECT, rows.get(0).owner());
+        assertEquals(3, rows.get(0).ownerId());
+        assertEquals(EventIndex.Owner.USER, rows.get(1).owner());
+        assertEquals(7, rows.get(1).ownerId());
+        assertEquals(Event.Type.TASK_DEADLINE, rows.get(0).event().getType());
+        assertEquals(5, rows.get(0).event().getRelatedId());
+    }
+
+    @Test
+    void rowsOfDeletedProject() {
+        project.softDelete();
+
+        assertTrue(index.rows(task).isEmpty());
+    }
+
+    @Test
+    void updateRelevant() {
+        update(task, TASK_PROPERTIES, 2);
+
+        assertEquals(1, updates.size());
+        assertTrue(updates.get(0).startsWith("DELETE FROM event_index WHERE project_id = :projectId AND"));
+        assertEquals(2, inserted.size());
+    }
+
+    @Test
+    void updateNotRelevant() {
+        update(task, TASK_PROPERTIES, 3, 4);
+
+        assertTrue(updates.isEmpty());
+        assertTrue(inserted.isEmpty());
+    }
+
+    @Test
+    void updateUnknownDirtyProperties() {
+        index.onPostUpdate(new PostUpdateEvent(task, 1L, null, null, null, persister(TASK_PROPERTIES), null));
+
+        assertEquals(1, updates.size());
+        assertEquals(2, inserted.size());
+    }
+
+    @Test
+    void updateProjectDeleted() {
+        update(project, PROJECT_PROPERTIES, 0);
+
+        assertTrue(updates.isEmpty());
+
+        project.softDelete();
+        update(project, PROJECT_PROPERTIES, 2);
+
+        assertEquals(List.of("DELETE FROM event_index WHERE project_id = :projectId"), updates);
+    }
+
+}
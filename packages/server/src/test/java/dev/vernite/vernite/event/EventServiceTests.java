@@ -0,0 +1,127 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+import dev.vernite.vernite.project.Project;
+import dev.vernite.vernite.user.User;
+
+class EventServiceTests {
+
+    private static Event event(Event.Type type, long id, Long start, long end) {
+        return new Event(1, type, id, "Event " + id, "", start == null ? null : new Date(start), new Date(end), null);
+    }
+
+    @Test
+    void mergeTest() {
+        var meetings = List.of(event(Event.Type.MEETING, 1, 100L, 200), event(Event.Type.MEETING, 2, 300L, 400));
+        var sprints = List.of(event(Event.Type.SPRINT, 1, 50L, 1000), event(Event.Type.SPRINT, 2, 300L, 350));
+        var deadlines = List.of(event(Event.Type.TASK_DEADLINE, 1, null, 150),
+                event(Event.Type.TASK_DEADLINE, 2, null, 300));
+
+        var expected = new TreeSet<Event>();
+        expected.addAll(meetings);
+        expected.addAll(sprints);
+        expected.addAll(deadlines);
+
+        assertEquals(new ArrayList<>(expected), EventService.merge(List.of(meetings, sprints, deadlines)));
+    }
+
+    @Test
+    void mergeDuplicatesTest() {
+        var first = List.of(event(Event.Type.SPRINT, 1, 0L, 10), event(Event.Type.SPRINT, 2, 5L, 10));
+        var second = List.of(event(Event.Type.SPRINT, 2, 5L, 10));
+
+        assertEquals(first, EventService.merge(List.of(first, second)));
+    }
+
+    @Test
+    void mergeEmptyTest() {
+        assertTrue(EventService.merge(List.of()).isEmpty());
+        assertTrue(EventService.merge(List.of(List.of(), List.of())).isEmpty());
+    }
+
+    private static EventService service(boolean ready, List<Event> indexed, List<Event> provided) {
+        var index = new EventIndex(null, null) {
+            @Override
+            public List<Event> find(Owner owner, long ownerId, Date start, Date end, EventFilter filter) {
+                return indexed;
+            }
+        };
+        index.setReady(ready);
+        EventProvider provider = new EventProvider() {
+            @Override
+            public Collection<Event> provideUserEvents(User user, Date startDate, Date endDate, EventFilter filter) {
+                return provided;
+            }
+
+            @Override
+            public Collection<Event> provideProjectEvents(Project project, Date startDate, Date endDate,
+                    EventFilter filter) {
+                return provided;
+            }
+
+            @Override
+            public String getType() {
+                return Event.Type.MEETING.name();
+            }
+        };
+        return new EventService(index, 1, List.of(provider));
+    }
+
+    @Test
+    void indexReadyTest() {
+        var indexed = List.of(event(Event.Type.MEETING, 1, 100L, 200));
+        var service = service(true, indexed, List.of(event(Event.Type.MEETING, 2, 100L, 200)));
+
+        assertEquals(indexed, service.getUserEvents(new User(), null, null, new EventFilter()));
+        assertEquals(indexed, service.getProjectEvents(new Project(), null, null, new EventFilter()));
+    }
+
+    @Test
+    void indexNotReadyTest() {
+        var provided = List.of(event(Event.Type.MEETING, 2, 300L, 400), event(Event.Type.MEETING, 1, 100L, 200));
+        var service = service(false, List.of(event(Event.Type.MEETING, 3, 100L, 200)), provided);
+
+        assertEquals(List.of(provided.get(1), provided.get(0)),
+                service.getUserEvents(new User(), null, null, new EventFilter()));
+        assertEquals(List.of(provided.get(1), provided.get(0)),
+                service.getProjectEvents(new Project(), null, null, new EventFilter()));
+    }
+
+}
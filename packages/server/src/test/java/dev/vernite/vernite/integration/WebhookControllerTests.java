@@ -0,0 +1,154 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package dev.vernite.vernite.integration;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import dev.vernite.vernite.integration.calendar.CalendarIntegration;
+import dev.vernite.vernite.integration.calendar.CalendarIntegrationRepository;
+import dev.vernite.vernite.project.Project;
+import dev.vernite.vernite.project.ProjectRepository;
+import dev.vernite.vernite.projectworkspace.ProjectWorkspace;
+import dev.vernite.vernite.projectworkspace.ProjectWorkspaceRepository;
+import dev.vernite.vernite.user.User;
+import dev.vernite.vernite.user.UserRepository;
+import dev.vernite.vernite.workspace.Workspace;
+import dev.vernite.vernite.workspace.WorkspaceRepository;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(Lifecycle.PER_CLASS)
+@TestPropertySource({ "classpath:application.properties", "classpath:application-test.properties" })
+class WebhookControllerTests {
+    @Autowired
+    private WebTestClient client;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WorkspaceRepository workspaceRepository;
+    @Autowired
+    private ProjectRepository projectRepository;
+    @Autowired
+    private ProjectWorkspaceRepository projectWorkspaceRepository;
+    @Autowired
+    private CalendarIntegrationRepository calendarRepository;
+
+    private User user;
+    private Project project;
+
+    @BeforeAll
+    void init() {
+        user = userRepository.findByUsername("UsernameCalendar");
+        if (user == null) {
+            user = userRepository.save(new User("Name", "Surname", "UsernameCalendar", "UsernameCalendar", "1"));
+        }
+        project = projectRepository.save(new Project("Calendar Tests", ""));
+        Workspace workspace = workspaceRepository.save(new Workspace(1, "Calendar Tests", user));
+        projectWorkspaceRepository.save(new ProjectWorkspace(project, workspace, 1L));
+    }
+
+    @BeforeEach
+    void clean() {
+        user.setDeleted(null);
+        user = userRepository.save(user);
+        calendarRepository.findByUserAndProjectNull(user).ifPresent(calendarRepository::delete);
+        calendarRepository.findByUserAndProject(user, project).ifPresent(calendarRepository::delete);
+    }
+
+    private WebTestClient.ResponseSpec get(String key, String etag) {
+        var request = client.get().uri("/webhook/calendar?key={key}", key);
+        if (etag != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        return request.exchange();
+    }
+
+    private String getEtag(String key) {
+        String etag = get(key, null).expectStatus().isOk()
+                .expectHeader().exists(WebhookController.SYNC_TOKEN_HEADER)
+                .returnResult(byte[].class).getResponseHeaders().getETag();
+        assertNotNull(etag);
+        return etag;
+    }
+
+    @Test
+    void calendarNotModified() {
+        calendarRepository.save(new CalendarIntegration(user, project, "calendar_tests_project"));
+        String etag = getEtag("calendar_tests_project");
+
+        get("calendar_tests_project", etag).expectStatus().isNotModified();
+
+        project.setName("Calendar Tests Renamed");
+        project = projectRepository.save(project);
+        get("calendar_tests_project", etag).expectStatus().isOk();
+        assertNotEquals(etag, getEtag("calendar_tests_project"));
+    }
+
+    @Test
+    void calendarIntegrationDeleted() {
+        var integration = calendarRepository.save(new CalendarIntegration(user, "calendar_tests_user"));
+        getEtag("calendar_tests_user");
+
+        calendarRepository.delete(integration);
+        get("calendar_tests_user", null).expectStatus().isNotFound();
+    }
+
+    @Test
+    void calendarUserDeleted() {
+        calendarRepository.save(new CalendarIntegration(user, "calendar_tests_user"));
+        calendarRepository.save(new CalendarIntegration(user, project, "calendar_tests_project"));
+        getEtag("calendar_tests_user");
+        getEtag("calendar_tests_project");
+
+        user.setDeleted(new Date());
+        user = userRepository.save(user);
+        get("calendar_tests_user", null).expectStatus().isNotFound();
+        get("calendar_tests_project", null).expectStatus().isNotFound();
+    }
+
+    @Test
+    void calendarNotFound() {
+        get("calendar_tests_missing", null).expectStatus().isNotFound();
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package dev.vernite.vernite.integration.calendar;
+
+import static dev.vernite.vernite.utils.Fakes.persister;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Set;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.vernite.vernite.meeting.Meeting;
+import dev.vernite.vernite.project.Project;
+import dev.vernite.vernite.projectworkspace.ProjectWorkspace;
+import dev.vernite.vernite.user.User;
+import dev.vernite.vernite.workspace.Workspace;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CalendarFeedCacheTests {
+
+    private static final String[] MEETING_PROPERTIES = { "name", "description", "startDate", "project" };
+
+    private static final String[] USER_PROPERTIES = { "name", "deleted", "deletedPermanently" };
+
+    private static final String[] INTEGRATION_PROPERTIES = { "key", "user", "project" };
+
+    private User user;
+
+    private User otherUser;
+
+    private Project project;
+
+    private CalendarIntegration userIntegration;
+
+    private CalendarIntegration projectIntegration;
+
+    private CalendarIntegration otherIntegration;
+
+    private CalendarFeedCache cache;
+
+    private static CalendarFeed feed(long lastModified, long userId, Long... projectIds) {
+        return new CalendarFeed(new byte[0], "etag", lastModified, userId, Set.of(projectIds));
+    }
+
+    @BeforeEach
+    void init() {
+        user = new User("Name", "Surname", "Username", "Email@test.pl", "1");
+        user.setId(1);
+        otherUser = new User("Name", "Surname", "Username2", "Email2@test.pl", "1");
+        otherUser.setId(2);
+        project = new Project("project", "description");
+        project.setId(3);
+        userIntegration = new CalendarIntegration(user, "user");
+        userIntegration.setId(10);
+        projectIntegration = new CalendarIntegration(user, project, "project");
+        projectIntegration.setId(11);
+        otherIntegration = new CalendarIntegration(otherUser, "other");
+        otherIntegration.setId(12);
+        cache = new CalendarFeedCache(null, new SimpleMeterRegistry(), Duration.ofHours(1), 10);
+    }
+
+    private void putAll() {
+        long now = System.currentTimeMillis();
+        cache.put(userIntegration, feed(now, 1, 3L, 4L), cache.version());
+        cache.put(projectIntegration, feed(now, 0, 3L), cache.version());
+        cache.put(otherIntegration, feed(now, 2, 4L), cache.version());
+    }
+
+    private void update(Object entity, String[] properties, int... dirty) {
+        cache.onPostUpdate(new PostUpdateEvent(entity, 1L, null, null, dirty, persister(properties), null));
+    }
+
+    @Test
+    void getPutTest() {
+        assertNull(cache.get("user"));
+
+        var feed = feed(System.currentTimeMillis(), 1, 3L);
+        cache.put(userIntegration, feed, cache.version());
+        assertSame(feed, cache.get("user"));
+
+        cache.put(userIntegration, feed(System.currentTimeMillis() - Duration.ofHours(2).toMillis(), 1, 3L),
+                cache.version());
+        assertNull(cache.get("user"));
+    }
+
+    @Test
+    void putStaleTest() {
+        long version = cache.version();
+        cache.onPostDelete(new PostDeleteEvent(otherIntegration, 12L, null, persister(INTEGRATION_PROPERTIES), null));
+
+        cache.put(userIntegration, feed(System.currentTimeMillis(), 1, 3L), version);
+        assertNull(cache.get("user"));
+    }
+
+    @Test
+    void putFullTest() {
+        cache = new CalendarFeedCache(null, new SimpleMeterRegistry(), Duration.ofHours(1), 2);
+        long now = System.currentTimeMillis();
+        cache.put(userIntegration, feed(now, 1, 3L), cache.version());
+        cache.put(projectIntegration, feed(now, 0, 3L), cache.version());
+        assertNotNull(cache.get("user"));
+        cache.put(otherIntegration, feed(now, 2, 4L), cache.version());
+
+        assertNotNull(cache.get("user"));
+        assertNull(cache.get("project"));
+        assertNotNull(cache.get("other"));
+    }
+
+    @Test
+    void invalidateProjectTest() {
+        var meeting = new Meeting(project, "meeting", "description", new Date(1000), new Date(2000));
+        putAll();
+
+        update(meeting, MEETING_PROPERTIES, 3);
+        assertNotNull(cache.get("user"));
+
+        update(meeting, MEETING_PROPERTIES, 2);
+        assertNull(cache.get("user"));
+        assertNull(cache.get("project"));
+        assertNotNull(cache.get("other"));
+    }
+
+    @Test
+    void invalidateMembershipTest() {
+        putAll();
+
+        var workspace = new Workspace(1, "workspace", otherUser);
+        cache.onPostInsert(new PostInsertEvent(new ProjectWorkspace(project, workspace, 1L), null, null, null,
+                null));
+        assertNull(cache.get("other"));
+        assertNotNull(cache.get("user"));
+        assertNotNull(cache.get("project"));
+    }
+
+    @Test
+    void invalidateIntegrationTest() {
+        putAll();
+
+        update(projectIntegration, INTEGRATION_PROPERTIES, 0);
+        assertNull(cache.get("project"));
+        assertNotNull(cache.get("user"));
+
+        cache.onPostDelete(new PostDeleteEvent(userIntegration, 10L, null, persister(INTEGRATION_PROPERTIES), null));
+        assertNull(cache.get("user"));
+        assertNotNull(cache.get("other"));
+    }
+
+    @Test
+    void invalidateUserTest() {
+        putAll();
+
+        update(user, USER_PROPERTIES, 0);
+        assertNotNull(cache.get("user"));
+
+        update(user, USER_PROPERTIES, 1);
+        assertNull(cache.get("user"));
+        assertNull(cache.get("project"));
+        assertNotNull(cache.get("other"));
+
+        cache.onPostDelete(new PostDeleteEvent(otherUser, 2L, null, persister(USER_PROPERTIES), null));
+        assertNull(cache.get("other"));
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.calendar;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import dev.vernite.vernite.event.Event;
+
+/**
+ * Compares rendering feeds with {@link IcsWriter} and with ical4j object
+ * model. Not run with other tests, run it with
+ * {@code mvn test -Dtest=IcsWriterBenchmark}.
+ */
+class IcsWriterBenchmark {
+
+    private static final int WARMUP = 20;
+
+    private static final int RUNS = 50;
+
+    private interface Renderer {
+        byte[] render(String name, List<Event> events) throws IOException;
+    }
+
+    private static void measure(String label, Renderer renderer, List<Event> events) throws IOException {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP; i++) {
+            renderer.render("Vernite - benchmark user calendar", events);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        int size = 0;
+        for (int i = 0; i < RUNS; i++) {
+            size = renderer.render("Vernite - benchmark user calendar", events).length;
+        }
+        long time = (System.nanoTime() - start) / RUNS;
+        allocated = (threads.getThreadAllocatedBytes(threadId) - allocated) / RUNS;
+        System.out.printf("%-8s %6d events %9d bytes %8.2f ms %12d bytes allocated%n", label, events.size(), size,
+                time / 1e6, allocated);
+    }
+
+    @Test
+    void benchmark() throws IOException {
+        for (int count : new int[] { 100, 1_000, 10_000 }) {
+            List<Event> events = IcsWriterTests.randomEvents(new Random(count), count);
+            measure("ical4j", IcsWriterTests::ical4j, events);
+            measure("writer", IcsWriterTests::write, events);
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.calendar;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.junit.jupiter.api.Test;
+
+import dev.vernite.vernite.event.Event;
+import net.fortuna.ical4j.data.CalendarOutputter;
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.component.VEvent;
+import net.fortuna.ical4j.model.property.CalScale;
+import net.fortuna.ical4j.model.property.Description;
+import net.fortuna.ical4j.model.property.Location;
+import net.fortuna.ical4j.model.property.ProdId;
+import net.fortuna.ical4j.model.property.Uid;
+import net.fortuna.ical4j.model.property.Version;
+import net.fortuna.ical4j.model.property.XProperty;
+
+class IcsWriterTests {
+
+    private static final String ALPHABET = "abc XYZ 019,;:\\\"\t\r\nąęż€-_";
+
+    /**
+     * Renders events the way feeds were rendered with ical4j object model.
+     */
+    static byte[] ical4j(String name, List<Event> events) throws IOException {
+        Calendar calendar = new Calendar();
+        calendar.getProperties().add(new XProperty("X-WR-CALNAME", name));
+        calendar.getProperties().add(new ProdId("-//Vernite//EN"));
+        calendar.getProperties().add(Version.VERSION_2_0);
+        calendar.getProperties().add(CalScale.GREGORIAN);
+        for (Event event : events) {
+            VEvent calEvent;
+            if (event.getStartDate() == null) {
+                calEvent = new VEvent(new net.fortuna.ical4j.model.Date(event.getEndDate()), event.getName());
+            } else {
+                calEvent = new VEvent(new DateTime(event.getStartDate()), new DateTime(event.getEndDate()),
+                        event.getName());
+            }
+            calEvent.getProperties().add(new Uid(String.format("project_%d_event_%d_%d", event.getProjectId(),
+                    event.getType().ordinal(), event.getRelatedId())));
+            if (event.getDescription() != null) {
+                calEvent.getProperties().add(new Description(event.getDescription()));
+            }
+            if (event.getLocation() != null) {
+                calEvent.getProperties().add(new Location(event.getLocation()));
+            }
+            calendar.getComponents().add(calEvent);
+        }
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        new CalendarOutputter().output(calendar, new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+        return stream.toByteArray();
+    }
+
+    static byte[] write(String name, List<Event> events) throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        IcsWriter writer = new IcsWriter(stream, Instant.now(), ZoneId.systemDefault());
+        writer.begin(name);
+        for (Event event : events) {
+            writer.event(event);
+        }
+        writer.end();
+        return stream.toByteArray();
+    }
+
+    static List<Event> randomEvents(Random random, int count) {
+        List<Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            var type = Event.Type.values()[random.nextInt(Event.Type.values().length)];
+            long end = 1_600_000_000_000L + random.nextLong(200_000_000_000L);
+            Date start = random.nextBoolean() ? null : new Date(end - random.nextLong(10_000_000_000L));
+            events.add(new Event(random.nextInt(100), type, i, randomText(random, 1 + random.nextInt(120)), 
+                    random.nextBoolean() ? null : randomText(random, random.nextInt(400)), start,
+                    new Date(end), random.nextBoolean() ? null : randomText(random, random.nextInt(80))));
+        }
+        return events;
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            char c = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+            if (c == '\n' && random.nextBoolean()) {
+                builder.append('\r');
+            }
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    private static String withoutStamps(byte[] calendar) {
+        return new String(calendar, StandardCharsets.UTF_8).replaceAll("DTSTAMP:\\d{8}T\\d{6}Z", "DTSTAMP:");
+    }
+
+    private static void assertSameOutput(String name, List<Event> events) throws IOException {
+        assertEquals(withoutStamps(ical4j(name, events)), withoutStamps(write(name, events)));
+    }
+
+    @Test
+    void sameOutputTest() throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < 20; i++) {
+            assertSameOutput("Vernite - user " + i + " user calendar", randomEvents(random, 50));
+        }
+    }
+
+    @Test
+    void sameOutputInTimeZonesTest() throws IOException {
+        TimeZone zone = TimeZone.getDefault();
+        try {
+            for (String id : List.of("Etc/UTC", "GMT", "Europe/Warsaw", "America/Los_Angeles", "Asia/Kolkata")) {
+                TimeZone.setDefault(TimeZone.getTimeZone(id));
+                assertSameOutput("Vernite - project project calendar", randomEvents(new Random(7), 50));
+            }
+        } finally {
+            TimeZone.setDefault(zone);
+        }
+    }
+
+    @Test
+    void emptyCalendarTest() throws IOException {
+        assertSameOutput("Vernite - empty project calendar", List.of());
+    }
+
+    @Test
+    void tombstoneTest() throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        IcsWriter writer = new IcsWriter(stream, Instant.ofEpochSecond(1_700_000_000), ZoneId.of("Etc/UTC"));
+        writer.begin("Vernite");
+        writer.tombstone(3, Event.Type.TASK_DEADLINE, 7);
+        writer.end();
+
+        assertEquals("BEGIN:VCALENDAR\r\nX-WR-CALNAME:Vernite\r\nPRODID:-//Vernite//EN\r\nVERSION:2.0\r\n"
+                + "CALSCALE:GREGORIAN\r\nBEGIN:VEVENT\r\nDTSTAMP:20231114T221320Z\r\nUID:project_3_event_3_7\r\n"
+                + "STATUS:CANCELLED\r\nEND:VEVENT\r\nEND:VCALENDAR\r\n", stream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void surrogatePairNotSplitTest() throws IOException {
+        var event = new Event(1, Event.Type.MEETING, 1, "a😀".repeat(40), null, null, new Date(0), null);
+        String output = new String(write("Vernite", List.of(event)), StandardCharsets.UTF_8);
+
+        assertEquals(-1, output.indexOf('?'));
+        for (String line : output.split("\r\n")) {
+            assertEquals(true, line.length() <= 73, line);
+        }
+        assertEquals("a😀".repeat(40), output.lines().filter(line -> line.startsWith("SUMMARY:") || line.startsWith(" "))
+                .map(line -> line.startsWith(" ") ? line.substring(1) : line.substring(8))
+                .reduce("", String::concat));
+    }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.git.github;
+
+import static dev.vernite.vernite.utils.Fakes.fake;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.hibernate.event.spi.PostInsertEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.vernite.vernite.integration.git.github.api.model.GitHubUser;
+import dev.vernite.vernite.integration.git.github.model.Authorization;
+import dev.vernite.vernite.integration.git.github.model.AuthorizationRepository;
+import dev.vernite.vernite.user.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+
+class GitHubCollaboratorCacheTests {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final List<Authorization> authorizations = new ArrayList<>();
+
+    private final AtomicInteger queries = new AtomicInteger();
+
+    private List<GitHubUser> collaborators;
+
+    private GitHubCollaboratorCache cache;
+
+    @BeforeEach
+    void init() {
+        now.set(0);
+        loads.set(0);
+        queries.set(0);
+        authorizations.clear();
+        collaborators = List.of(new GitHubUser("first", 1, "a"), new GitHubUser("second", 2, "b"));
+        var clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.ofEpochMilli(now.get());
+            }
+        };
+        var repository = fake(AuthorizationRepository.class, Map.of("findByUser", args -> {
+            queries.incrementAndGet();
+            return authorizations.stream().filter(auth -> auth.getUser() == args[0]).toList();
+        }));
+        cache = new GitHubCollaboratorCache(null, repository, new SimpleMeterRegistry(), Duration.ofMinutes(10), 100,
+                clock);
+    }
+
+    private Supplier<Flux<GitHubUser>> loader() {
+        return () -> Flux.defer(() -> {
+            loads.incrementAndGet();
+            return Flux.fromIterable(collaborators);
+        });
+    }
+
+    @Test
+    void getCollaboratorsCached() {
+        assertEquals(Map.of(1L, "first", 2L, "second"), cache.getCollaborators("Owner/Repo", loader()).block());
+        assertEquals(Map.of(1L, "first", 2L, "second"), cache.getCollaborators("owner/repo", loader()).block());
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void getCollaboratorsRefreshedInBackground() {
+        cache.getCollaborators("owner/repo", loader()).block();
+        collaborators = List.of(new GitHubUser("third", 3, "c"));
+        now.set(Duration.ofMinutes(11).toMillis());
+
+        assertEquals(Map.of(1L, "first", 2L, "second"), cache.getCollaborators("owner/repo", loader()).block());
+        assertEquals(Map.of(3L, "third"), cache.getCollaborators("owner/repo", loader()).block());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void getCollaboratorsInvalidated() {
+        cache.getCollaborators("owner/repo", loader()).block();
+        collaborators = List.of(new GitHubUser("third", 3, "c"));
+        cache.invalidate("Owner/Repo");
+
+        assertEquals(Map.of(3L, "third"), cache.getCollaborators("owner/repo", loader()).block());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void getCollaboratorsErrorNotCached() {
+        Supplier<Flux<GitHubUser>> failing = () -> Flux.error(new IllegalStateException("github error"));
+        assertThrows(IllegalStateException.class, () -> cache.getCollaborators("owner/repo", failing).block());
+
+        assertEquals(Map.of(1L, "first", 2L, "second"), cache.getCollaborators("owner/repo", loader()).block());
+    }
+
+    @Test
+    void getGitHubIds() {
+        var user = new User();
+        user.setId(1);
+        var authorization = new Authorization();
+        authorization.setId(7);
+        authorization.setUser(user);
+        authorizations.add(authorization);
+
+        assertEquals(Set.of(7L), cache.getGitHubIds(user));
+        assertEquals(Set.of(7L), cache.getGitHubIds(user));
+        assertEquals(1, queries.get());
+
+        var added = new Authorization();
+        added.setId(8);
+        added.setUser(user);
+        authorizations.add(added);
+        cache.onPostInsert(new PostInsertEvent(added, 8L, null, null, null));
+
+        assertEquals(Set.of(7L, 8L), cache.getGitHubIds(user));
+        assertEquals(2, queries.get());
+    }
+
+}
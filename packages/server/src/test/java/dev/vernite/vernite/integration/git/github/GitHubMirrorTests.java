@@ -0,0 +1,186 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.git.github;
+
+import static dev.vernite.vernite.utils.Fakes.fake;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.vernite.vernite.integration.git.Issue;
+import dev.vernite.vernite.integration.git.github.data.GitHubIssue;
+import dev.vernite.vernite.integration.git.github.model.BranchMirror;
+import dev.vernite.vernite.integration.git.github.model.BranchMirrorRepository;
+import dev.vernite.vernite.integration.git.github.model.IssueMirror;
+import dev.vernite.vernite.integration.git.github.model.IssueMirrorRepository;
+import dev.vernite.vernite.integration.git.github.model.ProjectIntegration;
+import dev.vernite.vernite.integration.git.github.model.ProjectIntegrationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class GitHubMirrorTests {
+
+    private final List<IssueMirror> issues = new ArrayList<>();
+
+    private final List<BranchMirror> branches = new ArrayList<>();
+
+    private final ProjectIntegration integration = new ProjectIntegration();
+
+    private GitHubMirror mirror;
+
+    @BeforeEach
+    void init() {
+        issues.clear();
+        branches.clear();
+        var issueRepository = fake(IssueMirrorRepository.class, Map.of(
+                "findByIntegrationAndNumber", args -> issues.stream()
+                        .filter(issue -> issue.getNumber() == (long) args[1]).findFirst(),
+                "save", args -> {
+                    issues.remove(args[0]);
+                    issues.add((IssueMirror) args[0]);
+                    return args[0];
+                },
+                "delete", args -> issues.remove(args[0])));
+        var branchRepository = fake(BranchMirrorRepository.class, Map.of(
+                "existsByIntegrationAndName", args -> branches.stream()
+                        .anyMatch(branch -> branch.getName().equals(args[1])),
+                "save", args -> branches.add((BranchMirror) args[0]),
+                "deleteByIntegrationAndName", args -> branches.removeIf(branch -> branch.getName().equals(args[1]))));
+        mirror = new GitHubMirror(null, null, issueRepository, branchRepository, null, new SimpleMeterRegistry(),
+                true);
+    }
+
+    private static GitHubIssue issue(String title, String state, long updated) {
+        var issue = new GitHubIssue(7, "https://api.github.com/repos/owner/repo/issues/7", state, title, "body");
+        issue.setUpdatedAt(new Date(updated));
+        return issue;
+    }
+
+    @Test
+    void updateIssue() {
+        mirror.updateIssue(integration, issue("first", "open", 1000), "opened");
+        mirror.updateIssue(integration, issue("second", "closed", 2000), "closed");
+
+        assertEquals(1, issues.size());
+        assertEquals("second", issues.get(0).getTitle());
+        assertEquals("closed", issues.get(0).getState());
+        assertEquals("https://github.com/owner/repo/issues/7", issues.get(0).getUrl());
+    }
+
+    @Test
+    void updateIssueOutOfOrder() {
+        mirror.updateIssue(integration, issue("second", "closed", 2000), "closed");
+        mirror.updateIssue(integration, issue("first", "open", 1000), "opened");
+
+        assertEquals("second", issues.get(0).getTitle());
+        assertEquals("closed", issues.get(0).getState());
+    }
+
+    @Test
+    void updateIssueDeleted() {
+        mirror.updateIssue(integration, issue("first", "open", 1000), "opened");
+        mirror.updateIssue(integration, issue("first", "open", 1000), "deleted");
+
+        assertTrue(issues.isEmpty());
+    }
+
+    @Test
+    void updateBranch() {
+        mirror.updateBranch(integration, "refs/heads/feature", true, false);
+        mirror.updateBranch(integration, "refs/heads/feature", true, false);
+        mirror.updateBranch(integration, "refs/tags/v1", true, false);
+        mirror.updateBranch(integration, "refs/heads/main", false, false);
+
+        assertEquals(1, branches.size());
+        assertEquals("feature", branches.get(0).getName());
+
+        mirror.updateBranch(integration, "refs/heads/feature", false, true);
+
+        assertTrue(branches.isEmpty());
+    }
+
+    @Test
+    void reconcileInBackground() throws InterruptedException {
+        var started = new AtomicInteger();
+        var release = new CountDownLatch(1);
+        var finished = new Semaphore(0);
+        var integrationRepository = fake(ProjectIntegrationRepository.class, Map.of("findAll", args -> {
+            started.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finished.release();
+            return List.of();
+        }));
+        mirror = new GitHubMirror(null, integrationRepository, null, null, null, new SimpleMeterRegistry(), true);
+
+        mirror.reconcile();
+        mirror.reconcile();
+        release.countDown();
+        assertTrue(finished.tryAcquire(5, TimeUnit.SECONDS));
+
+        assertEquals(1, started.get());
+    }
+
+    @Test
+    void normalizeFilters() {
+        assertEquals("open", GitHubMirror.normalizeState(null));
+        assertEquals("closed", GitHubMirror.normalizeState("Closed"));
+        assertNull(GitHubMirror.normalizeState("all"));
+        assertNull(GitHubMirror.normalizeQuery("  "));
+        assertEquals("fix", GitHubMirror.normalizeQuery(" Fix "));
+        assertEquals(12, GitHubMirror.parseNumber("#12"));
+        assertEquals(-1, GitHubMirror.parseNumber("fix"));
+    }
+
+    @Test
+    void matches() {
+        var issue = new Issue(12, null, "Fix login", null, "github");
+
+        assertTrue(GitHubMirror.matches(issue, null));
+        assertTrue(GitHubMirror.matches(issue, "login"));
+        assertTrue(GitHubMirror.matches(issue, "12"));
+        assertFalse(GitHubMirror.matches(issue, "logout"));
+    }
+
+}
@@ -0,0 +1,166 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.git.github;
+
+import static dev.vernite.vernite.utils.Fakes.fake;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.vernite.vernite.integration.git.github.model.Installation;
+import dev.vernite.vernite.integration.git.github.model.ProjectIntegration;
+import dev.vernite.vernite.integration.git.github.model.ProjectIntegrationRepository;
+import dev.vernite.vernite.integration.git.github.model.TaskIntegration;
+import dev.vernite.vernite.integration.git.github.model.TaskIntegrationId;
+import dev.vernite.vernite.integration.git.github.model.TaskIntegrationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class GitHubRoutingTableTests {
+
+    private final List<ProjectIntegration> integrations = new ArrayList<>();
+
+    private final List<TaskIntegration> taskIntegrations = new ArrayList<>();
+
+    private final List<String> queries = new ArrayList<>();
+
+    private ProjectIntegrationRepository integrationRepository;
+
+    private TaskIntegrationRepository taskIntegrationRepository;
+
+    private GitHubRoutingTable table;
+
+    @BeforeEach
+    void init() {
+        integrationRepository = fake(ProjectIntegrationRepository.class, Map.of(
+                "findByRepositoryOwnerAndRepositoryName", args -> {
+                    queries.add("repository " + args[0] + "/" + args[1]);
+                    return integrations.stream().filter(i -> i.getRepositoryOwner().equals(args[0])
+                            && i.getRepositoryName().equals(args[1])).toList();
+                },
+                "getReferenceById", args -> integrations.stream().filter(i -> i.getId() == (long) args[0])
+                        .findFirst().orElseThrow()));
+        taskIntegrationRepository = fake(TaskIntegrationRepository.class, Map.of(
+                "findByProjectIntegrationAndIssueId", args -> {
+                    queries.add("issue " + args[1]);
+                    return taskIntegrations.stream().filter(t -> t.getProjectIntegration() == args[0]
+                            && t.getIssueId() == (long) args[1]).toList();
+                },
+                "getReferenceById", args -> taskIntegrations.stream().filter(t -> t.getId().equals(args[0]))
+                        .findFirst().orElseThrow()));
+        table = table(Duration.ofMinutes(10));
+    }
+
+    private GitHubRoutingTable table(Duration ttl) {
+        return new GitHubRoutingTable(null, integrationRepository, taskIntegrationRepository,
+                new SimpleMeterRegistry(), 100, ttl);
+    }
+
+    private static ProjectIntegration integration(long id, String fullName) {
+        var integration = new ProjectIntegration(fullName, null, null);
+        integration.setId(id);
+        return integration;
+    }
+
+    private static TaskIntegration taskIntegration(long taskId, ProjectIntegration integration, long issueId) {
+        var taskIntegration = new TaskIntegration();
+        taskIntegration.setId(new TaskIntegrationId(taskId, integration.getId(), 0));
+        taskIntegration.setProjectIntegration(integration);
+        taskIntegration.setIssueId(issueId);
+        return taskIntegration;
+    }
+
+    @Test
+    void unknownRepositoryIsCached() {
+        assertEquals(List.of(), table.getIntegrations("owner/repo"));
+        assertEquals(List.of(), table.getIntegrations("owner/repo"));
+
+        assertEquals(List.of("repository owner/repo"), queries);
+    }
+
+    @Test
+    void insertInvalidatesRepository() {
+        table.getIntegrations("owner/repo");
+        var integration = integration(1, "owner/repo");
+        integrations.add(integration);
+        table.onPostInsert(new PostInsertEvent(integration, 1L, null, null, null));
+
+        assertEquals(List.of(integration), table.getIntegrations("owner/repo"));
+        assertEquals(List.of(integration), table.getIntegrations("owner/repo"));
+        assertEquals(List.of("repository owner/repo", "repository owner/repo"), queries);
+    }
+
+    @Test
+    void installationDeleteDropsTable() {
+        var integration = integration(1, "owner/repo");
+        integrations.add(integration);
+        table.getIntegrations("owner/repo");
+        // integrations are removed by database cascade, without event
+        integrations.clear();
+        table.onPostDelete(new PostDeleteEvent(new Installation(), 2L, null, null, null));
+
+        assertEquals(List.of(), table.getIntegrations("owner/repo"));
+        assertEquals(List.of("repository owner/repo", "repository owner/repo"), queries);
+    }
+
+    @Test
+    void expiredEntryIsReloaded() {
+        table = table(Duration.ZERO);
+        table.getIntegrations("owner/repo");
+        table.getIntegrations("owner/repo");
+
+        assertEquals(List.of("repository owner/repo", "repository owner/repo"), queries);
+    }
+
+    @Test
+    void taskIntegrationsAreCachedPerIssue() {
+        var integration = integration(1, "owner/repo");
+        var taskIntegration = taskIntegration(5, integration, 7);
+        taskIntegrations.add(taskIntegration);
+
+        assertEquals(List.of(), table.getTaskIntegrations(integration, 6));
+        assertEquals(List.of(), table.getTaskIntegrations(integration, 6));
+        assertEquals(List.of(taskIntegration), table.getTaskIntegrations(integration, 7));
+        assertEquals(List.of(taskIntegration), table.getTaskIntegrations(integration, 7));
+        assertEquals(List.of("issue 6", "issue 7"), queries);
+
+        taskIntegrations.clear();
+        table.onPostDelete(new PostDeleteEvent(taskIntegration, taskIntegration.getId(), null, null, null));
+
+        assertEquals(List.of(), table.getTaskIntegrations(integration, 7));
+        assertEquals(List.of("issue 6", "issue 7", "issue 7"), queries);
+    }
+
+}
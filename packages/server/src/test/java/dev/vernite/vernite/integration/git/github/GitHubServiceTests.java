@@ -110,6 +110,8 @@ public class GitHubServiceTests {
     private TaskIntegrationRepository issueRepository;
     @Autowired
     private AuthorizationRepository repo;
+    @Autowired
+    private GitHubCollaboratorCache collaboratorCache;
 
     private User user;
     private Project project;
@@ -242,6 +244,7 @@ public class GitHubServiceTests {
         Issue result = service.patchIssue(task).block();
 
         task.setAssignee(user);
+        collaboratorCache.invalidate(integration.getRepositoryFullName());
         tokenCheck();
         mockBackEnd.enqueue(new MockResponse().setBody(MAPPER.writeValueAsString(List.of())).addHeader("Content-Type",
                 "application/json"));
@@ -250,6 +253,7 @@ public class GitHubServiceTests {
 
         result = service.patchIssue(task).block();
 
+        collaboratorCache.invalidate(integration.getRepositoryFullName());
         tokenCheck();
         mockBackEnd.enqueue(new MockResponse()
                 .setBody(MAPPER.writeValueAsString(List.of(new GitHubUser("username", 1, "a")))).addHeader("Content-Type",
@@ -270,7 +274,7 @@ public class GitHubServiceTests {
         installation.setSuspended(true);
         installation = installationRepository.save(installation);
 
-        List<Issue> issue = service.getIssues(project).collectList().block();
+        List<Issue> issue = service.getIssues(project, null).collectList().block();
 
         assertEquals(0, issue.size());
 
@@ -315,7 +319,7 @@ public class GitHubServiceTests {
         installation.setSuspended(true);
         installation = installationRepository.save(installation);
 
-        List<PullRequest> pullRequests = service.getPullRequests(project).collectList().block();
+        List<PullRequest> pullRequests = service.getPullRequests(project, null).collectList().block();
 
         assertEquals(0, pullRequests.size());
 
@@ -374,6 +378,7 @@ public class GitHubServiceTests {
         assertEquals("name", issue.getTitle());
 
         task.setAssignee(user);
+        collaboratorCache.invalidate(integration.getRepositoryFullName());
         tokenCheck();
         mockBackEnd.enqueue(new MockResponse()
                 .setBody(MAPPER.writeValueAsString(List.of())).addHeader("Content-Type", "application/json"));
@@ -383,6 +388,7 @@ public class GitHubServiceTests {
                 .addHeader("Content-Type", "application/json"));
         issue = service.patchPullRequest(task).block();
 
+        collaboratorCache.invalidate(integration.getRepositoryFullName());
         tokenCheck();
         mockBackEnd.enqueue(new MockResponse()
                 .setBody(MAPPER.writeValueAsString(List.of(new GitHubUser("username", 1, "a"))))
@@ -0,0 +1,135 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.git.github;
+
+import static dev.vernite.vernite.utils.Fakes.fake;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import dev.vernite.vernite.integration.git.github.api.GitHubApiClient;
+import dev.vernite.vernite.integration.git.github.api.GitHubConfiguration;
+import dev.vernite.vernite.integration.git.github.api.model.AppToken;
+import dev.vernite.vernite.integration.git.github.model.AuthorizationRepository;
+import dev.vernite.vernite.integration.git.github.model.Installation;
+import dev.vernite.vernite.integration.git.github.model.InstallationRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class GitHubTokenManagerTests {
+
+    @TempDir
+    static Path dir;
+
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+
+    private GitHubTokenManager manager;
+
+    @BeforeEach
+    void init() throws Exception {
+        var generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        Path key = dir.resolve("key.der");
+        Files.write(key, generator.generateKeyPair().getPrivate().getEncoded());
+        var env = new StandardEnvironment();
+        env.getPropertySources().addFirst(new MapPropertySource("test", Map.of("github.app.id", "1",
+                "github.client.id", "id", "github.client.secret", "secret", "github.api.url", "http://localhost",
+                "github.jwt.secret.path", key.toString())));
+        var config = new GitHubConfiguration(env);
+        GitHubApiClient client = fake(GitHubApiClient.class, Map.of("createInstallationAccessToken",
+                args -> Mono.fromCallable(() -> new AppToken("token" + tokenRequests.incrementAndGet(),
+                        Instant.now().plus(Duration.ofHours(1)).toString())).delayElement(Duration.ofMillis(50))));
+        InstallationRepository installations = fake(InstallationRepository.class, Map.of("save", args -> args[0]));
+        AuthorizationRepository authorizations = fake(AuthorizationRepository.class, Map.of());
+        manager = new GitHubTokenManager(client, config, authorizations, installations);
+    }
+
+    private static Installation installation(Duration expiresIn) {
+        var installation = new Installation();
+        installation.setId(1);
+        installation.setToken("old");
+        installation.setExpires(Date.from(Instant.now().plus(expiresIn)));
+        return installation;
+    }
+
+    @Test
+    void refreshValidToken() {
+        var installation = installation(Duration.ofHours(1));
+
+        assertSame(installation, manager.refresh(installation).block());
+        assertEquals(0, tokenRequests.get());
+    }
+
+    @Test
+    void refreshExpiredTokenOnce() {
+        var tokens = Flux.range(0, 20).flatMap(i -> manager.refresh(installation(Duration.ofSeconds(-1))))
+                .map(Installation::getToken).collectList().block();
+
+        assertEquals(1, tokenRequests.get());
+        assertEquals(20, tokens.size());
+        tokens.forEach(token -> assertEquals("token1", token));
+
+        var stale = installation(Duration.ofSeconds(-1));
+        assertEquals("token1", manager.refresh(stale).block().getToken());
+        assertEquals(1, tokenRequests.get());
+    }
+
+    @Test
+    void refreshExpiringTokenInBackground() throws InterruptedException {
+        var installation = installation(Duration.ofMinutes(2));
+
+        assertEquals("old", manager.refresh(installation).block().getToken());
+        Thread.sleep(500);
+        assertEquals(1, tokenRequests.get());
+        assertEquals("token1", manager.refresh(installation(Duration.ofMinutes(2))).block().getToken());
+    }
+
+    @Test
+    void reuseJWT() {
+        String jwt = manager.getJWT();
+
+        assertEquals(jwt, manager.getJWT());
+        assertNotEquals("", jwt);
+    }
+
+}
@@ -62,6 +62,8 @@ import dev.vernite.vernite.integration.git.github.model.ProjectIntegration;
 import dev.vernite.vernite.integration.git.github.model.ProjectIntegrationRepository;
 import dev.vernite.vernite.integration.git.github.model.TaskIntegration;
 import dev.vernite.vernite.integration.git.github.model.TaskIntegrationRepository;
+import dev.vernite.vernite.integration.git.github.model.WebhookDelivery;
+import dev.vernite.vernite.integration.git.github.model.WebhookDeliveryRepository;
 import dev.vernite.vernite.project.Project;
 import dev.vernite.vernite.project.ProjectRepository;
 import dev.vernite.vernite.task.Task;
@@ -89,6 +91,10 @@ public class GitHubWebhookServiceTests {
     private TaskRepository taskRepository;
     @Autowired
     private TaskIntegrationRepository issueRepository;
+    @Autowired
+    private GitHubWebhookInbox inbox;
+    @Autowired
+    private WebhookDeliveryRepository deliveryRepository;
 
     private HmacUtils utils;
 
@@ -147,7 +153,9 @@ public class GitHubWebhookServiceTests {
     void githubSuccessRepositories() throws JsonProcessingException {
         // Test empty repositories remove
         client.post().uri("/webhook/github").header("X-Hub-Signature-256", "sha256=" + utils.hmacHex("{}"))
-                .header("X-GitHub-Event", "installation_repositories").bodyValue("{}").exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "installation_repositories").bodyValue("{}")
+                .exchange().expectStatus().isAccepted();
+        inbox.handlePending();
         // Test not empty repositories remove
         GitHubWebhookData data = new GitHubWebhookData();
         var mockIntegration = new ProjectIntegration("username/repo", project, installation);
@@ -157,7 +165,9 @@ public class GitHubWebhookServiceTests {
                 new GitHubRepository(3, "untitled/test11", false)));
         client.post().uri("/webhook/github")
                 .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
-                .header("X-GitHub-Event", "installation_repositories").bodyValue(data).exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "installation_repositories").bodyValue(data)
+                .exchange().expectStatus().isAccepted();
+        inbox.handlePending();
         assertEquals(false, integrationRepository.findById(mockIntegration.getId()).isPresent());
         assertEquals(true, integrationRepository.findById(integration.getId()).isPresent());
     }
@@ -165,7 +175,8 @@ public class GitHubWebhookServiceTests {
     @Test
     void githubSuccessDefault() {
         client.post().uri("/webhook/github").header("X-Hub-Signature-256", "sha256=" + utils.hmacHex("{}"))
-                .header("X-GitHub-Event", "unknown_event").bodyValue("{}").exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "unknown_event").bodyValue("{}").exchange().expectStatus().isAccepted();
+        inbox.handlePending();
     }
 
     @Test
@@ -176,10 +187,12 @@ public class GitHubWebhookServiceTests {
         data.setRepository(new GitHubRepository(1, integration.getRepositoryFullName(), false));
         client.post().uri("/webhook/github")
                 .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
-                .header("X-GitHub-Event", "issues").bodyValue(data).exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "issues").bodyValue(data).exchange().expectStatus().isAccepted();
+        inbox.handlePending();
         client.post().uri("/webhook/github")
                 .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
-                .header("X-GitHub-Event", "issues").bodyValue(data).exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "issues").bodyValue(data).exchange().expectStatus().isAccepted();
+        inbox.handlePending();
         assertEquals("title",
                 issueRepository.findByProjectIntegrationAndIssueId(integration, 1).get(0).getTask().getName());
         assertEquals(1, issueRepository.findByProjectIntegrationAndIssueId(integration, 1).size());
@@ -188,13 +201,15 @@ public class GitHubWebhookServiceTests {
         data.setIssue(new GitHubIssue(1, "url", "open", "title 2", "body"));
         client.post().uri("/webhook/github")
                 .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
-                .header("X-GitHub-Event", "issues").bodyValue(data).exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "issues").bodyValue(data).exchange().expectStatus().isAccepted();
+        inbox.handlePending();
 
         data.setAction("edited");
         data.setIssue(new GitHubIssue(1, "url", "open", "title 2", "body"));
         client.post().uri("/webhook/github")
                 .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
-                .header("X-GitHub-Event", "issues").bodyValue(data).exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "issues").bodyValue(data).exchange().expectStatus().isAccepted();
+        inbox.handlePending();
         assertEquals("title 2", issueRepository.findByProjectIntegrationAndIssueId(integration, 1).get(0)
                 .getTask().getName());
 
@@ -202,7 +217,8 @@ public class GitHubWebhookServiceTests {
         data.setIssue(new GitHubIssue(1, "url", "closed", "title 2", "body"));
         client.post().uri("/webhook/github")
                 .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
-                .header("X-GitHub-Event", "issues").bodyValue(data).exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "issues").bodyValue(data).exchange().expectStatus().isAccepted();
+        inbox.handlePending();
         assertEquals(project.getStatuses().get(2).getId(),
                 issueRepository.findByProjectIntegrationAndIssueId(integration, 1).get(0)
                         .getTask().getStatus().getId());
@@ -211,7 +227,8 @@ public class GitHubWebhookServiceTests {
         data.setIssue(new GitHubIssue(1, "url", "open", "title 2", "body"));
         client.post().uri("/webhook/github")
                 .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
-                .header("X-GitHub-Event", "issues").bodyValue(data).exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "issues").bodyValue(data).exchange().expectStatus().isAccepted();
+        inbox.handlePending();
         assertEquals(project.getStatuses().get(0).getId(),
         issueRepository.findByProjectIntegrationAndIssueId(integration, 1).get(0)
                         .getTask().getStatus().getId());
@@ -220,13 +237,15 @@ public class GitHubWebhookServiceTests {
         data.setIssue(new GitHubIssue(1, "url", "open", "title 2", "body"));
         client.post().uri("/webhook/github")
                 .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
-                .header("X-GitHub-Event", "issues").bodyValue(data).exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "issues").bodyValue(data).exchange().expectStatus().isAccepted();
+        inbox.handlePending();
         assertEquals(0, issueRepository.findByProjectIntegrationAndIssueId(integration, 1).size());
 
         data.getRepository().setFullName("username/repo2");
         client.post().uri("/webhook/github")
                 .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
-                .header("X-GitHub-Event", "issues").bodyValue(data).exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "issues").bodyValue(data).exchange().expectStatus().isAccepted();
+        inbox.handlePending();
         assertEquals(0, issueRepository.findByProjectIntegrationAndIssueId(integration, 1).size());
     }
 
@@ -237,7 +256,8 @@ public class GitHubWebhookServiceTests {
         data.setCommits(List.of(new GitHubCommit("1", "message without anything interesting")));
         client.post().uri("/webhook/github")
                 .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
-                .header("X-GitHub-Event", "push").bodyValue(data).exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "push").bodyValue(data).exchange().expectStatus().isAccepted();
+        inbox.handlePending();
 
         Task task = taskRepository.save(new Task(1, "TEST", "DESC", project.getStatuses().get(0), user, 1));
 
@@ -246,7 +266,9 @@ public class GitHubWebhookServiceTests {
 
         client.post().uri("/webhook/github")
                 .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
-                .header("X-GitHub-Event", "push").bodyValue(data).exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "push").bodyValue(data).exchange().expectStatus().isAccepted();
+
+        inbox.handlePending();
         assertEquals(project.getStatuses().get(2).getId(),
                 taskRepository.findById(task.getId()).get().getStatus().getId());
 
@@ -254,20 +276,23 @@ public class GitHubWebhookServiceTests {
                 new GitHubCommit("2", "message with something interesting !666")));
         client.post().uri("/webhook/github")
                 .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
-                .header("X-GitHub-Event", "push").bodyValue(data).exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "push").bodyValue(data).exchange().expectStatus().isAccepted();
+        inbox.handlePending();
 
         data.setCommits(List.of(new GitHubCommit("1", "message without anything interesting"),
                 new GitHubCommit("2", "message with something interesting reopen!" + task.getNumber())));
         client.post().uri("/webhook/github")
                 .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
-                .header("X-GitHub-Event", "push").bodyValue(data).exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "push").bodyValue(data).exchange().expectStatus().isAccepted();
+        inbox.handlePending();
         assertEquals(project.getStatuses().get(0).getId(),
                 taskRepository.findById(task.getId()).get().getStatus().getId());
 
         data.getRepository().setFullName("username/repo2");
         client.post().uri("/webhook/github")
                 .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
-                .header("X-GitHub-Event", "push").bodyValue(data).exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "push").bodyValue(data).exchange().expectStatus().isAccepted();
+        inbox.handlePending();
     }
 
     @Test
@@ -277,29 +302,34 @@ public class GitHubWebhookServiceTests {
         data.setAction("unknown");
         client.post().uri("/webhook/github")
                 .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
-                .header("X-GitHub-Event", "installation").bodyValue(data).exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "installation").bodyValue(data).exchange().expectStatus().isAccepted();
+        inbox.handlePending();
 
         data.setInstallation(new GitHubInstallationApi(1, new GitHubUser(1, "login")));
         client.post().uri("/webhook/github")
                 .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
-                .header("X-GitHub-Event", "installation").bodyValue(data).exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "installation").bodyValue(data).exchange().expectStatus().isAccepted();
+        inbox.handlePending();
 
         data.setAction("suspend");
         client.post().uri("/webhook/github")
                 .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
-                .header("X-GitHub-Event", "installation").bodyValue(data).exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "installation").bodyValue(data).exchange().expectStatus().isAccepted();
+        inbox.handlePending();
         assertEquals(true, installationRepository.findById(1L).get().isSuspended());
 
         data.setAction("unsuspend");
         client.post().uri("/webhook/github")
                 .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
-                .header("X-GitHub-Event", "installation").bodyValue(data).exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "installation").bodyValue(data).exchange().expectStatus().isAccepted();
+        inbox.handlePending();
         assertEquals(false, installationRepository.findById(1L).get().isSuspended());
 
         data.setAction("deleted");
         client.post().uri("/webhook/github")
                 .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
-                .header("X-GitHub-Event", "installation").bodyValue(data).exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "installation").bodyValue(data).exchange().expectStatus().isAccepted();
+        inbox.handlePending();
         assertEquals(false, installationRepository.findById(installation.getId()).isPresent());
 
         installation = new Installation();
@@ -321,7 +351,8 @@ public class GitHubWebhookServiceTests {
         data.setRepository(new GitHubRepository(1, integration.getRepositoryFullName(), false));
         client.post().uri("/webhook/github")
                 .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
-                .header("X-GitHub-Event", "pull_request").bodyValue(data).exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "pull_request").bodyValue(data).exchange().expectStatus().isAccepted();
+        inbox.handlePending();
 
         Task task = taskRepository.save(new Task(2, "TEST", "DESC", project.getStatuses().get(0), user, 1));
         issueRepository.save(new TaskIntegration(task, integration, data.getPullRequest().getNumber(), TaskIntegration.Type.PULL_REQUEST));
@@ -330,7 +361,8 @@ public class GitHubWebhookServiceTests {
         data.setPullRequest(new GitHubPullRequest(20, "url", "closed", "title", "body", new GitHubBranch("branch")));
         client.post().uri("/webhook/github")
                 .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
-                .header("X-GitHub-Event", "pull_request").bodyValue(data).exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "pull_request").bodyValue(data).exchange().expectStatus().isAccepted();
+        inbox.handlePending();
         assertEquals(project.getStatuses().get(2).getId(),
                 taskRepository.findById(task.getId()).get().getStatus().getId());
 
@@ -338,7 +370,8 @@ public class GitHubWebhookServiceTests {
         data.setPullRequest(new GitHubPullRequest(20, "url", "open", "title", "body", new GitHubBranch("branch")));
         client.post().uri("/webhook/github")
                 .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
-                .header("X-GitHub-Event", "pull_request").bodyValue(data).exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "pull_request").bodyValue(data).exchange().expectStatus().isAccepted();
+        inbox.handlePending();
         assertEquals(project.getStatuses().get(0).getId(),
                 taskRepository.findById(task.getId()).get().getStatus().getId());
 
@@ -346,7 +379,8 @@ public class GitHubWebhookServiceTests {
         data.setPullRequest(new GitHubPullRequest(20, "url", "open", "title 2", "body", new GitHubBranch("branch")));
         client.post().uri("/webhook/github")
                 .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
-                .header("X-GitHub-Event", "pull_request").bodyValue(data).exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "pull_request").bodyValue(data).exchange().expectStatus().isAccepted();
+        inbox.handlePending();
         assertEquals("title 2", taskRepository.findById(task.getId()).get().getName());
 
         data.setAction("closed");
@@ -354,13 +388,53 @@ public class GitHubWebhookServiceTests {
         data.getPullRequest().setMerged(true);
         client.post().uri("/webhook/github")
                 .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
-                .header("X-GitHub-Event", "pull_request").bodyValue(data).exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "pull_request").bodyValue(data).exchange().expectStatus().isAccepted();
+        inbox.handlePending();
         assertEquals("merged", taskRepository.findById(task.getId()).get().getPull().getState());
 
         data.getRepository().setFullName("username/repo2");
         client.post().uri("/webhook/github")
                 .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
-                .header("X-GitHub-Event", "pull_request").bodyValue(data).exchange().expectStatus().isOk();
+                .header("X-GitHub-Event", "pull_request").bodyValue(data).exchange().expectStatus().isAccepted();
+        inbox.handlePending();
         assertEquals("merged", taskRepository.findById(task.getId()).get().getPull().getState());
     }
+
+    @Test
+    void githubSuccessPushManyReferences() throws JsonProcessingException {
+        Task first = taskRepository.save(new Task(1, "FIRST", "DESC", project.getStatuses().get(0), user, 1));
+        Task second = taskRepository.save(new Task(2, "SECOND", "DESC", project.getStatuses().get(0), user, 1));
+
+        GitHubWebhookData data = new GitHubWebhookData();
+        data.setRepository(new GitHubRepository(1, integration.getRepositoryFullName(), false));
+        data.setCommits(List.of(
+                new GitHubCommit("1", "close!" + first.getNumber() + " and !" + second.getNumber()),
+                new GitHubCommit("2", "reopen!" + first.getNumber())));
+        client.post().uri("/webhook/github")
+                .header("X-Hub-Signature-256", "sha256=" + utils.hmacHex(MAPPER.writeValueAsString(data)))
+                .header("X-GitHub-Event", "push").bodyValue(data).exchange().expectStatus().isAccepted();
+        inbox.handlePending();
+
+        assertEquals(project.getStatuses().get(0).getId(),
+                taskRepository.findById(first.getId()).get().getStatus().getId());
+        assertEquals(project.getStatuses().get(2).getId(),
+                taskRepository.findById(second.getId()).get().getStatus().getId());
+    }
+
+    @Test
+    void githubDuplicateDelivery() {
+        for (int i = 0; i < 2; i++) {
+            client.post().uri("/webhook/github").header("X-Hub-Signature-256", "sha256=" + utils.hmacHex("{}"))
+                    .header("X-GitHub-Event", "unknown_event").header("X-GitHub-Delivery", "duplicate-delivery")
+                    .bodyValue("{}").exchange().expectStatus().isAccepted();
+        }
+        assertEquals(true, deliveryRepository.existsByDeliveryId("duplicate-delivery"));
+        assertEquals(1, deliveryRepository.findByRepositoryAndStateOrderByIdAsc("", WebhookDelivery.State.PENDING)
+                .stream().filter(delivery -> delivery.getDeliveryId().equals("duplicate-delivery")).count());
+
+        inbox.handlePending();
+
+        assertEquals(0, deliveryRepository.findByRepositoryAndStateOrderByIdAsc("", WebhookDelivery.State.PENDING)
+                .size());
+    }
 }
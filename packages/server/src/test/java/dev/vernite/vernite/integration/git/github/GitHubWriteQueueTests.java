@@ -0,0 +1,242 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.git.github;
+
+import static dev.vernite.vernite.utils.Fakes.fake;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPairGenerator;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import dev.vernite.vernite.integration.git.Issue;
+import dev.vernite.vernite.integration.git.PullRequest;
+import dev.vernite.vernite.integration.git.github.api.GitHubConfiguration;
+import dev.vernite.vernite.integration.git.github.model.CommentIntegrationRepository;
+import dev.vernite.vernite.integration.git.github.model.PendingWrite;
+import dev.vernite.vernite.integration.git.github.model.PendingWriteRepository;
+import dev.vernite.vernite.integration.git.github.model.ProjectIntegration;
+import dev.vernite.vernite.integration.git.github.model.ProjectIntegrationRepository;
+import dev.vernite.vernite.project.Project;
+import dev.vernite.vernite.status.Status;
+import dev.vernite.vernite.task.Task;
+import dev.vernite.vernite.task.TaskRepository;
+import dev.vernite.vernite.task.comment.CommentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class GitHubWriteQueueTests {
+
+    @TempDir
+    static Path dir;
+
+    private final List<Object[]> updates = new ArrayList<>();
+
+    private final List<PendingWrite> due = new ArrayList<>();
+
+    private final AtomicInteger patches = new AtomicInteger();
+
+    private final Project project = new Project("project", "description");
+
+    private final Task task = new Task(1, "task", "description", new Status("open", 0, 0, false, true, project),
+            null, 0, "low");
+
+    private Optional<ProjectIntegration> integration;
+
+    private Mono<Issue> patchResult;
+
+    private GitHubWriteQueue queue;
+
+    @BeforeEach
+    void init() throws Exception {
+        updates.clear();
+        due.clear();
+        patches.set(0);
+        task.setId(10);
+        integration = Optional.of(new ProjectIntegration());
+        patchResult = Mono.empty();
+
+        var generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        Path key = dir.resolve("key.der");
+        Files.write(key, generator.generateKeyPair().getPrivate().getEncoded());
+        var env = new StandardEnvironment();
+        env.getPropertySources().addFirst(new MapPropertySource("test", Map.of("github.app.id", "1",
+                "github.client.id", "id", "github.client.secret", "secret", "github.api.url", "http://localhost",
+                "github.jwt.secret.path", key.toString())));
+        var service = new GitHubService(new GitHubConfiguration(env), null, null, null, null, null, null,
+                new SimpleMeterRegistry(), 0, 0.2, Duration.ZERO) {
+            @Override
+            public Mono<Issue> patchIssue(Task task) {
+                patches.incrementAndGet();
+                return patchResult;
+            }
+
+            @Override
+            public Mono<PullRequest> patchPullRequest(Task task) {
+                return Mono.empty();
+            }
+        };
+        var jdbcTemplate = new JdbcTemplate() {
+            @Override
+            public int update(String sql, Object... args) {
+                var row = new Object[args.length + 1];
+                row[0] = sql;
+                System.arraycopy(args, 0, row, 1, args.length);
+                updates.add(row);
+                return 1;
+            }
+        };
+        var writeRepository = fake(PendingWriteRepository.class,
+                Map.of("findTop100ByDueLessThanEqualOrderByDueAsc", args -> due));
+        var integrationRepository = fake(ProjectIntegrationRepository.class,
+                Map.of("findByProject", args -> integration));
+        var taskRepository = fake(TaskRepository.class,
+                Map.of("findById", args -> (long) args[0] == task.getId() ? Optional.of(task) : Optional.empty()));
+        queue = new GitHubWriteQueue(jdbcTemplate, writeRepository, integrationRepository, taskRepository,
+                fake(CommentRepository.class, Map.of()), fake(CommentIntegrationRepository.class, Map.of()), service,
+                new SimpleMeterRegistry(), true, Duration.ofSeconds(2), Duration.ofSeconds(30), 3,
+                Duration.ofSeconds(5));
+    }
+
+    private PendingWrite write(long targetId, int attempts) {
+        var write = new PendingWrite();
+        write.setId(5);
+        write.setType(PendingWrite.Type.TASK);
+        write.setTargetId(targetId);
+        write.setRevision(2);
+        write.setAttempts(attempts);
+        due.add(write);
+        return write;
+    }
+
+    @Test
+    void patchTask() {
+        long start = System.currentTimeMillis();
+        queue.patchTask(task);
+
+        assertEquals(1, updates.size());
+        assertTrue(((String) updates.get(0)[0]).startsWith("INSERT"));
+        assertEquals("TASK", updates.get(0)[1]);
+        assertEquals(10L, updates.get(0)[2]);
+        assertTrue(((Timestamp) updates.get(0)[3]).getTime() >= start + 2000);
+        assertTrue(((Timestamp) updates.get(0)[4]).getTime() >= start + 30000);
+        assertEquals(0, patches.get());
+    }
+
+    @Test
+    void patchTaskWithoutIntegration() {
+        integration = Optional.empty();
+        queue.patchTask(task);
+
+        assertTrue(updates.isEmpty());
+    }
+
+    @Test
+    void sendDue() {
+        write(10, 0);
+        queue.sendWrites().block();
+
+        assertEquals(1, patches.get());
+        assertEquals(1, updates.size());
+        assertTrue(((String) updates.get(0)[0]).startsWith("DELETE"));
+        assertEquals(5L, updates.get(0)[1]);
+        assertEquals(2, updates.get(0)[2]);
+    }
+
+    @Test
+    void sendDueMissingTask() {
+        write(11, 0);
+        queue.sendWrites().block();
+
+        assertEquals(0, patches.get());
+        assertTrue(((String) updates.get(0)[0]).startsWith("DELETE"));
+    }
+
+    @Test
+    void sendDueRetry() {
+        patchResult = Mono.error(new IllegalStateException("github error"));
+        write(10, 0);
+        long start = System.currentTimeMillis();
+        queue.sendWrites().block();
+
+        assertEquals(1, updates.size());
+        assertTrue(((String) updates.get(0)[0]).startsWith("UPDATE"));
+        assertEquals(1, updates.get(0)[1]);
+        assertTrue(((Timestamp) updates.get(0)[2]).getTime() >= start + 10000);
+        assertEquals("github error", updates.get(0)[3]);
+        assertEquals(2, updates.get(0)[5]);
+    }
+
+    @Test
+    void sendDueInBackground() throws InterruptedException {
+        Sinks.Empty<Issue> result = Sinks.empty();
+        patchResult = result.asMono();
+        write(10, 0);
+        queue.sendDue();
+        queue.sendDue();
+
+        assertTrue(updates.isEmpty());
+
+        result.tryEmitEmpty();
+        for (int i = 0; i < 500 && updates.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, patches.get());
+        assertEquals(1, updates.size());
+        assertTrue(((String) updates.get(0)[0]).startsWith("DELETE"));
+    }
+
+    @Test
+    void sendDueDropAfterMaxAttempts() {
+        patchResult = Mono.error(new IllegalStateException("github error"));
+        write(10, 2);
+        queue.sendWrites().block();
+
+        assertEquals(1, updates.size());
+        assertTrue(((String) updates.get(0)[0]).startsWith("DELETE"));
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.git.github.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class ConditionalRequestCacheTests {
+
+    private final List<ClientRequest> requests = new ArrayList<>();
+
+    private final List<ClientResponse> responses = new ArrayList<>();
+
+    private SimpleMeterRegistry registry;
+
+    private ConditionalRequestCache cache;
+
+    @BeforeEach
+    void init() {
+        registry = new SimpleMeterRegistry();
+        cache = new ConditionalRequestCache(UnaryOperator.identity(), 1024, 100, registry);
+    }
+
+    private String get(String url) {
+        var request = ClientRequest.create(HttpMethod.GET, URI.create(url))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer token").build();
+        return cache.filter(request, r -> {
+            requests.add(r);
+            return Mono.just(responses.remove(0));
+        }).flatMap(response -> response.bodyToMono(String.class)).block();
+    }
+
+    private static ClientResponse ok(String etag, String body) {
+        return ClientResponse.create(HttpStatus.OK).header(HttpHeaders.ETAG, etag).body(body).build();
+    }
+
+    private double count(String result) {
+        return registry.get("vernite.github.cache").tag("result", result).counter().count();
+    }
+
+    @Test
+    void notModifiedTest() {
+        responses.add(ok("\"a\"", "body"));
+        responses.add(ClientResponse.create(HttpStatus.NOT_MODIFIED).build());
+
+        assertEquals("body", get("http://localhost/repos"));
+        assertEquals("body", get("http://localhost/repos"));
+
+        assertNull(requests.get(0).headers().getFirst(HttpHeaders.IF_NONE_MATCH));
+        assertEquals("\"a\"", requests.get(1).headers().getFirst(HttpHeaders.IF_NONE_MATCH));
+        assertEquals(1, count("miss"));
+        assertEquals(1, count("not-modified"));
+    }
+
+    @Test
+    void modifiedTest() {
+        responses.add(ok("\"a\"", "body"));
+        responses.add(ok("\"b\"", "changed"));
+        responses.add(ClientResponse.create(HttpStatus.NOT_MODIFIED).build());
+
+        get("http://localhost/repos");
+        assertEquals("changed", get("http://localhost/repos"));
+        assertEquals("changed", get("http://localhost/repos"));
+
+        assertEquals("\"b\"", requests.get(2).headers().getFirst(HttpHeaders.IF_NONE_MATCH));
+        assertEquals(1, count("modified"));
+    }
+
+    @Test
+    void tooLargeTest() {
+        responses.add(ok("\"a\"", "x".repeat(101)));
+        responses.add(ok("\"a\"", "x".repeat(101)));
+
+        get("http://localhost/repos");
+        get("http://localhost/repos");
+
+        assertNull(requests.get(1).headers().getFirst(HttpHeaders.IF_NONE_MATCH));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void evictionTest() {
+        for (int i = 0; i < 12; i++) {
+            responses.add(ok("\"a\"", "x".repeat(100)));
+            get("http://localhost/" + i);
+        }
+
+        assertEquals(1000, cache.size());
+        responses.add(ok("\"a\"", "x"));
+        get("http://localhost/0");
+        assertNull(requests.get(12).headers().getFirst(HttpHeaders.IF_NONE_MATCH));
+    }
+
+}
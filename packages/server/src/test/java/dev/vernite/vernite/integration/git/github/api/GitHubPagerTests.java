@@ -0,0 +1,124 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.git.github.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import reactor.core.publisher.Mono;
+
+class GitHubPagerTests {
+
+    private static final String URL = "https://api.github.com/repositories/1/issues?per_page=2&page=";
+
+    private final List<Integer> fetched = new ArrayList<>();
+
+    private Mono<ResponseEntity<List<Integer>>> page(int page, int pages, boolean last) {
+        return Mono.fromCallable(() -> {
+            fetched.add(page);
+            var links = new ArrayList<String>();
+            if (page < pages) {
+                links.add("<" + URL + (page + 1) + ">; rel=\"next\"");
+                if (last) {
+                    links.add("<" + URL + pages + ">; rel=\"last\"");
+                }
+            }
+            var headers = new HttpHeaders();
+            if (!links.isEmpty()) {
+                headers.add(HttpHeaders.LINK, String.join(", ", links));
+            }
+            return ResponseEntity.ok().headers(headers).body(List.of(page * 2 - 1, page * 2));
+        });
+    }
+
+    @Test
+    void paginateWithLastLink() {
+        var items = GitHubPager.paginate(page -> page(page, 5, true)).collectList().block();
+
+        assertEquals(IntStream.rangeClosed(1, 10).boxed().toList(), items);
+        assertEquals(5, fetched.size());
+    }
+
+    @Test
+    void paginateWithNextLink() {
+        var items = GitHubPager.paginate(page -> page(page, 3, false)).collectList().block();
+
+        assertEquals(List.of(1, 2, 3, 4, 5, 6), items);
+        assertEquals(List.of(1, 2, 3), fetched);
+    }
+
+    @Test
+    void paginateSinglePage() {
+        var items = GitHubPager.paginate(page -> page(page, 1, true)).collectList().block();
+
+        assertEquals(List.of(1, 2), items);
+        assertEquals(List.of(1), fetched);
+    }
+
+    @Test
+    void paginateStopsEarly() {
+        var items = GitHubPager.paginate(page -> page(page, 100, true)).take(3).collectList().block();
+
+        assertEquals(List.of(1, 2, 3), items);
+        assertTrue(fetched.size() <= 1 + GitHubPager.CONCURRENCY, "fetched " + fetched);
+
+        fetched.clear();
+        assertEquals(2, GitHubPager.paginate(page -> page(page, 100, false)).take(2).count().block());
+        assertEquals(List.of(1), fetched);
+    }
+
+    @Test
+    void paginateWrappedItems() {
+        var items = GitHubPager.paginate(page -> page(page, 2, true).map(response -> ResponseEntity.ok()
+                .headers(response.getHeaders()).body(Map.of("items", response.getBody()))),
+                (Map<String, List<Integer>> body) -> body.get("items")).collectList().block();
+
+        assertEquals(List.of(1, 2, 3, 4), items);
+    }
+
+    @Test
+    void getPage() {
+        var headers = new HttpHeaders();
+        headers.add(HttpHeaders.LINK, "<" + URL + "2>; rel=\"next\", <" + URL + "7>; rel=\"last\"");
+
+        assertEquals(2, GitHubPager.getPage(headers, "next"));
+        assertEquals(7, GitHubPager.getPage(headers, "last"));
+        assertEquals(0, GitHubPager.getPage(headers, "prev"));
+        assertEquals(0, GitHubPager.getPage(new HttpHeaders(), "next"));
+    }
+
+}
@@ -0,0 +1,182 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package dev.vernite.vernite.integration.git.github.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class RateLimitSchedulerTests {
+
+    private static final long NOW = TimeUnit.SECONDS.toMillis(1_700_000_000);
+
+    private final List<ClientRequest> requests = new ArrayList<>();
+
+    private SimpleMeterRegistry registry;
+
+    private RateLimitScheduler scheduler;
+
+    @BeforeEach
+    void init() {
+        registry = new SimpleMeterRegistry();
+        scheduler = new RateLimitScheduler(UnaryOperator.identity(), 0.2, Duration.ofSeconds(10), registry,
+                Clock.systemUTC());
+    }
+
+    private static HttpHeaders limit(long limit, long remaining, long reset) {
+        var headers = new HttpHeaders();
+        headers.add("X-RateLimit-Limit", Long.toString(limit));
+        headers.add("X-RateLimit-Remaining", Long.toString(remaining));
+        headers.add("X-RateLimit-Reset", Long.toString(TimeUnit.MILLISECONDS.toSeconds(reset)));
+        return headers;
+    }
+
+    private static ClientRequest request(HttpMethod method) {
+        return ClientRequest.create(method, URI.create("https://api.github.com/repos/a/b/issues"))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer token").build();
+    }
+
+    @Test
+    void budgetReservesPartForReads() {
+        var budget = new RateLimitScheduler.Budget(0.2);
+        budget.update(200, limit(10, 3, NOW + 5000), NOW);
+
+        assertEquals(0, budget.acquire(false, NOW));
+        assertEquals(5000, budget.acquire(true, NOW));
+        assertEquals(0, budget.acquire(false, NOW));
+        assertEquals(0, budget.acquire(false, NOW));
+        assertEquals(5000, budget.acquire(false, NOW));
+        assertEquals(0, budget.acquire(true, NOW + 5000));
+    }
+
+    @Test
+    void budgetKeepsLowestRemaining() {
+        var budget = new RateLimitScheduler.Budget(0);
+        budget.update(200, limit(10, 1, NOW + 5000), NOW);
+        budget.update(200, limit(10, 5, NOW + 5000), NOW);
+
+        assertEquals(0.1, budget.getRemainingRatio());
+
+        budget.update(200, limit(10, 9, NOW + 10000), NOW + 6000);
+
+        assertEquals(0.9, budget.getRemainingRatio());
+    }
+
+    @Test
+    void budgetBlockedByRateLimit() {
+        var budget = new RateLimitScheduler.Budget(0);
+        var headers = limit(10, 5, NOW + 5000);
+        headers.add(HttpHeaders.RETRY_AFTER, "2");
+
+        assertEquals(2000, budget.update(403, headers, NOW));
+        assertEquals(2000, budget.acquire(false, NOW));
+        assertEquals(0, budget.acquire(false, NOW + 2000));
+
+        assertEquals(5000, budget.update(403, limit(10, 0, NOW + 5000), NOW));
+        assertEquals(RateLimitScheduler.SECONDARY_LIMIT_WAIT, budget.update(429, new HttpHeaders(), NOW));
+        assertEquals(0, budget.update(403, limit(10, 5, NOW + 5000), NOW));
+    }
+
+    @Test
+    void filterRetriesRateLimitedRequest() {
+        var responses = new ArrayList<>(List.of(
+                ClientResponse.create(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "0").build(),
+                ClientResponse.create(HttpStatus.OK).build()));
+
+        var response = scheduler.filter(request(HttpMethod.GET), r -> {
+            requests.add(r);
+            return Mono.just(responses.remove(0));
+        }).block();
+
+        assertEquals(HttpStatus.OK, response.statusCode());
+        assertEquals(2, requests.size());
+        assertEquals(1, registry.get("vernite.github.rate.limit.exceeded").counter().count());
+        assertEquals(2, registry.get("vernite.github.requests").tag("type", "read").counter().count());
+    }
+
+    @Test
+    void filterSendsWritesOneByOne() {
+        List<Sinks.One<ClientResponse>> pending = new ArrayList<>();
+        List<ClientResponse> results = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            scheduler.filter(request(HttpMethod.PATCH), r -> {
+                Sinks.One<ClientResponse> sink = Sinks.one();
+                pending.add(sink);
+                return sink.asMono();
+            }).subscribe(results::add);
+        }
+
+        assertEquals(1, pending.size());
+
+        pending.get(0).tryEmitValue(ClientResponse.create(HttpStatus.OK).build());
+
+        assertEquals(2, pending.size());
+        assertEquals(1, results.size());
+        assertEquals(2, registry.get("vernite.github.requests").tag("type", "write").counter().count());
+    }
+
+    @Test
+    void filterSendsReadsWhenWaitIsTooLong() {
+        var responses = new ArrayList<>(List.of(
+                ClientResponse.create(HttpStatus.OK).headers(h -> h.addAll(limit(10, 0, NOW + 60000))).build(),
+                ClientResponse.create(HttpStatus.OK).build()));
+        var slow = new RateLimitScheduler(UnaryOperator.identity(), 0, Duration.ZERO, registry,
+                Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC));
+
+        for (int i = 0; i < 2; i++) {
+            slow.filter(request(HttpMethod.GET), r -> {
+                requests.add(r);
+                return Mono.just(responses.remove(0));
+            }).block();
+        }
+
+        assertEquals(2, requests.size());
+        assertEquals(0, slow.getLowestRemainingRatio());
+    }
+
+}
@@ -178,7 +178,7 @@ public class ProjectIntegrationTests {
         Project newProject = projectRepository.save(new Project("NAME", ""));
         projectWorkspaceRepository.save(new ProjectWorkspace(newProject, workspace, 1L));
 
-        List<Issue> issues = controller.getIssues(user, newProject.getId()).collectList().block();
+        List<Issue> issues = controller.getIssues(user, newProject.getId(), null, null).collectList().block();
 
         assertEquals(0, issues.size());
 
@@ -192,7 +192,7 @@ public class ProjectIntegrationTests {
         mockBackEnd.enqueue(new MockResponse().setBody(MAPPER.writeValueAsString(gitHubIssues))
                 .addHeader("Content-Type", "application/json"));
 
-        issues = controller.getIssues(user, project.getId()).collectList().block();
+        issues = controller.getIssues(user, project.getId(), null, null).collectList().block();
 
         assertEquals(4, issues.size());
         assertEquals(gitHubIssues.get(0).getNumber(), issues.get(0).getId());
@@ -229,7 +229,8 @@ public class ProjectIntegrationTests {
         Project newProject = projectRepository.save(new Project("NAME", ""));
         projectWorkspaceRepository.save(new ProjectWorkspace(newProject, workspace, 1L));
 
-        List<PullRequest> pulls = controller.getPullRequests(user, newProject.getId()).collectList().block();
+        List<PullRequest> pulls = controller.getPullRequests(user, newProject.getId(), null, null).collectList()
+                .block();
 
         assertEquals(0, pulls.size());
 
@@ -243,7 +244,7 @@ public class ProjectIntegrationTests {
         mockBackEnd.enqueue(new MockResponse().setBody(MAPPER.writeValueAsString(gitHubPulls))
                 .addHeader("Content-Type", "application/json"));
 
-        pulls = controller.getPullRequests(user, project.getId()).collectList().block();
+        pulls = controller.getPullRequests(user, project.getId(), null, null).collectList().block();
 
         assertEquals(4, pulls.size());
         assertEquals(gitHubPulls.get(0).getNumber(), pulls.get(0).getId());
@@ -0,0 +1,78 @@
+/*
+ * BSD 2-Clause License
+ * 
+ * Copyright (c) 2023, [Aleksandra Serba, Marcin Czerniak, Bartosz Wawrzyniak, Adrian Antkowiak]
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package dev.vernite.vernite.utils;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Hand written fakes for interfaces used by unit tests which do not start
+ * Spring context.
+ */
+public final class Fakes {
+
+    private Fakes() {
+    }
+
+    /**
+     * Creates implementation of interface answering only given methods. Other
+     * methods throw {@link UnsupportedOperationException}.
+     *
+     * @param <T>     type of interface
+     * @param type    interface to implement
+     * @param methods implementations by method name; receive call arguments
+     * @return fake implementation
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T fake(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            var impl = methods.get(method.getName());
+            if (impl == null) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            return impl.apply(args);
+        });
+    }
+
+    /**
+     * Creates entity persister knowing only names of entity properties, which is
+     * enough to build Hibernate events for listeners looking at changed
+     * properties.
+     *
+     * @param properties names of entity properties
+     * @return fake persister
+     */
+    public static EntityPersister persister(String... properties) {
+        return fake(EntityPersister.class, Map.of("getPropertyNames", args -> properties));
+    }
+
+}